@@ -0,0 +1,28 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the data processed by a benchmark, which JMH reports as the {@code megabytes} secondary result in MB/s.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ThroughputCounters {
+
+    private static final double BYTES_PER_MEGABYTE = 1_000_000d;
+
+    public double megabytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        megabytes = 0;
+    }
+
+    public void add(long bytes) {
+        megabytes += bytes / BYTES_PER_MEGABYTE;
+    }
+}
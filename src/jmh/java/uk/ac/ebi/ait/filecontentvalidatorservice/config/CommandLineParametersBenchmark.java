@@ -0,0 +1,57 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ebi.ait.filecontentvalidatorservice.benchmark.ThroughputCounters;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses the files of a job from the {@code fileContentValidator.files} parameter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class CommandLineParametersBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int fileCount;
+
+    private CommandLineParameters commandLineParameters;
+    private long parameterSize;
+
+    @Setup
+    public void setUp() {
+        StringJoiner filesParameter = new StringJoiner(";");
+        for (int i = 0; i < fileCount; i++) {
+            filesParameter.add("validationResultUUID=" + UUID.randomUUID()
+                    + ",validationResultVersion=" + i
+                    + ",fileUUID=" + UUID.randomUUID()
+                    + ",filePath=/nfs/submissions/" + UUID.randomUUID() + "/reads_" + i + ".fastq.gz");
+        }
+
+        commandLineParameters = new CommandLineParameters();
+        commandLineParameters.setCommandLineFileParameters(filesParameter.toString());
+        parameterSize = filesParameter.toString().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Benchmark
+    public List<FileParameters> getFilesData(ThroughputCounters counters) {
+        counters.add(parameterSize);
+        return commandLineParameters.getFilesData();
+    }
+}
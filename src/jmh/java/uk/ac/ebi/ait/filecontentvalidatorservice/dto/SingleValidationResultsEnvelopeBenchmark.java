@@ -0,0 +1,73 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ebi.ait.filecontentvalidatorservice.benchmark.ThroughputCounters;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.MessagingConfiguration;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.publish.CompactMessagePostProcessor;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.publish.MessageEncoding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialises the envelope of a file with many errors the way it is sent to the aggregator, in every wire format.
+ * The counted bytes are the size of the message body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class SingleValidationResultsEnvelopeBenchmark {
+
+    @Param({"100", "10000"})
+    public int resultCount;
+
+    @Param({"json", "gzip", "smile"})
+    public String encoding;
+
+    private ObjectMapper objectMapper;
+    private CompactMessagePostProcessor postProcessor;
+    private SingleValidationResultsEnvelope envelope;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new MessagingConfiguration().jackson2Converter().getObjectMapper();
+        postProcessor = new CompactMessagePostProcessor(MessageEncoding.getByName(encoding), 0);
+
+        String fileUUID = UUID.randomUUID().toString();
+        List<SingleValidationResult> results = new ArrayList<>();
+        for (int i = 0; i < resultCount; i++) {
+            results.add(SingleValidationResultBuilder.buildSingleValidationResultWithErrorStatus(
+                    "Line " + (4 * i + 1) + ": invalid quality character in read HISEQ2:175:C1526ACXX:4:2301:" + i,
+                    fileUUID));
+        }
+        envelope = new SingleValidationResultsEnvelope(results, 1, UUID.randomUUID().toString(),
+                ValidationAuthor.FileContent);
+    }
+
+    @Benchmark
+    public byte[] serialise(ThroughputCounters counters) throws JsonProcessingException {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        byte[] message = postProcessor.postProcessMessage(
+                new Message(objectMapper.writeValueAsBytes(envelope), messageProperties)).getBody();
+        counters.add(message.length);
+        return message;
+    }
+}
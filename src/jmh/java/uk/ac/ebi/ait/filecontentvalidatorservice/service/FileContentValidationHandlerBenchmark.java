@@ -0,0 +1,185 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import uk.ac.ebi.ait.filecontentvalidatorservice.benchmark.ThroughputCounters;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.CommandLineParameters;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.CramReferenceConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.CramStructureConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.DuplicateReadNameConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.ParallelValidationConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.PreflightConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.ReadPairingConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.ReportFileConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.ValidationResultCacheConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.generator.ReadFileGenerator;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.cache.ValidationResultCache;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.BamValidationEngine;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.CramStructureChecker;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.DataFileStreams;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.FastqValidationEngine;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.ValidationEngineRegistry;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.metrics.ValidationMetrics;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.preflight.PreflightChecker;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.reference.CramReferenceStore;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Validates generated read files end to end with
+ * {@link FileContentValidationHandler#handleFileContentValidation(ValidationJobContext)}, with the webin-cli
+ * validators and with the built-in engines. The handler is wired with the default configuration, without the Spring
+ * context and without publishing the results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 20)
+public class FileContentValidationHandlerBenchmark {
+
+    private static final String ENGINE_PROPERTY = "fileContentValidator.engine.%s";
+
+    @Param({"FASTQ", "BAM", "CRAM"})
+    public FileType fileType;
+
+    @Param({"1", "16", "128"})
+    public int sizeMB;
+
+    @Param({"webin-cli", "builtin"})
+    public String engine;
+
+    private Path workDir;
+    private File dataFile;
+    private String submissionUUID;
+    private ExecutorService inflateExecutor;
+    private CommandLineParameters jobParameters;
+    private FileContentValidationHandler validationHandler;
+
+    @Setup
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("file-content-validation-benchmark");
+        dataFile = createDataFile();
+        submissionUUID = UUID.randomUUID().toString();
+
+        ParallelValidationConfig parallelValidationConfig = new ParallelValidationConfig();
+        parallelValidationConfig.setBufferMB(256);
+        inflateExecutor = Executors.newFixedThreadPool(parallelValidationConfig.getInflateThreadCount());
+        DataFileStreams dataFileStreams = new DataFileStreams(parallelValidationConfig, inflateExecutor);
+
+        DuplicateReadNameConfig duplicateReadNameConfig = new DuplicateReadNameConfig();
+        duplicateReadNameConfig.setEnabled(true);
+        duplicateReadNameConfig.setFalsePositiveRate(0.001);
+        duplicateReadNameConfig.setMaxMemoryMB(512);
+        duplicateReadNameConfig.setMaxCandidates(1_000_000);
+        ReadPairingConfig readPairingConfig = new ReadPairingConfig();
+        readPairingConfig.setMaxUnmatchedNames(1_000_000);
+        CramReferenceStore cramReferenceStore = new CramReferenceStore(new CramReferenceConfig(), dataFileStreams);
+
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("benchmark", Collections.singletonMap(
+                String.format(ENGINE_PROPERTY, fileType.name().toLowerCase()), engine)));
+        ValidationEngineRegistry validationEngineRegistry = new ValidationEngineRegistry(Arrays.asList(
+                new FastqValidationEngine(dataFileStreams, duplicateReadNameConfig, readPairingConfig),
+                new BamValidationEngine(dataFileStreams, parallelValidationConfig, inflateExecutor)),
+                environment);
+
+        ReportFileConfig reportFileConfig = new ReportFileConfig();
+        reportFileConfig.setMaxErrors(1000);
+        reportFileConfig.setMaxExamples(3);
+        reportFileConfig.setMaxErrorChars(65536);
+        PreflightConfig preflightConfig = new PreflightConfig();
+        preflightConfig.setEnabled(true);
+
+        jobParameters = createCommandLineParameters();
+        ValidationMetrics validationMetrics = new ValidationMetrics(new SimpleMeterRegistry());
+        validationHandler = new FileContentValidationHandler(reportFileConfig, null,
+                parallelValidationConfig, inflateExecutor,
+                new ValidationResultCache(new ValidationResultCacheConfig(), validationMetrics), validationEngineRegistry,
+                cramReferenceStore, new CramStructureChecker(new CramStructureConfig(), parallelValidationConfig,
+                        inflateExecutor, cramReferenceStore),
+                new PreflightChecker(preflightConfig), validationMetrics, new ReadsValidatorPool());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        inflateExecutor.shutdownNow();
+        delete(workDir);
+        delete(new File("temp", submissionUUID).toPath());
+    }
+
+    @Benchmark
+    public ValidationResponse handleFileContentValidation(ThroughputCounters counters) {
+        ValidationResponse validationResponse =
+                validationHandler.handleFileContentValidation(validationHandler.createJobContext(jobParameters));
+        if (validationResponse.getStatus() != ValidationResponse.status.VALIDATION_SUCCESS) {
+            throw new IllegalStateException("Generated file failed validation: " + dataFile);
+        }
+        counters.add(dataFile.length());
+        return validationResponse;
+    }
+
+    private File createDataFile() throws IOException {
+        ReadFileGenerator generator = new ReadFileGenerator(sizeMB);
+        long size = sizeMB * 1_000_000L;
+        switch (fileType) {
+            case FASTQ:
+                File fastq = workDir.resolve("reads.fastq.gz").toFile();
+                generator.writeFastq(fastq, size);
+                return fastq;
+            case BAM:
+                File bam = workDir.resolve("reads.bam").toFile();
+                generator.writeBam(bam, size);
+                return bam;
+            case CRAM:
+                File cram = workDir.resolve("reads.cram").toFile();
+                generator.writeCram(cram, size);
+                return cram;
+            default:
+                throw new IllegalArgumentException("No generator for file type " + fileType);
+        }
+    }
+
+    private CommandLineParameters createCommandLineParameters() {
+        CommandLineParameters commandLineParameters = new CommandLineParameters();
+        commandLineParameters.setCommandLineFileParameters("validationResultUUID=" + UUID.randomUUID()
+                + ",validationResultVersion=0,fileUUID=" + UUID.randomUUID()
+                + ",filePath=" + dataFile.getAbsolutePath());
+        commandLineParameters.setFileType(fileType.name());
+        commandLineParameters.setSubmissionUUID(submissionUUID);
+        return commandLineParameters;
+    }
+
+    private static void delete(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.report;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ebi.ait.filecontentvalidatorservice.benchmark.ThroughputCounters;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads multi-MB webin-cli report files into a validation report, both as the report of a data file and as the
+ * shared submission report with file markers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ReportFileParserBenchmark {
+
+    @Param({"1", "16"})
+    public int reportSizeMB;
+
+    private File dataFile;
+    private File dataFileReport;
+    private File submissionReport;
+
+    @Setup
+    public void setUp() throws IOException {
+        dataFile = new File("/nfs/submissions/reads_1.fastq.gz");
+        dataFileReport = writeReport("data-file", "");
+        submissionReport = writeReport("submission", " [file: " + dataFile.getPath() + "]");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(dataFileReport.toPath());
+        Files.deleteIfExists(submissionReport.toPath());
+    }
+
+    @Benchmark
+    public ValidationReport parseDataFileReport(ThroughputCounters counters) throws IOException {
+        ValidationReport validationReport = createValidationReport();
+        ReportFileParser.parse(dataFileReport, dataFile, validationReport);
+        counters.add(dataFileReport.length());
+        return validationReport;
+    }
+
+    @Benchmark
+    public ValidationReport parseSubmissionReport(ThroughputCounters counters) throws IOException {
+        ValidationReport validationReport = createValidationReport();
+        ReportFileParser.parse(submissionReport, null, validationReport);
+        counters.add(submissionReport.length());
+        return validationReport;
+    }
+
+    private static ValidationReport createValidationReport() {
+        return new ValidationReport(1000, 3, 65536);
+    }
+
+    /**
+     * Writes a report of errors that only differ in their line numbers and read names, with an info line every
+     * hundred lines. The errors are all of one kind, so the validation report never fills up and the whole report
+     * is read.
+     */
+    private File writeReport(String name, String fileMarker) throws IOException {
+        File report = File.createTempFile(name, ".report");
+        long maxSize = reportSizeMB * 1_000_000L;
+        try (BufferedWriter writer = Files.newBufferedWriter(report.toPath(), StandardCharsets.UTF_8)) {
+            long size = 0;
+            for (int line = 1; size < maxSize; line++) {
+                String message = line % 100 == 0
+                        ? "INFO: Collected " + line + " reads" + fileMarker
+                        : "ERROR: Line " + line + ": invalid quality character in read HISEQ2:175:" + line + fileMarker;
+                writer.write(message);
+                writer.newLine();
+                size += message.length() + 1;
+            }
+        }
+        return report;
+    }
+}
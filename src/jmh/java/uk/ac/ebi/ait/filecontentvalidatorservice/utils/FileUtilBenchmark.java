@@ -0,0 +1,51 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ebi.ait.filecontentvalidatorservice.benchmark.ThroughputCounters;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns the names of the directories of a job into safe directory names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class FileUtilBenchmark {
+
+    private static final String[] DIRS = {
+            "reads",
+            "9f4d2c1e-55aa-4b6e-8d0f-0c1a2b3c4d5e",
+            "__submission with spaces & symbols!__",
+            "validate",
+            "../../etc/passwd"
+    };
+
+    private static final long DIRS_SIZE = getSize(DIRS);
+
+    @Benchmark
+    public void getSafeOutputDir(ThroughputCounters counters, Blackhole blackhole) {
+        for (String dir : DIRS) {
+            blackhole.consume(FileUtil.getSafeOutputDir(dir));
+        }
+        counters.add(DIRS_SIZE);
+    }
+
+    private static long getSize(String[] dirs) {
+        long size = 0;
+        for (String dir : dirs) {
+            size += dir.length();
+        }
+        return size;
+    }
+}
@@ -8,9 +8,19 @@ import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ConfigurableApplicationContext;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.CommandLineParameters;
 import uk.ac.ebi.ait.filecontentvalidatorservice.service.FileContentValidationHandler;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationJobContext;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.batch.BatchValidationRunner;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr.ValidationJobEvent;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr.ValidationJobRecorder;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.metrics.MetricsFileWriter;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.reference.CramReferenceStore;
 import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
 
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
 @SpringBootApplication
 @RequiredArgsConstructor
 @Slf4j
@@ -19,11 +29,37 @@ public class FileContentValidatorServiceApplication implements ApplicationRunner
 	@NonNull
 	private FileContentValidationHandler fileContentValidationHandler;
 
+	@NonNull
+	private CramReferenceStore cramReferenceStore;
+
+	@NonNull
+	private MetricsFileWriter metricsFileWriter;
+
+	@NonNull
+	private ValidationJobRecorder validationJobRecorder;
+
+	@NonNull
+	private CommandLineParameters commandLineParameters;
+
+	@NonNull
+	private BatchValidationRunner batchValidationRunner;
+
 	private static final String FILE_PATH_OPTION = "fileContentValidator.files";
+	private static final String JOB_LIST_OPTION = "fileContentValidator.jobs";
+	private static final String SEED_REFERENCE_OPTION = "fileContentValidator.reference.seed";
+	private static final String MODE_PROPERTY = "fileContentValidator.mode";
+	private static final String WORKER_MODE = "worker";
 
 	public static void main(String[] args) {
 		final ConfigurableApplicationContext ctx = SpringApplication.run(FileContentValidatorServiceApplication.class, args);
 
+		if (WORKER_MODE.equals(ctx.getEnvironment().getProperty(MODE_PROPERTY))) {
+			log.info("FileContentValidatorApplication is running in worker mode.");
+			return;
+		}
+
+		log.info("FileContentValidatorApplication finished {} ms after the JVM started.",
+				ManagementFactory.getRuntimeMXBean().getUptime());
 		SpringApplication.exit(ctx, () -> 0);
 	}
 
@@ -31,12 +67,34 @@ public class FileContentValidatorServiceApplication implements ApplicationRunner
 	public void run(ApplicationArguments args) {
 		log.info("FileContentValidatorApplication started executing.");
 
-		if (!args.getOptionNames().isEmpty()) {
+		if (args.containsOption(SEED_REFERENCE_OPTION)) {
+			for (String fastaFile : args.getOptionValues(SEED_REFERENCE_OPTION)) {
+				cramReferenceStore.seed(new File(fastaFile));
+			}
+		}
+
+		if (args.containsOption(JOB_LIST_OPTION)) {
+			try {
+				batchValidationRunner.run(new File(args.getOptionValues(JOB_LIST_OPTION).get(0)));
+			} finally {
+				metricsFileWriter.write();
+			}
+		} else if (args.containsOption(FILE_PATH_OPTION)) {
 			log.info("File content validation started for file(s): {}", args.getOptionValues(FILE_PATH_OPTION));
 
-			final ValidationResponse validationResponse = fileContentValidationHandler.handleFileContentValidation();
+			final ValidationJobEvent jobEvent = validationJobRecorder.begin(commandLineParameters.getSubmissionUUID(),
+					commandLineParameters.getFileType(), commandLineParameters.getFilesData());
+			String status = ValidationJobRecorder.STATUS_FAILED;
+			try {
+				final ValidationJobContext job = fileContentValidationHandler.createJobContext(commandLineParameters);
+				final ValidationResponse validationResponse = fileContentValidationHandler.handleFileContentValidation(job);
 
-			fileContentValidationHandler.sendValidationMessagesToAggregator(validationResponse);
+				fileContentValidationHandler.sendValidationMessagesToAggregator(job, validationResponse);
+				status = String.valueOf(validationResponse.getStatus());
+			} finally {
+				validationJobRecorder.end(jobEvent, status);
+				metricsFileWriter.write();
+			}
 		}
 	}
 }
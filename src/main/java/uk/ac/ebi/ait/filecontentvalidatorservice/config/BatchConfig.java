@@ -0,0 +1,34 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@Data
+public class BatchConfig {
+
+    /**
+     * Number of jobs of a job list validated at the same time. Zero or less means one worker per available CPU.
+     */
+    @Value("${fileContentValidator.batch.workers:0}")
+    private int workers;
+
+    public int getWorkerCount() {
+        return workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Kept apart from the validation executor, as the jobs running on this executor wait for their partitions
+     * validated on that one.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService batchExecutor() {
+        return Executors.newFixedThreadPool(getWorkerCount(),
+                new ParallelValidationConfig.ValidationThreadFactory("file-content-batch-"));
+    }
+}
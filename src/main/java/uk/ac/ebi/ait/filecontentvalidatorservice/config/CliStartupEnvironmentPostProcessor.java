@@ -0,0 +1,50 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Starts the service lean in CLI mode, which validates the files of one job (or one job list) and exits.
+ *
+ * The embedded web server only serves the actuator endpoints of the worker mode, so it is not started, and the beans
+ * are created when they are first used, so the beans of features a job does not use are never created. The settings
+ * are added after the application properties, so spring.main properties that are set explicitly still apply.
+ * Registered in META-INF/spring.factories, as the mode is only known once the environment is prepared.
+ */
+public class CliStartupEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+    static final String PROPERTY_SOURCE_NAME = "fileContentValidatorCliStartup";
+    static final String WEB_APPLICATION_TYPE_PROPERTY = "spring.main.web-application-type";
+    static final String LAZY_INITIALIZATION_PROPERTY = "spring.main.lazy-initialization";
+
+    private static final String MODE_PROPERTY = "fileContentValidator.mode";
+    private static final String WORKER_MODE = "worker";
+    private static final String LEAN_STARTUP_PROPERTY = "fileContentValidator.cli.leanStartup";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (WORKER_MODE.equals(environment.getProperty(MODE_PROPERTY))
+                || !environment.getProperty(LEAN_STARTUP_PROPERTY, Boolean.class, true)) {
+            return;
+        }
+
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put(WEB_APPLICATION_TYPE_PROPERTY, "none");
+        properties.put(LAZY_INITIALIZATION_PROPERTY, "true");
+        environment.getPropertySources().addLast(new MapPropertySource(PROPERTY_SOURCE_NAME, properties));
+    }
+
+    /**
+     * After the application properties are loaded, which sets the mode.
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
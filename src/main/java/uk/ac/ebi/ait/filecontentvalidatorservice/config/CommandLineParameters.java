@@ -8,6 +8,7 @@ import uk.ac.ebi.ait.filecontentvalidatorservice.service.FileType;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -24,13 +25,41 @@ public class CommandLineParameters {
     @Value("${fileContentValidator.submissionUUID:''}")
     private String submissionUUID;
 
+    /**
+     * Files of a job that did not come from the command line, e.g. a job taken from the message queue in worker mode.
+     * When it is set it takes precedence over {@link #commandLineFileParameters}.
+     */
+    private List<FileParameters> filesData;
+
+    /**
+     * The files of {@link #commandLineFileParameters}, parsed when they are first needed.
+     */
+    private List<FileParameters> parsedFilesData;
+
     final ObjectMapper mapper = new ObjectMapper();
 
     public FileType getFileTypeEnum(){
         return FileType.valueOf(fileType);
     }
 
+    public void setCommandLineFileParameters(String commandLineFileParameters) {
+        this.commandLineFileParameters = commandLineFileParameters;
+        this.parsedFilesData = null;
+    }
+
     public List<FileParameters> getFilesData() {
+        if (this.filesData != null) {
+            return this.filesData;
+        }
+
+        if (this.parsedFilesData == null) {
+            this.parsedFilesData = Collections.unmodifiableList(parseFilesData());
+        }
+
+        return this.parsedFilesData;
+    }
+
+    private List<FileParameters> parseFilesData() {
         List<FileParameters> filesData = new ArrayList<>();
 
         Arrays.asList(commandLineFileParameters.split(";")).forEach(fileData -> {
@@ -0,0 +1,24 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+
+@Data
+@Component
+public class CramReferenceConfig {
+
+    @Value("${fileContentValidator.reference.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fileContentValidator.reference.dir:reference-cache}")
+    private File referenceDir;
+
+    @Value("${fileContentValidator.reference.maxSizeMB:20480}")
+    private long maxSizeMB;
+
+    @Value("${fileContentValidator.reference.download:true}")
+    private boolean download;
+}
@@ -0,0 +1,13 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+public class CramStructureConfig {
+
+    @Value("${fileContentValidator.cramStructure.enabled:false}")
+    private boolean enabled;
+}
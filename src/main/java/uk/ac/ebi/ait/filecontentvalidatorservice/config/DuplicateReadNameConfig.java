@@ -0,0 +1,32 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+public class DuplicateReadNameConfig {
+
+    @Value("${fileContentValidator.duplicates.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Probability of a read name being taken for a possible duplicate by the Bloom filter. Possible duplicates are
+     * confirmed by a second pass over the file, so this only affects how often that pass is needed.
+     */
+    @Value("${fileContentValidator.duplicates.falsePositiveRate:0.001}")
+    private double falsePositiveRate;
+
+    /**
+     * Off-heap memory of the Bloom filter of a file.
+     */
+    @Value("${fileContentValidator.duplicates.maxMemoryMB:512}")
+    private long maxMemoryMB;
+
+    /**
+     * Number of possible duplicates confirmed per file. Further possible duplicates are not confirmed.
+     */
+    @Value("${fileContentValidator.duplicates.maxCandidates:1000000}")
+    private int maxCandidates;
+}
@@ -0,0 +1,27 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+
+@Data
+@Component
+public class JfrConfig {
+
+    @Value("${fileContentValidator.jfr.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fileContentValidator.jfr.settings:profile}")
+    private String settings;
+
+    @Value("${fileContentValidator.jfr.maxAgeMinutes:60}")
+    private int maxAgeMinutes;
+
+    @Value("${fileContentValidator.jfr.slowJobSeconds:300}")
+    private int slowJobSeconds;
+
+    @Value("${fileContentValidator.jfr.dir:jfr-recordings}")
+    private File recordingDir;
+}
@@ -1,19 +1,44 @@
 package uk.ac.ebi.ait.filecontentvalidatorservice.config;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
 import org.springframework.amqp.rabbit.core.RabbitMessagingTemplate;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
 import org.springframework.stereotype.Component;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.publish.CompactMessagePostProcessor;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.publish.MessageCodec;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.publish.MessageEncoding;
 
 @Component
 @Configuration
-public class MessagingConfiguration {
+public class MessagingConfiguration implements RabbitListenerConfigurer {
+
+    @Value("${fileContentValidator.worker.queue}")
+    private String workerQueueName;
+
+    @Value("${fileContentValidator.worker.deadLetterExchange}")
+    private String deadLetterExchangeName;
+
+    @Value("${fileContentValidator.worker.deadLetterQueue}")
+    private String deadLetterQueueName;
+
+    @Value("${fileContentValidator.messaging.encoding:json}")
+    private String messageEncoding;
+
+    @Value("${fileContentValidator.messaging.compactThresholdBytes:65536}")
+    private int compactThresholdBytes;
 
     @Bean
     public MessageConverter messageConverter() {
@@ -24,18 +49,63 @@ public class MessagingConfiguration {
     public MappingJackson2MessageConverter jackson2Converter() {
         MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
 
-        ObjectMapper objectMapper = converter.getObjectMapper();
-
-        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
-        objectMapper.registerModule(new JavaTimeModule());
+        MessageCodec.configure(converter.getObjectMapper());
 
         return converter;
     }
 
     @Bean
     public RabbitMessagingTemplate rabbitMessagingTemplate(RabbitTemplate rabbitTemplate) {
+        rabbitTemplate.addBeforePublishPostProcessors(
+                new CompactMessagePostProcessor(MessageEncoding.getByName(messageEncoding), compactThresholdBytes));
+
         RabbitMessagingTemplate rmt = new RabbitMessagingTemplate(rabbitTemplate);
         rmt.setMessageConverter(this.jackson2Converter());
         return rmt;
     }
+
+    @Bean
+    public DefaultMessageHandlerMethodFactory messageHandlerMethodFactory() {
+        DefaultMessageHandlerMethodFactory factory = new DefaultMessageHandlerMethodFactory();
+        factory.setMessageConverter(jackson2Converter());
+        return factory;
+    }
+
+    /**
+     * The worker queue, which dead-letters the jobs the listener rejects, so a job that failed is kept in the
+     * dead-letter queue rather than dropped.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "fileContentValidator.mode", havingValue = "worker")
+    public Queue fileContentValidationJobQueue() {
+        return QueueBuilder.durable(workerQueueName)
+                .withArgument("x-dead-letter-exchange", deadLetterExchangeName)
+                .withArgument("x-dead-letter-routing-key", deadLetterQueueName)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "fileContentValidator.mode", havingValue = "worker")
+    public DirectExchange fileContentValidationDeadLetterExchange() {
+        return new DirectExchange(deadLetterExchangeName, true, false);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "fileContentValidator.mode", havingValue = "worker")
+    public Queue fileContentValidationDeadLetterQueue() {
+        return QueueBuilder.durable(deadLetterQueueName).build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "fileContentValidator.mode", havingValue = "worker")
+    public Binding fileContentValidationDeadLetterBinding() {
+        return BindingBuilder.bind(fileContentValidationDeadLetterQueue())
+                .to(fileContentValidationDeadLetterExchange())
+                .with(deadLetterQueueName);
+    }
+
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        registrar.setMessageHandlerMethodFactory(messageHandlerMethodFactory());
+    }
 }
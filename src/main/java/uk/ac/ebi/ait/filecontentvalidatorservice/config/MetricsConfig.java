@@ -0,0 +1,15 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+
+@Data
+@Component
+public class MetricsConfig {
+
+    @Value("${fileContentValidator.metrics.file:validation-metrics.prom}")
+    private File metricsFile;
+}
@@ -0,0 +1,77 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@Data
+public class ParallelValidationConfig {
+
+    @Value("${fileContentValidator.parallel.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Number of partitions validated at the same time. Zero or less means one worker per available CPU.
+     */
+    @Value("${fileContentValidator.parallel.workers:0}")
+    private int workers;
+
+    /**
+     * Number of threads inflating the blocks of BGZF files for the built-in engines. Zero or less means one
+     * thread per available CPU, one means that files are inflated sequentially.
+     */
+    @Value("${fileContentValidator.parallel.inflateThreads:0}")
+    private int inflateThreads;
+
+    /**
+     * Memory the built-in engines may use for data read ahead of the data being validated, e.g. for the CRAM
+     * containers waiting to be validated.
+     */
+    @Value("${fileContentValidator.parallel.bufferMB:256}")
+    private long bufferMB;
+
+    public int getWorkerCount() {
+        return workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+    }
+
+    public int getInflateThreadCount() {
+        return inflateThreads > 0 ? inflateThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService validationExecutor() {
+        return Executors.newFixedThreadPool(getWorkerCount(), new ValidationThreadFactory("file-content-validation-"));
+    }
+
+    /**
+     * Kept apart from the validation executor, as validations running on that executor wait for inflated blocks.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService inflateExecutor() {
+        return Executors.newFixedThreadPool(getInflateThreadCount(), new ValidationThreadFactory("file-content-inflate-"));
+    }
+
+    static class ValidationThreadFactory implements ThreadFactory {
+
+        private final String threadNamePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        ValidationThreadFactory(String threadNamePrefix) {
+            this.threadNamePrefix = threadNamePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+public class PreflightConfig {
+
+    @Value("${fileContentValidator.preflight.enabled:true}")
+    private boolean enabled;
+
+    @Value("${fileContentValidator.preflight.requireBgzfEof:false}")
+    private boolean requireBgzfEof;
+}
@@ -0,0 +1,41 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+public class PublishConfig {
+
+    /**
+     * Number of messages sent to the broker that may be waiting for their confirms at the same time.
+     */
+    @Value("${fileContentValidator.publish.maxInFlight:100}")
+    private int maxInFlight;
+
+    @Value("${fileContentValidator.publish.confirmTimeoutSeconds:30}")
+    private int confirmTimeoutSeconds;
+
+    @Value("${fileContentValidator.publish.maxAttempts:5}")
+    private int maxAttempts;
+
+    /**
+     * Wait before the unconfirmed messages are sent again. It doubles after every attempt, up to the maximum.
+     */
+    @Value("${fileContentValidator.publish.initialBackoffMillis:500}")
+    private long initialBackoffMillis;
+
+    @Value("${fileContentValidator.publish.maxBackoffMillis:10000}")
+    private long maxBackoffMillis;
+
+    /**
+     * Publishes the results of a file in chunks of at most chunkSize results, and the results of every partition
+     * of a job as soon as it has been validated.
+     */
+    @Value("${fileContentValidator.publish.streaming:false}")
+    private boolean streaming;
+
+    @Value("${fileContentValidator.publish.chunkSize:1000}")
+    private int chunkSize;
+}
@@ -0,0 +1,16 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+public class ReadPairingConfig {
+
+    /**
+     * Number of reads of paired files kept while they do not match the mate at the same position of the other file.
+     */
+    @Value("${fileContentValidator.pairing.maxUnmatchedNames:1000000}")
+    private int maxUnmatchedNames;
+}
@@ -1,6 +1,7 @@
 package uk.ac.ebi.ait.filecontentvalidatorservice.config;
 
 import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
@@ -11,7 +12,22 @@ public class ReportFileConfig {
     public static final String VALIDATE_DIR = "validate";
     public static final String PROCESS_DIR = "process";
 
-    private File outputDir;
     private File inputDir = new File( "." );
     private String contextType = "reads";
+
+    /**
+     * Number of kinds of errors kept per data file. Errors that only differ in line numbers, read names or
+     * other variable parts are of the same kind.
+     */
+    @Value("${fileContentValidator.report.maxErrors:1000}")
+    private int maxErrors;
+
+    @Value("${fileContentValidator.report.maxExamples:3}")
+    private int maxExamples;
+
+    /**
+     * Number of characters of error messages kept per data file.
+     */
+    @Value("${fileContentValidator.report.maxErrorChars:65536}")
+    private long maxErrorChars;
 }
@@ -0,0 +1,27 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+
+@Data
+@Component
+public class ValidationResultCacheConfig {
+
+    @Value("${fileContentValidator.cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fileContentValidator.cache.dir:validation-cache}")
+    private File cacheDir;
+
+    @Value("${fileContentValidator.cache.maxEntries:100000}")
+    private int maxEntries;
+
+    @Value("${fileContentValidator.cache.maxSizeMB:1024}")
+    private long maxSizeMB;
+
+    @Value("${fileContentValidator.cache.maxAgeDays:30}")
+    private int maxAgeDays;
+}
@@ -0,0 +1,19 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.dto;
+
+import lombok.Data;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.FileParameters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is a Data Transfer Object carrying a file content validation job to the service when it runs in worker mode.
+ * It holds the same information that is passed on the command line in CLI mode.
+ */
+@Data
+public class FileContentValidationJob {
+
+    private String submissionUUID;
+    private String fileType;
+    private List<FileParameters> files = new ArrayList<>();
+}
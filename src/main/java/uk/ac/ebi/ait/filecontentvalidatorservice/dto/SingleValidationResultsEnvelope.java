@@ -12,6 +12,15 @@ public class SingleValidationResultsEnvelope {
     private String validationResultUUID;
     private ValidationAuthor validationAuthor;
 
+    /**
+     * When the results of a validation result are streamed in chunks: the position of this chunk, starting at 1,
+     * the number of chunks, and whether this is the last chunk. All of them are null for an envelope that carries
+     * every result at once.
+     */
+    private Integer chunkSequence;
+    private Integer chunkCount;
+    private Boolean lastChunk;
+
     public SingleValidationResultsEnvelope() {}
 
     /**
@@ -61,4 +70,28 @@ public class SingleValidationResultsEnvelope {
     public void setValidationAuthor(ValidationAuthor validationAuthor) {
         this.validationAuthor = validationAuthor;
     }
+
+    public Integer getChunkSequence() {
+        return chunkSequence;
+    }
+
+    public void setChunkSequence(Integer chunkSequence) {
+        this.chunkSequence = chunkSequence;
+    }
+
+    public Integer getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(Integer chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    public Boolean getLastChunk() {
+        return lastChunk;
+    }
+
+    public void setLastChunk(Boolean lastChunk) {
+        this.lastChunk = lastChunk;
+    }
 }
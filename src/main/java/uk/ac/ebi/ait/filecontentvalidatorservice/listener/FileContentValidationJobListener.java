@@ -0,0 +1,71 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.listener;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.CommandLineParameters;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.FileContentValidationJob;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.FileContentValidationHandler;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationJobContext;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr.ValidationJobEvent;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr.ValidationJobRecorder;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+
+/**
+ * Takes file content validation jobs from RabbitMQ when the service runs in worker mode.
+ * The same handler and messaging template are reused for every job the listener receives. Every job has its own
+ * context in the handler, so the listener's consumers validate their jobs at the same time.
+ * A job that fails is rejected without requeueing it, and the worker queue dead-letters it into the dead-letter
+ * queue configured in {@link uk.ac.ebi.ait.filecontentvalidatorservice.config.MessagingConfiguration}.
+ */
+@Component
+@ConditionalOnProperty(name = "fileContentValidator.mode", havingValue = "worker")
+@RequiredArgsConstructor
+@Slf4j
+public class FileContentValidationJobListener {
+
+    @NonNull
+    private FileContentValidationHandler fileContentValidationHandler;
+
+    @NonNull
+    private ValidationJobRecorder validationJobRecorder;
+
+    @RabbitListener(queues = "${fileContentValidator.worker.queue}")
+    public void handleValidationJob(FileContentValidationJob job) {
+        log.info("File content validation job received for submission: {}", job.getSubmissionUUID());
+
+        final CommandLineParameters jobParameters = toCommandLineParameters(job);
+
+        final ValidationJobEvent jobEvent = validationJobRecorder.begin(jobParameters.getSubmissionUUID(),
+                jobParameters.getFileType(), jobParameters.getFilesData());
+        String status = ValidationJobRecorder.STATUS_FAILED;
+        try {
+            final ValidationJobContext jobContext = fileContentValidationHandler.createJobContext(jobParameters);
+            final ValidationResponse validationResponse =
+                    fileContentValidationHandler.handleFileContentValidation(jobContext);
+
+            fileContentValidationHandler.sendValidationMessagesToAggregator(jobContext, validationResponse);
+            status = String.valueOf(validationResponse.getStatus());
+        } catch (RuntimeException ex) {
+            log.error("File content validation job failed for submission: {}", job.getSubmissionUUID(), ex);
+            throw new AmqpRejectAndDontRequeueException(ex);
+        } finally {
+            validationJobRecorder.end(jobEvent, status);
+        }
+
+        log.info("File content validation job finished for submission: {}", job.getSubmissionUUID());
+    }
+
+    CommandLineParameters toCommandLineParameters(FileContentValidationJob job) {
+        CommandLineParameters jobParameters = new CommandLineParameters();
+        jobParameters.setSubmissionUUID(job.getSubmissionUUID());
+        jobParameters.setFileType(job.getFileType());
+        jobParameters.setFilesData(job.getFiles());
+
+        return jobParameters;
+    }
+}
@@ -6,4 +6,14 @@ public class ErrorMessages {
     public static final String FILE_TYPE_NOT_SUPPORTED = "File type is not supported: %s";
     public static final String VALIDATION_REPORT_FILE_ERROR = "Could not process the validation report file for file with id: %s. The original cause was: %s";
     public static final String SUBMISSION_FILE_COULD_NOT_BE_FOUND = "Could not find submission file for data file with ID: %s";
+    public static final String VALIDATION_REPORT_TRUNCATED = "%d further errors were left out of the validation report";
+    public static final String REFERENCE_SEED_ERROR = "Could not seed the reference store from file: %s. The original cause was: %s";
+    public static final String REFERENCE_STORE_ERROR = "Could not store reference sequence. The original cause was: %s";
+    public static final String PUBLISH_ERROR = "Could not publish %d validation result messages in %d attempts";
+    public static final String UNKNOWN_MESSAGE_ENCODING = "Unknown message encoding: %s";
+    public static final String MESSAGE_ENCODING_ERROR = "Could not encode the message as: %s";
+    public static final String JFR_SETTINGS_ERROR = "Could not read the flight recorder settings: %s. The original cause was: %s";
+    public static final String JOB_LIST_READ_ERROR = "Could not read the job list: %s. The original cause was: %s";
+    public static final String JOB_LIST_LINE_ERROR = "Invalid job on line %d of the job list: %s";
+    public static final String FILE_DIGEST_ERROR = "Could not calculate the digest of file: %s. The original cause was: %s";
 }
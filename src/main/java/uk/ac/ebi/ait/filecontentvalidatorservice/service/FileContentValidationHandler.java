@@ -1,13 +1,15 @@
 package uk.ac.ebi.ait.filecontentvalidatorservice.service;
 
+import io.micrometer.core.instrument.Timer;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
-import org.springframework.amqp.rabbit.core.RabbitMessagingTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import uk.ac.ebi.ait.filecontentvalidatorservice.config.CommandLineParameters;
 import uk.ac.ebi.ait.filecontentvalidatorservice.config.FileParameters;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.ParallelValidationConfig;
 import uk.ac.ebi.ait.filecontentvalidatorservice.config.ReportFileConfig;
 import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResult;
 import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResultBuilder;
@@ -16,213 +18,687 @@ import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResultsEnve
 import uk.ac.ebi.ait.filecontentvalidatorservice.dto.ValidationAuthor;
 import uk.ac.ebi.ait.filecontentvalidatorservice.exception.FileContentValidationException;
 import uk.ac.ebi.ait.filecontentvalidatorservice.exception.FileHandleException;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.cache.ValidationResultCache;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.cache.ValidationResultCacheEntry;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.CramStructureChecker;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.ValidationEngine;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.ValidationEngineRegistry;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr.FileValidationEvent;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr.ReportParsingEvent;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr.ValidationJobRecorder;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.metrics.ValidationMetrics;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.preflight.PreflightChecker;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.publish.ValidationResultMessage;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.publish.ValidationResultPublisher;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.reference.CramReferenceStore;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.report.ErrorGroup;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.report.ErrorSummary;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.report.ReportFileParser;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.report.ValidationReport;
 import uk.ac.ebi.ait.filecontentvalidatorservice.utils.FileContentValidatorMessages;
 import uk.ac.ebi.ait.filecontentvalidatorservice.utils.FileUtil;
-import uk.ac.ebi.ena.readtools.validator.ReadsValidator;
 import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
 import uk.ac.ebi.ena.webin.cli.validator.file.SubmissionFile;
 import uk.ac.ebi.ena.webin.cli.validator.file.SubmissionFiles;
 import uk.ac.ebi.ena.webin.cli.validator.manifest.ReadsManifest;
 import uk.ac.ebi.ena.webin.cli.validator.response.ReadsValidationResponse;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ErrorMessages.FILE_TYPE_NOT_SUPPORTED;
 import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ErrorMessages.SUBMISSION_FILE_COULD_NOT_BE_FOUND;
 import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ErrorMessages.VALIDATION_REPORT_FILE_ERROR;
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ErrorMessages.VALIDATION_REPORT_TRUNCATED;
 import static uk.ac.ebi.ait.filecontentvalidatorservice.utils.FileUtil.createOutputDir;
 
+/**
+ * Validates the files of validation jobs and publishes their results.
+ *
+ * The handler is shared by all jobs and keeps no state of its own: everything about a job lives in the
+ * {@link ValidationJobContext} created for it by {@link #createJobContext}, so jobs can be validated at the same time
+ * on different threads. The webin-cli validators are warm ones taken from the shared {@link ReadsValidatorPool}.
+ */
 @Service
 @Slf4j
 public class FileContentValidationHandler {
 
     private static final String REPORT_FILE = "file-content-validation.report";
-
-    private static final String SUBMISSION_EXCHANGE = "usi-1:submission-exchange";
-    private static final String EVENT_VALIDATION_SUCCESS = "validation.success";
-    private static final String EVENT_VALIDATION_ERROR = "validation.error";
+    private static final String PARTITION_REPORT_FILE = "file-content-validation.%d.report";
+    private static final String PARTITION_DIR = "partition-%d";
 
     ReportFileConfig reportFileConfig;
-    ReadsValidator validator;
-    ReadsValidationResponse validationResponse;
-    CommandLineParameters commandLineParameters;
-    ReadsManifest manifest;
+    ParallelValidationConfig parallelValidationConfig;
+    ExecutorService validationExecutor;
+    ValidationResultCache validationResultCache;
+    ValidationEngineRegistry validationEngineRegistry;
+    CramReferenceStore cramReferenceStore;
+    CramStructureChecker cramStructureChecker;
+    PreflightChecker preflightChecker;
+    ValidationMetrics validationMetrics;
+    ReadsValidatorPool readsValidatorPool;
 
     @NonNull
-    private RabbitMessagingTemplate rabbitMessagingTemplate;
+    private ValidationResultPublisher validationResultPublisher;
+
+    public FileContentValidationHandler(ReportFileConfig reportFileConfig,
+                                        ValidationResultPublisher validationResultPublisher,
+                                        ParallelValidationConfig parallelValidationConfig,
+                                        @Qualifier("validationExecutor") ExecutorService validationExecutor,
+                                        ValidationResultCache validationResultCache,
+                                        ValidationEngineRegistry validationEngineRegistry,
+                                        CramReferenceStore cramReferenceStore,
+                                        CramStructureChecker cramStructureChecker,
+                                        PreflightChecker preflightChecker,
+                                        ValidationMetrics validationMetrics,
+                                        ReadsValidatorPool readsValidatorPool) {
+        this.reportFileConfig = reportFileConfig;
+        this.validationResultPublisher = validationResultPublisher;
+        this.parallelValidationConfig = parallelValidationConfig;
+        this.validationExecutor = validationExecutor;
+        this.validationResultCache = validationResultCache;
+        this.validationEngineRegistry = validationEngineRegistry;
+        this.cramReferenceStore = cramReferenceStore;
+        this.cramStructureChecker = cramStructureChecker;
+        this.preflightChecker = preflightChecker;
+        this.validationMetrics = validationMetrics;
+        this.readsValidatorPool = readsValidatorPool;
+    }
 
-    private File validationDir;
-    private File processDir;
+    /**
+     * Creates the manifest of a job and its own output directory for the report files and the validator's files.
+     */
+    public ValidationJobContext createJobContext(CommandLineParameters jobParameters) {
+        final String fileType = jobParameters.getFileType();
 
-    private Map<String, SubmissionFile> submissionFileByFileUUID = new HashMap<>();
+        Timer.Sample phase = validationMetrics.start();
+        final Map<String, SubmissionFile> submissionFileByFileUUID = new LinkedHashMap<>();
+        final ReadsManifest manifest = getReadsManifest(jobParameters, submissionFileByFileUUID);
+        validationMetrics.stop(phase, ValidationMetrics.PHASE_MANIFEST, fileType);
 
-    public FileContentValidationHandler(ReportFileConfig reportFileConfig, CommandLineParameters commandLineParameters,
-                                        RabbitMessagingTemplate rabbitMessagingTemplate) {
-        this.validator = new ReadsValidator();
-        this.reportFileConfig = reportFileConfig;
-        this.commandLineParameters = commandLineParameters;
-        this.rabbitMessagingTemplate = rabbitMessagingTemplate;
-    }
+        phase = validationMetrics.start();
+        String submissionUUID = jobParameters.getSubmissionUUID();
+        String fileUUID = jobParameters.getFilesData().stream().map(FileParameters::getFileUUID).collect(Collectors.joining("_"));
+
+        final File outputDir = FileUtil.createTempDir(submissionUUID, fileUUID);
+        final File validationDir = createSubmissionDir(outputDir, ReportFileConfig.VALIDATE_DIR, submissionUUID);
+        final File processDir = createSubmissionDir(outputDir, ReportFileConfig.PROCESS_DIR, submissionUUID);
 
-    public File getValidationDir() {
-        return validationDir;
+        if(!manifest.getFiles().get().isEmpty()) {
+            for (SubmissionFile<ReadsManifest.FileType> subFile : (manifest.getFiles().get())) {
+                subFile.setReportFile(
+                        Paths.get(validationDir.getPath())
+                                .resolve(subFile.getFile().getName() + ".report").toFile());
+            }
+        }
+
+        final File submissionReportFile = Paths.get(validationDir.getPath()).resolve(REPORT_FILE).toFile();
+        log.info(submissionReportFile.getAbsolutePath());
+        manifest.setReportFile(submissionReportFile);
+        manifest.setProcessDir(processDir);
+        validationMetrics.stop(phase, ValidationMetrics.PHASE_SETUP, fileType);
+
+        return new ValidationJobContext(jobParameters, manifest, outputDir, validationDir, processDir,
+                submissionReportFile, submissionFileByFileUUID);
     }
 
-    public ReadsValidationResponse getValidationResponse() {
+    public ValidationResponse handleFileContentValidation(ValidationJobContext job) {
+        final String fileType = job.getFileType();
+        final ReadsManifest manifest = job.getManifest();
+
+        List<List<SubmissionFile<ReadsManifest.FileType>>> partitions = parallelValidationConfig.isEnabled()
+                ? ValidationPartitioner.partition(manifest.getFiles().get())
+                : Collections.singletonList(manifest.getFiles().get());
+
+        log.debug("Before validation");
+
+        final ReadsValidationResponse validationResponse;
+        Timer.Sample phase = validationMetrics.start();
+        if (partitions.size() > 1) {
+            validationResponse = validatePartitions(job, partitions);
+        } else {
+            validationResponse = validateWithCache(job, manifest);
+        }
+        validationMetrics.stop(phase, ValidationMetrics.PHASE_VALIDATION, fileType);
+        validationMetrics.recordJob(fileType, validationResponse.getStatus());
+
+        log.info("Validation response: {}", validationResponse.getStatus());
+
         return validationResponse;
     }
 
-    public void setCommandLineParameters(CommandLineParameters commandLineParameters) {
-        this.commandLineParameters = commandLineParameters;
-    }
+    /**
+     * Validates the manifest's files and records their sizes and the time it took in the metrics. Every file gets
+     * a flight recorder event.
+     */
+    private ReadsValidationResponse validate(ValidationJobContext job, ReadsManifest readsManifest) {
+        final String fileType = job.getFileType();
+        final List<FileValidationEvent> fileEvents = new ArrayList<>();
+        for (SubmissionFile<ReadsManifest.FileType> submissionFile : readsManifest.getFiles().get()) {
+            FileValidationEvent fileEvent = new FileValidationEvent();
+            fileEvent.begin(job.getFileUUID(submissionFile).orElse(null), fileType, submissionFile.getFile().length());
+            fileEvents.add(fileEvent);
+        }
+        final long startTime = System.nanoTime();
+
+        String status = ValidationJobRecorder.STATUS_FAILED;
+        try {
+            final ReadsValidationResponse response = validateFiles(job, readsManifest);
+            status = response.getStatus().name();
 
-    public File getOutputDir() {
-        return this.reportFileConfig.getOutputDir();
+            validationMetrics.recordValidatedFiles(fileType,
+                    readsManifest.getFiles().get().stream().map(SubmissionFile::getFile).collect(Collectors.toList()),
+                    System.nanoTime() - startTime);
+
+            return response;
+        } finally {
+            for (FileValidationEvent fileEvent : fileEvents) {
+                fileEvent.commit(status);
+            }
+        }
     }
 
-    public ValidationResponse handleFileContentValidation() {
-        manifest = getReadsManifest();
-        String submissionUUID = commandLineParameters.getSubmissionUUID();
-        String fileUUID = commandLineParameters.getFilesData().stream().map(FileParameters::getFileUUID).collect(Collectors.joining("_"));
+    private ReadsValidationResponse validateFiles(ValidationJobContext job, ReadsManifest readsManifest) {
+        Optional<ValidationEngine> builtInEngine = validationEngineRegistry.getBuiltInEngine(job.getFileType());
+        if (builtInEngine.isPresent()) {
+            return validateWithEngine(job, builtInEngine.get(), readsManifest);
+        }
 
-        reportFileConfig.setOutputDir(FileUtil.createTempDir(submissionUUID, fileUUID));
+        if (getReadsFileType(job.getFileType()) == null) {
+            throw new FileContentValidationException(String.format(FILE_TYPE_NOT_SUPPORTED, job.getFileType()));
+        }
 
-        this.validationDir = createSubmissionDir(ReportFileConfig.VALIDATE_DIR, submissionUUID);
-        this.processDir = createSubmissionDir(ReportFileConfig.PROCESS_DIR, submissionUUID);
+        if (ReadsManifest.FileType.CRAM.name().equals(job.getFileType())) {
+            final Set<String> referenceMd5s = new HashSet<>();
+            if (cramStructureChecker.isEnabled()) {
+                Optional<ReadsValidationResponse> structureResponse =
+                        checkCramStructure(job, readsManifest, referenceMd5s);
+                if (structureResponse.isPresent()) {
+                    return structureResponse.get();
+                }
+            } else if (cramReferenceStore.isEnabled()) {
+                referenceMd5s.addAll(cramStructureChecker.readReferenceMd5s(readsManifest.getFiles().get().stream()
+                        .map(SubmissionFile::getFile)
+                        .collect(Collectors.toList())));
+            }
+            if (cramReferenceStore.isEnabled()) {
+                return validateCramWithReferenceStore(readsManifest, referenceMd5s);
+            }
+        }
 
-        if(!manifest.getFiles().get().isEmpty()) {
-            for (SubmissionFile<ReadsManifest.FileType> subFile : (manifest.getFiles().get())) {
-                subFile.setReportFile(
-                        Paths.get(this.validationDir.getPath())
-                                .resolve(subFile.getFile().getName() + ".report").toFile());
+        return validateWithWebinCli(readsManifest);
+    }
+
+    private ReadsValidationResponse validateWithWebinCli(ReadsManifest readsManifest) {
+        try {
+            return readsValidatorPool.validate(readsManifest);
+        } catch (RuntimeException ex) {
+            throw new FileContentValidationException(ex);
+        }
+    }
+
+    /**
+     * Validates CRAM files with webin-cli while their references are in use, so they are not evicted from the
+     * reference store while webin-cli reads them. References webin-cli downloaded are added to the store behind its
+     * back, so the store is trimmed once they are in it.
+     */
+    private ReadsValidationResponse validateCramWithReferenceStore(ReadsManifest readsManifest,
+                                                                   Set<String> referenceMd5s) {
+        final boolean download = referenceMd5s.stream().anyMatch(md5 -> !cramReferenceStore.contains(md5));
+        cramReferenceStore.acquire(referenceMd5s);
+        try {
+            return validateWithWebinCli(readsManifest);
+        } finally {
+            if (download) {
+                cramReferenceStore.evict();
             }
+            cramReferenceStore.release(referenceMd5s);
         }
+    }
 
-        final File submissionReportFile = getSubmissionReportFile();
-        log.info(submissionReportFile.getAbsolutePath());
-        manifest.setReportFile(submissionReportFile);
-        manifest.setProcessDir(this.processDir);
+    /**
+     * Validates the manifest's files with a built-in engine. The engine adds its messages straight to the
+     * validation report of the manifest, so there are no report files to read afterwards.
+     */
+    private ReadsValidationResponse validateWithEngine(ValidationJobContext job, ValidationEngine engine,
+                                                       ReadsManifest readsManifest) {
+        final ValidationReport validationReport = job.getValidationReportBySubmissionReportFile().computeIfAbsent(
+                readsManifest.getReportFile(), reportFile -> createValidationReport());
+        validationReport.markIngested(readsManifest.getReportFile());
+
+        final List<File> files = new ArrayList<>();
+        for (SubmissionFile<ReadsManifest.FileType> submissionFile : readsManifest.getFiles().get()) {
+            validationReport.markIngested(submissionFile.getReportFile());
+            files.add(submissionFile.getFile());
+        }
 
-        log.debug("Before validation");
+        log.debug("Validating {} files with the {} engine", files.size(), engine.getName());
 
         try {
-            validationResponse = validator.validate(manifest);
+            return engine.validate(files, validationReport);
         } catch (RuntimeException ex) {
             throw new FileContentValidationException(ex);
         }
+    }
 
-        log.info("Validation response: {}", validationResponse.getStatus());
+    /**
+     * Checks the structure of the manifest's CRAM files before they are validated by webin-cli, when the check is
+     * enabled. The errors of the files that fail the check are added to the validation report of the manifest,
+     * and the manifest is not validated any further.
+     *
+     * @param referenceMd5s collects the MD5s of the reference sequences of the files
+     * @return an error response if any of the files failed the check
+     */
+    private Optional<ReadsValidationResponse> checkCramStructure(ValidationJobContext job,
+                                                                 ReadsManifest readsManifest,
+                                                                 Set<String> referenceMd5s) {
+        final ValidationReport validationReport = job.getValidationReportBySubmissionReportFile().computeIfAbsent(
+                readsManifest.getReportFile(), reportFile -> createValidationReport());
+        final List<File> files = readsManifest.getFiles().get().stream()
+                .map(SubmissionFile::getFile)
+                .collect(Collectors.toList());
+
+        final Timer.Sample phase = validationMetrics.start();
+        final boolean valid;
+        try {
+            valid = cramStructureChecker.check(files, validationReport, referenceMd5s);
+        } catch (RuntimeException ex) {
+            throw new FileContentValidationException(ex);
+        } finally {
+            validationMetrics.stop(phase, ValidationMetrics.PHASE_CRAM_STRUCTURE, job.getFileType());
+        }
+        if (valid) {
+            return Optional.empty();
+        }
 
-        return validationResponse;
+        validationReport.markIngested(readsManifest.getReportFile());
+        for (SubmissionFile<ReadsManifest.FileType> submissionFile : readsManifest.getFiles().get()) {
+            validationReport.markIngested(submissionFile.getReportFile());
+        }
+
+        ReadsValidationResponse structureResponse = new ReadsValidationResponse();
+        structureResponse.setStatus(ValidationResponse.status.VALIDATION_ERROR);
+
+        return Optional.of(structureResponse);
+    }
+
+    /**
+     * Runs the pre-flight checks on the manifest's files, which only read the first and last bytes of every file.
+     * The errors of the files that fail them are added to the validation report of the manifest, and the manifest
+     * is not validated any further.
+     *
+     * @return an error response if any of the files failed the checks
+     */
+    private Optional<ReadsValidationResponse> checkPreflight(ValidationJobContext job, ReadsManifest readsManifest) {
+        final FileType fileType = FileType.getByName(job.getFileType());
+        if (!preflightChecker.isEnabled() || fileType == null) {
+            return Optional.empty();
+        }
+
+        final Timer.Sample phase = validationMetrics.start();
+        final Map<File, String> preflightErrors = new HashMap<>();
+        for (SubmissionFile<ReadsManifest.FileType> submissionFile : readsManifest.getFiles().get()) {
+            preflightChecker.check(submissionFile.getFile(), fileType)
+                    .ifPresent(error -> preflightErrors.put(submissionFile.getFile(), error));
+        }
+        validationMetrics.stop(phase, ValidationMetrics.PHASE_PREFLIGHT, job.getFileType());
+        if (preflightErrors.isEmpty()) {
+            return Optional.empty();
+        }
+
+        final ValidationReport validationReport = job.getValidationReportBySubmissionReportFile().computeIfAbsent(
+                readsManifest.getReportFile(), reportFile -> createValidationReport());
+        validationReport.markIngested(readsManifest.getReportFile());
+        for (SubmissionFile<ReadsManifest.FileType> submissionFile : readsManifest.getFiles().get()) {
+            validationReport.markIngested(submissionFile.getReportFile());
+        }
+        preflightErrors.forEach(validationReport::addError);
+
+        ReadsValidationResponse preflightResponse = new ReadsValidationResponse();
+        preflightResponse.setStatus(ValidationResponse.status.VALIDATION_ERROR);
+
+        return Optional.of(preflightResponse);
+    }
+
+    /**
+     * Looks up the results of the manifest's files in the validation result cache before validating them.
+     * On a hit the stored results become the results of the files, on a miss the files are validated and
+     * their results are stored.
+     */
+    private ReadsValidationResponse validateWithCache(ValidationJobContext job, ReadsManifest readsManifest) {
+        Optional<ReadsValidationResponse> preflightResponse = checkPreflight(job, readsManifest);
+        if (preflightResponse.isPresent()) {
+            return preflightResponse.get();
+        }
+
+        if (!validationResultCache.isEnabled()) {
+            return validate(job, readsManifest);
+        }
+
+        final List<SubmissionFile<ReadsManifest.FileType>> submissionFiles = readsManifest.getFiles().get();
+        final String cacheKey = validationResultCache.createKey(getValidationSettings(job.getFileType()),
+                submissionFiles.stream().map(SubmissionFile::getFile).collect(Collectors.toList()));
+
+        Optional<ValidationResultCacheEntry> cacheEntry = validationResultCache.get(cacheKey);
+        if (cacheEntry.isPresent()) {
+            for (int i = 0; i < submissionFiles.size(); i++) {
+                List<SingleValidationResult> fileResults = cacheEntry.get().getFileResults().get(i);
+                job.getFileUUID(submissionFiles.get(i)).ifPresent(fileUUID ->
+                        job.getCachedValidationResultsByFileUUID().put(fileUUID, fileResults));
+            }
+
+            ReadsValidationResponse cachedResponse = new ReadsValidationResponse();
+            cachedResponse.setStatus(cacheEntry.get().getStatus());
+            cachedResponse.setPaired(cacheEntry.get().isPaired());
+
+            return cachedResponse;
+        }
+
+        ReadsValidationResponse response = validate(job, readsManifest);
+
+        final ValidationReport validationReport =
+                job.getValidationReportBySubmissionReportFile().get(readsManifest.getReportFile());
+        if (validationReport != null && validationReport.hasReadErrors()) {
+            log.info("Not caching the validation results of files that could not be read");
+            return response;
+        }
+
+        ValidationResultCacheEntry newCacheEntry = new ValidationResultCacheEntry();
+        newCacheEntry.setStatus(response.getStatus());
+        newCacheEntry.setPaired(response.isPaired());
+        for (SubmissionFile<ReadsManifest.FileType> submissionFile : submissionFiles) {
+            newCacheEntry.getFileResults().add(createValidationResults(job, response, null,
+                    submissionFile, readsManifest.getReportFile()));
+        }
+        validationResultCache.put(cacheKey, newCacheEntry);
+
+        return response;
+    }
+
+    /**
+     * @return the settings the validation results of a file type depend on, as a part of their cache key
+     */
+    private String getValidationSettings(String fileType) {
+        return String.join("/", fileType, validationEngineRegistry.getEngineName(fileType),
+                String.valueOf(reportFileConfig.getMaxErrors()), String.valueOf(reportFileConfig.getMaxExamples()),
+                String.valueOf(reportFileConfig.getMaxErrorChars()));
+    }
+
+    /**
+     * Validates every partition in its own manifest on the validation executor. Each partition gets its own
+     * submission report file, and the response of a partition becomes the outcome of the files in it.
+     * The partition responses are merged into the response of the job, see {@link #mergePartitionResponses}.
+     *
+     * In streaming mode the results of the files of a partition are published as soon as it has been validated,
+     * while the other partitions are still being validated.
+     */
+    private ReadsValidationResponse validatePartitions(ValidationJobContext job,
+                                                       List<List<SubmissionFile<ReadsManifest.FileType>>> partitions) {
+        log.info("Validating {} partitions with {} workers", partitions.size(), parallelValidationConfig.getWorkerCount());
+
+        List<ReadsManifest> partitionManifests = new ArrayList<>();
+        ReadsValidationResponse[] partitionResponses = new ReadsValidationResponse[partitions.size()];
+        CompletionService<Integer> completedPartitions = new ExecutorCompletionService<>(validationExecutor);
+        List<Future<Integer>> partitionFutures = new ArrayList<>();
+        for (int i = 0; i < partitions.size(); i++) {
+            final int index = i;
+            ReadsManifest partitionManifest = createPartitionManifest(job, partitions.get(i), i);
+            partitionManifests.add(partitionManifest);
+            partitionFutures.add(completedPartitions.submit(() -> {
+                partitionResponses[index] = validateWithCache(job, partitionManifest);
+                return index;
+            }));
+        }
+
+        for (int completed = 0; completed < partitions.size(); completed++) {
+            int i = getCompletedPartition(completedPartitions, partitionFutures);
+            ReadsValidationResponse partitionResponse = partitionResponses[i];
+            File partitionReportFile = partitionManifests.get(i).getReportFile();
+
+            List<FileParameters> partitionFilesData = new ArrayList<>();
+            for (SubmissionFile<ReadsManifest.FileType> submissionFile : partitions.get(i)) {
+                job.getFileUUID(submissionFile).ifPresent(fileUUID -> {
+                    job.getValidationResponseByFileUUID().put(fileUUID, partitionResponse);
+                    job.getSubmissionReportFileByFileUUID().put(fileUUID, partitionReportFile);
+                    job.getFileParameters(fileUUID).ifPresent(partitionFilesData::add);
+                });
+            }
+
+            if (validationResultPublisher.isStreaming()) {
+                publishValidationMessages(job, partitionResponse, partitionFilesData);
+                partitionFilesData.forEach(fileParameters -> job.getPublishedFileUUIDs().add(fileParameters.getFileUUID()));
+            }
+        }
+
+        return mergePartitionResponses(Arrays.asList(partitionResponses));
+    }
+
+    /**
+     * @return an error if any of the partitions failed, otherwise a success, and paired if any of the partitions
+     * has paired reads, the same way the reads of several files are combined within a partition
+     */
+    static ReadsValidationResponse mergePartitionResponses(List<ReadsValidationResponse> partitionResponses) {
+        final boolean valid = partitionResponses.stream()
+                .noneMatch(response -> response.getStatus() == ValidationResponse.status.VALIDATION_ERROR);
+        final boolean paired = partitionResponses.stream().anyMatch(ReadsValidationResponse::isPaired);
+
+        ReadsValidationResponse mergedResponse = new ReadsValidationResponse();
+        mergedResponse.setStatus(valid ? ValidationResponse.status.VALIDATION_SUCCESS : ValidationResponse.status.VALIDATION_ERROR);
+        mergedResponse.setPaired(paired);
+
+        return mergedResponse;
+    }
+
+    private ReadsManifest createPartitionManifest(ValidationJobContext job,
+                                                  List<SubmissionFile<ReadsManifest.FileType>> partition, int index) {
+        SubmissionFiles<ReadsManifest.FileType> partitionFiles = new SubmissionFiles<>();
+        partition.forEach(partitionFiles::add);
+
+        ReadsManifest partitionManifest = new ReadsManifest();
+        partitionManifest.setFiles(partitionFiles);
+        partitionManifest.setReportFile(
+                Paths.get(job.getValidationDir().getPath()).resolve(String.format(PARTITION_REPORT_FILE, index)).toFile());
+        partitionManifest.setProcessDir(createOutputDir(job.getProcessDir(), String.format(PARTITION_DIR, index)));
+
+        return partitionManifest;
+    }
+
+    /**
+     * @return the index of the next partition that has been validated. When a partition failed, the partitions
+     * that are still waiting or being validated are cancelled, as the job fails anyway.
+     */
+    private int getCompletedPartition(CompletionService<Integer> completedPartitions,
+                                      List<Future<Integer>> partitionFutures) {
+        try {
+            return completedPartitions.take().get();
+        } catch (InterruptedException ex) {
+            partitionFutures.forEach(partitionFuture -> partitionFuture.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new FileContentValidationException(ex);
+        } catch (ExecutionException ex) {
+            partitionFutures.forEach(partitionFuture -> partitionFuture.cancel(true));
+            if (ex.getCause() instanceof FileContentValidationException) {
+                throw (FileContentValidationException) ex.getCause();
+            }
+            throw new FileContentValidationException(ex);
+        }
+    }
+
+    /**
+     * Publishes the validation results of the files of the job, apart from the ones already published while the
+     * job was being validated.
+     */
+    public void sendValidationMessagesToAggregator(ValidationJobContext job, ValidationResponse validationResponse) {
+        publishValidationMessages(job, validationResponse, job.getFilesData().stream()
+                .filter(fileParameters -> !job.getPublishedFileUUIDs().contains(fileParameters.getFileUUID()))
+                .collect(Collectors.toList()));
     }
 
-    public void sendValidationMessagesToAggregator(ValidationResponse validationResponse) {
-        commandLineParameters.getFilesData().forEach(fileParameters -> {
+    private void publishValidationMessages(ValidationJobContext job, ValidationResponse validationResponse,
+                                           List<FileParameters> filesData) {
+        final String fileType = job.getFileType();
+        final List<ValidationResultMessage> messages = new ArrayList<>();
+
+        filesData.forEach(fileParameters -> {
+            final long fileSize = getData(fileParameters.getFilePath()).length();
+
+            Timer.Sample phase = validationMetrics.start();
+            ReportParsingEvent reportEvent = new ReportParsingEvent();
+            reportEvent.begin(fileParameters.getFileUUID(), fileType, fileSize);
             List<SingleValidationResult> validationResultByFileUUID =
-                    createValidationResultByFileUUID(validationResponse, fileParameters.getFileUUID());
+                    createValidationResultByFileUUID(job, validationResponse, fileParameters.getFileUUID());
             SingleValidationResultsEnvelope singleValidationResultsEnvelope =
                     generateSingleValidationResultsEnvelope(validationResultByFileUUID,
                             Integer.parseInt(fileParameters.getValidationResultVersion()),
                             fileParameters.getValidationResultUUID());
-            sendValidationMessageToAggregator(singleValidationResultsEnvelope);
+            reportEvent.commit(validationResultByFileUUID.stream()
+                    .anyMatch(result -> result.getValidationStatus().equals(SingleValidationResultStatus.Error))
+                    ? SingleValidationResultStatus.Error.name() : SingleValidationResultStatus.Pass.name());
+            validationMetrics.stop(phase, ValidationMetrics.PHASE_REPORT, fileType);
+
+            messages.add(new ValidationResultMessage(fileParameters.getFileUUID(), fileType, fileSize,
+                    singleValidationResultsEnvelope));
         });
+
+        final Timer.Sample publishPhase = validationMetrics.start();
+        validationResultPublisher.publish(messages);
+        validationMetrics.stop(publishPhase, ValidationMetrics.PHASE_PUBLISH, fileType);
+    }
+
+    public List<SingleValidationResult> createValidationResultByFileUUID(ValidationJobContext job,
+                                                                         ValidationResponse validationResponse,
+                                                                         String fileUUID) {
+        final List<SingleValidationResult> cachedValidationResults = job.getCachedValidationResultsByFileUUID().get(fileUUID);
+        if (cachedValidationResults != null) {
+            return cachedValidationResults.stream()
+                    .map(cachedResult -> copyValidationResult(cachedResult, fileUUID))
+                    .collect(Collectors.toList());
+        }
+
+        validationResponse = job.getValidationResponseByFileUUID().getOrDefault(fileUUID, validationResponse);
+
+        final SubmissionFile submissionFile = job.getSubmissionFile(fileUUID);
+        if (validationResponse.getStatus().equals(ValidationResponse.status.VALIDATION_ERROR) && submissionFile == null) {
+            throw new FileContentValidationException(String.format(SUBMISSION_FILE_COULD_NOT_BE_FOUND, fileUUID));
+        }
+
+        return createValidationResults(job, validationResponse, fileUUID, submissionFile,
+                job.getSubmissionReportFileByFileUUID().getOrDefault(fileUUID, job.getSubmissionReportFile()));
     }
 
-    public List<SingleValidationResult> createValidationResultByFileUUID(ValidationResponse validationResponse, String fileUUID) {
+    private List<SingleValidationResult> createValidationResults(ValidationJobContext job,
+                                                                 ValidationResponse validationResponse, String fileUUID,
+                                                                 SubmissionFile submissionFile, File submissionReportFile) {
         List<SingleValidationResult> validationResults = new ArrayList<>();
         if (validationResponse.getStatus().equals(ValidationResponse.status.VALIDATION_SUCCESS)) {
             validationResults.add(SingleValidationResultBuilder.buildSingleValidationResultWithPassStatus(fileUUID));
         } else {
-            validationResults.addAll(parseResultFiles(fileUUID));
+            validationResults.addAll(parseResultFiles(job, fileUUID, submissionFile, submissionReportFile));
         }
 
         return validationResults;
     }
 
-    private List<SingleValidationResult> parseResultFiles(String fileUUID) {
+    private SingleValidationResult copyValidationResult(SingleValidationResult validationResult, String fileUUID) {
+        SingleValidationResult copy = new SingleValidationResult(validationResult.getValidationAuthor(), fileUUID);
+        copy.setValidationStatus(validationResult.getValidationStatus());
+        copy.setMessage(validationResult.getMessage());
+
+        return copy;
+    }
+
+    private List<SingleValidationResult> parseResultFiles(ValidationJobContext job, String fileUUID,
+                                                          SubmissionFile submissionFile, File submissionReportFile) {
         List<SingleValidationResult> validationResults = new ArrayList<>();
 
-        final SubmissionFile submissionFile = submissionFileByFileUUID.get(fileUUID);
-        if (submissionFile == null) {
-            throw new FileContentValidationException(String.format(SUBMISSION_FILE_COULD_NOT_BE_FOUND, fileUUID));
-        }
+        final ValidationReport validationReport =
+                getValidationReport(job, fileUUID, submissionFile, submissionReportFile);
+        final List<File> dataFiles = job.getSubmissionFileByFileUUID().values().stream()
+                .map(SubmissionFile::getFile)
+                .collect(Collectors.toList());
 
-        Set<String> errorMessages = new HashSet<>();
-        errorMessages.addAll(parseResultFile(fileUUID, submissionFile.getReportFile()));
-        errorMessages.addAll(parseCommonResultFile(fileUUID));
+        final ErrorSummary errorSummary = validationReport.getErrors(submissionFile.getFile(), dataFiles);
 
-        for (String message : errorMessages) {
-            validationResults.add(
-                    SingleValidationResultBuilder.buildSingleValidationResultWithErrorStatus(message, fileUUID));
+        for (ErrorGroup errorGroup : errorSummary.getGroups()) {
+            validationResults.add(SingleValidationResultBuilder.buildSingleValidationResultWithErrorStatus(
+                    errorGroup.getSummaryMessage(), fileUUID));
+        }
+
+        if (errorSummary.getDroppedCount() > 0) {
+            validationResults.add(SingleValidationResultBuilder.buildSingleValidationResultWithErrorStatus(
+                    String.format(VALIDATION_REPORT_TRUNCATED, errorSummary.getDroppedCount()), fileUUID));
         }
 
         return validationResults;
     }
 
-    private Set<String> parseCommonResultFile(String fileUUID) {
-        return parseResultFile(fileUUID, getSubmissionReportFile());
+    /**
+     * Returns the in-memory validation report of the manifest a file was validated in. The report files written
+     * by the validator are read into it once per job, when the results of one of their files are first needed.
+     */
+    private ValidationReport getValidationReport(ValidationJobContext job, String fileUUID,
+                                                 SubmissionFile submissionFile, File submissionReportFile) {
+        final ValidationReport validationReport = job.getValidationReportBySubmissionReportFile().computeIfAbsent(
+                submissionReportFile, reportFile -> createValidationReport());
+
+        synchronized (validationReport) {
+            readReportFile(fileUUID, validationReport, submissionReportFile, null);
+            readReportFile(fileUUID, validationReport, submissionFile.getReportFile(), submissionFile.getFile());
+        }
+
+        return validationReport;
     }
 
-    private Set<String> parseResultFile(String fileUUID, File reportFile) {
-        Set<String> errorMessages = new HashSet<>();
-        try (Scanner scanner = new Scanner(new BufferedReader(new FileReader(reportFile)))) {
-            while (scanner.hasNext()) {
-                String message = scanner.nextLine();
+    private ValidationReport createValidationReport() {
+        return new ValidationReport(reportFileConfig.getMaxErrors(), reportFileConfig.getMaxExamples(),
+                reportFileConfig.getMaxErrorChars());
+    }
 
-                if (message.startsWith("ERROR: ")) {
-                    errorMessages.add(message.replace("ERROR: ", ""));
-                }
+    private void readReportFile(String fileUUID, ValidationReport validationReport, File reportFile, File dataFile) {
+        if (validationReport.markIngested(reportFile)) {
+            try {
+                ReportFileParser.parse(reportFile, dataFile, validationReport);
+            } catch (IOException ex) {
+                throw new FileHandleException(String.format(VALIDATION_REPORT_FILE_ERROR, fileUUID, ex.getMessage()), ex);
             }
-        } catch (IOException ex) {
-            throw new FileHandleException(String.format(VALIDATION_REPORT_FILE_ERROR, fileUUID, ex.getMessage()), ex);
         }
-
-        return errorMessages;
     }
 
+    /**
+     * Creates the manifest of the job's files, and adds the submission file of every data file to the map by
+     * the UUID of the data file.
+     */
     @NotNull
-    private SubmissionFiles<ReadsManifest.FileType> getSubmissionFiles(ReadsManifest.FileType fileType, String... filePaths) {
-        SubmissionFiles<ReadsManifest.FileType> submissionFiles = new SubmissionFiles<>();
+    private ReadsManifest getReadsManifest(CommandLineParameters jobParameters,
+                                           Map<String, SubmissionFile> submissionFileByFileUUID) {
+        final ReadsManifest.FileType fileType = getReadsFileType(jobParameters.getFileType());
 
-        for (String filePath : filePaths) {
+        SubmissionFiles<ReadsManifest.FileType> submissionFiles = new SubmissionFiles<>();
+        for (FileParameters fileParameters : jobParameters.getFilesData()) {
             SubmissionFile<ReadsManifest.FileType> submissionFile =
-                    new SubmissionFile<>(fileType, getData(filePath));
+                    new SubmissionFile<>(fileType, getData(fileParameters.getFilePath()));
             submissionFiles.add(submissionFile);
 
-            getFileUUIDByFilePath(filePath).ifPresent(fileUUID ->
-                submissionFileByFileUUID.put(fileUUID, submissionFile)
-            );
+            submissionFileByFileUUID.putIfAbsent(fileParameters.getFileUUID(), submissionFile);
         }
-        return submissionFiles;
-    }
-
-    private Optional<String> getFileUUIDByFilePath(String filePath) {
-        return commandLineParameters.getFilesData().stream()
-                .filter(fileParameter -> fileParameter.getFilePath().equals(filePath))
-                .map(FileParameters::getFileUUID)
-                .findFirst();
-    }
-
-    @NotNull
-    private ReadsManifest getReadsManifest() {
-        final ReadsManifest.FileType fileType = ReadsManifest.FileType.valueOf(commandLineParameters.getFileType());
-        final String[] filePath = commandLineParameters.getFilesData().stream()
-                .map(FileParameters::getFilePath)
-                .toArray(String[]::new);
 
-        SubmissionFiles<ReadsManifest.FileType> submissionFiles = getSubmissionFiles(fileType, filePath);
         ReadsManifest readsManifest = new ReadsManifest();
         readsManifest.setFiles(submissionFiles);
 
@@ -230,17 +706,24 @@ public class FileContentValidationHandler {
     }
 
 
-    private File createSubmissionDir(String dir, String submissionUUID) {
+    /**
+     * @return the reads file type of a file type, or null for file types that are not reads, e.g. VCF. Their files
+     * are carried by the manifest without a file type and can only be validated by a built-in engine.
+     */
+    private static ReadsManifest.FileType getReadsFileType(String fileType) {
+        return Arrays.stream(ReadsManifest.FileType.values())
+                .filter(readsFileType -> readsFileType.name().equals(fileType))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private File createSubmissionDir(File outputDir, String dir, String submissionUUID) {
         if (StringUtils.isBlank(submissionUUID)) {
             throw new FileContentValidationException(
                     FileContentValidatorMessages.EXECUTOR_INIT_ERROR.format("Missing submission's UUID."));
         }
 
-        return createOutputDir(reportFileConfig.getOutputDir(), reportFileConfig.getContextType(), dir);
-    }
-
-    private File getSubmissionReportFile() {
-        return Paths.get(this.validationDir.getPath()).resolve(REPORT_FILE).toFile();
+        return createOutputDir(outputDir, reportFileConfig.getContextType(), dir);
     }
 
     public File getData(String filename) {
@@ -258,17 +741,4 @@ public class FileContentValidationHandler {
                 ValidationAuthor.FileContent
         );
     }
-
-    private void sendValidationMessageToAggregator(SingleValidationResultsEnvelope envelope) {
-        List<SingleValidationResult> errorResults =
-                envelope.getSingleValidationResults().stream()
-                        .filter(svr -> svr.getValidationStatus().equals(SingleValidationResultStatus.Error))
-                        .collect(Collectors.toList());
-
-        if (errorResults.size() > 0) {
-            rabbitMessagingTemplate.convertAndSend(SUBMISSION_EXCHANGE, EVENT_VALIDATION_ERROR, envelope);
-        } else {
-            rabbitMessagingTemplate.convertAndSend(SUBMISSION_EXCHANGE, EVENT_VALIDATION_SUCCESS, envelope);
-        }
-    }
 }
@@ -27,4 +27,11 @@ public enum FileType {
     public static boolean isSupported(String name) {
         return SUPPORTED_TYPES.contains(name.toUpperCase());
     }
+
+    /**
+     * @return the file type with the given name in any case, or null if there is no such file type
+     */
+    public static FileType getByName(String name) {
+        return nameToValueMap.get(name.toUpperCase());
+    }
 }
@@ -0,0 +1,55 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service;
+
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.ena.readtools.validator.ReadsValidator;
+import uk.ac.ebi.ena.webin.cli.validator.manifest.ReadsManifest;
+import uk.ac.ebi.ena.webin.cli.validator.response.ReadsValidationResponse;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The warm webin-cli read validators shared by all jobs and partitions.
+ *
+ * A validator is not known to be safe to use from several threads, so each one validates one manifest at a time.
+ * A manifest gets the validator that was used last, and another one is only created when all of them are busy: the
+ * pool grows to the number of manifests validated at the same time, and its validators are reused from then on.
+ * A validator that failed is dropped rather than reused.
+ */
+@Component
+public class ReadsValidatorPool {
+
+    private final Supplier<ReadsValidator> validatorFactory;
+    private final Deque<ReadsValidator> idleValidators = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger createdCount = new AtomicInteger();
+
+    public ReadsValidatorPool() {
+        this(ReadsValidator::new);
+    }
+
+    ReadsValidatorPool(Supplier<ReadsValidator> validatorFactory) {
+        this.validatorFactory = validatorFactory;
+    }
+
+    public ReadsValidationResponse validate(ReadsManifest readsManifest) {
+        ReadsValidator readsValidator = idleValidators.pollFirst();
+        if (readsValidator == null) {
+            readsValidator = validatorFactory.get();
+            createdCount.incrementAndGet();
+        }
+
+        final ReadsValidationResponse response = readsValidator.validate(readsManifest);
+        idleValidators.offerFirst(readsValidator);
+
+        return response;
+    }
+
+    /**
+     * @return the number of validators created since the service started
+     */
+    public int getCreatedCount() {
+        return createdCount.get();
+    }
+}
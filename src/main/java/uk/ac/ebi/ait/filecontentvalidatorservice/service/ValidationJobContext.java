@@ -0,0 +1,143 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service;
+
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.CommandLineParameters;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.FileParameters;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResult;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.report.ValidationReport;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+import uk.ac.ebi.ena.webin.cli.validator.file.SubmissionFile;
+import uk.ac.ebi.ena.webin.cli.validator.manifest.ReadsManifest;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Everything a {@link FileContentValidationHandler} knows about one validation job: its parameters, its manifest and
+ * directories, and the outcomes of its files collected while it is validated.
+ *
+ * The parameters, manifest, directories and file lookups are fixed when the context is created. The outcomes are
+ * only ever added to, from the threads validating the job. The handler keeps nothing of a job itself, so any number
+ * of jobs can be validated at the same time, and all the state of a job goes away with its context.
+ */
+public class ValidationJobContext {
+
+    private final CommandLineParameters jobParameters;
+    private final ReadsManifest manifest;
+    private final File outputDir;
+    private final File validationDir;
+    private final File processDir;
+    private final File submissionReportFile;
+
+    private final Map<String, FileParameters> fileParametersByFileUUID;
+    private final Map<String, SubmissionFile> submissionFileByFileUUID;
+    private final Map<SubmissionFile, String> fileUUIDBySubmissionFile;
+
+    private final Map<String, ValidationResponse> validationResponseByFileUUID = new ConcurrentHashMap<>();
+    private final Map<String, File> submissionReportFileByFileUUID = new ConcurrentHashMap<>();
+    private final Map<String, List<SingleValidationResult>> cachedValidationResultsByFileUUID = new ConcurrentHashMap<>();
+    private final Map<File, ValidationReport> validationReportBySubmissionReportFile = new ConcurrentHashMap<>();
+    private final Set<String> publishedFileUUIDs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param submissionFileByFileUUID the submission files of the manifest by the UUIDs of their data files
+     */
+    public ValidationJobContext(CommandLineParameters jobParameters, ReadsManifest manifest, File outputDir,
+                                File validationDir, File processDir, File submissionReportFile,
+                                Map<String, SubmissionFile> submissionFileByFileUUID) {
+        this.jobParameters = jobParameters;
+        this.manifest = manifest;
+        this.outputDir = outputDir;
+        this.validationDir = validationDir;
+        this.processDir = processDir;
+        this.submissionReportFile = submissionReportFile;
+
+        final Map<String, FileParameters> fileParameters = new LinkedHashMap<>();
+        jobParameters.getFilesData().forEach(fileParameter ->
+                fileParameters.putIfAbsent(fileParameter.getFileUUID(), fileParameter));
+        this.fileParametersByFileUUID = Collections.unmodifiableMap(fileParameters);
+
+        final Map<SubmissionFile, String> fileUUIDs = new IdentityHashMap<>();
+        submissionFileByFileUUID.forEach((fileUUID, submissionFile) -> fileUUIDs.put(submissionFile, fileUUID));
+        this.submissionFileByFileUUID = Collections.unmodifiableMap(new LinkedHashMap<>(submissionFileByFileUUID));
+        this.fileUUIDBySubmissionFile = Collections.unmodifiableMap(fileUUIDs);
+    }
+
+    public CommandLineParameters getJobParameters() {
+        return jobParameters;
+    }
+
+    public String getFileType() {
+        return jobParameters.getFileType();
+    }
+
+    public String getSubmissionUUID() {
+        return jobParameters.getSubmissionUUID();
+    }
+
+    public List<FileParameters> getFilesData() {
+        return jobParameters.getFilesData();
+    }
+
+    public ReadsManifest getManifest() {
+        return manifest;
+    }
+
+    public File getOutputDir() {
+        return outputDir;
+    }
+
+    public File getValidationDir() {
+        return validationDir;
+    }
+
+    public File getProcessDir() {
+        return processDir;
+    }
+
+    public File getSubmissionReportFile() {
+        return submissionReportFile;
+    }
+
+    public Optional<FileParameters> getFileParameters(String fileUUID) {
+        return Optional.ofNullable(fileParametersByFileUUID.get(fileUUID));
+    }
+
+    public SubmissionFile getSubmissionFile(String fileUUID) {
+        return submissionFileByFileUUID.get(fileUUID);
+    }
+
+    public Optional<String> getFileUUID(SubmissionFile submissionFile) {
+        return Optional.ofNullable(fileUUIDBySubmissionFile.get(submissionFile));
+    }
+
+    public Map<String, SubmissionFile> getSubmissionFileByFileUUID() {
+        return submissionFileByFileUUID;
+    }
+
+    Map<String, ValidationResponse> getValidationResponseByFileUUID() {
+        return validationResponseByFileUUID;
+    }
+
+    Map<String, File> getSubmissionReportFileByFileUUID() {
+        return submissionReportFileByFileUUID;
+    }
+
+    Map<String, List<SingleValidationResult>> getCachedValidationResultsByFileUUID() {
+        return cachedValidationResultsByFileUUID;
+    }
+
+    Map<File, ValidationReport> getValidationReportBySubmissionReportFile() {
+        return validationReportBySubmissionReportFile;
+    }
+
+    Set<String> getPublishedFileUUIDs() {
+        return publishedFileUUIDs;
+    }
+}
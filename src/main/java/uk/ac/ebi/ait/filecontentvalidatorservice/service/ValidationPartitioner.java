@@ -0,0 +1,141 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.DataFileStreams;
+import uk.ac.ebi.ena.webin.cli.validator.file.SubmissionFile;
+import uk.ac.ebi.ena.webin.cli.validator.manifest.ReadsManifest;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits the files of a job into groups that can be validated independently of each other.
+ * BAM and CRAM files are always independent. FASTQ files are grouped by their read pair, so the mates of a pair
+ * (e.g. {@code sample_1.fastq.gz} and {@code sample_2.fastq.gz}) are still validated together.
+ *
+ * FASTQ files are only split when every file is clearly one of the two mates of a pair: its name ends in a mate
+ * number, the other mate is there, and the first reads of both files have the same name. Otherwise, e.g. for mates
+ * named in some other way, all the FASTQ files are validated together, so the pairing check still sees all of them.
+ */
+@Slf4j
+public class ValidationPartitioner {
+
+    private static final Pattern COMPRESSION_SUFFIX = Pattern.compile("(?i)\\.(gz|bz2)$");
+    private static final Pattern FASTQ_SUFFIX = Pattern.compile("(?i)\\.(fastq|fq|txt)$");
+    private static final Pattern MATE_SUFFIX = Pattern.compile("^(.+?)[._-]R?([12])(?:[._-]\\d{3})?$");
+    private static final Pattern MATE_NAME_SUFFIX = Pattern.compile("/[12]$");
+
+    private static final DataFileStreams DATA_FILE_STREAMS = new DataFileStreams();
+
+    public static List<List<SubmissionFile<ReadsManifest.FileType>>> partition(
+            List<SubmissionFile<ReadsManifest.FileType>> submissionFiles) {
+        return partition(submissionFiles, ValidationPartitioner::readFirstReadName);
+    }
+
+    /**
+     * @param firstReadName the name of the first read of a FASTQ file, without a mate suffix, or empty if it
+     *                      could not be read
+     */
+    static List<List<SubmissionFile<ReadsManifest.FileType>>> partition(
+            List<SubmissionFile<ReadsManifest.FileType>> submissionFiles,
+            Function<File, Optional<String>> firstReadName) {
+        Map<String, List<SubmissionFile<ReadsManifest.FileType>>> partitions = new LinkedHashMap<>();
+        List<SubmissionFile<ReadsManifest.FileType>> fastqFiles = new ArrayList<>();
+
+        for (int i = 0; i < submissionFiles.size(); i++) {
+            SubmissionFile<ReadsManifest.FileType> submissionFile = submissionFiles.get(i);
+            String partitionKey;
+            if (submissionFile.getFileType() == ReadsManifest.FileType.FASTQ) {
+                partitionKey = getReadPairName(submissionFile.getFile().getName());
+                fastqFiles.add(submissionFile);
+            } else {
+                partitionKey = String.valueOf(i);
+            }
+
+            partitions.computeIfAbsent(partitionKey, key -> new ArrayList<>()).add(submissionFile);
+        }
+
+        if (fastqFiles.size() > 1 && !isPairingClear(partitions, firstReadName)) {
+            log.info("The read pairs of {} FASTQ files are not clear, validating them together", fastqFiles.size());
+            partitions.values().removeIf(partition -> partition.get(0).getFileType() == ReadsManifest.FileType.FASTQ);
+            partitions.put(null, fastqFiles);
+        }
+
+        return Collections.unmodifiableList(new ArrayList<>(partitions.values()));
+    }
+
+    static String getReadPairName(String fileName) {
+        Matcher mateMatcher = MATE_SUFFIX.matcher(getBaseName(fileName));
+
+        return mateMatcher.matches() ? mateMatcher.group(1) : getBaseName(fileName);
+    }
+
+    /**
+     * @return 1 or 2 for the file of the first or second mates of a pair by its name, or 0 if its name has no
+     * mate number
+     */
+    static int getMate(String fileName) {
+        Matcher mateMatcher = MATE_SUFFIX.matcher(getBaseName(fileName));
+
+        return mateMatcher.matches() ? Integer.parseInt(mateMatcher.group(2)) : 0;
+    }
+
+    private static String getBaseName(String fileName) {
+        String name = COMPRESSION_SUFFIX.matcher(fileName).replaceFirst("");
+        return FASTQ_SUFFIX.matcher(name).replaceFirst("");
+    }
+
+    private static boolean isPairingClear(Map<String, List<SubmissionFile<ReadsManifest.FileType>>> partitions,
+                                          Function<File, Optional<String>> firstReadName) {
+        for (List<SubmissionFile<ReadsManifest.FileType>> partition : partitions.values()) {
+            if (partition.get(0).getFileType() != ReadsManifest.FileType.FASTQ) {
+                continue;
+            }
+            if (partition.size() != 2) {
+                return false;
+            }
+
+            File file1 = partition.get(0).getFile();
+            File file2 = partition.get(1).getFile();
+            if (getMate(file1.getName()) + getMate(file2.getName()) != 3 || getMate(file1.getName()) == 0) {
+                return false;
+            }
+
+            Optional<String> readName1 = firstReadName.apply(file1);
+            if (!readName1.isPresent() || !Objects.equals(readName1, firstReadName.apply(file2))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static Optional<String> readFirstReadName(File file) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(DATA_FILE_STREAMS.open(file), StandardCharsets.US_ASCII))) {
+            final String header = reader.readLine();
+            if (header == null || !header.startsWith("@")) {
+                return Optional.empty();
+            }
+
+            final String name = header.substring(1).split("\\s", 2)[0];
+            return name.isEmpty() ? Optional.empty() : Optional.of(MATE_NAME_SUFFIX.matcher(name).replaceFirst(""));
+        } catch (IOException ex) {
+            log.debug("Could not read the first read name of {}", file, ex);
+            return Optional.empty();
+        }
+    }
+}
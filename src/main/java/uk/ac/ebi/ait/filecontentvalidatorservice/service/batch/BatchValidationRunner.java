@@ -0,0 +1,104 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.BatchConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.CommandLineParameters;
+import uk.ac.ebi.ait.filecontentvalidatorservice.exception.FileContentValidationException;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.FileContentValidationHandler;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationJobContext;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr.ValidationJobEvent;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr.ValidationJobRecorder;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Validates all the jobs of a job list in this JVM, a few at a time, and publishes their results as if each had been
+ * run on its own.
+ *
+ * The jobs share the handler with its validation engines, caches and reference store, so the cost of starting the
+ * service and warming it up is paid once for the whole list instead of once per submission. A job that fails is
+ * logged and counted, and does not stop the others.
+ */
+@Component
+@Slf4j
+public class BatchValidationRunner {
+
+    private final FileContentValidationHandler fileContentValidationHandler;
+    private final ValidationJobRecorder validationJobRecorder;
+    private final ExecutorService batchExecutor;
+    private final BatchConfig batchConfig;
+
+    public BatchValidationRunner(FileContentValidationHandler fileContentValidationHandler,
+                                 ValidationJobRecorder validationJobRecorder,
+                                 @Qualifier("batchExecutor") ExecutorService batchExecutor,
+                                 BatchConfig batchConfig) {
+        this.fileContentValidationHandler = fileContentValidationHandler;
+        this.validationJobRecorder = validationJobRecorder;
+        this.batchExecutor = batchExecutor;
+        this.batchConfig = batchConfig;
+    }
+
+    /**
+     * @return the number of jobs by their validation status, {@link ValidationJobRecorder#STATUS_FAILED} for the
+     * jobs that could not be validated
+     */
+    public Map<String, Long> run(File jobListFile) {
+        final long startTime = System.nanoTime();
+        final ValidationJobList jobList = ValidationJobList.read(jobListFile);
+        log.info("Validating {} job(s) of {} with {} worker(s).", jobList.size(), jobListFile,
+                batchConfig.getWorkerCount());
+
+        final List<Future<String>> statuses = new ArrayList<>(jobList.size());
+        for (CommandLineParameters jobParameters : jobList.getJobs()) {
+            statuses.add(batchExecutor.submit(() -> validateJob(jobParameters)));
+        }
+
+        final Map<String, Long> jobCountByStatus = new TreeMap<>();
+        try {
+            for (Future<String> status : statuses) {
+                jobCountByStatus.merge(status.get(), 1L, Long::sum);
+            }
+        } catch (InterruptedException ex) {
+            statuses.forEach(status -> status.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new FileContentValidationException(ex);
+        } catch (ExecutionException ex) {
+            throw new FileContentValidationException(ex);
+        }
+
+        log.info("Validated {} job(s) of {} in {}: {}", jobList.size(), jobListFile,
+                Duration.ofNanos(System.nanoTime() - startTime), jobCountByStatus);
+
+        return jobCountByStatus;
+    }
+
+    String validateJob(CommandLineParameters jobParameters) {
+        final ValidationJobEvent jobEvent = validationJobRecorder.begin(jobParameters.getSubmissionUUID(),
+                jobParameters.getFileType(), jobParameters.getFilesData());
+        String status = ValidationJobRecorder.STATUS_FAILED;
+        try {
+            final ValidationJobContext job = fileContentValidationHandler.createJobContext(jobParameters);
+            final ValidationResponse validationResponse = fileContentValidationHandler.handleFileContentValidation(job);
+
+            fileContentValidationHandler.sendValidationMessagesToAggregator(job, validationResponse);
+            status = String.valueOf(validationResponse.getStatus());
+        } catch (RuntimeException ex) {
+            log.error("Validation of submission {} failed.", jobParameters.getSubmissionUUID(), ex);
+        } finally {
+            validationJobRecorder.end(jobEvent, status);
+        }
+
+        return status;
+    }
+}
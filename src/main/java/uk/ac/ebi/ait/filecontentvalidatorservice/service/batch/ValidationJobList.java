@@ -0,0 +1,109 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.batch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.commons.lang3.StringUtils;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.CommandLineParameters;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.FileContentValidationJob;
+import uk.ac.ebi.ait.filecontentvalidatorservice.exception.FileHandleException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ErrorMessages.JOB_LIST_LINE_ERROR;
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ErrorMessages.JOB_LIST_READ_ERROR;
+
+/**
+ * The jobs of a job list file, read once before any of them is validated.
+ *
+ * The file has one job per line, in the JSON format of the jobs taken from the message queue in worker mode:
+ * <pre>
+ * {"submissionUUID": "...", "fileType": "FASTQ", "files": [{"validationResultUUID": "...",
+ *     "validationResultVersion": "0", "fileUUID": "...", "filePath": "/data/reads_1.fastq.gz"}, ...]}
+ * </pre>
+ * Blank lines and lines starting with # are left out. A list with a line that is not a valid job is rejected
+ * as a whole, so a sweep does not stop half way through.
+ */
+public class ValidationJobList {
+
+    private static final String COMMENT = "#";
+
+    private static final ObjectReader JOB_READER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .readerFor(FileContentValidationJob.class);
+
+    private final List<CommandLineParameters> jobs;
+
+    private ValidationJobList(List<CommandLineParameters> jobs) {
+        this.jobs = Collections.unmodifiableList(jobs);
+    }
+
+    public static ValidationJobList read(File jobListFile) {
+        final List<CommandLineParameters> jobs = new ArrayList<>();
+        final Set<String> submissionUUIDs = new HashSet<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(jobListFile.toPath(), StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (StringUtils.isBlank(line) || line.trim().startsWith(COMMENT)) {
+                    continue;
+                }
+
+                final CommandLineParameters job = parseJob(line, lineNumber);
+                if (!submissionUUIDs.add(job.getSubmissionUUID())) {
+                    throw new FileHandleException(String.format(JOB_LIST_LINE_ERROR, lineNumber,
+                            "submission " + job.getSubmissionUUID() + " is already in the list"));
+                }
+                jobs.add(job);
+            }
+        } catch (IOException ex) {
+            throw new FileHandleException(String.format(JOB_LIST_READ_ERROR, jobListFile, ex.getMessage()), ex);
+        }
+
+        return new ValidationJobList(jobs);
+    }
+
+    private static CommandLineParameters parseJob(String line, int lineNumber) {
+        final FileContentValidationJob job;
+        try {
+            job = JOB_READER.readValue(line);
+        } catch (JsonProcessingException ex) {
+            throw new FileHandleException(String.format(JOB_LIST_LINE_ERROR, lineNumber, ex.getOriginalMessage()), ex);
+        } catch (IOException ex) {
+            throw new FileHandleException(String.format(JOB_LIST_LINE_ERROR, lineNumber, ex.getMessage()), ex);
+        }
+
+        if (StringUtils.isBlank(job.getSubmissionUUID()) || StringUtils.isBlank(job.getFileType())
+                || job.getFiles() == null || job.getFiles().isEmpty()) {
+            throw new FileHandleException(String.format(JOB_LIST_LINE_ERROR, lineNumber,
+                    "a job needs a submissionUUID, a fileType and at least one file"));
+        }
+
+        final CommandLineParameters jobParameters = new CommandLineParameters();
+        jobParameters.setSubmissionUUID(job.getSubmissionUUID());
+        jobParameters.setFileType(job.getFileType());
+        jobParameters.setFilesData(Collections.unmodifiableList(job.getFiles()));
+
+        return jobParameters;
+    }
+
+    public List<CommandLineParameters> getJobs() {
+        return jobs;
+    }
+
+    public int size() {
+        return jobs.size();
+    }
+}
@@ -0,0 +1,278 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.ValidationResultCacheConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.exception.FileHandleException;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.metrics.ValidationMetrics;
+import uk.ac.ebi.ait.filecontentvalidatorservice.utils.FileContentValidatorMessages;
+import uk.ac.ebi.ena.readtools.validator.ReadsValidator;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ErrorMessages.FILE_DIGEST_ERROR;
+
+/**
+ * Persistent local cache of validation results keyed by the validated files.
+ *
+ * The key is a digest of the version of the webin-cli validator and of this service, which holds the built-in
+ * engines, the validation settings, and the SHA-256 of the content of every file, so the same content is not validated
+ * twice, even when it is uploaded again under another path. The digest of a file is remembered by its path, size and
+ * modification time, so a file is only read in full the first time it is looked up. Every entry is a JSON file in the cache directory. The number and size of the entries are counted
+ * as they are stored; when they go over the configured limits, entries older than the configured age are evicted,
+ * then the least recently used ones until the cache is back under nine tenths of its limits.
+ */
+@Component
+@Slf4j
+public class ValidationResultCache {
+
+    private static final String ENTRY_SUFFIX = ".json";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int DIGEST_BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_FILE_DIGESTS = 10000;
+    private static final String UNKNOWN_VERSION = "unknown";
+    private static final double EVICTION_WATERMARK = 0.9;
+
+    private final ValidationResultCacheConfig cacheConfig;
+    private final ValidationMetrics validationMetrics;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final Map<String, String> fileDigestByAttributes = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_FILE_DIGESTS;
+        }
+    };
+
+    private long entryCount;
+    private long sizeBytes;
+
+    public ValidationResultCache(ValidationResultCacheConfig cacheConfig, ValidationMetrics validationMetrics) {
+        this.cacheConfig = cacheConfig;
+        this.validationMetrics = validationMetrics;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (isEnabled()) {
+            File cacheDir = cacheConfig.getCacheDir();
+            if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+                throw new FileHandleException(FileContentValidatorMessages.CLI_CREATE_DIR_ERROR.format(cacheDir.getPath()));
+            }
+            evict();
+        }
+    }
+
+    public boolean isEnabled() {
+        return cacheConfig.isEnabled();
+    }
+
+    /**
+     * Creates the cache key of a group of files validated together.
+     *
+     * @param validationSettings everything apart from the files and the versions that the results depend on, e.g. the
+     *                           file type, the engine and the limits of the report
+     */
+    public String createKey(String validationSettings, List<File> files) {
+        MessageDigest keyDigest = createDigest();
+        update(keyDigest, getValidatorVersion());
+        update(keyDigest, getServiceVersion());
+        update(keyDigest, validationSettings);
+        for (File file : files) {
+            update(keyDigest, getFileDigest(file));
+        }
+
+        return toHex(keyDigest.digest());
+    }
+
+    public Optional<ValidationResultCacheEntry> get(String key) {
+        File entryFile = getEntryFile(key);
+
+        if (entryFile.isFile() && !isExpired(entryFile)) {
+            try {
+                ValidationResultCacheEntry entry = mapper.readValue(entryFile, ValidationResultCacheEntry.class);
+                entryFile.setLastModified(System.currentTimeMillis());
+                validationMetrics.recordCacheLookup(true);
+
+                return Optional.of(entry);
+            } catch (IOException ex) {
+                log.warn("Could not read validation result cache entry: {}", entryFile, ex);
+            }
+        }
+
+        validationMetrics.recordCacheLookup(false);
+
+        return Optional.empty();
+    }
+
+    public void put(String key, ValidationResultCacheEntry entry) {
+        File entryFile = getEntryFile(key);
+
+        try {
+            File tempFile = File.createTempFile(key, ".tmp", cacheConfig.getCacheDir());
+            mapper.writeValue(tempFile, entry);
+            long entrySize = tempFile.length();
+            synchronized (this) {
+                long replacedSize = entryFile.isFile() ? entryFile.length() : -1;
+                try {
+                    Files.move(tempFile.toPath(), entryFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(tempFile.toPath(), entryFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+
+                if (replacedSize >= 0) {
+                    sizeBytes += entrySize - replacedSize;
+                } else {
+                    entryCount++;
+                    sizeBytes += entrySize;
+                }
+                if (entryCount > cacheConfig.getMaxEntries() || sizeBytes > getMaxSizeBytes()) {
+                    evict();
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Could not write validation result cache entry: {}", entryFile, ex);
+        }
+    }
+
+    /**
+     * Removes the expired entries, then the least recently used ones while the cache is over nine tenths of its
+     * limits, and counts the entries that are left.
+     */
+    synchronized void evict() {
+        File[] entryFiles = cacheConfig.getCacheDir().listFiles((dir, name) -> name.endsWith(ENTRY_SUFFIX));
+        if (entryFiles == null) {
+            return;
+        }
+
+        Arrays.sort(entryFiles, Comparator.comparingLong(File::lastModified).reversed());
+
+        long maxEntries = (long) (cacheConfig.getMaxEntries() * EVICTION_WATERMARK);
+        long maxSizeBytes = (long) (getMaxSizeBytes() * EVICTION_WATERMARK);
+        entryCount = 0;
+        sizeBytes = 0;
+        for (File entryFile : entryFiles) {
+            long entrySize = entryFile.length();
+            if (isExpired(entryFile) || entryCount >= maxEntries || sizeBytes + entrySize > maxSizeBytes) {
+                if (!entryFile.delete()) {
+                    log.warn("Could not evict validation result cache entry: {}", entryFile);
+                }
+            } else {
+                entryCount++;
+                sizeBytes += entrySize;
+            }
+        }
+    }
+
+    private long getMaxSizeBytes() {
+        return cacheConfig.getMaxSizeMB() * 1024 * 1024;
+    }
+
+    private boolean isExpired(File entryFile) {
+        return System.currentTimeMillis() - entryFile.lastModified() > TimeUnit.DAYS.toMillis(cacheConfig.getMaxAgeDays());
+    }
+
+    private File getEntryFile(String key) {
+        return new File(cacheConfig.getCacheDir(), key + ENTRY_SUFFIX);
+    }
+
+    private static String getValidatorVersion() {
+        return getVersion(ReadsValidator.class);
+    }
+
+    /**
+     * The version of the service, which changes with the built-in engines and the way the results are made.
+     */
+    private static String getServiceVersion() {
+        return getVersion(ValidationResultCache.class);
+    }
+
+    private static String getVersion(Class<?> versionedClass) {
+        String version = versionedClass.getPackage().getImplementationVersion();
+        return version == null ? UNKNOWN_VERSION : version;
+    }
+
+    /**
+     * @return the digest of the content of a file. It is only calculated when the file has not been seen with the same
+     * path, size and modification time before.
+     */
+    private String getFileDigest(File file) {
+        final String fileAttributes;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            fileAttributes = file.getAbsolutePath() + ":" + attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+        } catch (IOException ex) {
+            throw new FileHandleException(String.format(FILE_DIGEST_ERROR, file, ex.getMessage()), ex);
+        }
+
+        synchronized (fileDigestByAttributes) {
+            String fileDigest = fileDigestByAttributes.get(fileAttributes);
+            if (fileDigest != null) {
+                return fileDigest;
+            }
+        }
+
+        String fileDigest = calculateFileDigest(file);
+        synchronized (fileDigestByAttributes) {
+            fileDigestByAttributes.put(fileAttributes, fileDigest);
+        }
+
+        return fileDigest;
+    }
+
+    private static String calculateFileDigest(File file) {
+        MessageDigest fileDigest = createDigest();
+        byte[] buffer = new byte[DIGEST_BUFFER_SIZE];
+
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                fileDigest.update(buffer, 0, read);
+            }
+        } catch (IOException ex) {
+            throw new FileHandleException(String.format(FILE_DIGEST_ERROR, file, ex.getMessage()), ex);
+        }
+
+        return toHex(fileDigest.digest());
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
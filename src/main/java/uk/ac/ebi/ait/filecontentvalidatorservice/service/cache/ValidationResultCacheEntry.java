@@ -0,0 +1,20 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.cache;
+
+import lombok.Data;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResult;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The stored outcome of validating a group of files. The results of the files are kept in the order the files were
+ * validated in and without their entity UUID, because the same content can arrive again under a different file UUID.
+ */
+@Data
+public class ValidationResultCacheEntry {
+
+    private ValidationResponse.status status;
+    private boolean paired;
+    private List<List<SingleValidationResult>> fileResults = new ArrayList<>();
+}
@@ -0,0 +1,153 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validates the records of a range of inflated BAM data. Ranges are validated independently of each other, so
+ * they can be validated on several threads.
+ */
+public class BamRecordValidator {
+
+    static final String INVALID_REFERENCE = "Record %d: invalid reference index %d";
+    static final String INVALID_POSITION = "Record %d: invalid position %d";
+    static final String INVALID_READ_NAME = "Record %d: invalid read name";
+    static final String INVALID_RECORD_FIELDS = "Record %d: the fields of the record do not fit its size";
+    static final String INVALID_MATE_FLAGS = "Record %d: mate flags 0x%x are set on an unpaired read";
+    static final String INVALID_QUALITY = "Record %d: quality value %d is out of range";
+
+    static final int FIXED_FIELDS_SIZE = 32;
+
+    private static final int FLAG_PAIRED = 0x1;
+    private static final int FLAGS_OF_MATES = 0x2 | 0x8 | 0x20 | 0x40 | 0x80;
+    private static final int FLAGS_NOT_PRIMARY = 0x100 | 0x800;
+    private static final int MAX_QUALITY = 93;
+    private static final int MISSING_QUALITY = 0xff;
+
+    private final int referenceCount;
+
+    /**
+     * @param referenceCount the number of reference sequences in the header of the file
+     */
+    public BamRecordValidator(int referenceCount) {
+        this.referenceCount = referenceCount;
+    }
+
+    /**
+     * Validates the records between two record boundaries of the data.
+     *
+     * @param firstRecord the index of the first record of the range in the file, used in the error messages
+     */
+    public RangeResult validate(byte[] data, int start, int end, long firstRecord) {
+        RangeResult result = new RangeResult();
+
+        long record = firstRecord;
+        for (int offset = start; offset < end; record++) {
+            int recordSize = BgzfBlockReader.readInt(data, offset);
+            if (validateRecord(data, offset + 4, recordSize, record, result)) {
+                result.readCount++;
+                if ((readShort(data, offset + 4 + 14) & FLAG_PAIRED) != 0) {
+                    result.pairedReadCount++;
+                }
+            }
+            offset += 4 + recordSize;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return true if the record is a valid primary read with bases
+     */
+    private boolean validateRecord(byte[] data, int offset, int recordSize, long record, RangeResult result) {
+        int referenceIndex = BgzfBlockReader.readInt(data, offset);
+        int position = BgzfBlockReader.readInt(data, offset + 4);
+        int readNameLength = data[offset + 8] & 0xff;
+        int cigarLength = readShort(data, offset + 12);
+        int flags = readShort(data, offset + 14);
+        int sequenceLength = BgzfBlockReader.readInt(data, offset + 16);
+        int mateReferenceIndex = BgzfBlockReader.readInt(data, offset + 20);
+        int matePosition = BgzfBlockReader.readInt(data, offset + 24);
+
+        long fieldsSize = (long) FIXED_FIELDS_SIZE + readNameLength + 4L * cigarLength
+                + (sequenceLength + 1L) / 2 + sequenceLength;
+        if (sequenceLength < 0 || fieldsSize > recordSize) {
+            return result.error(String.format(INVALID_RECORD_FIELDS, record));
+        }
+        if (referenceIndex < -1 || referenceIndex >= referenceCount) {
+            return result.error(String.format(INVALID_REFERENCE, record, referenceIndex));
+        }
+        if (mateReferenceIndex < -1 || mateReferenceIndex >= referenceCount) {
+            return result.error(String.format(INVALID_REFERENCE, record, mateReferenceIndex));
+        }
+        if (position < -1) {
+            return result.error(String.format(INVALID_POSITION, record, position));
+        }
+        if (matePosition < -1) {
+            return result.error(String.format(INVALID_POSITION, record, matePosition));
+        }
+        if (!isValidReadName(data, offset + FIXED_FIELDS_SIZE, readNameLength)) {
+            return result.error(String.format(INVALID_READ_NAME, record));
+        }
+        if ((flags & FLAG_PAIRED) == 0 && (flags & FLAGS_OF_MATES) != 0) {
+            return result.error(String.format(INVALID_MATE_FLAGS, record, flags & FLAGS_OF_MATES));
+        }
+
+        int qualityOffset = offset + FIXED_FIELDS_SIZE + readNameLength + 4 * cigarLength + (sequenceLength + 1) / 2;
+        if (sequenceLength > 0 && (data[qualityOffset] & 0xff) != MISSING_QUALITY) {
+            for (int i = qualityOffset; i < qualityOffset + sequenceLength; i++) {
+                if ((data[i] & 0xff) > MAX_QUALITY) {
+                    return result.error(String.format(INVALID_QUALITY, record, data[i] & 0xff));
+                }
+            }
+        }
+
+        return (flags & FLAGS_NOT_PRIMARY) == 0 && sequenceLength > 0;
+    }
+
+    private static boolean isValidReadName(byte[] data, int offset, int length) {
+        if (length < 2 || data[offset + length - 1] != 0) {
+            return false;
+        }
+        for (int i = offset; i < offset + length - 1; i++) {
+            if (data[i] < '!' || data[i] > '~') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readShort(byte[] data, int offset) {
+        return (data[offset] & 0xff) | (data[offset + 1] & 0xff) << 8;
+    }
+
+    /**
+     * The outcome of the validation of a range.
+     */
+    public static class RangeResult {
+
+        private long readCount;
+        private long pairedReadCount;
+        private final List<String> errors = new ArrayList<>();
+
+        public long getReadCount() {
+            return readCount;
+        }
+
+        public long getPairedReadCount() {
+            return pairedReadCount;
+        }
+
+        /**
+         * @return the errors of the range, in the order of the records
+         */
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        private boolean error(String message) {
+            errors.add(message);
+            return false;
+        }
+    }
+}
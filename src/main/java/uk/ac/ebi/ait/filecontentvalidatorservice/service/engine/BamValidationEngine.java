@@ -0,0 +1,359 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.ParallelValidationConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.report.ValidationReportSink;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+import uk.ac.ebi.ena.webin.cli.validator.manifest.ReadsManifest;
+import uk.ac.ebi.ena.webin.cli.validator.response.ReadsValidationResponse;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Built-in BAM validator that validates the records of a file on several threads.
+ *
+ * The offsets of the BGZF blocks are scanned first, then ranges of blocks are inflated on the inflate executor.
+ * The boundaries of the records are found in the inflated ranges in file order, which only reads the size of every
+ * record, and the complete records of every range are validated on the executor again. The results of the ranges
+ * are added to the report in file order.
+ */
+@Component
+@Slf4j
+public class BamValidationEngine implements ValidationEngine {
+
+    public static final String NAME = "builtin";
+
+    static final String NO_VALID_READS = "File contains no valid reads";
+    static final String NOT_BGZF = "File is not BGZF compressed";
+    static final String INVALID_MAGIC = "File does not start with the BAM magic number";
+    static final String INVALID_HEADER = "Invalid BAM header: %s";
+    static final String INVALID_RECORD_SIZE = "Record %d: invalid record size %d";
+    static final String TRUNCATED_RECORD = "Record %d: the last record of the file is truncated";
+    static final String FILE_READ_ERROR = "Could not read the file: %s";
+    static final String READ_COUNT = "Collected %d reads";
+
+    private static final byte[] BAM_MAGIC = {'B', 'A', 'M', 1};
+    private static final byte[] EMPTY = new byte[0];
+    private static final long DEFAULT_RANGE_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_RECORD_SIZE = 256 * 1024 * 1024;
+
+    private final DataFileStreams dataFileStreams;
+    private final ExecutorService inflateExecutor;
+    private final int maxPendingRanges;
+    private final long rangeSize;
+
+    @Autowired
+    public BamValidationEngine(DataFileStreams dataFileStreams, ParallelValidationConfig parallelValidationConfig,
+                               @Qualifier("inflateExecutor") ExecutorService inflateExecutor) {
+        this(dataFileStreams, parallelValidationConfig.getInflateThreadCount() > 1 ? inflateExecutor : null,
+                2 * parallelValidationConfig.getInflateThreadCount(), DEFAULT_RANGE_SIZE);
+    }
+
+    /**
+     * @param inflateExecutor the executor inflating and validating the ranges, or null to do it on the calling thread
+     * @param maxPendingRanges the number of ranges inflated or validated ahead
+     * @param rangeSize the compressed size of the ranges
+     */
+    BamValidationEngine(DataFileStreams dataFileStreams, ExecutorService inflateExecutor, int maxPendingRanges,
+                        long rangeSize) {
+        this.dataFileStreams = dataFileStreams;
+        this.inflateExecutor = inflateExecutor;
+        this.maxPendingRanges = Math.max(1, maxPendingRanges);
+        this.rangeSize = rangeSize;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getFileType() {
+        return ReadsManifest.FileType.BAM.name();
+    }
+
+    @Override
+    public ReadsValidationResponse validate(List<File> files, ValidationReportSink reportSink) {
+        boolean valid = true;
+        boolean paired = false;
+        for (File file : files) {
+            BamFileValidation validation = new BamFileValidation(file, reportSink);
+            validation.validate();
+            valid &= validation.finish();
+            paired |= validation.pairedReadCount > 0;
+        }
+
+        ReadsValidationResponse response = new ReadsValidationResponse();
+        response.setStatus(valid ? ValidationResponse.status.VALIDATION_SUCCESS : ValidationResponse.status.VALIDATION_ERROR);
+        response.setPaired(paired);
+
+        return response;
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        if (inflateExecutor != null) {
+            return inflateExecutor.submit(task);
+        }
+
+        FutureTask<T> future = new FutureTask<>(task);
+        future.run();
+        return future;
+    }
+
+    private static byte[] inflateRange(FileChannel channel, long[] range) throws IOException {
+        ByteBuffer compressed = ByteBuffer.allocate((int) (range[1] - range[0]));
+        while (compressed.hasRemaining()) {
+            if (channel.read(compressed, range[0] + compressed.position()) < 0) {
+                throw new EOFException("Truncated BGZF block");
+            }
+        }
+        return BgzfBlockReader.inflateBlocks(compressed.array(), compressed.capacity());
+    }
+
+    private static int readInt(DataInputStream in) throws IOException {
+        return Integer.reverseBytes(in.readInt());
+    }
+
+    private static void skipFully(DataInputStream in, long length) throws IOException {
+        while (length > 0) {
+            int skipped = in.skipBytes((int) Math.min(length, Integer.MAX_VALUE));
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            length -= skipped;
+        }
+    }
+
+    /**
+     * Validation of a single BAM file.
+     */
+    private class BamFileValidation {
+
+        private final File file;
+        private final ValidationReportSink reportSink;
+        private long headerLength;
+        private int referenceCount;
+        private long readCount;
+        private long pairedReadCount;
+        private long errorCount;
+        private boolean reportFull;
+
+        BamFileValidation(File file, ValidationReportSink reportSink) {
+            this.file = file;
+            this.reportSink = reportSink;
+        }
+
+        void validate() {
+            try {
+                if (!isBgzf()) {
+                    error(NOT_BGZF);
+                    return;
+                }
+                if (!readHeader()) {
+                    return;
+                }
+
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                    validateRecords(channel, BgzfBlockIndex.scan(channel));
+                }
+            } catch (IOException ex) {
+                readError(ex);
+            }
+        }
+
+        /**
+         * @return true if the file is a valid BAM file with at least one read
+         */
+        boolean finish() {
+            if (readCount == 0) {
+                error(NO_VALID_READS);
+            }
+            reportSink.addInfo(file, String.format(READ_COUNT, readCount));
+            log.debug("Validated {} reads with {} errors in {}", readCount, errorCount, file);
+
+            return errorCount == 0;
+        }
+
+        private boolean isBgzf() throws IOException {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                return BgzfBlockReader.isBgzf(in);
+            }
+        }
+
+        /**
+         * Reads the header to find the number of reference sequences and the offset of the first record.
+         *
+         * @return false if the header is invalid
+         */
+        private boolean readHeader() throws IOException {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(dataFileStreams.open(file)))) {
+                byte[] magic = new byte[BAM_MAGIC.length];
+                in.readFully(magic);
+                if (!Arrays.equals(magic, BAM_MAGIC)) {
+                    error(INVALID_MAGIC);
+                    return false;
+                }
+
+                int textLength = readInt(in);
+                if (textLength < 0) {
+                    error(String.format(INVALID_HEADER, "negative text length"));
+                    return false;
+                }
+                skipFully(in, textLength);
+
+                referenceCount = readInt(in);
+                if (referenceCount < 0) {
+                    error(String.format(INVALID_HEADER, "negative number of reference sequences"));
+                    return false;
+                }
+
+                headerLength = 12L + textLength;
+                for (int i = 0; i < referenceCount; i++) {
+                    int nameLength = readInt(in);
+                    if (nameLength < 1) {
+                        error(String.format(INVALID_HEADER, "invalid reference sequence name"));
+                        return false;
+                    }
+                    skipFully(in, nameLength);
+                    if (readInt(in) < 0) {
+                        error(String.format(INVALID_HEADER, "negative reference sequence length"));
+                        return false;
+                    }
+                    headerLength += 8L + nameLength;
+                }
+            } catch (EOFException ex) {
+                error(String.format(INVALID_HEADER, "the header is truncated"));
+                return false;
+            }
+
+            return true;
+        }
+
+        private void validateRecords(FileChannel channel, BgzfBlockIndex blockIndex) throws IOException {
+            List<long[]> ranges = blockIndex.getRanges(rangeSize);
+            BamRecordValidator recordValidator = new BamRecordValidator(referenceCount);
+            Deque<Future<byte[]>> inflatedRanges = new ArrayDeque<>();
+            Deque<Future<BamRecordValidator.RangeResult>> rangeResults = new ArrayDeque<>();
+
+            int nextRange = 0;
+            long headerRemaining = headerLength;
+            long recordIndex = 0;
+            byte[] carry = EMPTY;
+            try {
+                while (!reportFull && (nextRange < ranges.size() || !inflatedRanges.isEmpty())) {
+                    while (nextRange < ranges.size() && inflatedRanges.size() < maxPendingRanges) {
+                        long[] range = ranges.get(nextRange++);
+                        inflatedRanges.add(submit(() -> inflateRange(channel, range)));
+                    }
+
+                    byte[] data = ParallelBgzfInputStream.await(inflatedRanges.poll());
+                    int dataStart = (int) Math.min(headerRemaining, data.length);
+                    headerRemaining -= dataStart;
+
+                    byte[] chunk = data;
+                    int chunkStart = dataStart;
+                    if (carry.length > 0) {
+                        chunk = new byte[carry.length + data.length - dataStart];
+                        System.arraycopy(carry, 0, chunk, 0, carry.length);
+                        System.arraycopy(data, dataStart, chunk, carry.length, data.length - dataStart);
+                        chunkStart = 0;
+                    }
+
+                    int recordsEnd = chunkStart;
+                    long recordCount = 0;
+                    int invalidRecordSize = 0;
+                    while (chunk.length - recordsEnd >= 4) {
+                        int recordSize = BgzfBlockReader.readInt(chunk, recordsEnd);
+                        if (recordSize < BamRecordValidator.FIXED_FIELDS_SIZE || recordSize > MAX_RECORD_SIZE) {
+                            invalidRecordSize = recordSize;
+                            break;
+                        }
+                        if (chunk.length - recordsEnd - 4 < recordSize) {
+                            break;
+                        }
+                        recordsEnd += 4 + recordSize;
+                        recordCount++;
+                    }
+
+                    if (recordCount > 0) {
+                        final byte[] rangeData = chunk;
+                        final int rangeStart = chunkStart;
+                        final int rangeEnd = recordsEnd;
+                        final long firstRecord = recordIndex;
+                        rangeResults.add(submit(() -> recordValidator.validate(rangeData, rangeStart, rangeEnd, firstRecord)));
+                    }
+                    recordIndex += recordCount;
+
+                    if (invalidRecordSize != 0) {
+                        addRangeResults(rangeResults, 0);
+                        error(String.format(INVALID_RECORD_SIZE, recordIndex, invalidRecordSize));
+                        return;
+                    }
+                    carry = Arrays.copyOfRange(chunk, recordsEnd, chunk.length);
+
+                    addRangeResults(rangeResults, maxPendingRanges);
+                }
+
+                addRangeResults(rangeResults, 0);
+                if (carry.length > 0 && !reportFull) {
+                    error(String.format(TRUNCATED_RECORD, recordIndex));
+                }
+            } finally {
+                inflatedRanges.forEach(range -> range.cancel(true));
+                rangeResults.forEach(result -> result.cancel(true));
+            }
+        }
+
+        /**
+         * Adds the results of validated ranges to the report in file order, until at most the given number of ranges
+         * is still pending.
+         */
+        private void addRangeResults(Deque<Future<BamRecordValidator.RangeResult>> rangeResults, int maxPending)
+                throws IOException {
+            while (!reportFull && (rangeResults.size() > maxPending
+                    || (!rangeResults.isEmpty() && rangeResults.peek().isDone()))) {
+                BamRecordValidator.RangeResult rangeResult = ParallelBgzfInputStream.await(rangeResults.poll());
+                readCount += rangeResult.getReadCount();
+                pairedReadCount += rangeResult.getPairedReadCount();
+                for (String message : rangeResult.getErrors()) {
+                    if (reportFull) {
+                        break;
+                    }
+                    error(message);
+                }
+            }
+        }
+
+        private void error(String message) {
+            errorCount++;
+            reportSink.addError(file, message);
+            reportFull = reportSink.isFull(file);
+        }
+
+        private void readError(IOException ex) {
+            errorCount++;
+            reportSink.addReadError(file, String.format(FILE_READ_ERROR, ex.getMessage()));
+            reportFull = reportSink.isFull(file);
+        }
+    }
+}
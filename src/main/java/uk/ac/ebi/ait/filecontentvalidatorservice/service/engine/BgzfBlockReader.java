@@ -0,0 +1,202 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the compressed blocks of a BGZF file, the blocked gzip format of BAM, tabix indexed VCF and bgzip
+ * compressed FASTQ files.
+ *
+ * Every BGZF block is a gzip member that carries its own compressed size in the {@code BC} extra subfield, so the
+ * blocks can be found without inflating them and then be inflated independently.
+ */
+public class BgzfBlockReader implements Closeable {
+
+    public static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+    static final int HEADER_SIZE = 18;
+    private static final int FOOTER_SIZE = 8;
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private final InputStream in;
+
+    public BgzfBlockReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Checks the header of the first block without consuming it. The stream has to support mark and reset.
+     *
+     * @return true if the stream starts with a BGZF block
+     */
+    public static boolean isBgzf(InputStream in) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        in.mark(HEADER_SIZE);
+        try {
+            return readFully(in, header, 0, HEADER_SIZE) == HEADER_SIZE && isBgzfHeader(header);
+        } finally {
+            in.reset();
+        }
+    }
+
+    /**
+     * @return the next compressed block including its header and footer, or null at the end of the stream
+     */
+    public byte[] readBlock() throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        int headerLength = readFully(in, header, 0, HEADER_SIZE);
+        if (headerLength == 0) {
+            return null;
+        }
+        if (headerLength < HEADER_SIZE) {
+            throw new EOFException("Truncated BGZF block header");
+        }
+        if (!isBgzfHeader(header)) {
+            throw new ZipException("Invalid BGZF block header");
+        }
+
+        int blockSize = ((header[16] & 0xff) | (header[17] & 0xff) << 8) + 1;
+        if (blockSize < HEADER_SIZE + FOOTER_SIZE) {
+            throw new ZipException("Invalid BGZF block size: " + blockSize);
+        }
+        byte[] block = Arrays.copyOf(header, blockSize);
+        if (readFully(in, block, HEADER_SIZE, blockSize - HEADER_SIZE) < blockSize - HEADER_SIZE) {
+            throw new EOFException("Truncated BGZF block");
+        }
+
+        return block;
+    }
+
+    /**
+     * @return the size of the block's content after inflating it, as stored in its footer
+     */
+    public static int getInflatedSize(byte[] block) {
+        return readInt(block, block.length - 4);
+    }
+
+    /**
+     * Inflates a block into the output buffer and checks its size and CRC against its footer.
+     *
+     * @return the number of bytes written to the output buffer
+     */
+    public static int inflate(byte[] block, byte[] out, int offset) throws IOException {
+        return inflate(block, 0, block.length, INFLATER.get(), out, offset);
+    }
+
+    /**
+     * Inflates all the blocks found in a buffer of consecutive compressed blocks.
+     *
+     * @return the content of the blocks
+     */
+    public static byte[] inflateBlocks(byte[] blocks, int length) throws IOException {
+        Inflater inflater = INFLATER.get();
+        int inflatedSize = 0;
+        for (int blockOffset = 0; blockOffset < length; blockOffset += getBlockSize(blocks, blockOffset, length)) {
+            inflatedSize += readInt(blocks, blockOffset + getBlockSize(blocks, blockOffset, length) - 4);
+        }
+
+        byte[] inflated = new byte[inflatedSize];
+        int inflatedLength = 0;
+        for (int blockOffset = 0; blockOffset < length; ) {
+            int blockSize = getBlockSize(blocks, blockOffset, length);
+            inflatedLength += inflate(blocks, blockOffset, blockSize, inflater, inflated, inflatedLength);
+            blockOffset += blockSize;
+        }
+
+        return inflated;
+    }
+
+    /**
+     * @return the size of the block starting at the given offset of a buffer, checked against the buffer length
+     */
+    static int getBlockSize(byte[] blocks, int blockOffset, int length) throws ZipException {
+        if (length - blockOffset < HEADER_SIZE + FOOTER_SIZE || !isBgzfHeader(blocks, blockOffset)) {
+            throw new ZipException("Invalid BGZF block header");
+        }
+        int blockSize = ((blocks[blockOffset + 16] & 0xff) | (blocks[blockOffset + 17] & 0xff) << 8) + 1;
+        if (blockSize < HEADER_SIZE + FOOTER_SIZE || blockSize > length - blockOffset) {
+            throw new ZipException("Invalid BGZF block size: " + blockSize);
+        }
+        return blockSize;
+    }
+
+    private static int inflate(byte[] blocks, int blockOffset, int blockSize, Inflater inflater, byte[] out, int offset)
+            throws IOException {
+        int blockEnd = blockOffset + blockSize;
+        int inflatedSize = readInt(blocks, blockEnd - 4);
+        if (inflatedSize < 0 || inflatedSize > MAX_BLOCK_SIZE) {
+            throw new ZipException("Invalid BGZF block content size: " + inflatedSize);
+        }
+
+        inflater.reset();
+        inflater.setInput(blocks, blockOffset + HEADER_SIZE, blockSize - HEADER_SIZE - FOOTER_SIZE);
+        int length = 0;
+        try {
+            while (length < inflatedSize && !inflater.finished()) {
+                int inflated = inflater.inflate(out, offset + length, inflatedSize - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+        } catch (DataFormatException ex) {
+            throw new ZipException("Invalid BGZF block data: " + ex.getMessage());
+        }
+        if (length != inflatedSize) {
+            throw new ZipException("BGZF block content size does not match its footer");
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(out, offset, length);
+        if ((int) crc.getValue() != readInt(blocks, blockEnd - FOOTER_SIZE)) {
+            throw new ZipException("BGZF block CRC does not match its footer");
+        }
+
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static boolean isBgzfHeader(byte[] header) {
+        return isBgzfHeader(header, 0);
+    }
+
+    static boolean isBgzfHeader(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) == 0x1f && (bytes[offset + 1] & 0xff) == 0x8b
+                && bytes[offset + 2] == 8
+                && (bytes[offset + 3] & 4) != 0
+                && bytes[offset + 10] == 6 && bytes[offset + 11] == 0
+                && bytes[offset + 12] == 'B' && bytes[offset + 13] == 'C'
+                && bytes[offset + 14] == 2 && bytes[offset + 15] == 0;
+    }
+
+    static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff)
+                | (bytes[offset + 1] & 0xff) << 8
+                | (bytes[offset + 2] & 0xff) << 16
+                | (bytes[offset + 3] & 0xff) << 24;
+    }
+
+    private static int readFully(InputStream in, byte[] bytes, int offset, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int read = in.read(bytes, offset + total, length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
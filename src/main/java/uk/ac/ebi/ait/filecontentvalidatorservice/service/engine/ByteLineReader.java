@@ -0,0 +1,108 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads lines of a text stream into a reusable byte buffer without creating objects per line.
+ *
+ * The current line is available through {@link #getLine()} and {@link #getLength()} until the next call of
+ * {@link #readLine()}. Line terminators ({@code \n} or {@code \r\n}) are not part of the line.
+ */
+public class ByteLineReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    private static final int INITIAL_LINE_SIZE = 1024;
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+
+    private byte[] line = new byte[INITIAL_LINE_SIZE];
+    private int length;
+    private long lineNumber;
+
+    public ByteLineReader(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ByteLineReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * @return false if the end of the stream was reached before any byte of a new line
+     */
+    public boolean readLine() throws IOException {
+        length = 0;
+        boolean readAny = false;
+
+        while (true) {
+            if (position >= limit && !fill()) {
+                if (readAny) {
+                    lineNumber++;
+                }
+                return readAny;
+            }
+            readAny = true;
+
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            append(start, position - start);
+
+            if (position < limit) {
+                position++;
+                if (length > 0 && line[length - 1] == '\r') {
+                    length--;
+                }
+                lineNumber++;
+                return true;
+            }
+        }
+    }
+
+    public byte[] getLine() {
+        return line;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return the 1-based number of the current line
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        while (read == 0) {
+            read = in.read(buffer, 0, buffer.length);
+        }
+        position = 0;
+        limit = Math.max(read, 0);
+
+        return read > 0;
+    }
+
+    private void append(int start, int count) {
+        if (length + count > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, length + count));
+        }
+        System.arraycopy(buffer, start, line, length, count);
+        length += count;
+    }
+}
@@ -0,0 +1,119 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+
+/**
+ * The header of a CRAM container: the size of the container, the reads it holds and the offsets of its slices.
+ */
+public class CramContainerHeader {
+
+    private final long offset;
+    private int headerSize;
+    private int length;
+    private int referenceId;
+    private int recordCount;
+    private long recordCounter;
+    private int blockCount;
+    private int[] landmarks;
+    private boolean checksumValid = true;
+
+    private CramContainerHeader(long offset) {
+        this.offset = offset;
+    }
+
+    /**
+     * Reads a container header from the current position of the buffer.
+     *
+     * @param offset the offset of the container in the file
+     * @param hasChecksum true for CRAM 3, where the header ends with a CRC32 of the header
+     * @throws java.nio.BufferUnderflowException if the buffer ends before the header
+     */
+    public static CramContainerHeader read(ByteBuffer buffer, long offset, boolean hasChecksum) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int start = buffer.position();
+
+        CramContainerHeader header = new CramContainerHeader(offset);
+        header.length = buffer.getInt();
+        header.referenceId = CramEncodings.readItf8(buffer);
+        CramEncodings.readItf8(buffer);
+        CramEncodings.readItf8(buffer);
+        header.recordCount = CramEncodings.readItf8(buffer);
+        header.recordCounter = CramEncodings.readLtf8(buffer);
+        CramEncodings.readLtf8(buffer);
+        header.blockCount = CramEncodings.readItf8(buffer);
+
+        int landmarkCount = CramEncodings.readItf8(buffer);
+        if (landmarkCount < 0 || landmarkCount > buffer.remaining()) {
+            header.landmarks = null;
+            return header;
+        }
+        header.landmarks = new int[landmarkCount];
+        for (int i = 0; i < landmarkCount; i++) {
+            header.landmarks[i] = CramEncodings.readItf8(buffer);
+        }
+
+        if (hasChecksum) {
+            CRC32 crc32 = new CRC32();
+            crc32.update(buffer.array(), buffer.arrayOffset() + start, buffer.position() - start);
+            header.checksumValid = (int) crc32.getValue() == buffer.getInt();
+        }
+        header.headerSize = buffer.position() - start;
+
+        return header;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getHeaderSize() {
+        return headerSize;
+    }
+
+    /**
+     * @return the size of the blocks of the container, after the header
+     */
+    public int getLength() {
+        return length;
+    }
+
+    public long getSize() {
+        return (long) headerSize + length;
+    }
+
+    public int getReferenceId() {
+        return referenceId;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public long getRecordCounter() {
+        return recordCounter;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @return the offsets of the slices from the end of the header, or null if their number is invalid
+     */
+    public int[] getLandmarks() {
+        return landmarks;
+    }
+
+    public boolean isChecksumValid() {
+        return checksumValid;
+    }
+
+    /**
+     * @return true if this could be the EOF container that ends a CRAM file: a container without reads or slices
+     */
+    public boolean isEmpty() {
+        return recordCount == 0 && landmarks != null && landmarks.length == 0;
+    }
+}
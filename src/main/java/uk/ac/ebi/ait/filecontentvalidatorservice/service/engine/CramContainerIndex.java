@@ -0,0 +1,87 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The headers of the containers of a CRAM file.
+ *
+ * The containers are found by reading only their headers, which hold the size of the container, so scanning a file
+ * costs one small read per container. No {@code .crai} index is needed.
+ */
+public class CramContainerIndex {
+
+    public static final int FILE_DEFINITION_SIZE = 26;
+
+    private static final int INITIAL_HEADER_READ_SIZE = 1024;
+    private static final int MAX_HEADER_READ_SIZE = 16 * 1024 * 1024;
+
+    private final List<CramContainerHeader> containers = new ArrayList<>();
+
+    private CramContainerIndex() {
+    }
+
+    /**
+     * @param hasChecksums true for CRAM 3, where the container headers end with a CRC32
+     * @throws EOFException if the file ends inside a container
+     * @throws IOException if a container header is invalid
+     */
+    public static CramContainerIndex scan(FileChannel channel, boolean hasChecksums) throws IOException {
+        CramContainerIndex index = new CramContainerIndex();
+        long fileSize = channel.size();
+
+        long offset = FILE_DEFINITION_SIZE;
+        while (offset < fileSize) {
+            CramContainerHeader header = readHeader(channel, offset, fileSize, hasChecksums);
+            if (!header.isChecksumValid()) {
+                throw new IOException("Container header checksum mismatch at offset " + offset);
+            }
+            if (header.getLength() < 0 || header.getLandmarks() == null || header.getBlockCount() < 0
+                    || header.getRecordCount() < 0) {
+                throw new IOException("Invalid container header at offset " + offset);
+            }
+            if (offset + header.getSize() > fileSize) {
+                throw new EOFException("Truncated container at offset " + offset);
+            }
+            index.containers.add(header);
+            offset += header.getSize();
+        }
+
+        return index;
+    }
+
+    public int getContainerCount() {
+        return containers.size();
+    }
+
+    public CramContainerHeader getContainer(int container) {
+        return containers.get(container);
+    }
+
+    static CramContainerHeader readHeader(FileChannel channel, long offset, long fileSize,
+                                          boolean hasChecksums) throws IOException {
+        int readSize = INITIAL_HEADER_READ_SIZE;
+        while (true) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(readSize, fileSize - offset));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new EOFException("Truncated container header at offset " + offset);
+                }
+            }
+
+            try {
+                return CramContainerHeader.read(ByteBuffer.wrap(buffer.array()), offset, hasChecksums);
+            } catch (BufferUnderflowException ex) {
+                if (offset + buffer.capacity() >= fileSize || readSize >= MAX_HEADER_READ_SIZE) {
+                    throw new EOFException("Truncated container header at offset " + offset);
+                }
+                readSize *= 4;
+            }
+        }
+    }
+}
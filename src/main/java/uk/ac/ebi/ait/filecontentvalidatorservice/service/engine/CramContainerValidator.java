@@ -0,0 +1,413 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Validates the structure of a CRAM container: its blocks, their checksums and sizes, and the slices the landmarks
+ * of the container point at. Containers are validated independently of each other, so they can be validated on
+ * several threads.
+ *
+ * Raw and gzip compressed blocks are decoded, blocks of the other compression methods are only checked for their
+ * size and checksum.
+ */
+public class CramContainerValidator {
+
+    static final String INVALID_BLOCK = "Container %d: block %d is invalid: %s";
+    static final String BLOCK_CHECKSUM_MISMATCH = "Container %d: block %d checksum mismatch";
+    static final String INVALID_CONTAINER_LENGTH = "Container %d: the blocks do not match the length of the container";
+    static final String INVALID_SLICE = "Container %d: slice %d is invalid: %s";
+    static final String RECORD_COUNT_MISMATCH = "Container %d: the slices hold %d reads instead of %d";
+    static final String MISSING_REFERENCE = "Container %d: reference sequence with MD5 %s is not available";
+    static final String INVALID_FILE_HEADER = "Invalid CRAM header: %s";
+
+    private static final int METHOD_RAW = 0;
+    private static final int METHOD_GZIP = 1;
+    private static final int MAX_METHOD = 8;
+
+    private static final int FILE_HEADER = 0;
+    private static final int COMPRESSION_HEADER = 1;
+    private static final int SLICE_HEADER = 2;
+    private static final int EXTERNAL_DATA = 4;
+    private static final int CORE_DATA = 5;
+
+    private static final int MD5_SIZE = 16;
+    private static final String SEQUENCE_LINE = "@SQ\t";
+    private static final String MD5_TAG = "M5:";
+    private static final int MAX_RAW_BLOCK_SIZE = 256 * 1024 * 1024;
+    private static final int INFLATE_BUFFER_SIZE = 64 * 1024;
+
+    private final boolean hasChecksums;
+    private final Predicate<String> referenceAvailable;
+
+    /**
+     * @param hasChecksums true for CRAM 3, where the blocks end with a CRC32
+     * @param referenceAvailable tells if the reference sequence with an MD5 is available, or null not to check it
+     */
+    public CramContainerValidator(boolean hasChecksums, Predicate<String> referenceAvailable) {
+        this.hasChecksums = hasChecksums;
+        this.referenceAvailable = referenceAvailable;
+    }
+
+    /**
+     * Validates the container that holds the SAM header, the first container of a file. The MD5s in the M5 tags of
+     * its @SQ lines are the reference MD5s of the result.
+     *
+     * @param data the container, starting with its header
+     */
+    public ContainerResult validateFileHeader(byte[] data, CramContainerHeader header) {
+        ContainerResult result = new ContainerResult();
+        List<Block> blocks = readBlocks(data, header, 0, result);
+        if (blocks == null) {
+            return result;
+        }
+
+        if (blocks.isEmpty() || blocks.get(0).contentType != FILE_HEADER) {
+            result.error(String.format(INVALID_FILE_HEADER, "the first container does not hold the header"));
+            return result;
+        }
+
+        Block block = blocks.get(0);
+        byte[] raw = decode(data, block, result, 0, 0);
+        if (raw == null) {
+            return result;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(raw).order(ByteOrder.LITTLE_ENDIAN);
+        int textLength = raw.length >= 4 ? buffer.getInt() : -1;
+        if (textLength < 0 || textLength > raw.length - 4) {
+            result.error(String.format(INVALID_FILE_HEADER, "invalid text length"));
+            return result;
+        }
+
+        String[] lines = new String(raw, 4, textLength, StandardCharsets.US_ASCII).split("\n");
+        for (int line = 0; line < lines.length; line++) {
+            String text = lines[line].replace("\0", "");
+            if (!text.isEmpty() && text.charAt(0) != '@') {
+                result.error(String.format(INVALID_FILE_HEADER, "line " + (line + 1) + " does not start with @"));
+                break;
+            }
+            if (text.startsWith(SEQUENCE_LINE)) {
+                for (String field : text.split("\t")) {
+                    if (field.startsWith(MD5_TAG)) {
+                        result.referenceMd5s.add(field.substring(MD5_TAG.length()).toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Validates a container of reads.
+     *
+     * @param data the container, starting with its header
+     * @param container the index of the container in the file, used in the error messages
+     */
+    public ContainerResult validate(byte[] data, CramContainerHeader header, int container) {
+        ContainerResult result = new ContainerResult();
+        List<Block> blocks = readBlocks(data, header, container, result);
+        if (blocks == null) {
+            return result;
+        }
+
+        if (blocks.isEmpty() || blocks.get(0).contentType != COMPRESSION_HEADER) {
+            result.error(String.format(INVALID_BLOCK, container, 0, "the first block is not a compression header"));
+            return result;
+        }
+
+        Set<String> missingReferences = new LinkedHashSet<>();
+        long recordCounter = header.getRecordCounter();
+        long recordCount = 0;
+        int[] landmarks = header.getLandmarks();
+        for (int slice = 0; slice < landmarks.length; slice++) {
+            int sliceBlock = findBlock(blocks, landmarks[slice]);
+            if (sliceBlock < 0 || blocks.get(sliceBlock).contentType != SLICE_HEADER) {
+                result.error(String.format(INVALID_SLICE, container, slice, "the landmark does not point at a slice header"));
+                return result;
+            }
+
+            byte[] raw = decode(data, blocks.get(sliceBlock), result, container, sliceBlock);
+            if (raw == null) {
+                return result;
+            }
+
+            SliceHeader sliceHeader;
+            try {
+                sliceHeader = new SliceHeader(ByteBuffer.wrap(raw).order(ByteOrder.LITTLE_ENDIAN));
+            } catch (BufferUnderflowException ex) {
+                result.error(String.format(INVALID_SLICE, container, slice, "the slice header is truncated"));
+                return result;
+            }
+
+            if (sliceHeader.recordCount < 0 || sliceHeader.blockCount < 0) {
+                result.error(String.format(INVALID_SLICE, container, slice, "invalid number of reads or blocks"));
+                return result;
+            }
+            if (sliceHeader.recordCounter != recordCounter) {
+                result.error(String.format(INVALID_SLICE, container, slice, "record counter "
+                        + sliceHeader.recordCounter + " does not follow the previous slice (" + recordCounter + ")"));
+            }
+            if (sliceBlock + sliceHeader.blockCount >= blocks.size()) {
+                result.error(String.format(INVALID_SLICE, container, slice,
+                        "the container ends before the " + sliceHeader.blockCount + " blocks of the slice"));
+                return result;
+            }
+            for (int block = sliceBlock + 1; block <= sliceBlock + sliceHeader.blockCount; block++) {
+                int contentType = blocks.get(block).contentType;
+                if (contentType != EXTERNAL_DATA && contentType != CORE_DATA) {
+                    result.error(String.format(INVALID_BLOCK, container, block, "not a data block of the slice"));
+                    return result;
+                }
+            }
+
+            if (sliceHeader.hasExternalReference()) {
+                String md5 = sliceHeader.getReferenceMd5();
+                result.referenceMd5s.add(md5);
+                if (referenceAvailable != null && !referenceAvailable.test(md5) && missingReferences.add(md5)) {
+                    result.error(String.format(MISSING_REFERENCE, container, md5));
+                }
+            }
+
+            recordCounter += sliceHeader.recordCount;
+            recordCount += sliceHeader.recordCount;
+        }
+
+        if (recordCount != header.getRecordCount()) {
+            result.error(String.format(RECORD_COUNT_MISMATCH, container, recordCount, header.getRecordCount()));
+        }
+        result.readCount = recordCount;
+
+        return result;
+    }
+
+    /**
+     * Reads the blocks of a container, checking their checksums and inflating the gzip compressed ones.
+     *
+     * @return the blocks, or null if the container is invalid
+     */
+    private List<Block> readBlocks(byte[] data, CramContainerHeader header, int container, ContainerResult result) {
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(header.getHeaderSize());
+
+        List<Block> blocks = new ArrayList<>(header.getBlockCount());
+        for (int index = 0; index < header.getBlockCount(); index++) {
+            Block block = new Block();
+            int blockStart = buffer.position();
+            block.start = blockStart - header.getHeaderSize();
+            try {
+                block.method = buffer.get() & 0xff;
+                block.contentType = buffer.get() & 0xff;
+                CramEncodings.readItf8(buffer);
+                block.compressedSize = CramEncodings.readItf8(buffer);
+                block.rawSize = CramEncodings.readItf8(buffer);
+                if (block.compressedSize < 0 || block.compressedSize > buffer.remaining()
+                        || block.rawSize < 0 || block.rawSize > MAX_RAW_BLOCK_SIZE) {
+                    result.error(String.format(INVALID_BLOCK, container, index, "invalid block size"));
+                    return null;
+                }
+                block.dataOffset = buffer.position();
+                buffer.position(block.dataOffset + block.compressedSize);
+
+                if (hasChecksums) {
+                    CRC32 crc32 = new CRC32();
+                    crc32.update(data, blockStart, buffer.position() - blockStart);
+                    if ((int) crc32.getValue() != buffer.getInt()) {
+                        result.error(String.format(BLOCK_CHECKSUM_MISMATCH, container, index));
+                        return null;
+                    }
+                }
+            } catch (BufferUnderflowException ex) {
+                result.error(String.format(INVALID_BLOCK, container, index, "the block is truncated"));
+                return null;
+            }
+
+            if (block.method > MAX_METHOD) {
+                result.error(String.format(INVALID_BLOCK, container, index, "unknown compression method " + block.method));
+                return null;
+            }
+            if (block.method == METHOD_RAW && block.compressedSize != block.rawSize) {
+                result.error(String.format(INVALID_BLOCK, container, index, "the raw size does not match the block size"));
+                return null;
+            }
+            if (block.method == METHOD_GZIP && block.contentType != FILE_HEADER && block.contentType != SLICE_HEADER) {
+                try {
+                    inflate(data, block, false);
+                } catch (IOException ex) {
+                    result.error(String.format(INVALID_BLOCK, container, index, ex.getMessage()));
+                    return null;
+                }
+            }
+            blocks.add(block);
+        }
+
+        if (buffer.position() != header.getSize()) {
+            result.error(String.format(INVALID_CONTAINER_LENGTH, container));
+            return null;
+        }
+
+        return blocks;
+    }
+
+    /**
+     * @return the raw content of a block, or null if it could not be decoded
+     */
+    private static byte[] decode(byte[] data, Block block, ContainerResult result, int container, int index) {
+        if (block.method == METHOD_RAW) {
+            byte[] raw = new byte[block.rawSize];
+            System.arraycopy(data, block.dataOffset, raw, 0, block.rawSize);
+            return raw;
+        }
+        if (block.method != METHOD_GZIP) {
+            result.error(String.format(INVALID_BLOCK, container, index,
+                    "unsupported compression method " + block.method + " of a header block"));
+            return null;
+        }
+
+        try {
+            return inflate(data, block, true);
+        } catch (IOException ex) {
+            result.error(String.format(INVALID_BLOCK, container, index, ex.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Inflates a gzip compressed block and checks its raw size.
+     *
+     * @param keep true to return the raw content, false to only check it
+     */
+    private static byte[] inflate(byte[] data, Block block, boolean keep) throws IOException {
+        byte[] raw = new byte[keep ? block.rawSize : INFLATE_BUFFER_SIZE];
+        long rawSize = 0;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data, block.dataOffset, block.compressedSize))) {
+            int read;
+            while ((read = in.read(raw, keep ? (int) rawSize : 0, keep ? raw.length - (int) rawSize : raw.length)) > 0) {
+                rawSize += read;
+                if (keep && rawSize == raw.length && in.read() != -1) {
+                    throw new ZipException("the inflated block is larger than its raw size " + block.rawSize);
+                }
+            }
+        } catch (EOFException ex) {
+            throw new ZipException("the block could not be inflated: " + ex.getMessage());
+        }
+
+        if (rawSize != block.rawSize) {
+            throw new ZipException("the inflated size " + rawSize + " does not match the raw size " + block.rawSize);
+        }
+        return keep ? raw : null;
+    }
+
+    private static int findBlock(List<Block> blocks, int start) {
+        for (int index = 0; index < blocks.size(); index++) {
+            if (blocks.get(index).start == start) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static class Block {
+        int start;
+        int method;
+        int contentType;
+        int compressedSize;
+        int rawSize;
+        int dataOffset;
+    }
+
+    private static class SliceHeader {
+
+        final int referenceId;
+        final int recordCount;
+        final long recordCounter;
+        final int blockCount;
+        final int embeddedReferenceId;
+        final byte[] referenceMd5 = new byte[MD5_SIZE];
+
+        SliceHeader(ByteBuffer buffer) {
+            referenceId = CramEncodings.readItf8(buffer);
+            CramEncodings.readItf8(buffer);
+            CramEncodings.readItf8(buffer);
+            recordCount = CramEncodings.readItf8(buffer);
+            recordCounter = CramEncodings.readLtf8(buffer);
+            blockCount = CramEncodings.readItf8(buffer);
+            int contentIdCount = CramEncodings.readItf8(buffer);
+            for (int i = 0; i < contentIdCount; i++) {
+                CramEncodings.readItf8(buffer);
+            }
+            embeddedReferenceId = CramEncodings.readItf8(buffer);
+            buffer.get(referenceMd5);
+        }
+
+        /**
+         * @return true if the reads of the slice are mapped to a single reference sequence that is not embedded
+         * in the file. Unmapped slices and slices of multiple references have a negative reference id.
+         */
+        boolean hasExternalReference() {
+            if (referenceId < 0 || embeddedReferenceId >= 0) {
+                return false;
+            }
+            for (byte b : referenceMd5) {
+                if (b != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        String getReferenceMd5() {
+            StringBuilder hex = new StringBuilder(MD5_SIZE * 2);
+            for (byte b : referenceMd5) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+    }
+
+    public static class ContainerResult {
+
+        private long readCount;
+        private final List<String> errors = new ArrayList<>();
+        private final Set<String> referenceMd5s = new HashSet<>();
+
+        public long getReadCount() {
+            return readCount;
+        }
+
+        /**
+         * @return the MD5s of the reference sequences of the slices, or of the SAM header for the header container
+         */
+        public Set<String> getReferenceMd5s() {
+            return referenceMd5s;
+        }
+
+        /**
+         * @return the errors of the container, in the order they were found
+         */
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        private void error(String message) {
+            errors.add(message);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Readers of the variable length integers of the CRAM format. Reading past the end of the buffer throws
+ * {@link java.nio.BufferUnderflowException}.
+ */
+public final class CramEncodings {
+
+    private CramEncodings() {
+    }
+
+    /**
+     * Reads an ITF8 integer: 1 to 5 bytes, the number of leading ones of the first byte is the number of bytes
+     * that follow it.
+     */
+    public static int readItf8(ByteBuffer buffer) {
+        int b0 = buffer.get() & 0xff;
+        if ((b0 & 0x80) == 0) {
+            return b0;
+        }
+        if ((b0 & 0x40) == 0) {
+            return (b0 & 0x7f) << 8 | buffer.get() & 0xff;
+        }
+        if ((b0 & 0x20) == 0) {
+            return (b0 & 0x3f) << 16 | (buffer.get() & 0xff) << 8 | buffer.get() & 0xff;
+        }
+        if ((b0 & 0x10) == 0) {
+            return (b0 & 0x1f) << 24 | (buffer.get() & 0xff) << 16 | (buffer.get() & 0xff) << 8 | buffer.get() & 0xff;
+        }
+        return (b0 & 0x0f) << 28 | (buffer.get() & 0xff) << 20 | (buffer.get() & 0xff) << 12
+                | (buffer.get() & 0xff) << 4 | buffer.get() & 0x0f;
+    }
+
+    /**
+     * Reads an LTF8 long: 1 to 9 bytes, the number of leading ones of the first byte is the number of bytes
+     * that follow it.
+     */
+    public static long readLtf8(ByteBuffer buffer) {
+        int b0 = buffer.get() & 0xff;
+        int followingBytes = Integer.numberOfLeadingZeros(~b0 << 24);
+        long value = followingBytes < 8 ? b0 & (0xff >>> (followingBytes + 1)) : 0;
+        for (int i = 0; i < followingBytes; i++) {
+            value = value << 8 | buffer.get() & 0xff;
+        }
+        return value;
+    }
+}
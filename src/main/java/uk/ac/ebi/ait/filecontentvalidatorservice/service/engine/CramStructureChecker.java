@@ -0,0 +1,336 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.CramStructureConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.ParallelValidationConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.reference.CramReferenceStore;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.report.ValidationReportSink;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Optional check of the structure of CRAM files on several threads before they are validated by webin-cli.
+ *
+ * The headers of the containers are scanned first, then the containers are read and checked on the inflate
+ * executor, as many at a time as fit in the buffer budget. The results of the containers are added to the report
+ * in file order.
+ *
+ * The containers, the checksums and sizes of their blocks and the slices are checked, so corrupt or truncated files
+ * fail without decoding them. The reads themselves are not decoded, which needs the reference sequences, so this is
+ * not a validation of its own: the files that pass are always validated by webin-cli, which reads them once more.
+ * The check is therefore off unless it is enabled, e.g. where many of the submitted files are truncated. When the
+ * reference store is the only source of references, the references of the slices must be in it.
+ */
+@Component
+@Slf4j
+public class CramStructureChecker {
+
+    static final String INVALID_MAGIC = "File does not start with the CRAM magic number";
+    static final String UNSUPPORTED_VERSION = "Unsupported CRAM version %d.%d";
+    static final String INVALID_CONTAINER = "Invalid CRAM container: %s";
+    static final String RECORD_COUNTER_MISMATCH = "Container %d: record counter %d does not follow the previous container (%d)";
+    static final String MISSING_EOF = "File does not end with the CRAM EOF container";
+    static final String FILE_READ_ERROR = "Could not read the file: %s";
+    static final String READ_COUNT = "Collected %d reads";
+
+    private static final byte[] CRAM_MAGIC = {'C', 'R', 'A', 'M'};
+    private static final int MAX_CONTAINER_SIZE = Integer.MAX_VALUE - 8;
+
+    private final boolean enabled;
+    private final ExecutorService inflateExecutor;
+    private final long maxPendingBytes;
+    private final CramReferenceStore referenceStore;
+
+    @Autowired
+    public CramStructureChecker(CramStructureConfig cramStructureConfig,
+                                ParallelValidationConfig parallelValidationConfig,
+                                @Qualifier("inflateExecutor") ExecutorService inflateExecutor,
+                                CramReferenceStore referenceStore) {
+        this(cramStructureConfig.isEnabled(),
+                parallelValidationConfig.getInflateThreadCount() > 1 ? inflateExecutor : null,
+                parallelValidationConfig.getBufferMB() * 1024 * 1024, referenceStore);
+    }
+
+    /**
+     * @param inflateExecutor the executor checking the containers, or null to check them on the calling thread
+     * @param maxPendingBytes the size of the containers read ahead; one container is always read, whatever its size
+     */
+    CramStructureChecker(boolean enabled, ExecutorService inflateExecutor, long maxPendingBytes,
+                         CramReferenceStore referenceStore) {
+        this.enabled = enabled;
+        this.inflateExecutor = inflateExecutor;
+        this.maxPendingBytes = maxPendingBytes;
+        this.referenceStore = referenceStore;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reads the MD5s of the reference sequences in the SAM header of the files, which only takes the first container
+     * of every file to be read. A file whose header cannot be read is left out, as webin-cli reports it.
+     */
+    public Set<String> readReferenceMd5s(List<File> files) {
+        final Set<String> referenceMd5s = new HashSet<>();
+        for (File file : files) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                int majorVersion = readMajorVersion(channel);
+                if (majorVersion < 0) {
+                    continue;
+                }
+
+                CramContainerHeader header = CramContainerIndex.readHeader(channel,
+                        CramContainerIndex.FILE_DEFINITION_SIZE, channel.size(), majorVersion >= 3);
+                if (!header.isChecksumValid() || header.getLength() < 0 || header.getSize() > MAX_CONTAINER_SIZE
+                        || CramContainerIndex.FILE_DEFINITION_SIZE + header.getSize() > channel.size()) {
+                    continue;
+                }
+                referenceMd5s.addAll(new CramContainerValidator(majorVersion >= 3, null)
+                        .validateFileHeader(readContainer(channel, header), header).getReferenceMd5s());
+            } catch (IOException | RuntimeException ex) {
+                log.debug("Could not read the reference sequences of {}", file, ex);
+            }
+        }
+
+        return referenceMd5s;
+    }
+
+    /**
+     * Checks the structure of the files, adding the errors of the files that fail to the report sink.
+     *
+     * @param referenceMd5s collects the MD5s of the reference sequences of the slices of the files
+     * @return true if the structure of all the files is valid
+     */
+    public boolean check(List<File> files, ValidationReportSink reportSink, Set<String> referenceMd5s) {
+        boolean valid = true;
+        for (File file : files) {
+            CramFileValidation validation = new CramFileValidation(file, reportSink, referenceMd5s);
+            validation.validate();
+            valid &= validation.finish();
+        }
+
+        return valid;
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        if (inflateExecutor != null) {
+            return inflateExecutor.submit(task);
+        }
+
+        FutureTask<T> future = new FutureTask<>(task);
+        future.run();
+        return future;
+    }
+
+    /**
+     * @return the major version of a CRAM file, or -1 if it does not start with the CRAM magic number
+     */
+    private static int readMajorVersion(FileChannel channel) throws IOException {
+        ByteBuffer definition = ByteBuffer.allocate(CramContainerIndex.FILE_DEFINITION_SIZE);
+        while (definition.hasRemaining()) {
+            if (channel.read(definition, definition.position()) < 0) {
+                return -1;
+            }
+        }
+
+        byte[] bytes = definition.array();
+        for (int i = 0; i < CRAM_MAGIC.length; i++) {
+            if (bytes[i] != CRAM_MAGIC[i]) {
+                return -1;
+            }
+        }
+        return bytes[4];
+    }
+
+    private static byte[] readContainer(FileChannel channel, CramContainerHeader header) throws IOException {
+        ByteBuffer container = ByteBuffer.allocate((int) header.getSize());
+        while (container.hasRemaining()) {
+            if (channel.read(container, header.getOffset() + container.position()) < 0) {
+                throw new EOFException("Truncated container at offset " + header.getOffset());
+            }
+        }
+        return container.array();
+    }
+
+    /**
+     * Check of the structure of a single CRAM file.
+     */
+    private class CramFileValidation {
+
+        private final File file;
+        private final ValidationReportSink reportSink;
+        private final Set<String> referenceMd5s;
+        private long readCount;
+        private long errorCount;
+        private boolean reportFull;
+
+        CramFileValidation(File file, ValidationReportSink reportSink, Set<String> referenceMd5s) {
+            this.file = file;
+            this.reportSink = reportSink;
+            this.referenceMd5s = referenceMd5s;
+        }
+
+        void validate() {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                int majorVersion = readFileDefinition(channel);
+                if (majorVersion < 0) {
+                    return;
+                }
+
+                CramContainerIndex containerIndex;
+                try {
+                    containerIndex = CramContainerIndex.scan(channel, majorVersion >= 3);
+                } catch (IOException ex) {
+                    error(String.format(INVALID_CONTAINER, ex.getMessage()));
+                    return;
+                }
+
+                validateContainers(channel, containerIndex, majorVersion);
+            } catch (IOException ex) {
+                readError(ex);
+            }
+        }
+
+        /**
+         * @return true if the structure of the file is valid. A file without reads is left to webin-cli to report.
+         */
+        boolean finish() {
+            reportSink.addInfo(file, String.format(READ_COUNT, readCount));
+            log.debug("Checked {} reads with {} errors in {}", readCount, errorCount, file);
+
+            return errorCount == 0;
+        }
+
+        /**
+         * @return the major version of the file, or -1 if the file definition is invalid
+         */
+        private int readFileDefinition(FileChannel channel) throws IOException {
+            ByteBuffer definition = ByteBuffer.allocate(CramContainerIndex.FILE_DEFINITION_SIZE);
+            while (definition.hasRemaining()) {
+                if (channel.read(definition, definition.position()) < 0) {
+                    error(INVALID_MAGIC);
+                    return -1;
+                }
+            }
+
+            byte[] bytes = definition.array();
+            for (int i = 0; i < CRAM_MAGIC.length; i++) {
+                if (bytes[i] != CRAM_MAGIC[i]) {
+                    error(INVALID_MAGIC);
+                    return -1;
+                }
+            }
+
+            int majorVersion = bytes[4];
+            int minorVersion = bytes[5];
+            if (majorVersion != 3 && !(majorVersion == 2 && minorVersion >= 1)) {
+                error(String.format(UNSUPPORTED_VERSION, majorVersion, minorVersion));
+                return -1;
+            }
+
+            return majorVersion;
+        }
+
+        private void validateContainers(FileChannel channel, CramContainerIndex containerIndex, int majorVersion)
+                throws IOException {
+            CramContainerValidator containerValidator = new CramContainerValidator(majorVersion >= 3,
+                    referenceStore != null && referenceStore.isOffline() ? referenceStore::contains : null);
+            int containerCount = containerIndex.getContainerCount();
+            if (containerCount == 0) {
+                error(String.format(CramContainerValidator.INVALID_FILE_HEADER, "the file has no containers"));
+                return;
+            }
+
+            CramContainerHeader fileHeader = containerIndex.getContainer(0);
+            if (fileHeader.getSize() > MAX_CONTAINER_SIZE) {
+                error(String.format(INVALID_CONTAINER, "container 0 is too large"));
+                return;
+            }
+            addErrors(containerValidator.validateFileHeader(readContainer(channel, fileHeader), fileHeader).getErrors());
+
+            Deque<Future<CramContainerValidator.ContainerResult>> containerResults = new ArrayDeque<>();
+            Deque<CramContainerHeader> pendingContainers = new ArrayDeque<>();
+            long pendingBytes = 0;
+            long recordCounter = 0;
+
+            boolean hasEof = containerCount > 1 && containerIndex.getContainer(containerCount - 1).isEmpty();
+            int lastContainer = hasEof ? containerCount - 1 : containerCount;
+            int nextContainer = 1;
+            try {
+                while (!reportFull && (nextContainer < lastContainer || !containerResults.isEmpty())) {
+                    while (nextContainer < lastContainer
+                            && (containerResults.isEmpty() || pendingBytes + containerIndex.getContainer(nextContainer).getSize() <= maxPendingBytes)) {
+                        final CramContainerHeader header = containerIndex.getContainer(nextContainer);
+                        final int container = nextContainer++;
+                        if (header.getSize() > MAX_CONTAINER_SIZE) {
+                            error(String.format(INVALID_CONTAINER, "container " + container + " is too large"));
+                            return;
+                        }
+                        containerResults.add(submit(() -> containerValidator.validate(readContainer(channel, header), header, container)));
+                        pendingContainers.add(header);
+                        pendingBytes += header.getSize();
+                    }
+
+                    CramContainerValidator.ContainerResult containerResult = ParallelBgzfInputStream.await(containerResults.poll());
+                    CramContainerHeader header = pendingContainers.poll();
+                    pendingBytes -= header.getSize();
+
+                    int container = nextContainer - containerResults.size() - 1;
+                    if (header.getRecordCount() > 0 && header.getRecordCounter() != recordCounter) {
+                        error(String.format(RECORD_COUNTER_MISMATCH, container, header.getRecordCounter(), recordCounter));
+                    }
+                    recordCounter += header.getRecordCount();
+
+                    readCount += containerResult.getReadCount();
+                    referenceMd5s.addAll(containerResult.getReferenceMd5s());
+                    addErrors(containerResult.getErrors());
+                }
+            } finally {
+                containerResults.forEach(result -> result.cancel(true));
+            }
+
+            if (majorVersion >= 3 && !hasEof && !reportFull) {
+                error(MISSING_EOF);
+            }
+        }
+
+        private void addErrors(List<String> messages) {
+            for (String message : messages) {
+                if (reportFull) {
+                    break;
+                }
+                error(message);
+            }
+        }
+
+        private void error(String message) {
+            errorCount++;
+            reportSink.addError(file, message);
+            reportFull = reportSink.isFull(file);
+        }
+
+        private void readError(IOException ex) {
+            errorCount++;
+            reportSink.addReadError(file, String.format(FILE_READ_ERROR, ex.getMessage()));
+            reportFull = reportSink.isFull(file);
+        }
+    }
+}
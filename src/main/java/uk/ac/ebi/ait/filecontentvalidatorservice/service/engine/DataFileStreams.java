@@ -0,0 +1,150 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.ParallelValidationConfig;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Opens data files for the built-in engines, decompressing them when their content is gzip compressed.
+ *
+ * BGZF files are inflated block by block on the inflate executor. Other gzip files, including multi-member ones,
+ * are inflated sequentially, because the boundaries of their members can only be found by inflating them.
+ *
+ * The size of the content of a compressed file is estimated from the compression ratio of its first megabyte, as
+ * the size recorded in a gzip trailer is only that of the last member, modulo 4 GB.
+ */
+@Component
+@Slf4j
+public class DataFileStreams {
+
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int SAMPLE_SIZE = 1024 * 1024;
+
+    private final ExecutorService inflateExecutor;
+    private final int maxPendingBatches;
+
+    /**
+     * Creates data file streams that inflate every file sequentially.
+     */
+    public DataFileStreams() {
+        this.inflateExecutor = null;
+        this.maxPendingBatches = 0;
+    }
+
+    @Autowired
+    public DataFileStreams(ParallelValidationConfig parallelValidationConfig,
+                           @Qualifier("inflateExecutor") ExecutorService inflateExecutor) {
+        this(parallelValidationConfig.getInflateThreadCount() > 1 ? inflateExecutor : null,
+                2 * parallelValidationConfig.getInflateThreadCount());
+    }
+
+    public DataFileStreams(ExecutorService inflateExecutor, int maxPendingBatches) {
+        this.inflateExecutor = inflateExecutor;
+        this.maxPendingBatches = maxPendingBatches;
+    }
+
+    public InputStream open(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+
+        try {
+            if (isGzip(in)) {
+                if (inflateExecutor != null && BgzfBlockReader.isBgzf(in)) {
+                    log.debug("Inflating BGZF file {} in parallel", file);
+                    return new ParallelBgzfInputStream(in, inflateExecutor, maxPendingBatches);
+                }
+                return new GZIPInputStream(in, BUFFER_SIZE);
+            }
+        } catch (IOException ex) {
+            in.close();
+            throw ex;
+        }
+
+        return in;
+    }
+
+    /**
+     * @return the size of the content of the file once inflated, exact if the file is not compressed or is smaller
+     * than the sample inflated to estimate it
+     */
+    public long estimateContentSize(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+            if (!isGzip(in)) {
+                return file.length();
+            }
+
+            // The default input buffer of the inflater is small, so it reads little ahead of what it has inflated
+            final CountingInputStream compressed = new CountingInputStream(in);
+            final InputStream inflating = new GZIPInputStream(compressed);
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            long inflatedSize = 0;
+            while (compressed.count < SAMPLE_SIZE) {
+                int length = inflating.read(buffer);
+                if (length < 0) {
+                    return inflatedSize;
+                }
+                inflatedSize += length;
+            }
+
+            return (long) ((double) file.length() * inflatedSize / compressed.count);
+        }
+    }
+
+    static boolean isGzip(InputStream in) throws IOException {
+        in.mark(2);
+        try {
+            return in.read() == GZIP_MAGIC_1 && in.read() == GZIP_MAGIC_2;
+        } finally {
+            in.reset();
+        }
+    }
+
+    /**
+     * Counts the bytes read through it.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int readLength = super.read(bytes, offset, length);
+            if (readLength > 0) {
+                count += readLength;
+            }
+            return readLength;
+        }
+
+        @Override
+        public long skip(long length) throws IOException {
+            long skipped = super.skip(length);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Finds duplicate read names in two passes over a file, keeping its memory use independent of the number of reads.
+ *
+ * In the first pass every read name is hashed into an off-heap Bloom filter. Names that the filter may have seen
+ * before are possible duplicates, and their hashes are kept off-heap too, up to a limit. In the second pass only
+ * the names with one of those hashes are counted exactly, which confirms the real duplicates.
+ * The off-heap memory is released by the garbage collector once the detector is no longer used.
+ */
+public class DuplicateReadNameDetector {
+
+    private static final double LN2 = Math.log(2);
+    private static final int MAX_HASH_FUNCTIONS = 16;
+
+    private final LongBuffer bloomFilter;
+    private final long bitCount;
+    private final int hashFunctionCount;
+
+    private final LongBuffer candidates;
+    private long candidateCount;
+    private long[] sortedCandidates;
+    private final Map<String, Integer> candidateNameCounts = new HashMap<>();
+
+    /**
+     * @param expectedReads the expected number of reads, used to size the Bloom filter
+     * @param falsePositiveRate the wanted probability of a name being taken for a possible duplicate
+     * @param maxMemoryBytes the maximum off-heap memory of the Bloom filter
+     * @param maxCandidates the maximum number of possible duplicates kept for confirmation
+     */
+    public DuplicateReadNameDetector(long expectedReads, double falsePositiveRate, long maxMemoryBytes,
+                                     int maxCandidates) {
+        long wantedBits = (long) Math.ceil(-Math.max(1, expectedReads) * Math.log(falsePositiveRate) / (LN2 * LN2));
+        long maxBits = Math.min(maxMemoryBytes, Integer.MAX_VALUE - 7L) * 8;
+        long words = Math.max(1, Math.min(wantedBits, maxBits) / 64);
+
+        this.bitCount = words * 64;
+        this.hashFunctionCount = (int) Math.max(1,
+                Math.min(MAX_HASH_FUNCTIONS, Math.round((double) bitCount / Math.max(1, expectedReads) * LN2)));
+        this.bloomFilter = ByteBuffer.allocateDirect((int) (words * 8)).order(ByteOrder.nativeOrder()).asLongBuffer();
+        this.candidates = ByteBuffer.allocateDirect(Math.max(1, maxCandidates) * 8).order(ByteOrder.nativeOrder())
+                .asLongBuffer();
+    }
+
+    /**
+     * Adds a read name in the first pass.
+     */
+    public void add(byte[] bytes, int offset, int length) {
+        long hash1 = hash(bytes, offset, length);
+        long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L) | 1;
+
+        boolean seen = true;
+        for (int i = 0; i < hashFunctionCount; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << (bit & 63);
+            long value = bloomFilter.get(word);
+            if ((value & mask) == 0) {
+                seen = false;
+                bloomFilter.put(word, value | mask);
+            }
+        }
+
+        if (seen) {
+            candidateCount++;
+            if (candidates.hasRemaining()) {
+                candidates.put(hash1);
+            }
+        }
+    }
+
+    /**
+     * @return true if the first pass found names that may be duplicates
+     */
+    public boolean hasCandidates() {
+        return candidateCount > 0;
+    }
+
+    /**
+     * @return true if there were more possible duplicates than could be kept, so not all of them are confirmed
+     */
+    public boolean isCandidateLimitReached() {
+        return candidateCount > candidates.capacity();
+    }
+
+    /**
+     * @return the number of names the first pass took for possible duplicates
+     */
+    public long getCandidateCount() {
+        return candidateCount;
+    }
+
+    /**
+     * Checks a read name in the second pass.
+     */
+    public void confirm(byte[] bytes, int offset, int length) {
+        if (sortedCandidates == null) {
+            sortedCandidates = new long[candidates.position()];
+            for (int i = 0; i < sortedCandidates.length; i++) {
+                sortedCandidates[i] = candidates.get(i);
+            }
+            Arrays.sort(sortedCandidates);
+        }
+
+        if (Arrays.binarySearch(sortedCandidates, hash(bytes, offset, length)) >= 0) {
+            candidateNameCounts.merge(new String(bytes, offset, length, StandardCharsets.US_ASCII), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * @return the read names found more than once in the second pass, with their number of occurrences
+     */
+    public Map<String, Integer> getDuplicates() {
+        Map<String, Integer> duplicates = new LinkedHashMap<>();
+        candidateNameCounts.forEach((name, count) -> {
+            if (count > 1) {
+                duplicates.put(name, count);
+            }
+        });
+        return duplicates;
+    }
+
+    private static long hash(byte[] bytes, int offset, int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = offset; i < offset + length; i++) {
+            hash ^= bytes[i];
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
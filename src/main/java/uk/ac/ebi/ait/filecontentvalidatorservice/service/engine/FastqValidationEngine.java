@@ -0,0 +1,505 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.DuplicateReadNameConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.ReadPairingConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.report.ValidationReportSink;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+import uk.ac.ebi.ena.webin.cli.validator.manifest.ReadsManifest;
+import uk.ac.ebi.ena.webin.cli.validator.response.ReadsValidationResponse;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Built-in streaming FASTQ validator.
+ *
+ * Records are read line by line into reusable byte buffers, so no objects are created per record. Every record
+ * is checked for its structure (name line, sequence, separator line and quality line), for the bases of the
+ * sequence, for the length of the quality line and for the range of the quality values.
+ * Reading stops early once the report sink takes no more errors for the file.
+ *
+ * The two files of paired reads are read in lockstep, comparing the names of the mates on the way
+ * (see {@link ReadPairing}).
+ *
+ * Duplicate read names are found with a {@link DuplicateReadNameDetector}, which reads the file a second time
+ * only if the first pass found possible duplicates.
+ */
+@Component
+@Slf4j
+public class FastqValidationEngine implements ValidationEngine {
+
+    public static final String NAME = "builtin";
+
+    static final String NO_VALID_READS = "File contains no valid reads";
+    static final String INVALID_NAME_LINE = "Line %d: read name line does not start with @";
+    static final String EMPTY_READ_NAME = "Line %d: read name is empty";
+    static final String TRUNCATED_RECORD = "Line %d: the last record of the file is truncated";
+    static final String INVALID_BASE = "Line %d: invalid base '%c' in the sequence";
+    static final String EMPTY_SEQUENCE = "Line %d: the sequence is empty";
+    static final String INVALID_SEPARATOR_LINE = "Line %d: separator line does not start with +";
+    static final String SEPARATOR_NAME_MISMATCH = "Line %d: separator line does not repeat the read name";
+    static final String QUALITY_LENGTH_MISMATCH = "Line %d: quality length %d does not match sequence length %d";
+    static final String INVALID_QUALITY = "Line %d: quality value '%c' is out of range";
+    static final String FILE_READ_ERROR = "Could not read the file: %s";
+    static final String READ_COUNT = "Collected %d reads";
+    static final String DUPLICATE_READ_NAME = "Multiple (%d) occurrences of read name: %s";
+    static final String POSSIBLE_DUPLICATES = "Has possible duplicate(s): %s";
+    static final String DUPLICATES_NOT_CONFIRMED = "Only the first %d of %d possible duplicate read names were checked";
+
+    static final String LESS_THAN_MIN_PAIRED_READS = "Detected paired fastq submission with less than 20% of paired reads";
+    static final String UNMATCHED_LIMIT_REACHED = "More than %d reads did not match their mate at the same position, "
+            + "further unmatched reads were counted as unpaired";
+
+    /**
+     * The content size of a short read. Reads are rather overestimated, which only makes the Bloom filter larger
+     * within its memory limit, while too few make it overflow.
+     */
+    private static final long BYTES_PER_READ_ESTIMATE = 64;
+    private static final double MIN_PAIRED_FRACTION = 0.2;
+    /**
+     * The mates of a pair in a single file may have the same name.
+     */
+    private static final int MAX_SINGLE_FILE_NAME_OCCURRENCES = 2;
+
+    private static final byte MIN_QUALITY = '!';
+    private static final byte MAX_QUALITY = '~';
+    private static final boolean[] VALID_BASES = new boolean[256];
+
+    static {
+        for (char base : "ACGTUNRYKMSWBDHV.".toCharArray()) {
+            VALID_BASES[base] = true;
+            VALID_BASES[Character.toLowerCase(base)] = true;
+        }
+    }
+
+    private final DataFileStreams dataFileStreams;
+    private final DuplicateReadNameConfig duplicateReadNameConfig;
+    private final ReadPairingConfig readPairingConfig;
+
+    public FastqValidationEngine(DataFileStreams dataFileStreams, DuplicateReadNameConfig duplicateReadNameConfig,
+                                 ReadPairingConfig readPairingConfig) {
+        this.dataFileStreams = dataFileStreams;
+        this.duplicateReadNameConfig = duplicateReadNameConfig;
+        this.readPairingConfig = readPairingConfig;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getFileType() {
+        return ReadsManifest.FileType.FASTQ.name();
+    }
+
+    @Override
+    public ReadsValidationResponse validate(List<File> files, ValidationReportSink reportSink) {
+        ReadPairing readPairing = new ReadPairing(readPairingConfig.getMaxUnmatchedNames());
+
+        boolean valid;
+        if (files.size() == 2) {
+            valid = validateMates(files.get(0), files.get(1), reportSink, readPairing);
+        } else {
+            valid = true;
+            for (File file : files) {
+                valid &= validateFile(file, reportSink, files.size() == 1 ? readPairing : null);
+            }
+        }
+
+        boolean paired = readPairing.getPairedFraction() >= MIN_PAIRED_FRACTION;
+        if (files.size() == 2 && !paired && readPairing.getReadCount() > 0) {
+            reportSink.addError(null, LESS_THAN_MIN_PAIRED_READS);
+            valid = false;
+        }
+        if (readPairing.isUnmatchedLimitReached()) {
+            reportSink.addInfo(null, String.format(UNMATCHED_LIMIT_REACHED, readPairingConfig.getMaxUnmatchedNames()));
+        }
+
+        ReadsValidationResponse response = new ReadsValidationResponse();
+        response.setStatus(valid ? ValidationResponse.status.VALIDATION_SUCCESS : ValidationResponse.status.VALIDATION_ERROR);
+        response.setPaired(paired);
+
+        return response;
+    }
+
+    /**
+     * Validates a single file. The mates of the reads are expected next to each other if a read pairing is given.
+     *
+     * @return true if the file is a valid FASTQ file with at least one read
+     */
+    boolean validateFile(File file, ValidationReportSink reportSink, ReadPairing readPairing) {
+        try (FastqFileValidation validation = new FastqFileValidation(file, reportSink, MAX_SINGLE_FILE_NAME_OCCURRENCES)) {
+            while (validation.nextRecord()) {
+                if (readPairing != null && validation.hasReadName()) {
+                    readPairing.addSingle(validation.header, 1, validation.readNameLength);
+                }
+            }
+            return validation.finish();
+        }
+    }
+
+    /**
+     * Validates the two files of read pairs in lockstep, so the mates of the reads are compared while reading.
+     *
+     * @return true if both files are valid FASTQ files with at least one read
+     */
+    private boolean validateMates(File file1, File file2, ValidationReportSink reportSink, ReadPairing readPairing) {
+        try (FastqFileValidation validation1 = new FastqFileValidation(file1, reportSink, 1);
+             FastqFileValidation validation2 = new FastqFileValidation(file2, reportSink, 1)) {
+            boolean hasRecord1 = true;
+            boolean hasRecord2 = true;
+            while (hasRecord1 || hasRecord2) {
+                hasRecord1 = hasRecord1 && validation1.nextRecord();
+                hasRecord2 = hasRecord2 && validation2.nextRecord();
+
+                boolean hasName1 = hasRecord1 && validation1.hasReadName();
+                boolean hasName2 = hasRecord2 && validation2.hasReadName();
+                if (hasName1 && hasName2) {
+                    readPairing.addMates(validation1.header, 1, validation1.readNameLength,
+                            validation2.header, 1, validation2.readNameLength);
+                } else if (hasName1) {
+                    readPairing.addUnmatched(1, validation1.header, 1, validation1.readNameLength);
+                } else if (hasName2) {
+                    readPairing.addUnmatched(2, validation2.header, 1, validation2.readNameLength);
+                }
+            }
+
+            boolean valid1 = validation1.finish();
+            boolean valid2 = validation2.finish();
+            return valid1 && valid2;
+        }
+    }
+
+    private DuplicateReadNameDetector createDuplicateDetector(File file) {
+        if (!duplicateReadNameConfig.isEnabled()) {
+            return null;
+        }
+        return new DuplicateReadNameDetector(estimateReadCount(file),
+                duplicateReadNameConfig.getFalsePositiveRate(), duplicateReadNameConfig.getMaxMemoryMB() * 1024 * 1024,
+                duplicateReadNameConfig.getMaxCandidates());
+    }
+
+    /**
+     * @return the number of reads expected in a file from the size of its content, or from its length if the size
+     * of its content cannot be estimated
+     */
+    long estimateReadCount(File file) {
+        try {
+            return dataFileStreams.estimateContentSize(file) / BYTES_PER_READ_ESTIMATE;
+        } catch (IOException ex) {
+            log.debug("Could not estimate the size of the content of {}", file, ex);
+            return file.length() / BYTES_PER_READ_ESTIMATE;
+        }
+    }
+
+    /**
+     * Confirms the possible duplicates of the first pass by reading the names of the file a second time. The records
+     * are split as in the first pass, so the same lines are read as read names.
+     */
+    private void checkDuplicates(File file, DuplicateReadNameDetector duplicateDetector, FastqFileValidation validation)
+            throws IOException {
+        validation.reportSink.addInfo(file, String.format(POSSIBLE_DUPLICATES, duplicateDetector.hasCandidates()));
+        if (!duplicateDetector.hasCandidates()) {
+            return;
+        }
+
+        try (ByteLineReader reader = new ByteLineReader(dataFileStreams.open(file))) {
+            while (readNameLine(reader)) {
+                if (!isReadNameLine(reader.getLine(), reader.getLength())) {
+                    continue;
+                }
+                duplicateDetector.confirm(reader.getLine(), 1, getReadNameLength(reader.getLine(), reader.getLength()));
+                if (!reader.readLine() || !reader.readLine() || !reader.readLine()) {
+                    break;
+                }
+            }
+        }
+
+        for (Map.Entry<String, Integer> duplicate : duplicateDetector.getDuplicates().entrySet()) {
+            if (validation.reportFull) {
+                break;
+            }
+            if (duplicate.getValue() <= validation.maxNameOccurrences) {
+                continue;
+            }
+            validation.error(String.format(DUPLICATE_READ_NAME, duplicate.getValue(), duplicate.getKey()));
+        }
+        if (duplicateDetector.isCandidateLimitReached()) {
+            validation.reportSink.addInfo(file, String.format(DUPLICATES_NOT_CONFIRMED,
+                    duplicateReadNameConfig.getMaxCandidates(), duplicateDetector.getCandidateCount()));
+        }
+    }
+
+    /**
+     * Reads the first line of the next record, skipping blank lines.
+     *
+     * @return false at the end of the file
+     */
+    private static boolean readNameLine(ByteLineReader reader) throws IOException {
+        do {
+            if (!reader.readLine()) {
+                return false;
+            }
+        } while (reader.getLength() == 0);
+
+        return true;
+    }
+
+    /**
+     * @return true if a line is a valid name line with a read name. A record with any other first line is only that
+     * line.
+     */
+    private static boolean isReadNameLine(byte[] line, int length) {
+        return line[0] == '@' && length > 1 && line[1] != ' ' && line[1] != '\t';
+    }
+
+    /**
+     * @return the length of the read name of a header line, which ends at the first space or tab
+     */
+    private static int getReadNameLength(byte[] header, int headerLength) {
+        int end = 1;
+        while (end < headerLength && header[end] != ' ' && header[end] != '\t') {
+            end++;
+        }
+        return end - 1;
+    }
+
+    /**
+     * Validation of a single FASTQ file, one record at a time.
+     */
+    private class FastqFileValidation implements Closeable {
+
+        private final File file;
+        private final ValidationReportSink reportSink;
+        private final DuplicateReadNameDetector duplicateDetector;
+        private final int maxNameOccurrences;
+        private ByteLineReader reader;
+        private byte[] header = new byte[256];
+        private int headerLength;
+        private int readNameLength = -1;
+        private long readCount;
+        private long errorCount;
+        private boolean reportFull;
+
+        /**
+         * @param maxNameOccurrences the number of times a read name may occur in the file before it is a duplicate
+         */
+        FastqFileValidation(File file, ValidationReportSink reportSink, int maxNameOccurrences) {
+            this.file = file;
+            this.reportSink = reportSink;
+            this.maxNameOccurrences = maxNameOccurrences;
+            this.duplicateDetector = createDuplicateDetector(file);
+
+            try {
+                this.reader = new ByteLineReader(dataFileStreams.open(file));
+            } catch (IOException ex) {
+                readError(ex);
+            }
+        }
+
+        /**
+         * Reads and validates the next record. A record with an invalid name line is only that line, so the
+         * validation can find the next record after it.
+         *
+         * @return false at the end of the file, or if the file cannot be validated any further
+         */
+        boolean nextRecord() {
+            readNameLength = -1;
+            if (reader == null || reportFull) {
+                return false;
+            }
+
+            try {
+                return readRecord();
+            } catch (IOException ex) {
+                readError(ex);
+                return false;
+            }
+        }
+
+        /**
+         * @return true if the name line of the current record is valid, so its read name can be used
+         */
+        boolean hasReadName() {
+            return readNameLength >= 0;
+        }
+
+        /**
+         * Checks the read names for duplicates and reports the totals of the file, after its last record.
+         *
+         * @return true if the file is a valid FASTQ file with at least one read
+         */
+        boolean finish() {
+            if (duplicateDetector != null && reader != null && !reportFull) {
+                try {
+                    checkDuplicates(file, duplicateDetector, this);
+                } catch (IOException ex) {
+                    readError(ex);
+                }
+            }
+
+            if (readCount == 0) {
+                error(NO_VALID_READS);
+            }
+            reportSink.addInfo(file, String.format(READ_COUNT, readCount));
+            log.debug("Validated {} reads with {} errors in {}", readCount, errorCount, file);
+
+            return errorCount == 0;
+        }
+
+        @Override
+        public void close() {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException ex) {
+                    log.warn("Could not close {}", file, ex);
+                }
+            }
+        }
+
+        private boolean readRecord() throws IOException {
+            if (!readNameLine(reader)) {
+                return false;
+            }
+
+            if (!validateHeader(reader)) {
+                return true;
+            }
+
+            if (!reader.readLine()) {
+                error(String.format(TRUNCATED_RECORD, reader.getLineNumber()));
+                return false;
+            }
+            int sequenceLength = reader.getLength();
+            boolean validRecord = validateSequence(reader);
+
+            if (!reader.readLine()) {
+                error(String.format(TRUNCATED_RECORD, reader.getLineNumber()));
+                return false;
+            }
+            validRecord &= validateSeparator(reader);
+
+            if (!reader.readLine()) {
+                error(String.format(TRUNCATED_RECORD, reader.getLineNumber()));
+                return false;
+            }
+            validRecord &= validateQuality(reader, sequenceLength);
+
+            if (validRecord) {
+                readCount++;
+            }
+
+            return true;
+        }
+
+        private boolean validateHeader(ByteLineReader reader) {
+            byte[] line = reader.getLine();
+            int length = reader.getLength();
+
+            if (line[0] != '@') {
+                error(String.format(INVALID_NAME_LINE, reader.getLineNumber()));
+                return false;
+            }
+            if (!isReadNameLine(line, length)) {
+                error(String.format(EMPTY_READ_NAME, reader.getLineNumber()));
+                return false;
+            }
+
+            if (header.length < length) {
+                header = new byte[Math.max(length, header.length * 2)];
+            }
+            System.arraycopy(line, 0, header, 0, length);
+            headerLength = length;
+            readNameLength = getReadNameLength(line, length);
+
+            if (duplicateDetector != null) {
+                duplicateDetector.add(line, 1, readNameLength);
+            }
+
+            return true;
+        }
+
+        private boolean validateSequence(ByteLineReader reader) {
+            byte[] line = reader.getLine();
+            int length = reader.getLength();
+
+            if (length == 0) {
+                error(String.format(EMPTY_SEQUENCE, reader.getLineNumber()));
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (!VALID_BASES[line[i] & 0xff]) {
+                    error(String.format(INVALID_BASE, reader.getLineNumber(), (char) (line[i] & 0xff)));
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private boolean validateSeparator(ByteLineReader reader) {
+            byte[] line = reader.getLine();
+            int length = reader.getLength();
+
+            if (length == 0 || line[0] != '+') {
+                error(String.format(INVALID_SEPARATOR_LINE, reader.getLineNumber()));
+                return false;
+            }
+            if (length > 1 && !isRepeatedHeader(line, length)) {
+                error(String.format(SEPARATOR_NAME_MISMATCH, reader.getLineNumber()));
+                return false;
+            }
+
+            return true;
+        }
+
+        private boolean isRepeatedHeader(byte[] line, int length) {
+            if (length != headerLength) {
+                return false;
+            }
+            for (int i = 1; i < length; i++) {
+                if (line[i] != header[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean validateQuality(ByteLineReader reader, int sequenceLength) {
+            byte[] line = reader.getLine();
+            int length = reader.getLength();
+
+            if (length != sequenceLength) {
+                error(String.format(QUALITY_LENGTH_MISMATCH, reader.getLineNumber(), length, sequenceLength));
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (line[i] < MIN_QUALITY || line[i] > MAX_QUALITY) {
+                    error(String.format(INVALID_QUALITY, reader.getLineNumber(), (char) (line[i] & 0xff)));
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        void error(String message) {
+            errorCount++;
+            reportSink.addError(file, message);
+            reportFull = reportSink.isFull(file);
+        }
+
+        private void readError(IOException ex) {
+            errorCount++;
+            reportSink.addReadError(file, String.format(FILE_READ_ERROR, ex.getMessage()));
+            reportFull = reportSink.isFull(file);
+        }
+    }
+}
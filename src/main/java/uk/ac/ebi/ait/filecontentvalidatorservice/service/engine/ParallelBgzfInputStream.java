@@ -0,0 +1,144 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipException;
+
+/**
+ * Inflates a BGZF stream on a thread pool.
+ *
+ * The compressed blocks are read sequentially and handed to the pool in batches. The inflated batches are
+ * returned in the order of the blocks, so readers see the same bytes as with a sequential gzip stream.
+ * At most {@code maxPendingBatches} batches are read ahead, which bounds the memory used.
+ */
+public class ParallelBgzfInputStream extends InputStream {
+
+    private static final int BATCH_SIZE = 1024 * 1024;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final BgzfBlockReader blockReader;
+    private final ExecutorService inflateExecutor;
+    private final int maxPendingBatches;
+    private final Deque<Future<byte[]>> pendingBatches = new ArrayDeque<>();
+    private boolean endOfBlocks;
+
+    private byte[] chunk = EMPTY;
+    private int chunkPosition;
+
+    public ParallelBgzfInputStream(InputStream in, ExecutorService inflateExecutor, int maxPendingBatches) {
+        this.blockReader = new BgzfBlockReader(in);
+        this.inflateExecutor = inflateExecutor;
+        this.maxPendingBatches = Math.max(1, maxPendingBatches);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (chunkPosition >= chunk.length && !nextChunk()) {
+            return -1;
+        }
+        return chunk[chunkPosition++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (chunkPosition >= chunk.length && !nextChunk()) {
+            return -1;
+        }
+
+        int count = Math.min(length, chunk.length - chunkPosition);
+        System.arraycopy(chunk, chunkPosition, bytes, offset, count);
+        chunkPosition += count;
+
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return chunk.length - chunkPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        pendingBatches.forEach(batch -> batch.cancel(true));
+        pendingBatches.clear();
+        blockReader.close();
+    }
+
+    private boolean nextChunk() throws IOException {
+        do {
+            submitBatches();
+            Future<byte[]> batch = pendingBatches.poll();
+            if (batch == null) {
+                return false;
+            }
+            chunk = await(batch);
+            chunkPosition = 0;
+        } while (chunk.length == 0);
+
+        return true;
+    }
+
+    private void submitBatches() throws IOException {
+        while (!endOfBlocks && pendingBatches.size() < maxPendingBatches) {
+            List<byte[]> blocks = new ArrayList<>();
+            int compressedSize = 0;
+            int inflatedSize = 0;
+            while (compressedSize < BATCH_SIZE && inflatedSize < BATCH_SIZE) {
+                byte[] block = blockReader.readBlock();
+                if (block == null) {
+                    endOfBlocks = true;
+                    break;
+                }
+                int blockInflatedSize = BgzfBlockReader.getInflatedSize(block);
+                if (blockInflatedSize < 0 || blockInflatedSize > BgzfBlockReader.MAX_BLOCK_SIZE) {
+                    throw new ZipException("Invalid BGZF block content size: " + blockInflatedSize);
+                }
+                blocks.add(block);
+                compressedSize += block.length;
+                inflatedSize += blockInflatedSize;
+            }
+
+            if (!blocks.isEmpty()) {
+                final int batchSize = inflatedSize;
+                pendingBatches.add(inflateExecutor.submit(() -> inflateBatch(blocks, batchSize)));
+            }
+        }
+    }
+
+    private static byte[] inflateBatch(List<byte[]> blocks, int inflatedSize) throws IOException {
+        byte[] inflated = new byte[inflatedSize];
+        int length = 0;
+        for (byte[] block : blocks) {
+            length += BgzfBlockReader.inflate(block, inflated, length);
+        }
+        return inflated;
+    }
+
+    /**
+     * Waits for the result of a task of the inflate executor, passing on its IOException.
+     */
+    static <T> T await(Future<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the inflate executor");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Counts the paired reads of a FASTQ submission while its files are being read.
+ *
+ * The mates of two files are compared in lockstep, one read of each file per step, which takes no memory while the
+ * files are in the same order. Reads that do not match their counterpart are kept until their mate turns up, up to
+ * a limit. Beyond that limit further unmatched reads are counted as unpaired.
+ *
+ * In a single file the mates of a pair are expected to follow each other.
+ *
+ * The names of mates are equal apart from an optional {@code /1} or {@code /2} suffix.
+ */
+public class ReadPairing {
+
+    private final int maxUnmatchedNames;
+    private final Set<String> unmatchedNames1 = new HashSet<>();
+    private final Set<String> unmatchedNames2 = new HashSet<>();
+    private boolean unmatchedLimitReached;
+
+    private byte[] previousName = new byte[256];
+    private int previousNameLength = -1;
+
+    private long readCount;
+    private long pairCount;
+
+    public ReadPairing(int maxUnmatchedNames) {
+        this.maxUnmatchedNames = maxUnmatchedNames;
+    }
+
+    /**
+     * Adds the reads found at the same position of the first and the second file.
+     */
+    public void addMates(byte[] name1, int offset1, int length1, byte[] name2, int offset2, int length2) {
+        readCount += 2;
+
+        int keyLength1 = getKeyLength(name1, offset1, length1);
+        int keyLength2 = getKeyLength(name2, offset2, length2);
+        if (isEqual(name1, offset1, keyLength1, name2, offset2, keyLength2)) {
+            pairCount++;
+            return;
+        }
+
+        match(new String(name1, offset1, keyLength1, StandardCharsets.US_ASCII), unmatchedNames2, unmatchedNames1);
+        match(new String(name2, offset2, keyLength2, StandardCharsets.US_ASCII), unmatchedNames1, unmatchedNames2);
+    }
+
+    /**
+     * Adds a read of one of two files that has no counterpart at the same position of the other file.
+     *
+     * @param mate 1 or 2 for the first or the second file
+     */
+    public void addUnmatched(int mate, byte[] name, int offset, int length) {
+        readCount++;
+
+        String key = new String(name, offset, getKeyLength(name, offset, length), StandardCharsets.US_ASCII);
+        if (mate == 1) {
+            match(key, unmatchedNames2, unmatchedNames1);
+        } else {
+            match(key, unmatchedNames1, unmatchedNames2);
+        }
+    }
+
+    /**
+     * Adds a read of a single file, which pairs with the read before it if their names match.
+     */
+    public void addSingle(byte[] name, int offset, int length) {
+        readCount++;
+
+        int keyLength = getKeyLength(name, offset, length);
+        if (previousNameLength >= 0 && isEqual(previousName, 0, previousNameLength, name, offset, keyLength)) {
+            pairCount++;
+            previousNameLength = -1;
+            return;
+        }
+
+        if (previousName.length < keyLength) {
+            previousName = new byte[Math.max(keyLength, previousName.length * 2)];
+        }
+        System.arraycopy(name, offset, previousName, 0, keyLength);
+        previousNameLength = keyLength;
+    }
+
+    public long getReadCount() {
+        return readCount;
+    }
+
+    public long getPairCount() {
+        return pairCount;
+    }
+
+    /**
+     * @return the share of the reads that belong to a pair
+     */
+    public double getPairedFraction() {
+        return readCount == 0 ? 0 : 2.0 * pairCount / readCount;
+    }
+
+    /**
+     * @return true if there were more unmatched reads than could be kept, so some pairs may not have been found
+     */
+    public boolean isUnmatchedLimitReached() {
+        return unmatchedLimitReached;
+    }
+
+    private void match(String key, Set<String> mateNames, Set<String> ownNames) {
+        if (mateNames.remove(key)) {
+            pairCount++;
+        } else if (unmatchedNames1.size() + unmatchedNames2.size() < maxUnmatchedNames) {
+            ownNames.add(key);
+        } else {
+            unmatchedLimitReached = true;
+        }
+    }
+
+    private static int getKeyLength(byte[] name, int offset, int length) {
+        if (length > 2 && name[offset + length - 2] == '/'
+                && (name[offset + length - 1] == '1' || name[offset + length - 1] == '2')) {
+            return length - 2;
+        }
+        return length;
+    }
+
+    private static boolean isEqual(byte[] name1, int offset1, int length1, byte[] name2, int offset2, int length2) {
+        if (length1 != length2) {
+            return false;
+        }
+        for (int i = 0; i < length1; i++) {
+            if (name1[offset1 + i] != name2[offset2 + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.report.ValidationReportSink;
+import uk.ac.ebi.ena.webin.cli.validator.response.ReadsValidationResponse;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * A built-in validator of data files that can be used instead of the webin-cli validator for a file type.
+ */
+public interface ValidationEngine {
+
+    /**
+     * @return the name of the engine, used in configuration and in the validation result cache key
+     */
+    String getName();
+
+    /**
+     * @return the file type validated by the engine, as given in the command line parameters
+     */
+    String getFileType();
+
+    /**
+     * Validates files that belong together, like the two files of a read pair.
+     * The messages of the validation are added to the report sink, keyed by the data file they refer to.
+     *
+     * @param files the data files to validate
+     * @param reportSink the sink receiving the validation messages
+     * @return the response with the status of the validation
+     */
+    ReadsValidationResponse validate(List<File> files, ValidationReportSink reportSink);
+}
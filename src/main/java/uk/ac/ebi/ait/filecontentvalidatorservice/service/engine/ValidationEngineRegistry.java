@@ -0,0 +1,61 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Selects the validation engine of a file type.
+ *
+ * The engine of a file type is configured with {@code fileContentValidator.engine.<file type>}, for example
+ * {@code fileContentValidator.engine.fastq=builtin}. File types without a configured built-in engine are
+ * validated by the webin-cli validator.
+ */
+@Component
+@Slf4j
+public class ValidationEngineRegistry {
+
+    public static final String WEBIN_CLI_ENGINE = "webin-cli";
+
+    private static final String ENGINE_PROPERTY = "fileContentValidator.engine.%s";
+
+    private final List<ValidationEngine> engines;
+    private final Environment environment;
+
+    public ValidationEngineRegistry(List<ValidationEngine> engines, Environment environment) {
+        this.engines = engines;
+        this.environment = environment;
+    }
+
+    /**
+     * @return the name of the engine configured for the file type
+     */
+    public String getEngineName(String fileType) {
+        return environment.getProperty(
+                String.format(ENGINE_PROPERTY, fileType.toLowerCase(Locale.ROOT)), WEBIN_CLI_ENGINE);
+    }
+
+    /**
+     * @return the built-in engine configured for the file type, or empty if its files are validated by webin-cli
+     */
+    public Optional<ValidationEngine> getBuiltInEngine(String fileType) {
+        final String engineName = getEngineName(fileType);
+        if (WEBIN_CLI_ENGINE.equals(engineName)) {
+            return Optional.empty();
+        }
+
+        Optional<ValidationEngine> engine = engines.stream()
+                .filter(candidate -> candidate.getFileType().equalsIgnoreCase(fileType))
+                .filter(candidate -> candidate.getName().equals(engineName))
+                .findFirst();
+        if (!engine.isPresent()) {
+            log.warn("No {} validation engine for file type {}, falling back to {}", engineName, fileType, WEBIN_CLI_ENGINE);
+        }
+
+        return engine;
+    }
+}
@@ -0,0 +1,155 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The definitions of the header of a VCF file: the INFO and FORMAT fields, the contigs and the samples.
+ */
+public class VcfHeader {
+
+    static final String[] FIXED_COLUMNS = {"#CHROM", "POS", "ID", "REF", "ALT", "QUAL", "FILTER", "INFO"};
+    static final String FORMAT_COLUMN = "FORMAT";
+
+    private final Map<String, Field> infoFields = new HashMap<>();
+    private final Map<String, Field> formatFields = new HashMap<>();
+    private final List<String> contigs = new ArrayList<>();
+    private final List<String> sampleNames = new ArrayList<>();
+    private int columnCount = FIXED_COLUMNS.length;
+
+    public Field getInfoField(String id) {
+        return infoFields.get(id);
+    }
+
+    public Field getFormatField(String id) {
+        return formatFields.get(id);
+    }
+
+    public List<String> getContigs() {
+        return contigs;
+    }
+
+    public List<String> getSampleNames() {
+        return sampleNames;
+    }
+
+    /**
+     * @return the number of columns of the data lines
+     */
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * @return true if the data lines have a FORMAT column
+     */
+    public boolean hasFormatColumn() {
+        return columnCount > FIXED_COLUMNS.length;
+    }
+
+    void setColumnCount(int columnCount) {
+        this.columnCount = columnCount;
+    }
+
+    void addInfoField(Field field) {
+        infoFields.put(field.getId(), field);
+    }
+
+    void addFormatField(Field field) {
+        formatFields.put(field.getId(), field);
+    }
+
+    /**
+     * Parses the value of a structured header line, e.g. {@code <ID=DP,Number=1,Type=Integer,Description="Depth">}.
+     *
+     * @return the keys and values, or null if the value is not a valid structured value
+     */
+    static Map<String, String> parseStructuredValue(String value) {
+        if (value.length() < 2 || value.charAt(0) != '<' || value.charAt(value.length() - 1) != '>') {
+            return null;
+        }
+
+        Map<String, String> entries = new LinkedHashMap<>();
+        int position = 1;
+        int end = value.length() - 1;
+        while (position < end) {
+            int equals = value.indexOf('=', position);
+            if (equals < 0 || equals >= end) {
+                return null;
+            }
+            String key = value.substring(position, equals);
+
+            int valueEnd;
+            String entryValue;
+            if (value.charAt(equals + 1) == '"') {
+                StringBuilder quoted = new StringBuilder();
+                valueEnd = equals + 2;
+                while (valueEnd < end && value.charAt(valueEnd) != '"') {
+                    if (value.charAt(valueEnd) == '\\' && valueEnd + 1 < end) {
+                        valueEnd++;
+                    }
+                    quoted.append(value.charAt(valueEnd++));
+                }
+                if (valueEnd >= end) {
+                    return null;
+                }
+                entryValue = quoted.toString();
+                valueEnd++;
+            } else {
+                valueEnd = value.indexOf(',', equals + 1);
+                if (valueEnd < 0 || valueEnd > end) {
+                    valueEnd = end;
+                }
+                entryValue = value.substring(equals + 1, valueEnd);
+            }
+
+            if (key.isEmpty() || entries.put(key, entryValue) != null) {
+                return null;
+            }
+            if (valueEnd < end && value.charAt(valueEnd) != ',') {
+                return null;
+            }
+            position = valueEnd + 1;
+        }
+
+        return entries;
+    }
+
+    /**
+     * An INFO or FORMAT field of the header.
+     */
+    public static class Field {
+
+        public static final int NUMBER_PER_ALTERNATE = -1;
+        public static final int NUMBER_PER_ALLELE = -2;
+        public static final int NUMBER_UNBOUNDED = -3;
+
+        private final String id;
+        private final int number;
+        private final String type;
+
+        Field(String id, int number, String type) {
+            this.id = id;
+            this.number = number;
+            this.type = type;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return the number of values, or one of the {@code NUMBER_} constants
+         */
+        public int getNumber() {
+            return number;
+        }
+
+        public String getType() {
+            return type;
+        }
+    }
+}
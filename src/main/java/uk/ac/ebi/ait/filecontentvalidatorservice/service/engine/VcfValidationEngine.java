@@ -0,0 +1,730 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.FileType;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.report.ValidationReportSink;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+import uk.ac.ebi.ena.webin.cli.validator.response.ReadsValidationResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Built-in streaming VCF validator for plain, gzip or BGZF compressed files.
+ *
+ * The header is checked for the file format line, the INFO, FORMAT and contig definitions and the column header
+ * line. Every data line is checked for its number of columns and the syntax of its columns, the INFO and FORMAT
+ * keys are checked against the definitions of the header, and the values of the INFO and FORMAT fields against
+ * their type and number. The records of a contig must be contiguous and sorted by position.
+ *
+ * Data lines are read into reusable byte buffers and their columns are checked in place. BGZF files are inflated
+ * block-parallel by {@link DataFileStreams}. Reading stops early once the report sink takes no more errors for the file.
+ */
+@Component
+@Slf4j
+public class VcfValidationEngine implements ValidationEngine {
+
+    public static final String NAME = "builtin";
+
+    static final String NO_VARIANTS = "File contains no variants";
+    static final String INVALID_FILE_FORMAT = "Line 1: the file does not start with ##fileformat=VCFv4.x";
+    static final String INVALID_META_LINE = "Line %d: invalid %s header line: %s";
+    static final String MISSING_HEADER_LINE = "The file has no #CHROM header line";
+    static final String INVALID_HEADER_LINE = "Line %d: invalid #CHROM header line: %s";
+    static final String DUPLICATE_SAMPLE = "Line %d: duplicate sample name %s";
+    static final String COLUMN_COUNT_MISMATCH = "Line %d: %d columns instead of %d";
+    static final String INVALID_COLUMN = "Line %d: invalid %s";
+    static final String UNDEFINED_INFO = "Line %d: INFO key %s is not defined in the header";
+    static final String INVALID_INFO_VALUE = "Line %d: invalid value of INFO key %s";
+    static final String UNDEFINED_FORMAT = "Line %d: FORMAT key %s is not defined in the header";
+    static final String GT_NOT_FIRST = "Line %d: GT is not the first FORMAT key";
+    static final String INVALID_SAMPLE = "Line %d: sample %d has more fields than the FORMAT column";
+    static final String INVALID_FORMAT_VALUE = "Line %d: invalid value of FORMAT key %s of sample %d";
+    static final String INVALID_GENOTYPE = "Line %d: invalid genotype of sample %d";
+    static final String UNSORTED_POSITION = "Line %d: position %d is before the previous position %d of %s";
+    static final String UNSORTED_CONTIG = "Line %d: the records of %s are not contiguous";
+    static final String FILE_READ_ERROR = "Could not read the file: %s";
+    static final String VARIANT_COUNT = "Collected %d variants";
+
+    private static final String FILE_FORMAT_PREFIX = "##fileformat=VCFv4.";
+    private static final String GENOTYPE_KEY = "GT";
+    private static final Set<String> INFO_TYPES = new HashSet<>(Arrays.asList("Integer", "Float", "Flag", "Character", "String"));
+    private static final Set<String> FORMAT_TYPES = new HashSet<>(Arrays.asList("Integer", "Float", "Character", "String"));
+    private static final int MAX_POSITION_DIGITS = 18;
+
+    private static final int CHROM = 0;
+    private static final int POS = 1;
+    private static final int ID = 2;
+    private static final int REF = 3;
+    private static final int ALT = 4;
+    private static final int QUAL = 5;
+    private static final int FILTER = 6;
+    private static final int INFO = 7;
+    private static final int FORMAT = 8;
+
+    private static final boolean[] VALID_BASES = new boolean[256];
+
+    static {
+        for (char base : "ACGTN".toCharArray()) {
+            VALID_BASES[base] = true;
+            VALID_BASES[Character.toLowerCase(base)] = true;
+        }
+    }
+
+    private final DataFileStreams dataFileStreams;
+
+    public VcfValidationEngine(DataFileStreams dataFileStreams) {
+        this.dataFileStreams = dataFileStreams;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getFileType() {
+        return FileType.VCF.name();
+    }
+
+    @Override
+    public ReadsValidationResponse validate(List<File> files, ValidationReportSink reportSink) {
+        boolean valid = true;
+        for (File file : files) {
+            VcfFileValidation validation = new VcfFileValidation(file, reportSink);
+            validation.validate();
+            valid &= validation.finish();
+        }
+
+        ReadsValidationResponse response = new ReadsValidationResponse();
+        response.setStatus(valid ? ValidationResponse.status.VALIDATION_SUCCESS : ValidationResponse.status.VALIDATION_ERROR);
+
+        return response;
+    }
+
+    /**
+     * @return the number of values of the field for a record with the given number of alternate alleles,
+     * or -1 if any number of values is allowed
+     */
+    private static int getExpectedValueCount(VcfHeader.Field field, int alternateCount) {
+        switch (field.getNumber()) {
+            case VcfHeader.Field.NUMBER_PER_ALTERNATE:
+                return alternateCount;
+            case VcfHeader.Field.NUMBER_PER_ALLELE:
+                return alternateCount + 1;
+            case VcfHeader.Field.NUMBER_UNBOUNDED:
+                return -1;
+            default:
+                return field.getNumber();
+        }
+    }
+
+    /**
+     * Checks the comma separated values of an INFO or FORMAT field against the type and number of its definition.
+     * A single missing value ('.') is always valid.
+     */
+    private static boolean isValidValue(byte[] line, int start, int end, VcfHeader.Field field, int alternateCount) {
+        if (end - start == 1 && line[start] == '.') {
+            return true;
+        }
+
+        int valueCount = 0;
+        int valueStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || line[i] == ',') {
+                valueCount++;
+                if (!isValidSingleValue(line, valueStart, i, field.getType())) {
+                    return false;
+                }
+                valueStart = i + 1;
+            }
+        }
+
+        int expectedCount = getExpectedValueCount(field, alternateCount);
+        return expectedCount < 0 || valueCount == expectedCount;
+    }
+
+    private static boolean isValidSingleValue(byte[] line, int start, int end, String type) {
+        if (end - start == 1 && line[start] == '.') {
+            return true;
+        }
+        switch (type) {
+            case "Integer":
+                return isInteger(line, start, end);
+            case "Float":
+                return isFloat(line, start, end);
+            case "Character":
+                return end - start == 1;
+            default:
+                return end > start;
+        }
+    }
+
+    private static boolean isInteger(byte[] line, int start, int end) {
+        if (start < end && (line[start] == '-' || line[start] == '+')) {
+            start++;
+        }
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (line[i] < '0' || line[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isFloat(byte[] line, int start, int end) {
+        if (start < end && (line[start] == '-' || line[start] == '+')) {
+            start++;
+        }
+        if (start < end && ((line[start] | 0x20) == 'i' || (line[start] | 0x20) == 'n')) {
+            String special = new String(line, start, end - start, StandardCharsets.US_ASCII);
+            return special.equalsIgnoreCase("inf") || special.equalsIgnoreCase("infinity") || special.equalsIgnoreCase("nan");
+        }
+
+        int i = start;
+        int digits = 0;
+        while (i < end && line[i] >= '0' && line[i] <= '9') {
+            i++;
+            digits++;
+        }
+        if (i < end && line[i] == '.') {
+            i++;
+            while (i < end && line[i] >= '0' && line[i] <= '9') {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < end && (line[i] == 'e' || line[i] == 'E')) {
+            return isInteger(line, i + 1, end);
+        }
+        return i == end;
+    }
+
+    private static boolean contains(byte[] line, int start, int end, char c) {
+        for (int i = start; i < end; i++) {
+            if (line[i] == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBases(byte[] line, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (!VALID_BASES[line[i] & 0xff]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the alternate allele is bases, a symbolic allele, a breakend or the '*' allele
+     */
+    private static boolean isAlternateAllele(byte[] line, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        if (end - start == 1 && line[start] == '*') {
+            return true;
+        }
+        if (line[start] == '<') {
+            return end - start > 2 && line[end - 1] == '>';
+        }
+        if (contains(line, start, end, '[') || contains(line, start, end, ']')) {
+            return true;
+        }
+        if (line[start] == '.') {
+            return isBases(line, start + 1, end);
+        }
+        if (line[end - 1] == '.') {
+            return isBases(line, start, end - 1);
+        }
+        return isBases(line, start, end);
+    }
+
+    /**
+     * @return true if the column is '.' or a list of non-empty entries without spaces
+     */
+    private static boolean isList(byte[] line, int start, int end, char separator) {
+        if (start == end) {
+            return false;
+        }
+        int entryStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || line[i] == separator) {
+                if (i == entryStart) {
+                    return false;
+                }
+                entryStart = i + 1;
+            } else if (line[i] == ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Validation of a single VCF file, one line at a time.
+     */
+    private class VcfFileValidation {
+
+        private final File file;
+        private final ValidationReportSink reportSink;
+        private final VcfHeader header = new VcfHeader();
+        private long variantCount;
+        private long errorCount;
+        private boolean reportFull;
+
+        private int[] columnStarts;
+        private int[] columnEnds;
+        private VcfHeader.Field[] formatFields = new VcfHeader.Field[16];
+
+        private byte[] contig = new byte[256];
+        private int contigLength = -1;
+        private String contigName;
+        private long lastPosition;
+        private final Set<String> finishedContigs = new HashSet<>();
+
+        VcfFileValidation(File file, ValidationReportSink reportSink) {
+            this.file = file;
+            this.reportSink = reportSink;
+        }
+
+        void validate() {
+            try (ByteLineReader reader = new ByteLineReader(dataFileStreams.open(file))) {
+                if (!readHeader(reader)) {
+                    return;
+                }
+
+                columnStarts = new int[header.getColumnCount() + 1];
+                columnEnds = new int[header.getColumnCount() + 1];
+                while (!reportFull && reader.readLine()) {
+                    if (reader.getLength() > 0 && validateRecord(reader)) {
+                        variantCount++;
+                    }
+                }
+            } catch (IOException ex) {
+                readError(ex);
+            }
+        }
+
+        /**
+         * @return true if the file is a valid VCF file with at least one variant
+         */
+        boolean finish() {
+            if (variantCount == 0) {
+                error(NO_VARIANTS);
+            }
+            reportSink.addInfo(file, String.format(VARIANT_COUNT, variantCount));
+            log.debug("Validated {} variants with {} errors in {}", variantCount, errorCount, file);
+
+            return errorCount == 0;
+        }
+
+        /**
+         * Reads the meta lines and the column header line.
+         *
+         * @return false if the data lines cannot be validated
+         */
+        private boolean readHeader(ByteLineReader reader) throws IOException {
+            if (!reader.readLine() || !toString(reader).startsWith(FILE_FORMAT_PREFIX)) {
+                error(INVALID_FILE_FORMAT);
+                return false;
+            }
+
+            while (reader.readLine()) {
+                String line = toString(reader);
+                if (line.startsWith("##")) {
+                    readMetaLine(line, reader.getLineNumber());
+                } else if (line.startsWith("#")) {
+                    return readHeaderLine(line, reader.getLineNumber());
+                } else {
+                    break;
+                }
+            }
+
+            error(MISSING_HEADER_LINE);
+            return false;
+        }
+
+        private void readMetaLine(String line, long lineNumber) {
+            int equals = line.indexOf('=');
+            if (equals < 3) {
+                error(String.format(INVALID_META_LINE, lineNumber, "", "missing key or value"));
+                return;
+            }
+
+            String key = line.substring(2, equals);
+            if (!key.equals("INFO") && !key.equals("FORMAT") && !key.equals("contig")) {
+                return;
+            }
+
+            Map<String, String> entries = VcfHeader.parseStructuredValue(line.substring(equals + 1));
+            if (entries == null) {
+                error(String.format(INVALID_META_LINE, lineNumber, key, "invalid structured value"));
+                return;
+            }
+            String id = entries.get("ID");
+            if (id == null || id.isEmpty()) {
+                error(String.format(INVALID_META_LINE, lineNumber, key, "missing ID"));
+                return;
+            }
+
+            if (key.equals("contig")) {
+                header.getContigs().add(id);
+                return;
+            }
+
+            boolean info = key.equals("INFO");
+            String type = entries.get("Type");
+            if (type == null || !(info ? INFO_TYPES : FORMAT_TYPES).contains(type)) {
+                error(String.format(INVALID_META_LINE, lineNumber, key, "invalid Type of " + id));
+                return;
+            }
+            Integer number = parseNumber(entries.get("Number"));
+            if (number == null || ("Flag".equals(type) && number != 0)) {
+                error(String.format(INVALID_META_LINE, lineNumber, key, "invalid Number of " + id));
+                return;
+            }
+            if (!entries.containsKey("Description")) {
+                error(String.format(INVALID_META_LINE, lineNumber, key, "missing Description of " + id));
+                return;
+            }
+
+            VcfHeader.Field field = new VcfHeader.Field(id, number, type);
+            if (info) {
+                header.addInfoField(field);
+            } else {
+                header.addFormatField(field);
+            }
+        }
+
+        private Integer parseNumber(String number) {
+            if (number == null) {
+                return null;
+            }
+            switch (number) {
+                case "A":
+                    return VcfHeader.Field.NUMBER_PER_ALTERNATE;
+                case "R":
+                    return VcfHeader.Field.NUMBER_PER_ALLELE;
+                case "G":
+                case ".":
+                    return VcfHeader.Field.NUMBER_UNBOUNDED;
+                default:
+                    try {
+                        int value = Integer.parseInt(number);
+                        return value >= 0 ? value : null;
+                    } catch (NumberFormatException ex) {
+                        return null;
+                    }
+            }
+        }
+
+        private boolean readHeaderLine(String line, long lineNumber) {
+            String[] columns = line.split("\t", -1);
+            if (columns.length < VcfHeader.FIXED_COLUMNS.length) {
+                error(String.format(INVALID_HEADER_LINE, lineNumber, "missing columns"));
+                return false;
+            }
+            for (int i = 0; i < VcfHeader.FIXED_COLUMNS.length; i++) {
+                if (!VcfHeader.FIXED_COLUMNS[i].equals(columns[i])) {
+                    error(String.format(INVALID_HEADER_LINE, lineNumber, "column " + (i + 1) + " is not "
+                            + VcfHeader.FIXED_COLUMNS[i]));
+                    return false;
+                }
+            }
+            if (columns.length > VcfHeader.FIXED_COLUMNS.length
+                    && !VcfHeader.FORMAT_COLUMN.equals(columns[VcfHeader.FIXED_COLUMNS.length])) {
+                error(String.format(INVALID_HEADER_LINE, lineNumber, "the column after INFO is not FORMAT"));
+                return false;
+            }
+
+            Set<String> sampleNames = new HashSet<>();
+            for (int i = VcfHeader.FIXED_COLUMNS.length + 1; i < columns.length; i++) {
+                if (!sampleNames.add(columns[i])) {
+                    error(String.format(DUPLICATE_SAMPLE, lineNumber, columns[i]));
+                }
+                header.getSampleNames().add(columns[i]);
+            }
+            header.setColumnCount(columns.length);
+
+            return true;
+        }
+
+        /**
+         * Validates a data line, reporting the first error of the line.
+         *
+         * @return true if the line is a valid record
+         */
+        private boolean validateRecord(ByteLineReader reader) {
+            byte[] line = reader.getLine();
+            long lineNumber = reader.getLineNumber();
+
+            int columnCount = splitColumns(line, reader.getLength());
+            if (columnCount != header.getColumnCount()) {
+                return error(String.format(COLUMN_COUNT_MISMATCH, lineNumber, columnCount, header.getColumnCount()));
+            }
+
+            if (columnEnds[CHROM] == columnStarts[CHROM] || contains(line, columnStarts[CHROM], columnEnds[CHROM], ' ')) {
+                return error(String.format(INVALID_COLUMN, lineNumber, "CHROM"));
+            }
+            long position = parsePosition(line, columnStarts[POS], columnEnds[POS]);
+            if (position < 0) {
+                return error(String.format(INVALID_COLUMN, lineNumber, "POS"));
+            }
+            if (!isMissing(line, ID) && !isList(line, columnStarts[ID], columnEnds[ID], ';')) {
+                return error(String.format(INVALID_COLUMN, lineNumber, "ID"));
+            }
+            if (!isBases(line, columnStarts[REF], columnEnds[REF])) {
+                return error(String.format(INVALID_COLUMN, lineNumber, "REF"));
+            }
+            int alternateCount = validateAlternates(line);
+            if (alternateCount < 0) {
+                return error(String.format(INVALID_COLUMN, lineNumber, "ALT"));
+            }
+            if (!isMissing(line, QUAL) && !isFloat(line, columnStarts[QUAL], columnEnds[QUAL])) {
+                return error(String.format(INVALID_COLUMN, lineNumber, "QUAL"));
+            }
+            if (!isMissing(line, FILTER) && !isList(line, columnStarts[FILTER], columnEnds[FILTER], ';')) {
+                return error(String.format(INVALID_COLUMN, lineNumber, "FILTER"));
+            }
+
+            return validateInfo(line, lineNumber, alternateCount)
+                    && validateSamples(line, lineNumber, alternateCount)
+                    && validateOrder(line, lineNumber, position);
+        }
+
+        /**
+         * @return the number of columns of the line; the start and end of the columns up to the expected number
+         */
+        private int splitColumns(byte[] line, int length) {
+            int columnCount = 0;
+            int columnStart = 0;
+            for (int i = 0; i <= length; i++) {
+                if (i == length || line[i] == '\t') {
+                    if (columnCount < columnStarts.length) {
+                        columnStarts[columnCount] = columnStart;
+                        columnEnds[columnCount] = i;
+                    }
+                    columnCount++;
+                    columnStart = i + 1;
+                }
+            }
+            return columnCount;
+        }
+
+        private boolean isMissing(byte[] line, int column) {
+            return columnEnds[column] - columnStarts[column] == 1 && line[columnStarts[column]] == '.';
+        }
+
+        private long parsePosition(byte[] line, int start, int end) {
+            if (start == end || end - start > MAX_POSITION_DIGITS) {
+                return -1;
+            }
+            long position = 0;
+            for (int i = start; i < end; i++) {
+                if (line[i] < '0' || line[i] > '9') {
+                    return -1;
+                }
+                position = position * 10 + line[i] - '0';
+            }
+            return position;
+        }
+
+        /**
+         * @return the number of alternate alleles, or -1 if the ALT column is invalid
+         */
+        private int validateAlternates(byte[] line) {
+            if (isMissing(line, ALT)) {
+                return 0;
+            }
+
+            int alternateCount = 0;
+            int alleleStart = columnStarts[ALT];
+            for (int i = alleleStart; i <= columnEnds[ALT]; i++) {
+                if (i == columnEnds[ALT] || line[i] == ',') {
+                    if (!isAlternateAllele(line, alleleStart, i)) {
+                        return -1;
+                    }
+                    alternateCount++;
+                    alleleStart = i + 1;
+                }
+            }
+            return alternateCount;
+        }
+
+        private boolean validateInfo(byte[] line, long lineNumber, int alternateCount) {
+            if (isMissing(line, INFO)) {
+                return true;
+            }
+            if (!isList(line, columnStarts[INFO], columnEnds[INFO], ';')) {
+                return error(String.format(INVALID_COLUMN, lineNumber, "INFO"));
+            }
+
+            int entryStart = columnStarts[INFO];
+            for (int i = entryStart; i <= columnEnds[INFO]; i++) {
+                if (i == columnEnds[INFO] || line[i] == ';') {
+                    int equals = entryStart;
+                    while (equals < i && line[equals] != '=') {
+                        equals++;
+                    }
+
+                    String key = new String(line, entryStart, equals - entryStart, StandardCharsets.US_ASCII);
+                    VcfHeader.Field field = header.getInfoField(key);
+                    if (field == null) {
+                        return error(String.format(UNDEFINED_INFO, lineNumber, key));
+                    }
+                    boolean flag = "Flag".equals(field.getType());
+                    if (flag ? equals < i : equals == i || !isValidValue(line, equals + 1, i, field, alternateCount)) {
+                        return error(String.format(INVALID_INFO_VALUE, lineNumber, key));
+                    }
+                    entryStart = i + 1;
+                }
+            }
+            return true;
+        }
+
+        private boolean validateSamples(byte[] line, long lineNumber, int alternateCount) {
+            if (!header.hasFormatColumn()) {
+                return true;
+            }
+
+            int formatCount = 0;
+            int keyStart = columnStarts[FORMAT];
+            for (int i = keyStart; i <= columnEnds[FORMAT]; i++) {
+                if (i == columnEnds[FORMAT] || line[i] == ':') {
+                    String key = new String(line, keyStart, i - keyStart, StandardCharsets.US_ASCII);
+                    VcfHeader.Field field = header.getFormatField(key);
+                    if (field == null) {
+                        return error(String.format(UNDEFINED_FORMAT, lineNumber, key));
+                    }
+                    if (GENOTYPE_KEY.equals(key) && formatCount > 0) {
+                        return error(String.format(GT_NOT_FIRST, lineNumber));
+                    }
+                    if (formatCount == formatFields.length) {
+                        formatFields = Arrays.copyOf(formatFields, formatCount * 2);
+                    }
+                    formatFields[formatCount++] = field;
+                    keyStart = i + 1;
+                }
+            }
+
+            for (int column = FORMAT + 1; column < header.getColumnCount(); column++) {
+                int sample = column - FORMAT;
+                int fieldIndex = 0;
+                int valueStart = columnStarts[column];
+                for (int i = valueStart; i <= columnEnds[column]; i++) {
+                    if (i == columnEnds[column] || line[i] == ':') {
+                        if (fieldIndex == formatCount) {
+                            return error(String.format(INVALID_SAMPLE, lineNumber, sample));
+                        }
+                        VcfHeader.Field field = formatFields[fieldIndex];
+                        if (GENOTYPE_KEY.equals(field.getId())) {
+                            if (!isValidGenotype(line, valueStart, i, alternateCount)) {
+                                return error(String.format(INVALID_GENOTYPE, lineNumber, sample));
+                            }
+                        } else if (!isValidValue(line, valueStart, i, field, alternateCount)) {
+                            return error(String.format(INVALID_FORMAT_VALUE, lineNumber, field.getId(), sample));
+                        }
+                        fieldIndex++;
+                        valueStart = i + 1;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return true if the genotype is a list of allele indexes or '.' separated by '/' or '|'
+         */
+        private boolean isValidGenotype(byte[] line, int start, int end, int alternateCount) {
+            int alleleStart = start;
+            for (int i = start; i <= end; i++) {
+                if (i == end || line[i] == '/' || line[i] == '|') {
+                    if (i == alleleStart) {
+                        return false;
+                    }
+                    if (!(i - alleleStart == 1 && line[alleleStart] == '.')) {
+                        long allele = parsePosition(line, alleleStart, i);
+                        if (allele < 0 || allele > alternateCount) {
+                            return false;
+                        }
+                    }
+                    alleleStart = i + 1;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Checks that the records of a contig are contiguous and sorted by position.
+         */
+        private boolean validateOrder(byte[] line, long lineNumber, long position) {
+            int start = columnStarts[CHROM];
+            int length = columnEnds[CHROM] - start;
+            boolean sameContig = length == contigLength;
+            for (int i = 0; sameContig && i < length; i++) {
+                sameContig = line[start + i] == contig[i];
+            }
+
+            if (!sameContig) {
+                if (contigName != null) {
+                    finishedContigs.add(contigName);
+                }
+                contigName = new String(line, start, length, StandardCharsets.US_ASCII);
+                if (contig.length < length) {
+                    contig = new byte[Math.max(length, contig.length * 2)];
+                }
+                System.arraycopy(line, start, contig, 0, length);
+                contigLength = length;
+                lastPosition = position;
+
+                if (finishedContigs.contains(contigName)) {
+                    return error(String.format(UNSORTED_CONTIG, lineNumber, contigName));
+                }
+                return true;
+            }
+
+            if (position < lastPosition) {
+                return error(String.format(UNSORTED_POSITION, lineNumber, position, lastPosition, contigName));
+            }
+            lastPosition = position;
+            return true;
+        }
+
+        private String toString(ByteLineReader reader) {
+            return new String(reader.getLine(), 0, reader.getLength(), StandardCharsets.UTF_8);
+        }
+
+        private boolean error(String message) {
+            errorCount++;
+            reportSink.addError(file, message);
+            reportFull = reportSink.isFull(file);
+            return false;
+        }
+
+        private void readError(IOException ex) {
+            errorCount++;
+            reportSink.addReadError(file, String.format(FILE_READ_ERROR, ex.getMessage()));
+            reportFull = reportSink.isFull(file);
+        }
+    }
+}
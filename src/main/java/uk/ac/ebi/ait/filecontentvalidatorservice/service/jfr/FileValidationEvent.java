@@ -0,0 +1,12 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Validation of a data file. Files validated together in one manifest have events of the same duration.
+ */
+@Name("uk.ac.ebi.ait.filecontentvalidatorservice.FileValidation")
+@Label("File Validation")
+public class FileValidationEvent extends ValidationEvent {
+}
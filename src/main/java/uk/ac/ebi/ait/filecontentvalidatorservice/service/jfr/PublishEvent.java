@@ -0,0 +1,12 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Publishing the validation results of a data file to the aggregator. The status is the routing key they were sent with.
+ */
+@Name("uk.ac.ebi.ait.filecontentvalidatorservice.Publish")
+@Label("Publish")
+public class PublishEvent extends ValidationEvent {
+}
@@ -0,0 +1,12 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Creating the validation results of a data file from its validation report.
+ */
+@Name("uk.ac.ebi.ait.filecontentvalidatorservice.ReportParsing")
+@Label("Report Parsing")
+public class ReportParsingEvent extends ValidationEvent {
+}
@@ -0,0 +1,39 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Flight recorder event of the work done on a data file. The event lasts from {@link #begin(String, String, long)}
+ * until {@link #commit(String)}.
+ */
+@Category("File Content Validator")
+public abstract class ValidationEvent extends Event {
+
+    @Label("File UUID")
+    String fileUUID;
+
+    @Label("File Type")
+    String fileType;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Status")
+    String status;
+
+    public void begin(String fileUUID, String fileType, long bytes) {
+        this.fileUUID = fileUUID;
+        this.fileType = fileType;
+        this.bytes = bytes;
+        begin();
+    }
+
+    public void commit(String status) {
+        this.status = status;
+        commit();
+    }
+}
@@ -0,0 +1,18 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A validation job, from reading its files until their results are published. The file UUID is the UUIDs of all
+ * files of the job and the bytes are their total size.
+ */
+@Name("uk.ac.ebi.ait.filecontentvalidatorservice.ValidationJob")
+@Label("Validation Job")
+public class ValidationJobEvent extends ValidationEvent {
+
+    @Label("Submission UUID")
+    String submissionUUID;
+
+    transient long startNanos;
+}
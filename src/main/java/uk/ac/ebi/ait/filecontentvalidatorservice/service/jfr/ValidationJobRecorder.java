@@ -0,0 +1,112 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.FileParameters;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.JfrConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.exception.FileHandleException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ErrorMessages.JFR_SETTINGS_ERROR;
+
+/**
+ * Emits the flight recorder events of validation jobs and keeps the recordings of slow jobs.
+ *
+ * When it is enabled, a flight recording runs in the background for as long as the service does, keeping the
+ * events of the last minutes. A job is only known to be slow when it has finished, so the recording is dumped
+ * to a file then, which holds the events of the whole job as long as it took less than the maximum age.
+ */
+@Component
+@Slf4j
+public class ValidationJobRecorder {
+
+    public static final String STATUS_FAILED = "FAILED";
+
+    static final String RECORDING_NAME = "file-content-validator";
+    private static final String RECORDING_FILE = "%s-%s.jfr";
+    private static final DateTimeFormatter RECORDING_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final JfrConfig jfrConfig;
+
+    private Recording recording;
+
+    public ValidationJobRecorder(JfrConfig jfrConfig) {
+        this.jfrConfig = jfrConfig;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!jfrConfig.isEnabled()) {
+            return;
+        }
+
+        try {
+            recording = new Recording(Configuration.getConfiguration(jfrConfig.getSettings()));
+        } catch (IOException | ParseException ex) {
+            throw new FileHandleException(String.format(JFR_SETTINGS_ERROR, jfrConfig.getSettings(), ex.getMessage()), ex);
+        }
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(Duration.ofMinutes(jfrConfig.getMaxAgeMinutes()));
+        recording.start();
+
+        log.info("Flight recording started, jobs taking more than {} seconds are kept in: {}",
+                jfrConfig.getSlowJobSeconds(), jfrConfig.getRecordingDir().getAbsolutePath());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    public ValidationJobEvent begin(String submissionUUID, String fileType, List<FileParameters> filesData) {
+        final ValidationJobEvent event = new ValidationJobEvent();
+        event.submissionUUID = submissionUUID;
+        event.startNanos = System.nanoTime();
+        event.begin(filesData.stream().map(FileParameters::getFileUUID).collect(Collectors.joining(",")), fileType,
+                filesData.stream().mapToLong(fileParameters -> new File(fileParameters.getFilePath()).length()).sum());
+
+        return event;
+    }
+
+    /**
+     * Commits the event of a job, and keeps the flight recording if the job was slow.
+     */
+    public void end(ValidationJobEvent event, String status) {
+        event.commit(status);
+
+        final Duration duration = Duration.ofNanos(System.nanoTime() - event.startNanos);
+        if (recording != null && duration.compareTo(Duration.ofSeconds(jfrConfig.getSlowJobSeconds())) >= 0) {
+            dump(event.submissionUUID, duration);
+        }
+    }
+
+    private void dump(String submissionUUID, Duration duration) {
+        final File recordingFile = new File(jfrConfig.getRecordingDir(),
+                String.format(RECORDING_FILE, submissionUUID, LocalDateTime.now().format(RECORDING_TIME)));
+        try {
+            Files.createDirectories(jfrConfig.getRecordingDir().toPath());
+            recording.dump(recordingFile.toPath());
+            log.warn("Validation of submission {} took {} seconds, its flight recording was written to: {}",
+                    submissionUUID, duration.getSeconds(), recordingFile.getAbsolutePath());
+        } catch (IOException ex) {
+            log.warn("Could not write the flight recording of submission: {}", submissionUUID, ex);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.metrics;
+
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.MetricsConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Writes the metrics to a file in the Prometheus text format. In CLI mode the process exits after the validation,
+ * so there is nothing to scrape the metrics from; the file is written instead, e.g. for the node exporter's
+ * textfile collector.
+ */
+@Component
+@Slf4j
+public class MetricsFileWriter {
+
+    private final MetricsConfig metricsConfig;
+    private final PrometheusMeterRegistry prometheusMeterRegistry;
+
+    public MetricsFileWriter(MetricsConfig metricsConfig, PrometheusMeterRegistry prometheusMeterRegistry) {
+        this.metricsConfig = metricsConfig;
+        this.prometheusMeterRegistry = prometheusMeterRegistry;
+    }
+
+    /**
+     * Writes the metrics. Failing to do so is logged, but does not fail the validation.
+     */
+    public void write() {
+        final File metricsFile = metricsConfig.getMetricsFile();
+        try {
+            Files.write(metricsFile.toPath(), prometheusMeterRegistry.scrape().getBytes(StandardCharsets.UTF_8));
+            log.info("Metrics written to: {}", metricsFile.getAbsolutePath());
+        } catch (IOException ex) {
+            log.warn("Could not write the metrics to: {}", metricsFile.getAbsolutePath(), ex);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+
+/**
+ * Reports how long the service took to start, from the start of the JVM until the context is refreshed and the
+ * validation can begin, so the startup of the CLI mode can be compared with and without the class-data sharing
+ * archive.
+ *
+ * This is an {@link ApplicationListener} rather than an event listener method, as those are not found on beans
+ * that are initialised lazily.
+ */
+@Component
+@Slf4j
+public class StartupReporter implements ApplicationListener<ApplicationStartedEvent> {
+
+    private static final String SHARED_ARCHIVE_OPTION = "-XX:SharedArchiveFile";
+
+    private final ValidationMetrics validationMetrics;
+
+    public StartupReporter(ValidationMetrics validationMetrics) {
+        this.validationMetrics = validationMetrics;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationStartedEvent event) {
+        final RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        final long startupMillis = runtime.getUptime();
+        final boolean classDataSharing = runtime.getInputArguments().stream()
+                .anyMatch(argument -> argument.startsWith(SHARED_ARCHIVE_OPTION));
+
+        log.info("FileContentValidatorApplication ready {} ms after the JVM started ({} class-data sharing archive).",
+                startupMillis, classDataSharing ? "with the" : "without a");
+        validationMetrics.recordStartup(startupMillis, classDataSharing);
+    }
+}
@@ -0,0 +1,157 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timings of the phases of a validation job and the amount of data validated, tagged by the file type of the job.
+ *
+ * Every phase has a timer with a percentile histogram. The validated files are counted in bytes and recorded in
+ * file size buckets, and the bytes per second of every validated manifest are recorded as its throughput.
+ */
+@Component
+public class ValidationMetrics {
+
+    public static final String PHASE_MANIFEST = "manifest";
+    public static final String PHASE_SETUP = "setup";
+    public static final String PHASE_PREFLIGHT = "preflight";
+    public static final String PHASE_CRAM_STRUCTURE = "cram-structure";
+    public static final String PHASE_VALIDATION = "validation";
+    public static final String PHASE_REPORT = "report";
+    public static final String PHASE_PUBLISH = "publish";
+
+    static final String PHASE_TIMER = "file.content.validation.phase";
+    static final String JOB_COUNTER = "file.content.validation.jobs";
+    static final String BYTES_COUNTER = "file.content.validation.bytes";
+    static final String THROUGHPUT_SUMMARY = "file.content.validation.throughput";
+    static final String FILE_SIZE_SUMMARY = "file.content.validation.file.size";
+    static final String PUBLISH_LATENCY_TIMER = "file.content.validation.publish.latency";
+    static final String STARTUP_TIMER = "file.content.validation.startup";
+    static final String CACHE_COUNTER = "file.content.validation.cache";
+
+    static final String PHASE_TAG = "phase";
+    static final String FILE_TYPE_TAG = "fileType";
+    static final String STATUS_TAG = "status";
+    static final String CLASS_DATA_SHARING_TAG = "classDataSharing";
+    static final String RESULT_TAG = "result";
+
+    private static final String UNKNOWN_FILE_TYPE = "unknown";
+    private static final long MB = 1024 * 1024;
+    private static final long[] FILE_SIZE_BUCKETS =
+            { MB, 10 * MB, 100 * MB, 1024 * MB, 10 * 1024 * MB, 100 * 1024 * MB, 1024 * 1024 * MB };
+
+    private final MeterRegistry meterRegistry;
+
+    public ValidationMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Records the time since the sample was started as the duration of a phase.
+     *
+     * @return the duration in nanoseconds
+     */
+    public long stop(Timer.Sample sample, String phase, String fileType) {
+        return sample.stop(Timer.builder(PHASE_TIMER)
+                .description("Duration of the phases of the validation jobs")
+                .tag(PHASE_TAG, phase)
+                .tag(FILE_TYPE_TAG, getFileTypeTag(fileType))
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    public void recordJob(String fileType, ValidationResponse.status status) {
+        Counter.builder(JOB_COUNTER)
+                .description("Validation jobs by their outcome")
+                .tag(FILE_TYPE_TAG, getFileTypeTag(fileType))
+                .tag(STATUS_TAG, status.name())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Records the files of a manifest that took the given time to validate.
+     */
+    public void recordValidatedFiles(String fileType, List<File> files, long durationNanos) {
+        final String fileTypeTag = getFileTypeTag(fileType);
+        final DistributionSummary fileSizes = DistributionSummary.builder(FILE_SIZE_SUMMARY)
+                .description("Size of the validated files")
+                .baseUnit("bytes")
+                .tag(FILE_TYPE_TAG, fileTypeTag)
+                .sla(FILE_SIZE_BUCKETS)
+                .register(meterRegistry);
+
+        long bytes = 0;
+        for (File file : files) {
+            final long fileSize = file.length();
+            fileSizes.record(fileSize);
+            bytes += fileSize;
+        }
+
+        Counter.builder(BYTES_COUNTER)
+                .description("Bytes of the validated files")
+                .baseUnit("bytes")
+                .tag(FILE_TYPE_TAG, fileTypeTag)
+                .register(meterRegistry)
+                .increment(bytes);
+
+        if (durationNanos > 0) {
+            DistributionSummary.builder(THROUGHPUT_SUMMARY)
+                    .description("Bytes validated per second")
+                    .baseUnit("bytes.per.second")
+                    .tag(FILE_TYPE_TAG, fileTypeTag)
+                    .register(meterRegistry)
+                    .record(bytes * 1e9 / durationNanos);
+        }
+    }
+
+    /**
+     * Records the time from sending a validation result message until the broker confirmed it.
+     */
+    public void recordPublishLatency(String fileType, long latencyNanos) {
+        Timer.builder(PUBLISH_LATENCY_TIMER)
+                .description("Time until the validation result messages are confirmed by the broker")
+                .tag(FILE_TYPE_TAG, getFileTypeTag(fileType))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a lookup in the validation result cache.
+     */
+    public void recordCacheLookup(boolean hit) {
+        Counter.builder(CACHE_COUNTER)
+                .description("Lookups in the validation result cache by their result")
+                .tag(RESULT_TAG, hit ? "hit" : "miss")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Records the time from the start of the JVM until the service was ready to validate.
+     */
+    public void recordStartup(long startupMillis, boolean classDataSharing) {
+        Timer.builder(STARTUP_TIMER)
+                .description("Time from the start of the JVM until the service was ready to validate")
+                .tag(CLASS_DATA_SHARING_TAG, String.valueOf(classDataSharing))
+                .register(meterRegistry)
+                .record(startupMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static String getFileTypeTag(String fileType) {
+        return fileType == null ? UNKNOWN_FILE_TYPE : fileType;
+    }
+}
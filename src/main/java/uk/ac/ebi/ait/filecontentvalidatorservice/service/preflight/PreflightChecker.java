@@ -0,0 +1,299 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.preflight;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.PreflightConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.FileType;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.BgzfBlockReader;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.CramContainerHeader;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Checks the structure of a data file from its first and last bytes before it is validated, so that files of the
+ * wrong type, truncated uploads and broken compression are rejected in milliseconds instead of after reading
+ * the whole file.
+ *
+ * The content of the file is sniffed from its magic bytes, after inflating the first block of compressed files, and
+ * compared to the declared file type. CRAM files have to end with the EOF container of their version. BGZF files, which
+ * includes all BAM files, should end with the BGZF EOF block, but as the block is optional in the SAM specification a
+ * file without it only fails when that is configured, and is otherwise logged. Gzip files that fit in the first read
+ * are inflated completely, which checks the CRC and size in their trailers. Larger gzip files that are not BGZF can
+ * only be checked for truncation by inflating them, which is left to the validation.
+ */
+@Component
+@Slf4j
+public class PreflightChecker {
+
+    static final String EMPTY_FILE = "File is empty";
+    static final String MISLABELLED_FILE = "File content looks like %s, but the file type is %s";
+    static final String NOT_GZIP = "File name ends with .gz, but the file is not gzip compressed";
+    static final String INVALID_GZIP = "Invalid gzip compression: %s";
+    static final String NOT_BGZF = "File is not BGZF compressed";
+    static final String MISSING_BGZF_EOF = "File does not end with the BGZF EOF block, it may be truncated";
+    static final String INVALID_BAM_MAGIC = "File does not start with the BAM magic number";
+    static final String INVALID_BAM_HEADER = "Invalid BAM header: %s";
+    static final String INVALID_CRAM_MAGIC = "File does not start with the CRAM magic number";
+    static final String UNSUPPORTED_CRAM_VERSION = "Unsupported CRAM version %d.%d";
+    static final String INVALID_CRAM_HEADER = "Invalid CRAM header container: %s";
+    static final String MISSING_CRAM_EOF = "File does not end with the CRAM EOF container, it may be truncated";
+    static final String INVALID_VCF_FORMAT = "File does not start with the ##fileformat=VCF line";
+    static final String FILE_READ_ERROR = "Could not read the file: %s";
+
+    private static final int HEAD_SIZE = BgzfBlockReader.MAX_BLOCK_SIZE;
+    private static final int CONTENT_SIZE = 4096;
+    private static final int CRAM_FILE_DEFINITION_SIZE = 26;
+
+    private static final byte[] BAM_MAGIC = {'B', 'A', 'M', 1};
+    private static final byte[] CRAM_MAGIC = {'C', 'R', 'A', 'M'};
+    private static final byte[] VCF_MAGIC = {'#', '#', 'f', 'i', 'l', 'e', 'f', 'o', 'r', 'm', 'a', 't', '=', 'V', 'C', 'F'};
+    private static final byte[] BGZF_EOF = {
+            0x1f, (byte) 0x8b, 0x08, 0x04, 0x00, 0x00, 0x00, 0x00, 0x00, (byte) 0xff, 0x06, 0x00, 0x42, 0x43,
+            0x02, 0x00, 0x1b, 0x00, 0x03, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00};
+    private static final byte[] CRAM_2_EOF = {
+            0x0b, 0x00, 0x00, 0x00, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f, (byte) 0xe0,
+            0x45, 0x4f, 0x46, 0x00, 0x00, 0x00, 0x00, 0x01, 0x00, 0x00, 0x01, 0x00, 0x06, 0x06, 0x01, 0x00,
+            0x01, 0x00, 0x01, 0x00};
+    private static final byte[] CRAM_3_EOF = {
+            0x0f, 0x00, 0x00, 0x00, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f, (byte) 0xe0,
+            0x45, 0x4f, 0x46, 0x00, 0x00, 0x00, 0x00, 0x01, 0x00, 0x05, (byte) 0xbd, (byte) 0xd9, 0x4f, 0x00,
+            0x01, 0x00, 0x06, 0x06, 0x01, 0x00, 0x01, 0x00, 0x01, 0x00, (byte) 0xee, 0x63, 0x01, 0x4b};
+    private static final int TAIL_SIZE = CRAM_3_EOF.length;
+
+    private final PreflightConfig preflightConfig;
+
+    public PreflightChecker(PreflightConfig preflightConfig) {
+        this.preflightConfig = preflightConfig;
+    }
+
+    public boolean isEnabled() {
+        return preflightConfig.isEnabled();
+    }
+
+    /**
+     * Checks the first and last bytes of a file against its declared file type.
+     *
+     * @return the reason the file cannot be valid, or nothing if the file passed the checks
+     */
+    public Optional<String> check(File file, FileType fileType) {
+        final byte[] head;
+        final byte[] tail;
+        final long length;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            length = in.length();
+            head = new byte[(int) Math.min(length, HEAD_SIZE)];
+            in.readFully(head);
+            tail = new byte[(int) Math.min(length, TAIL_SIZE)];
+            in.seek(length - tail.length);
+            in.readFully(tail);
+        } catch (IOException ex) {
+            return Optional.of(String.format(FILE_READ_ERROR, ex.getMessage()));
+        }
+
+        if (length == 0) {
+            return Optional.of(EMPTY_FILE);
+        }
+
+        Optional<String> error = check(file, fileType, head, tail, length);
+        error.ifPresent(message -> log.info("File {} failed the pre-flight checks: {}", file, message));
+
+        return error;
+    }
+
+    private Optional<String> check(File file, FileType fileType, byte[] head, byte[] tail, long length) {
+        final boolean gzip = head.length >= 2 && (head[0] & 0xff) == 0x1f && (head[1] & 0xff) == 0x8b;
+        final boolean bgzf = gzip && isBgzf(head);
+        if (!gzip && file.getName().endsWith(".gz")) {
+            return Optional.of(NOT_GZIP);
+        }
+        if (bgzf && !endsWith(tail, BGZF_EOF)) {
+            if (preflightConfig.isRequireBgzfEof()) {
+                return Optional.of(MISSING_BGZF_EOF);
+            }
+            log.warn("File {}: {}", file, MISSING_BGZF_EOF);
+        }
+
+        final byte[] content;
+        try {
+            content = gzip ? inflate(head, bgzf, length == head.length) : head;
+        } catch (IOException ex) {
+            return Optional.of(String.format(INVALID_GZIP, ex.getMessage()));
+        }
+
+        final FileType contentType = sniff(content, gzip);
+        if (contentType != null && contentType != fileType) {
+            return Optional.of(String.format(MISLABELLED_FILE, contentType, fileType));
+        }
+
+        switch (fileType) {
+            case BAM:
+                return checkBam(content, bgzf);
+            case CRAM:
+                return checkCram(head, tail);
+            case VCF:
+                return contentType == FileType.VCF ? Optional.empty() : Optional.of(INVALID_VCF_FORMAT);
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private static Optional<String> checkBam(byte[] content, boolean bgzf) {
+        if (!bgzf) {
+            return Optional.of(NOT_BGZF);
+        }
+        if (!startsWith(content, BAM_MAGIC)) {
+            return Optional.of(INVALID_BAM_MAGIC);
+        }
+        if (content.length >= 8) {
+            int textLength = readInt(content, 4);
+            if (textLength < 0) {
+                return Optional.of(String.format(INVALID_BAM_HEADER, "negative header text length"));
+            }
+            if (8L + textLength + 4 <= content.length && readInt(content, 8 + textLength) < 0) {
+                return Optional.of(String.format(INVALID_BAM_HEADER, "negative reference count"));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private static Optional<String> checkCram(byte[] head, byte[] tail) {
+        if (!startsWith(head, CRAM_MAGIC)) {
+            return Optional.of(INVALID_CRAM_MAGIC);
+        }
+        if (head.length < CRAM_FILE_DEFINITION_SIZE) {
+            return Optional.of(String.format(INVALID_CRAM_HEADER, "the file ends in the file definition"));
+        }
+
+        int majorVersion = head[4];
+        int minorVersion = head[5];
+        if (majorVersion < 2 || majorVersion > 3) {
+            return Optional.of(String.format(UNSUPPORTED_CRAM_VERSION, majorVersion, minorVersion));
+        }
+
+        final CramContainerHeader header;
+        try {
+            header = CramContainerHeader.read(
+                    ByteBuffer.wrap(head, CRAM_FILE_DEFINITION_SIZE, head.length - CRAM_FILE_DEFINITION_SIZE).slice(),
+                    CRAM_FILE_DEFINITION_SIZE, majorVersion >= 3);
+        } catch (RuntimeException ex) {
+            return Optional.of(String.format(INVALID_CRAM_HEADER, "the header is truncated"));
+        }
+        if (header.getLandmarks() == null || header.getLength() < 0 || !header.isChecksumValid()) {
+            return Optional.of(String.format(INVALID_CRAM_HEADER, "the header is corrupt"));
+        }
+
+        if (majorVersion == 3 && !endsWith(tail, CRAM_3_EOF)
+                || majorVersion == 2 && minorVersion >= 1 && !endsWith(tail, CRAM_2_EOF)) {
+            return Optional.of(MISSING_CRAM_EOF);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * @return the file type the content looks like, or null if it does not look like any of them. Content that is
+     * not recognised is left to the validation, so only files that clearly hold another type are rejected.
+     */
+    private static FileType sniff(byte[] content, boolean compressed) {
+        if (startsWith(content, BAM_MAGIC)) {
+            return FileType.BAM;
+        }
+        if (!compressed && startsWith(content, CRAM_MAGIC)) {
+            return FileType.CRAM;
+        }
+        if (startsWith(content, VCF_MAGIC)) {
+            return FileType.VCF;
+        }
+        if (content.length > 0 && content[0] == '@') {
+            return FileType.FASTQ;
+        }
+        return null;
+    }
+
+    /**
+     * Inflates the start of a gzip file. The first block of a BGZF file is inflated and checked against its footer,
+     * other gzip files are inflated up to the end of the bytes read, which checks all their members and trailers
+     * when the whole file was read.
+     */
+    private static byte[] inflate(byte[] head, boolean bgzf, boolean wholeFile) throws IOException {
+        if (bgzf) {
+            int blockSize = ((head[16] & 0xff) | (head[17] & 0xff) << 8) + 1;
+            if (blockSize > head.length) {
+                throw new EOFException("the first BGZF block is truncated");
+            }
+            byte[] block = Arrays.copyOf(head, blockSize);
+            byte[] content = new byte[Math.max(0, Math.min(BgzfBlockReader.getInflatedSize(block),
+                    BgzfBlockReader.MAX_BLOCK_SIZE))];
+            int contentLength = BgzfBlockReader.inflate(block, content, 0);
+            return Arrays.copyOf(content, Math.min(contentLength, CONTENT_SIZE));
+        }
+
+        byte[] content = new byte[CONTENT_SIZE];
+        byte[] buffer = new byte[CONTENT_SIZE];
+        int contentLength = 0;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(head))) {
+            int read;
+            while ((wholeFile || contentLength < CONTENT_SIZE) && (read = in.read(buffer)) > 0) {
+                int copied = Math.min(read, CONTENT_SIZE - contentLength);
+                System.arraycopy(buffer, 0, content, contentLength, copied);
+                contentLength += copied;
+            }
+        } catch (EOFException ex) {
+            if (wholeFile) {
+                throw new EOFException("the file is truncated");
+            }
+        }
+
+        return Arrays.copyOf(content, contentLength);
+    }
+
+    private static boolean isBgzf(byte[] head) {
+        try {
+            return BgzfBlockReader.isBgzf(new ByteArrayInputStream(head));
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean endsWith(byte[] bytes, byte[] suffix) {
+        if (bytes.length < suffix.length) {
+            return false;
+        }
+        int offset = bytes.length - suffix.length;
+        for (int i = 0; i < suffix.length; i++) {
+            if (bytes[offset + i] != suffix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff)
+                | (bytes[offset + 1] & 0xff) << 8
+                | (bytes[offset + 2] & 0xff) << 16
+                | (bytes[offset + 3] & 0xff) << 24;
+    }
+}
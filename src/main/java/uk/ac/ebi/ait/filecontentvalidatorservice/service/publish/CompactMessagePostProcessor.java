@@ -0,0 +1,61 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.publish;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.io.IOException;
+
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ErrorMessages.MESSAGE_ENCODING_ERROR;
+
+/**
+ * Re-encodes the JSON messages sent to the broker in the configured {@link MessageEncoding}, once their body
+ * reaches the threshold size. Smaller messages, and all messages with the JSON encoding, are sent as they are.
+ *
+ * Gzipped messages keep their JSON content type and get the gzip content encoding; Smile messages get the Smile
+ * content type. {@link MessageCodec} decodes the messages in any of these formats.
+ */
+public class CompactMessagePostProcessor implements MessagePostProcessor {
+
+    private static final String JSON_CONTENT_TYPE = "json";
+
+    private final MessageEncoding messageEncoding;
+    private final int thresholdBytes;
+
+    public CompactMessagePostProcessor(MessageEncoding messageEncoding, int thresholdBytes) {
+        this.messageEncoding = messageEncoding;
+        this.thresholdBytes = thresholdBytes;
+    }
+
+    @Override
+    public Message postProcessMessage(Message message) {
+        final MessageProperties messageProperties = message.getMessageProperties();
+        if (messageEncoding == MessageEncoding.JSON
+                || message.getBody().length < thresholdBytes
+                || messageProperties.getContentEncoding() != null
+                || !isJson(messageProperties.getContentType())) {
+            return message;
+        }
+
+        final byte[] body;
+        try {
+            if (messageEncoding == MessageEncoding.GZIP) {
+                body = MessageCodec.gzip(message.getBody());
+                messageProperties.setContentEncoding(MessageCodec.CONTENT_ENCODING_GZIP);
+            } else {
+                body = MessageCodec.jsonToSmile(message.getBody());
+                messageProperties.setContentType(MessageCodec.CONTENT_TYPE_SMILE);
+            }
+        } catch (IOException ex) {
+            throw new MessageConversionException(String.format(MESSAGE_ENCODING_ERROR, messageEncoding), ex);
+        }
+        messageProperties.setContentLength(body.length);
+
+        return new Message(body, messageProperties);
+    }
+
+    private static boolean isJson(String contentType) {
+        return contentType != null && contentType.contains(JSON_CONTENT_TYPE);
+    }
+}
@@ -0,0 +1,99 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.publish;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes and decodes message payloads in the {@link MessageEncoding} wire formats.
+ *
+ * The decoding side is what a consumer of the validation result messages needs: it reads the content type and
+ * content encoding of a message and returns its payload, whatever format it was sent in.
+ */
+public class MessageCodec {
+
+    public static final String CONTENT_TYPE_SMILE = "application/x-jackson-smile";
+    public static final String CONTENT_ENCODING_GZIP = "gzip";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ObjectMapper JSON_MAPPER = createObjectMapper(new JsonFactory());
+    private static final ObjectMapper SMILE_MAPPER = createObjectMapper(new SmileFactory());
+
+    private MessageCodec() {
+    }
+
+    /**
+     * @return a mapper that writes the messages the same way as the message converter of the service
+     */
+    public static ObjectMapper createObjectMapper(JsonFactory jsonFactory) {
+        return configure(new ObjectMapper(jsonFactory));
+    }
+
+    public static ObjectMapper configure(ObjectMapper objectMapper) {
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+        objectMapper.registerModule(new JavaTimeModule());
+        return objectMapper;
+    }
+
+    public static byte[] jsonToSmile(byte[] json) throws IOException {
+        return SMILE_MAPPER.writeValueAsBytes(JSON_MAPPER.readTree(json));
+    }
+
+    public static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE)) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] gunzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length * 4);
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(content), BUFFER_SIZE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int length;
+            while ((length = gzip.read(buffer)) != -1) {
+                out.write(buffer, 0, length);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the payload of an AMQP message received from the broker
+     */
+    public static <T> T decode(Message message, Class<T> payloadType) throws IOException {
+        final MessageProperties messageProperties = message.getMessageProperties();
+        return decode(message.getBody(), messageProperties.getContentType(), messageProperties.getContentEncoding(),
+                payloadType);
+    }
+
+    /**
+     * @param contentType the content type of the message; anything but Smile is read as JSON
+     * @param contentEncoding the content encoding of the message, or null
+     */
+    public static <T> T decode(byte[] body, String contentType, String contentEncoding, Class<T> payloadType)
+            throws IOException {
+        final byte[] content = CONTENT_ENCODING_GZIP.equalsIgnoreCase(contentEncoding) ? gunzip(body) : body;
+        if (isSmile(contentType)) {
+            return SMILE_MAPPER.readValue(content, payloadType);
+        }
+        return JSON_MAPPER.readValue(content, payloadType);
+    }
+
+    public static boolean isSmile(String contentType) {
+        return contentType != null && contentType.startsWith(CONTENT_TYPE_SMILE);
+    }
+}
@@ -0,0 +1,40 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.publish;
+
+import java.util.Arrays;
+
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ErrorMessages.UNKNOWN_MESSAGE_ENCODING;
+
+/**
+ * Wire formats of the validation result messages. Every format but JSON is told apart by the content type or
+ * the content encoding of the message, so a consumer can decode any of them with {@link MessageCodec}.
+ */
+public enum MessageEncoding {
+
+    /**
+     * Plain JSON.
+     */
+    JSON,
+
+    /**
+     * JSON compressed with gzip, sent with the gzip content encoding.
+     */
+    GZIP,
+
+    /**
+     * Jackson's binary JSON format, sent with the {@value MessageCodec#CONTENT_TYPE_SMILE} content type.
+     */
+    SMILE;
+
+    /**
+     * @return the encoding with the given name, or JSON for a blank name
+     */
+    public static MessageEncoding getByName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return JSON;
+        }
+        return Arrays.stream(values())
+                .filter(encoding -> encoding.name().equalsIgnoreCase(name.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(String.format(UNKNOWN_MESSAGE_ENCODING, name)));
+    }
+}
@@ -0,0 +1,45 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.publish;
+
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResult;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResultsEnvelope;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits the results of a file into envelopes of bounded size, which share the validation result UUID and version
+ * of the file. The aggregator puts the chunks back together by their sequence numbers, as the broker may deliver
+ * messages that were sent again out of order.
+ */
+public class ValidationResultChunker {
+
+    private ValidationResultChunker() {
+    }
+
+    /**
+     * @return the chunks of the message, in order; a message without results still gets one, empty, chunk
+     */
+    public static List<ValidationResultMessage> split(ValidationResultMessage message, int chunkSize) {
+        final SingleValidationResultsEnvelope envelope = message.getEnvelope();
+        final List<SingleValidationResult> results = envelope.getSingleValidationResults() == null
+                ? Collections.emptyList() : envelope.getSingleValidationResults();
+        final int chunkCount = Math.max(1, (results.size() + chunkSize - 1) / chunkSize);
+
+        final List<ValidationResultMessage> chunks = new ArrayList<>(chunkCount);
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            final SingleValidationResultsEnvelope chunkEnvelope = new SingleValidationResultsEnvelope(
+                    new ArrayList<>(results.subList(chunk * chunkSize, Math.min(results.size(), (chunk + 1) * chunkSize))),
+                    envelope.getValidationResultVersion(), envelope.getValidationResultUUID(),
+                    envelope.getValidationAuthor());
+            chunkEnvelope.setChunkSequence(chunk + 1);
+            chunkEnvelope.setChunkCount(chunkCount);
+            chunkEnvelope.setLastChunk(chunk == chunkCount - 1);
+
+            chunks.add(new ValidationResultMessage(message.getFileUUID(), message.getFileType(), message.getFileSize(),
+                    chunkEnvelope));
+        }
+
+        return chunks;
+    }
+}
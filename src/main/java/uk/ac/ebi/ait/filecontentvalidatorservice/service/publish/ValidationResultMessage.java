@@ -0,0 +1,38 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.publish;
+
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResultsEnvelope;
+
+/**
+ * The validation results of a data file waiting to be published, with the data file they are about.
+ */
+public class ValidationResultMessage {
+
+    private final String fileUUID;
+    private final String fileType;
+    private final long fileSize;
+    private final SingleValidationResultsEnvelope envelope;
+
+    public ValidationResultMessage(String fileUUID, String fileType, long fileSize,
+                                   SingleValidationResultsEnvelope envelope) {
+        this.fileUUID = fileUUID;
+        this.fileType = fileType;
+        this.fileSize = fileSize;
+        this.envelope = envelope;
+    }
+
+    public String getFileUUID() {
+        return fileUUID;
+    }
+
+    public String getFileType() {
+        return fileType;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public SingleValidationResultsEnvelope getEnvelope() {
+        return envelope;
+    }
+}
@@ -0,0 +1,261 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.publish;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitMessagingTemplate;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessagingMessageConverter;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.PublishConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResultStatus;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResultsEnvelope;
+import uk.ac.ebi.ait.filecontentvalidatorservice.exception.FileContentValidationException;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr.PublishEvent;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.metrics.ValidationMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ErrorMessages.PUBLISH_ERROR;
+
+/**
+ * Publishes the validation results of a job to the aggregator.
+ *
+ * The messages of a job are sent as one batch without waiting for each other, with up to the configured number
+ * waiting for their publisher confirms. When the batch has been sent the confirms are awaited, and the messages
+ * that were nacked or not confirmed in time are sent again after a backoff. Without publisher confirms on the
+ * connection factory the messages are sent without waiting for anything.
+ *
+ * In streaming mode the results of every file are sent in chunks, see {@link ValidationResultChunker}.
+ */
+@Component
+@Slf4j
+public class ValidationResultPublisher {
+
+    public static final String SUBMISSION_EXCHANGE = "usi-1:submission-exchange";
+    public static final String EVENT_VALIDATION_SUCCESS = "validation.success";
+    public static final String EVENT_VALIDATION_ERROR = "validation.error";
+
+    static final String STATUS_NACK = "NACK";
+    static final String STATUS_TIMEOUT = "TIMEOUT";
+    static final String STATUS_SEND_FAILED = "SEND_FAILED";
+
+    private final RabbitMessagingTemplate rabbitMessagingTemplate;
+    private final PublishConfig publishConfig;
+    private final ValidationMetrics validationMetrics;
+    private final MessagingMessageConverter amqpMessageConverter = new MessagingMessageConverter();
+
+    public ValidationResultPublisher(RabbitMessagingTemplate rabbitMessagingTemplate, PublishConfig publishConfig,
+                                     ValidationMetrics validationMetrics) {
+        this.rabbitMessagingTemplate = rabbitMessagingTemplate;
+        this.publishConfig = publishConfig;
+        this.validationMetrics = validationMetrics;
+    }
+
+    /**
+     * Publishes the messages, and returns when all of them have been confirmed by the broker.
+     *
+     * @throws FileContentValidationException if some of the messages were not confirmed in the configured attempts
+     */
+    public void publish(List<ValidationResultMessage> messages) {
+        if (publishConfig.isStreaming()) {
+            messages = messages.stream()
+                    .flatMap(message -> ValidationResultChunker.split(message, publishConfig.getChunkSize()).stream())
+                    .collect(Collectors.toList());
+        }
+
+        final RabbitTemplate rabbitTemplate = rabbitMessagingTemplate.getRabbitTemplate();
+        if (!rabbitTemplate.getConnectionFactory().isPublisherConfirms()) {
+            messages.forEach(message -> send(rabbitTemplate, message));
+            return;
+        }
+
+        List<ValidationResultMessage> unconfirmedMessages = messages;
+        long backoffMillis = publishConfig.getInitialBackoffMillis();
+        for (int attempt = 1; !unconfirmedMessages.isEmpty(); attempt++) {
+            if (attempt > 1) {
+                log.warn("{} validation result messages were not confirmed, sending them again in {} ms",
+                        unconfirmedMessages.size(), backoffMillis);
+                sleep(backoffMillis);
+                backoffMillis = Math.min(backoffMillis * 2, publishConfig.getMaxBackoffMillis());
+            }
+
+            unconfirmedMessages = sendWithConfirms(rabbitTemplate, unconfirmedMessages);
+
+            if (!unconfirmedMessages.isEmpty() && attempt >= publishConfig.getMaxAttempts()) {
+                throw new FileContentValidationException(String.format(PUBLISH_ERROR, unconfirmedMessages.size(), attempt));
+            }
+        }
+    }
+
+    /**
+     * @return true if the results of a job are published in chunks, as soon as they are known
+     */
+    public boolean isStreaming() {
+        return publishConfig.isStreaming();
+    }
+
+    static String getRoutingKey(SingleValidationResultsEnvelope envelope) {
+        return envelope.getSingleValidationResults().stream()
+                .anyMatch(result -> result.getValidationStatus().equals(SingleValidationResultStatus.Error))
+                ? EVENT_VALIDATION_ERROR : EVENT_VALIDATION_SUCCESS;
+    }
+
+    private void send(RabbitTemplate rabbitTemplate, ValidationResultMessage message) {
+        final String routingKey = getRoutingKey(message.getEnvelope());
+        final PublishEvent publishEvent = new PublishEvent();
+        publishEvent.begin(message.getFileUUID(), message.getFileType(), message.getFileSize());
+        final long startTime = System.nanoTime();
+
+        rabbitTemplate.send(SUBMISSION_EXCHANGE, routingKey, toAmqpMessage(message.getEnvelope()));
+
+        validationMetrics.recordPublishLatency(message.getFileType(), System.nanoTime() - startTime);
+        publishEvent.commit(routingKey);
+    }
+
+    /**
+     * @return the messages that were not confirmed
+     */
+    private List<ValidationResultMessage> sendWithConfirms(RabbitTemplate rabbitTemplate,
+                                                           List<ValidationResultMessage> messages) {
+        final Semaphore inFlight = new Semaphore(publishConfig.getMaxInFlight());
+        final List<PendingConfirm> pendingConfirms = new ArrayList<>();
+        final List<ValidationResultMessage> unconfirmedMessages = new ArrayList<>();
+        boolean stalled = false;
+        for (ValidationResultMessage message : messages) {
+            if (stalled || !acquire(inFlight)) {
+                stalled = true;
+                unconfirmedMessages.add(message);
+                continue;
+            }
+
+            final PendingConfirm pendingConfirm = new PendingConfirm(message, inFlight);
+            pendingConfirms.add(pendingConfirm);
+            try {
+                rabbitTemplate.send(SUBMISSION_EXCHANGE, pendingConfirm.routingKey,
+                        toAmqpMessage(message.getEnvelope()), pendingConfirm.correlationData);
+            } catch (AmqpException ex) {
+                log.warn("Could not send the validation results of file: {}", message.getFileUUID(), ex);
+                pendingConfirm.fail();
+            }
+        }
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(publishConfig.getConfirmTimeoutSeconds());
+        for (PendingConfirm pendingConfirm : pendingConfirms) {
+            if (!pendingConfirm.awaitAck(deadline)) {
+                unconfirmedMessages.add(pendingConfirm.message);
+            }
+        }
+
+        return unconfirmedMessages;
+    }
+
+    /**
+     * Converts the envelope the same way {@link RabbitMessagingTemplate#convertAndSend} does.
+     */
+    private Message toAmqpMessage(SingleValidationResultsEnvelope envelope) {
+        return amqpMessageConverter.toMessage(rabbitMessagingTemplate.getMessageConverter().toMessage(envelope, null),
+                new MessageProperties());
+    }
+
+    /**
+     * @return false if no message in flight was confirmed within the confirm timeout, which leaves the messages
+     * not sent yet for the next attempt
+     */
+    private boolean acquire(Semaphore inFlight) {
+        try {
+            return inFlight.tryAcquire(publishConfig.getConfirmTimeoutSeconds(), TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new FileContentValidationException(ex);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new FileContentValidationException(ex);
+        }
+    }
+
+    /**
+     * A message sent to the broker, waiting for its confirm. It holds a permit of the in-flight messages until it
+     * is confirmed, nacked, or given up on.
+     */
+    private class PendingConfirm {
+
+        private final ValidationResultMessage message;
+        private final String routingKey;
+        private final CorrelationData correlationData = new CorrelationData(UUID.randomUUID().toString());
+        private final Semaphore inFlight;
+        private final PublishEvent publishEvent = new PublishEvent();
+        private final long startTime = System.nanoTime();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile boolean sendFailed;
+
+        PendingConfirm(ValidationResultMessage message, Semaphore inFlight) {
+            this.message = message;
+            this.routingKey = getRoutingKey(message.getEnvelope());
+            this.inFlight = inFlight;
+
+            publishEvent.begin(message.getFileUUID(), message.getFileType(), message.getFileSize());
+            correlationData.getFuture().addCallback(
+                    confirm -> complete(confirm.isAck(), confirm.isAck() ? routingKey : STATUS_NACK),
+                    ex -> complete(false, STATUS_NACK));
+        }
+
+        void complete(boolean ack, String status) {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            inFlight.release();
+
+            final long latency = System.nanoTime() - startTime;
+            if (ack) {
+                validationMetrics.recordPublishLatency(message.getFileType(), latency);
+            }
+            log.debug("Validation results of file {} published with status {} in {} ms", message.getFileUUID(), status,
+                    TimeUnit.NANOSECONDS.toMillis(latency));
+            publishEvent.commit(status);
+        }
+
+        void fail() {
+            sendFailed = true;
+            complete(false, STATUS_SEND_FAILED);
+        }
+
+        boolean awaitAck(long deadline) {
+            if (sendFailed) {
+                return false;
+            }
+
+            try {
+                final CorrelationData.Confirm confirm = correlationData.getFuture()
+                        .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                complete(confirm.isAck(), confirm.isAck() ? routingKey : STATUS_NACK);
+                return confirm.isAck();
+            } catch (TimeoutException ex) {
+                complete(false, STATUS_TIMEOUT);
+                return false;
+            } catch (ExecutionException ex) {
+                complete(false, STATUS_NACK);
+                return false;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new FileContentValidationException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.reference;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.CramReferenceConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.exception.FileHandleException;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.ByteLineReader;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.DataFileStreams;
+import uk.ac.ebi.ait.filecontentvalidatorservice.utils.FileContentValidatorMessages;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ErrorMessages.REFERENCE_SEED_ERROR;
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ErrorMessages.REFERENCE_STORE_ERROR;
+
+/**
+ * Local store of CRAM reference sequences keyed by the MD5 of the sequence, as found in the M5 tag of
+ * the CRAM header.
+ *
+ * The sequences are kept in the samtools REF_CACHE layout ({@code dir/%2s/%2s/%s}), which the reference source of
+ * the CRAM validator is pointed at, so references are resolved locally before any download and downloaded ones
+ * are kept for the next job. With downloads disabled the store is the only place references are looked up in,
+ * which lets CRAM files be validated without network access once the store has been seeded from FASTA files.
+ *
+ * The store is trimmed to its configured size by removing the least recently used sequences when sequences are
+ * added to it. The sequences of the CRAM files being validated are in use and are never removed.
+ */
+@Component
+@Slf4j
+public class CramReferenceStore {
+
+    static final String REF_CACHE_PROPERTY = "REF_CACHE";
+    static final String REF_PATH_PROPERTY = "REF_PATH";
+
+    private static final String REF_PATH_PATTERN = "%2s/%2s/%s";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String DIGEST_ALGORITHM = "MD5";
+    private static final Pattern MD5_PATTERN = Pattern.compile("[0-9a-f]{32}");
+
+    private final CramReferenceConfig referenceConfig;
+    private final DataFileStreams dataFileStreams;
+    private final Map<String, Integer> useCountByMd5 = new HashMap<>();
+
+    public CramReferenceStore(CramReferenceConfig referenceConfig, DataFileStreams dataFileStreams) {
+        this.referenceConfig = referenceConfig;
+        this.dataFileStreams = dataFileStreams;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (isEnabled()) {
+            createReferenceDir();
+            evict();
+
+            String refPath = new File(referenceConfig.getReferenceDir(), REF_PATH_PATTERN).getAbsolutePath();
+            System.setProperty(REF_CACHE_PROPERTY, refPath);
+            if (!referenceConfig.isDownload()) {
+                System.setProperty(REF_PATH_PROPERTY, refPath);
+            }
+
+            log.info("CRAM references are resolved from the local store: {}, downloads {}",
+                    refPath, referenceConfig.isDownload() ? "enabled" : "disabled");
+        }
+    }
+
+    public boolean isEnabled() {
+        return referenceConfig.isEnabled();
+    }
+
+    /**
+     * @return true if references are only looked up in the store, so a reference missing from it fails validation
+     */
+    public boolean isOffline() {
+        return referenceConfig.isEnabled() && !referenceConfig.isDownload();
+    }
+
+    public boolean contains(String md5) {
+        return isValidMd5(md5) && getSequenceFile(md5).isFile();
+    }
+
+    /**
+     * Marks sequences as in use until they are released, so they are not evicted while a CRAM file is validated.
+     * The sequences that are in the store become its most recently used ones.
+     */
+    public synchronized void acquire(Collection<String> md5s) {
+        long now = System.currentTimeMillis();
+        for (String md5 : md5s) {
+            useCountByMd5.merge(md5, 1, Integer::sum);
+            if (contains(md5)) {
+                getSequenceFile(md5).setLastModified(now);
+            }
+        }
+    }
+
+    public synchronized void release(Collection<String> md5s) {
+        for (String md5 : md5s) {
+            useCountByMd5.computeIfPresent(md5, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Stores a sequence. The bases are normalised the way the M5 tag is calculated: upper case, without
+     * characters outside of the printable ASCII range.
+     *
+     * @return the MD5 of the normalised sequence
+     */
+    public String put(byte[] bases, int length) {
+        createReferenceDir();
+
+        try (SequenceWriter writer = new SequenceWriter()) {
+            writer.write(bases, length);
+            String md5 = writer.commit();
+            evict();
+
+            return md5;
+        } catch (IOException ex) {
+            throw new FileHandleException(String.format(REFERENCE_STORE_ERROR, ex.getMessage()), ex);
+        }
+    }
+
+    /**
+     * Stores every sequence of a plain or gzipped FASTA file. The store does not need to be enabled,
+     * so it can be seeded before any validation uses it.
+     *
+     * @return the number of sequences in the file
+     */
+    public int seed(File fastaFile) {
+        createReferenceDir();
+
+        int sequenceCount = 0;
+        SequenceWriter writer = null;
+
+        try (ByteLineReader reader = new ByteLineReader(dataFileStreams.open(fastaFile))) {
+            String sequenceName = null;
+            while (reader.readLine()) {
+                byte[] line = reader.getLine();
+                int length = reader.getLength();
+
+                if (length > 0 && line[0] == '>') {
+                    if (writer != null) {
+                        commit(writer, sequenceName);
+                        sequenceCount++;
+                    }
+                    sequenceName = new String(line, 1, length - 1).trim();
+                    writer = new SequenceWriter();
+                } else if (writer != null) {
+                    writer.write(line, length);
+                } else if (length > 0) {
+                    throw new IOException("Line " + reader.getLineNumber() + ": sequence without a name line");
+                }
+            }
+
+            if (writer != null) {
+                commit(writer, sequenceName);
+                writer = null;
+                sequenceCount++;
+            }
+        } catch (IOException ex) {
+            throw new FileHandleException(String.format(REFERENCE_SEED_ERROR, fastaFile, ex.getMessage()), ex);
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+
+        evict();
+        log.info("Seeded {} reference sequences from: {}", sequenceCount, fastaFile);
+
+        return sequenceCount;
+    }
+
+    /**
+     * Removes the least recently used sequences that are not in use while the store is over its size limit. The
+     * sequences in use are kept first, so they count towards the limit.
+     * Called when sequences are added: by the store itself, and after a CRAM validation that downloaded sequences
+     * into it, as those are added behind the store's back.
+     */
+    public synchronized void evict() {
+        List<File> sequenceFiles;
+        try (Stream<Path> paths = Files.walk(referenceConfig.getReferenceDir().toPath())) {
+            sequenceFiles = paths.map(Path::toFile)
+                    .filter(file -> file.isFile() && !file.getName().endsWith(TEMP_SUFFIX))
+                    .sorted(Comparator.comparing((File file) -> !useCountByMd5.containsKey(getMd5(file)))
+                            .thenComparing(Comparator.comparingLong(File::lastModified).reversed()))
+                    .collect(Collectors.toList());
+        } catch (IOException ex) {
+            log.warn("Could not list the reference store: {}", referenceConfig.getReferenceDir(), ex);
+            return;
+        }
+
+        long maxSizeBytes = referenceConfig.getMaxSizeMB() * 1024 * 1024;
+        long sizeBytes = 0;
+        for (File sequenceFile : sequenceFiles) {
+            long sequenceSize = sequenceFile.length();
+            if (sizeBytes + sequenceSize > maxSizeBytes && !useCountByMd5.containsKey(getMd5(sequenceFile))) {
+                if (!sequenceFile.delete()) {
+                    log.warn("Could not evict reference sequence: {}", sequenceFile);
+                }
+            } else {
+                sizeBytes += sequenceSize;
+            }
+        }
+    }
+
+    private void createReferenceDir() {
+        File referenceDir = referenceConfig.getReferenceDir();
+        if (!referenceDir.exists() && !referenceDir.mkdirs()) {
+            throw new FileHandleException(FileContentValidatorMessages.CLI_CREATE_DIR_ERROR.format(referenceDir.getPath()));
+        }
+    }
+
+    File getSequenceFile(String md5) {
+        return new File(referenceConfig.getReferenceDir(), String.format(REF_PATH_PATTERN,
+                md5.substring(0, 2), md5.substring(2, 4), md5.substring(4)).replace('/', File.separatorChar));
+    }
+
+    private void commit(SequenceWriter writer, String sequenceName) throws IOException {
+        String md5;
+        try {
+            md5 = writer.commit();
+        } finally {
+            writer.close();
+        }
+        log.debug("Stored reference sequence {} with MD5: {}", sequenceName, md5);
+    }
+
+    private static String getMd5(File sequenceFile) {
+        File level2 = sequenceFile.getParentFile();
+        return level2.getParentFile().getName() + level2.getName() + sequenceFile.getName();
+    }
+
+    private static boolean isValidMd5(String md5) {
+        return md5 != null && MD5_PATTERN.matcher(md5).matches();
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Writes the normalised bases of a sequence into a temporary file of the store while calculating their
+     * digest, then moves the file under its MD5 once the sequence is complete.
+     */
+    private class SequenceWriter implements AutoCloseable {
+
+        private final File tempFile;
+        private final OutputStream out;
+        private final MessageDigest digest;
+        private byte[] normalised = new byte[1024];
+
+        SequenceWriter() throws IOException {
+            this.tempFile = File.createTempFile("sequence", TEMP_SUFFIX, referenceConfig.getReferenceDir());
+            this.out = new BufferedOutputStream(new FileOutputStream(tempFile));
+            try {
+                this.digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        void write(byte[] bases, int length) throws IOException {
+            if (normalised.length < length) {
+                normalised = new byte[length];
+            }
+
+            int count = 0;
+            for (int i = 0; i < length; i++) {
+                byte base = bases[i];
+                if (base >= 'a' && base <= 'z') {
+                    normalised[count++] = (byte) (base - 'a' + 'A');
+                } else if (base >= '!' && base <= '~') {
+                    normalised[count++] = base;
+                }
+            }
+
+            digest.update(normalised, 0, count);
+            out.write(normalised, 0, count);
+        }
+
+        String commit() throws IOException {
+            out.close();
+
+            String md5 = toHex(digest.digest());
+            File sequenceFile = getSequenceFile(md5);
+            if (sequenceFile.isFile()) {
+                sequenceFile.setLastModified(System.currentTimeMillis());
+                return md5;
+            }
+
+            File sequenceDir = sequenceFile.getParentFile();
+            if (!sequenceDir.exists() && !sequenceDir.mkdirs()) {
+                throw new IOException(FileContentValidatorMessages.CLI_CREATE_DIR_ERROR.format(sequenceDir.getPath()));
+            }
+            try {
+                Files.move(tempFile.toPath(), sequenceFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile.toPath(), sequenceFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            return md5;
+        }
+
+        @Override
+        public void close() {
+            try {
+                out.close();
+            } catch (IOException ex) {
+                log.warn("Could not close reference sequence file: {}", tempFile, ex);
+            }
+            if (tempFile.exists() && !tempFile.delete()) {
+                log.warn("Could not delete temporary reference sequence file: {}", tempFile);
+            }
+        }
+    }
+}
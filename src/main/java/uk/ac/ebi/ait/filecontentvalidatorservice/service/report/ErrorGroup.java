@@ -0,0 +1,56 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.report;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Error messages that only differ in their variable parts, like line numbers or read names.
+ */
+public class ErrorGroup {
+
+    private final String template;
+    private final List<String> examples = new ArrayList<>();
+    private long count;
+
+    ErrorGroup(String template) {
+        this.template = template;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public List<String> getExamples() {
+        return Collections.unmodifiableList(examples);
+    }
+
+    void addOccurrences(long occurrences) {
+        count += occurrences;
+    }
+
+    boolean hasExample(String example) {
+        return examples.contains(example);
+    }
+
+    void addExample(String example) {
+        examples.add(example);
+    }
+
+    /**
+     * @return the message of a single error as it is, or a summary with the count and some examples of the group
+     */
+    public String getSummaryMessage() {
+        if (count == 1) {
+            return examples.get(0);
+        }
+        if (examples.size() == 1) {
+            return String.format("%s (%d occurrences)", examples.get(0), count);
+        }
+        return String.format("%s (%d occurrences, e.g. %s)", template, count, String.join("; ", examples));
+    }
+}
@@ -0,0 +1,109 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.report;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded summary of error messages.
+ *
+ * Messages are grouped by their template, which is the message with the file marker removed, quoted values
+ * replaced by {@code "*"} and every word containing a digit replaced by {@code #}. A group keeps the number of
+ * its occurrences and a few distinct example messages. The number of groups and the characters kept for templates
+ * and examples are capped; errors that would start a group over the caps are only counted as dropped.
+ */
+public class ErrorSummary {
+
+    private static final Pattern FILE_MARKER = Pattern.compile("\\s*\\[file: .+]\\s*$");
+    private static final Pattern DOUBLE_QUOTED = Pattern.compile("\"[^\"]*\"");
+    private static final Pattern SINGLE_QUOTED = Pattern.compile("'[^']*'");
+    private static final Pattern WORD_WITH_DIGIT = Pattern.compile("[^\\s\"']*\\d[^\\s\"']*");
+
+    private final int maxGroups;
+    private final int maxExamples;
+    private final long maxChars;
+
+    private final Map<String, ErrorGroup> groupsByTemplate = new LinkedHashMap<>();
+    private long chars;
+    private long droppedCount;
+
+    public ErrorSummary(int maxGroups, int maxExamples, long maxChars) {
+        this.maxGroups = maxGroups;
+        this.maxExamples = maxExamples;
+        this.maxChars = maxChars;
+    }
+
+    /**
+     * @return false if the error was dropped because it would have started a group over the caps
+     */
+    public boolean add(String message) {
+        return add(toTemplate(message), message, 1);
+    }
+
+    /**
+     * Adds every group and dropped error of another summary to this one.
+     */
+    public void addAll(ErrorSummary other) {
+        for (ErrorGroup otherGroup : other.groupsByTemplate.values()) {
+            List<String> examples = otherGroup.getExamples();
+            if (!add(otherGroup.getTemplate(), examples.get(0), otherGroup.getCount())) {
+                continue;
+            }
+            ErrorGroup group = groupsByTemplate.get(otherGroup.getTemplate());
+            examples.stream().skip(1).forEach(example -> addExample(group, example));
+        }
+        droppedCount += other.droppedCount;
+    }
+
+    public List<ErrorGroup> getGroups() {
+        return new ArrayList<>(groupsByTemplate.values());
+    }
+
+    /**
+     * @return the number of errors that were not kept in any group
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public boolean isFull() {
+        return groupsByTemplate.size() >= maxGroups;
+    }
+
+    private boolean add(String template, String example, long occurrences) {
+        ErrorGroup group = groupsByTemplate.get(template);
+
+        if (group == null) {
+            if (isFull() || chars + template.length() + example.length() > maxChars) {
+                droppedCount += occurrences;
+                return false;
+            }
+            group = new ErrorGroup(template);
+            groupsByTemplate.put(template, group);
+            chars += template.length();
+        }
+
+        group.addOccurrences(occurrences);
+        addExample(group, example);
+
+        return true;
+    }
+
+    private void addExample(ErrorGroup group, String example) {
+        if (group.getExamples().size() < maxExamples && !group.hasExample(example)
+                && chars + example.length() <= maxChars) {
+            group.addExample(example);
+            chars += example.length();
+        }
+    }
+
+    static String toTemplate(String message) {
+        String template = FILE_MARKER.matcher(message).replaceFirst("");
+        template = DOUBLE_QUOTED.matcher(template).replaceAll("\"*\"");
+        template = SINGLE_QUOTED.matcher(template).replaceAll("'*'");
+
+        return WORD_WITH_DIGIT.matcher(template).replaceAll("#");
+    }
+}
@@ -0,0 +1,55 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.report;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming reader of the validation report files written by webin-cli validators.
+ *
+ * A report is read line by line in a single pass and every message is handed to a {@link ValidationReportSink}.
+ * The messages of a data file's own report belong to that file. In the shared submission report, messages ending
+ * with a {@code [file: <path>]} marker are routed to that data file and the others are common to every file.
+ * Reading a data file's report stops as soon as the sink is full for the file, so a huge report of a badly broken
+ * file costs neither a full read nor unbounded memory.
+ */
+public class ReportFileParser {
+
+    private static final String ERROR_PREFIX = "ERROR: ";
+    private static final String INFO_PREFIX = "INFO: ";
+    private static final Pattern FILE_MARKER = Pattern.compile("\\[file: (.+)]\\s*$");
+
+    /**
+     * @param reportFile the report file to read
+     * @param dataFile the data file the report belongs to, or null for the shared submission report
+     * @param sink the sink receiving the messages of the report
+     */
+    public static void parse(File reportFile, File dataFile, ValidationReportSink sink) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(reportFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(ERROR_PREFIX)) {
+                    String message = line.substring(ERROR_PREFIX.length());
+                    sink.addError(dataFile == null ? getMarkedDataFile(message) : dataFile, message);
+
+                    if (dataFile != null && sink.isFull(dataFile)) {
+                        break;
+                    }
+                } else if (line.startsWith(INFO_PREFIX)) {
+                    String message = line.substring(INFO_PREFIX.length());
+                    sink.addInfo(dataFile == null ? getMarkedDataFile(message) : dataFile, message);
+                }
+            }
+        }
+    }
+
+    private static File getMarkedDataFile(String message) {
+        Matcher fileMarker = FILE_MARKER.matcher(message);
+
+        return fileMarker.find() ? new File(fileMarker.group(1)) : null;
+    }
+}
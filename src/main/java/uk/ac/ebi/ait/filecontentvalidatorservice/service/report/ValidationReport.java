@@ -0,0 +1,108 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.report;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory model of the messages of a validation, keyed by the data file they refer to.
+ *
+ * Only error messages are kept. The errors of every data file, and the errors common to all files, are collected
+ * into their own bounded {@link ErrorSummary}.
+ */
+public class ValidationReport implements ValidationReportSink {
+
+    private static final String COMMON_MESSAGES = "";
+
+    private final int maxErrors;
+    private final int maxExamples;
+    private final long maxChars;
+    private final Map<String, ErrorSummary> errorsByFilePath = new HashMap<>();
+    private final Set<File> ingestedReportFiles = new HashSet<>();
+    private boolean readErrors;
+
+    /**
+     * @param maxErrors the number of error groups kept per data file
+     * @param maxExamples the number of example messages kept per error group
+     * @param maxChars the number of characters kept per data file for the templates and examples of its groups
+     */
+    public ValidationReport(int maxErrors, int maxExamples, long maxChars) {
+        this.maxErrors = maxErrors;
+        this.maxExamples = maxExamples;
+        this.maxChars = maxChars;
+    }
+
+    @Override
+    public synchronized void addError(File dataFile, String message) {
+        errorsByFilePath.computeIfAbsent(getFilePath(dataFile),
+                path -> new ErrorSummary(maxErrors, maxExamples, maxChars)).add(message);
+    }
+
+    @Override
+    public void addInfo(File dataFile, String message) {
+    }
+
+    @Override
+    public synchronized void addReadError(File dataFile, String message) {
+        readErrors = true;
+        addError(dataFile, message);
+    }
+
+    /**
+     * @return true if a data file could not be read, so the errors are not only about the content of the files
+     */
+    public synchronized boolean hasReadErrors() {
+        return readErrors;
+    }
+
+    @Override
+    public synchronized boolean isFull(File dataFile) {
+        ErrorSummary errors = errorsByFilePath.get(getFilePath(dataFile));
+        return errors != null && errors.isFull();
+    }
+
+    /**
+     * Marks a report file as read into this report.
+     *
+     * @return true if the report file has not been read into this report before
+     */
+    public synchronized boolean markIngested(File reportFile) {
+        return ingestedReportFiles.add(reportFile);
+    }
+
+    /**
+     * Returns the summary of the errors that refer to the given data file or to no file at all.
+     * Errors naming a file that is not one of the report's data files are treated as common ones.
+     *
+     * @param dataFile the data file the errors are needed for
+     * @param reportDataFiles every data file the report was written for
+     * @return the summary of the errors of the data file
+     */
+    public synchronized ErrorSummary getErrors(File dataFile, Collection<File> reportDataFiles) {
+        Set<String> knownFilePaths = new HashSet<>();
+        reportDataFiles.forEach(reportDataFile -> knownFilePaths.addAll(getPaths(reportDataFile)));
+        List<String> dataFilePaths = getPaths(dataFile);
+
+        ErrorSummary errors = new ErrorSummary(Integer.MAX_VALUE, maxExamples, Long.MAX_VALUE);
+        errorsByFilePath.forEach((filePath, fileErrors) -> {
+            if (!knownFilePaths.contains(filePath) || dataFilePaths.contains(filePath)) {
+                errors.addAll(fileErrors);
+            }
+        });
+
+        return errors;
+    }
+
+    private static String getFilePath(File dataFile) {
+        return dataFile == null ? COMMON_MESSAGES : dataFile.getPath();
+    }
+
+    private static List<String> getPaths(File dataFile) {
+        return Arrays.asList(dataFile.getPath(), dataFile.getAbsolutePath());
+    }
+}
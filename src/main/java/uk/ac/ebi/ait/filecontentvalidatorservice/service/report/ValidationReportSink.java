@@ -0,0 +1,29 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.report;
+
+import java.io.File;
+
+/**
+ * Receives the messages of a validation as they are produced.
+ * A message is about a single data file, or about the whole submission when the data file is null.
+ */
+public interface ValidationReportSink {
+
+    void addError(File dataFile, String message);
+
+    void addInfo(File dataFile, String message);
+
+    /**
+     * Adds an error about a data file that could not be read, rather than about its content. Reading the file again
+     * may give another outcome, so the outcome is not kept for the same file.
+     */
+    default void addReadError(File dataFile, String message) {
+        addError(dataFile, message);
+    }
+
+    /**
+     * @return true if the sink does not take any more errors for the given data file, so producers can stop early
+     */
+    default boolean isFull(File dataFile) {
+        return false;
+    }
+}
@@ -48,7 +48,7 @@ public class FileUtil {
 				.toArray(String[]::new);
 	}
 
-	private static String getSafeOutputDir(String dir) {
+	static String getSafeOutputDir(String dir) {
 		return dir
 				.replaceAll("[^a-zA-Z0-9-_\\.]", "_")
 				.replaceAll("_+", "_")
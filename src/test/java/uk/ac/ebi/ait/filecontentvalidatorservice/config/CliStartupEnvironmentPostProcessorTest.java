@@ -0,0 +1,79 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.config;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.springframework.boot.SpringApplication;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+@RunWith(JUnit4.class)
+public class CliStartupEnvironmentPostProcessorTest {
+
+    private final CliStartupEnvironmentPostProcessor postProcessor = new CliStartupEnvironmentPostProcessor();
+
+    @Test
+    public void whenModeIsCli_ThenWebServerIsOffAndBeansAreLazy() {
+        ConfigurableEnvironment environment = createEnvironment("fileContentValidator.mode", "cli");
+
+        postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+        assertThat(environment.getProperty(CliStartupEnvironmentPostProcessor.WEB_APPLICATION_TYPE_PROPERTY),
+                is(equalTo("none")));
+        assertThat(environment.getProperty(CliStartupEnvironmentPostProcessor.LAZY_INITIALIZATION_PROPERTY),
+                is(equalTo("true")));
+    }
+
+    @Test
+    public void whenModeIsWorker_ThenStartupIsUnchanged() {
+        ConfigurableEnvironment environment = createEnvironment("fileContentValidator.mode", "worker");
+
+        postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+        assertThat(environment.getPropertySources().contains(CliStartupEnvironmentPostProcessor.PROPERTY_SOURCE_NAME),
+                is(false));
+        assertThat(environment.getProperty(CliStartupEnvironmentPostProcessor.LAZY_INITIALIZATION_PROPERTY),
+                is(nullValue()));
+    }
+
+    @Test
+    public void whenLeanStartupIsDisabled_ThenStartupIsUnchanged() {
+        ConfigurableEnvironment environment = createEnvironment("fileContentValidator.cli.leanStartup", "false");
+
+        postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+        assertThat(environment.getPropertySources().contains(CliStartupEnvironmentPostProcessor.PROPERTY_SOURCE_NAME),
+                is(false));
+    }
+
+    @Test
+    public void whenSpringMainIsSetExplicitly_ThenItTakesPrecedence() {
+        ConfigurableEnvironment environment = createEnvironment(
+                CliStartupEnvironmentPostProcessor.LAZY_INITIALIZATION_PROPERTY, "false");
+
+        postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+        assertThat(environment.getProperty(CliStartupEnvironmentPostProcessor.LAZY_INITIALIZATION_PROPERTY),
+                is(equalTo("false")));
+        assertThat(environment.getProperty(CliStartupEnvironmentPostProcessor.WEB_APPLICATION_TYPE_PROPERTY),
+                is(equalTo("none")));
+    }
+
+    private static ConfigurableEnvironment createEnvironment(String name, String value) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(name, value);
+
+        ConfigurableEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", properties));
+        return environment;
+    }
+}
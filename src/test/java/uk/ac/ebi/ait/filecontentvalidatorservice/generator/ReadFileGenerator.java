@@ -0,0 +1,385 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.generator;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes synthetic read files of any size for load and scale tests: FASTQ, paired FASTQ, BAM and CRAM files of
+ * unmapped reads with random bases and qualities.
+ *
+ * The files are streamed to disk until they reach the requested size, so files of hundreds of GB need no more
+ * memory than small ones. The reads only depend on the seed, the same seed and settings always give the same
+ * reads. Errors can be injected into a share of the reads, and a file can be cut short to look like an upload that
+ * was interrupted. FASTQ files are gzip compressed when their name ends with {@code .gz}, as BGZF if asked to.
+ *
+ * Run {@link #main(String[])} through {@code ./gradlew generateReads -Pargs="..."} to write files from the
+ * command line.
+ */
+public class ReadFileGenerator {
+
+    public enum ErrorKind {
+        /**
+         * A quality value out of range in one base of the read.
+         */
+        BAD_QUALITY,
+        /**
+         * The read has the name of the read before it. A single FASTQ file may hold every name twice, for the two
+         * mates of a read, so these are only reported as duplicates in paired files, BAM and CRAM files.
+         */
+        DUPLICATE,
+        /**
+         * The mate of the read in the second file of a pair has another name. Only applies to paired FASTQ files.
+         */
+        UNPAIRED
+    }
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int MAX_TRUNCATED_BYTES = 1000;
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+    private static final byte MIN_QUALITY = 20;
+    private static final byte QUALITY_RANGE = 21;
+    private static final byte BAD_FASTQ_QUALITY = ' ';
+    private static final byte BAD_PHRED_QUALITY = 100;
+    private static final String READ_NAME_PREFIX = "SYNTHETIC:1:FC706VJ:1:";
+    private static final byte[] FIRST_MATE_SUFFIX = "/1".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SECOND_MATE_SUFFIX = "/2".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] UNPAIRED_SUFFIX = "_unpaired/2".getBytes(StandardCharsets.US_ASCII);
+
+    private final long seed;
+    private final Map<ErrorKind, Double> errorRates = new EnumMap<>(ErrorKind.class);
+    private int readLength = 150;
+    private boolean bgzf;
+    private boolean truncated;
+
+    public ReadFileGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public void setReadLength(int readLength) {
+        this.readLength = readLength;
+    }
+
+    /**
+     * @param errorRate the share of the reads, between 0 and 1, that get an error of the given kind
+     */
+    public void setErrorRate(ErrorKind errorKind, double errorRate) {
+        errorRates.put(errorKind, errorRate);
+    }
+
+    public void setBgzf(boolean bgzf) {
+        this.bgzf = bgzf;
+    }
+
+    /**
+     * @param truncated true to cut up to a thousand bytes off the end of the written file, or of the second file
+     * of a pair, which mostly ends it in the middle of a record or compressed block
+     */
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    public GeneratedReads writeFastq(File file, long size) throws IOException {
+        ReadSource reads = new ReadSource();
+        try (CountingOutputStream counter = new CountingOutputStream(new FileOutputStream(file));
+             OutputStream out = compress(counter, file)) {
+            while (counter.getCount() < size) {
+                writeFastqRecord(out, reads.next(), null);
+            }
+        }
+        truncate(file, reads.random);
+
+        return reads.generated;
+    }
+
+    /**
+     * Writes the mates of every read to the same position of two FASTQ files, named with the /1 and /2 suffixes,
+     * until the first file reaches the size.
+     */
+    public GeneratedReads writePairedFastq(File file1, File file2, long size) throws IOException {
+        ReadSource reads = new ReadSource();
+        try (CountingOutputStream counter = new CountingOutputStream(new FileOutputStream(file1));
+             OutputStream out1 = compress(counter, file1);
+             OutputStream out2 = compress(new FileOutputStream(file2), file2)) {
+            while (counter.getCount() < size) {
+                GeneratedRead read = reads.next();
+                writeFastqRecord(out1, read, FIRST_MATE_SUFFIX);
+                writeFastqRecord(out2, reads.mate(read), read.unpaired ? UNPAIRED_SUFFIX : SECOND_MATE_SUFFIX);
+            }
+        }
+        truncate(file2, reads.random);
+
+        return reads.generated;
+    }
+
+    public GeneratedReads writeBam(File file, long size) throws IOException {
+        return writeAlignments(file, size, false);
+    }
+
+    public GeneratedReads writeCram(File file, long size) throws IOException {
+        return writeAlignments(file, size, true);
+    }
+
+    private GeneratedReads writeAlignments(File file, long size, boolean cram) throws IOException {
+        SAMFileHeader header = new SAMFileHeader();
+        header.setSortOrder(SAMFileHeader.SortOrder.unsorted);
+        SAMFileWriterFactory writerFactory = new SAMFileWriterFactory();
+
+        ReadSource reads = new ReadSource();
+        try (CountingOutputStream counter = new CountingOutputStream(new FileOutputStream(file))) {
+            OutputStream out = new BufferedOutputStream(counter, BUFFER_SIZE);
+            try (SAMFileWriter writer = cram
+                    ? writerFactory.makeCRAMWriter(header, out, (File) null)
+                    : writerFactory.makeBAMWriter(header, true, out)) {
+                while (counter.getCount() < size) {
+                    GeneratedRead read = reads.next();
+                    SAMRecord record = new SAMRecord(header);
+                    record.setReadName(new String(read.name, StandardCharsets.US_ASCII));
+                    record.setReadUnmappedFlag(true);
+                    record.setReadBases(read.bases);
+                    record.setBaseQualities(toPhred(read.qualities));
+                    writer.addAlignment(record);
+                }
+            }
+        }
+        truncate(file, reads.random);
+
+        return reads.generated;
+    }
+
+    private OutputStream compress(OutputStream out, File file) throws IOException {
+        if (!file.getName().endsWith(".gz")) {
+            return new BufferedOutputStream(out, BUFFER_SIZE);
+        }
+        return new BufferedOutputStream(bgzf
+                ? new BlockCompressedOutputStream(out, (File) null)
+                : new GZIPOutputStream(out, BUFFER_SIZE), BUFFER_SIZE);
+    }
+
+    private static void writeFastqRecord(OutputStream out, GeneratedRead read, byte[] nameSuffix) throws IOException {
+        out.write('@');
+        out.write(read.name);
+        if (nameSuffix != null) {
+            out.write(nameSuffix);
+        }
+        out.write('\n');
+        out.write(read.bases);
+        out.write('\n');
+        out.write('+');
+        out.write('\n');
+        out.write(read.qualities);
+        out.write('\n');
+    }
+
+    private static byte[] toPhred(byte[] qualities) {
+        byte[] phred = new byte[qualities.length];
+        for (int i = 0; i < qualities.length; i++) {
+            phred[i] = qualities[i] == BAD_FASTQ_QUALITY ? BAD_PHRED_QUALITY : (byte) (qualities[i] - 33);
+        }
+        return phred;
+    }
+
+    private void truncate(File file, SplittableRandom random) throws IOException {
+        if (!truncated) {
+            return;
+        }
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            long length = out.length();
+            out.setLength(length - Math.min(length / 2, 1 + random.nextInt(MAX_TRUNCATED_BYTES)));
+        }
+    }
+
+    /**
+     * Produces the reads in order from the seed, deciding for every read which error it gets.
+     */
+    private class ReadSource {
+
+        private final SplittableRandom random = new SplittableRandom(seed);
+        private final GeneratedReads generated = new GeneratedReads();
+        private byte[] previousName;
+
+        GeneratedRead next() {
+            GeneratedRead read = new GeneratedRead();
+            long readNumber = generated.readCount + 1;
+
+            read.name = previousName != null && hasError(ErrorKind.DUPLICATE)
+                    ? previousName
+                    : (READ_NAME_PREFIX + readNumber).getBytes(StandardCharsets.US_ASCII);
+            read.bases = randomBases();
+            read.qualities = randomQualities();
+            if (hasError(ErrorKind.BAD_QUALITY)) {
+                read.qualities[random.nextInt(readLength)] = BAD_FASTQ_QUALITY;
+            }
+            read.unpaired = hasError(ErrorKind.UNPAIRED);
+
+            previousName = read.name;
+            generated.readCount++;
+
+            return read;
+        }
+
+        GeneratedRead mate(GeneratedRead read) {
+            GeneratedRead mate = new GeneratedRead();
+            mate.name = read.name;
+            mate.bases = randomBases();
+            mate.qualities = randomQualities();
+            return mate;
+        }
+
+        private boolean hasError(ErrorKind errorKind) {
+            double errorRate = errorRates.getOrDefault(errorKind, 0d);
+            if (errorRate <= 0 || random.nextDouble() >= errorRate) {
+                return false;
+            }
+            generated.errorCounts.merge(errorKind, 1L, Long::sum);
+            return true;
+        }
+
+        private byte[] randomBases() {
+            byte[] bases = new byte[readLength];
+            for (int i = 0; i < readLength; i++) {
+                bases[i] = BASES[random.nextInt(BASES.length)];
+            }
+            return bases;
+        }
+
+        private byte[] randomQualities() {
+            byte[] qualities = new byte[readLength];
+            for (int i = 0; i < readLength; i++) {
+                qualities[i] = (byte) (33 + MIN_QUALITY + random.nextInt(QUALITY_RANGE));
+            }
+            return qualities;
+        }
+    }
+
+    private static class GeneratedRead {
+        private byte[] name;
+        private byte[] bases;
+        private byte[] qualities;
+        private boolean unpaired;
+    }
+
+    /**
+     * The number of reads written and of the errors injected into them. A duplicate is only counted when there was
+     * a read before it to take the name of.
+     */
+    public static class GeneratedReads {
+
+        private long readCount;
+        private final Map<ErrorKind, Long> errorCounts = new EnumMap<>(ErrorKind.class);
+
+        public long getReadCount() {
+            return readCount;
+        }
+
+        public long getErrorCount(ErrorKind errorKind) {
+            return errorCounts.getOrDefault(errorKind, 0L);
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            count += length;
+        }
+    }
+
+    /**
+     * Writes a file from arguments of the form {@code name=value}: {@code type} (fastq, paired-fastq, bam or cram),
+     * {@code out} and for paired FASTQ {@code out2}, {@code size} in bytes or with a K, M or G suffix,
+     * and optionally {@code seed}, {@code readLength}, {@code bgzf}, {@code truncated} and the error rates
+     * {@code badQualityRate}, {@code duplicateRate} and {@code unpairedRate}.
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "true");
+        }
+
+        ReadFileGenerator generator = new ReadFileGenerator(Long.parseLong(options.getOrDefault("seed", "1")));
+        generator.setReadLength(Integer.parseInt(options.getOrDefault("readLength", "150")));
+        generator.setBgzf(Boolean.parseBoolean(options.getOrDefault("bgzf", "false")));
+        generator.setTruncated(Boolean.parseBoolean(options.getOrDefault("truncated", "false")));
+        generator.setErrorRate(ErrorKind.BAD_QUALITY, Double.parseDouble(options.getOrDefault("badQualityRate", "0")));
+        generator.setErrorRate(ErrorKind.DUPLICATE, Double.parseDouble(options.getOrDefault("duplicateRate", "0")));
+        generator.setErrorRate(ErrorKind.UNPAIRED, Double.parseDouble(options.getOrDefault("unpairedRate", "0")));
+
+        File out = new File(getRequired(options, "out"));
+        long size = parseSize(getRequired(options, "size"));
+        String type = getRequired(options, "type");
+
+        final GeneratedReads generated;
+        switch (type) {
+            case "fastq":
+                generated = generator.writeFastq(out, size);
+                break;
+            case "paired-fastq":
+                generated = generator.writePairedFastq(out, new File(getRequired(options, "out2")), size);
+                break;
+            case "bam":
+                generated = generator.writeBam(out, size);
+                break;
+            case "cram":
+                generated = generator.writeCram(out, size);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown file type: " + type);
+        }
+
+        System.out.printf("Wrote %d reads to %s, errors: %d bad qualities, %d duplicates, %d unpaired%n",
+                generated.getReadCount(), out, generated.getErrorCount(ErrorKind.BAD_QUALITY),
+                generated.getErrorCount(ErrorKind.DUPLICATE), generated.getErrorCount(ErrorKind.UNPAIRED));
+    }
+
+    private static String getRequired(Map<String, String> options, String name) {
+        String value = options.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing argument: " + name + "=<value>");
+        }
+        return value;
+    }
+
+    static long parseSize(String size) {
+        String upperCaseSize = size.trim().toUpperCase();
+        int suffix = "KMG".indexOf(upperCaseSize.charAt(upperCaseSize.length() - 1));
+        if (suffix < 0) {
+            return Long.parseLong(upperCaseSize);
+        }
+        return Long.parseLong(upperCaseSize.substring(0, upperCaseSize.length() - 1)) << (10 * (suffix + 1));
+    }
+}
@@ -0,0 +1,168 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.generator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.DuplicateReadNameConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.ParallelValidationConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.ReadPairingConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.generator.ReadFileGenerator.ErrorKind;
+import uk.ac.ebi.ait.filecontentvalidatorservice.generator.ReadFileGenerator.GeneratedReads;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.BamValidationEngine;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.DataFileStreams;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.FastqValidationEngine;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.RecordingSink;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+import uk.ac.ebi.ena.webin.cli.validator.response.ReadsValidationResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+@RunWith(JUnit4.class)
+public class ReadFileGeneratorTest {
+
+    private static final long SIZE = 256 * 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final FastqValidationEngine fastqEngine =
+            new FastqValidationEngine(new DataFileStreams(), createDuplicateReadNameConfig(), createReadPairingConfig());
+    private final RecordingSink reportSink = new RecordingSink();
+
+    @Test
+    public void whenFilesAreWrittenWithTheSameSeed_ThenTheyAreTheSame() throws IOException {
+        File file1 = temporaryFolder.newFile("reads_1.fastq.gz");
+        File file2 = temporaryFolder.newFile("reads_2.fastq.gz");
+        File file3 = temporaryFolder.newFile("reads_3.fastq.gz");
+
+        new ReadFileGenerator(42).writeFastq(file1, SIZE);
+        new ReadFileGenerator(42).writeFastq(file2, SIZE);
+        new ReadFileGenerator(43).writeFastq(file3, SIZE);
+
+        assertThat(file1.length() >= SIZE, is(true));
+        assertThat(Files.readAllBytes(file1.toPath()), is(equalTo(Files.readAllBytes(file2.toPath()))));
+        assertThat(Files.readAllBytes(file1.toPath()), is(not(equalTo(Files.readAllBytes(file3.toPath())))));
+    }
+
+    @Test
+    public void whenFastqHasNoErrors_ThenItIsValid() throws IOException {
+        File file = temporaryFolder.newFile("reads.fastq.gz");
+
+        GeneratedReads generated = new ReadFileGenerator(1).writeFastq(file, SIZE);
+        ValidationResponse response = fastqEngine.validate(Collections.singletonList(file), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        assertThat(reportSink.getInfos().contains("Collected " + generated.getReadCount() + " reads"), is(true));
+    }
+
+    @Test
+    public void whenBadQualitiesAreInjected_ThenEveryOneIsReported() throws IOException {
+        File file = temporaryFolder.newFile("reads.fastq");
+        ReadFileGenerator generator = new ReadFileGenerator(1);
+        generator.setErrorRate(ErrorKind.BAD_QUALITY, 0.01);
+
+        GeneratedReads generated = generator.writeFastq(file, SIZE);
+        ValidationResponse response = fastqEngine.validate(Collections.singletonList(file), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        assertThat(generated.getErrorCount(ErrorKind.BAD_QUALITY) > 0, is(true));
+        assertThat(countErrors("is out of range"), is(equalTo(generated.getErrorCount(ErrorKind.BAD_QUALITY))));
+    }
+
+    @Test
+    public void whenDuplicatesAreInjectedIntoPairedFiles_ThenTheyAreReported() throws IOException {
+        File file1 = temporaryFolder.newFile("reads_1.fastq");
+        File file2 = temporaryFolder.newFile("reads_2.fastq");
+        ReadFileGenerator generator = new ReadFileGenerator(1);
+        generator.setErrorRate(ErrorKind.DUPLICATE, 0.01);
+
+        GeneratedReads generated = generator.writePairedFastq(file1, file2, SIZE);
+        ValidationResponse response = fastqEngine.validate(Arrays.asList(file1, file2), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        assertThat(generated.getErrorCount(ErrorKind.DUPLICATE) > 0, is(true));
+        assertThat(countErrors("occurrences of read name") > 0, is(true));
+    }
+
+    @Test
+    public void whenMostMatesAreUnpaired_ThenPairedFilesFailPairing() throws IOException {
+        File file1 = temporaryFolder.newFile("reads_1.fastq.gz");
+        File file2 = temporaryFolder.newFile("reads_2.fastq.gz");
+        ReadFileGenerator generator = new ReadFileGenerator(1);
+
+        generator.writePairedFastq(file1, file2, SIZE);
+        ValidationResponse pairedResponse = fastqEngine.validate(Arrays.asList(file1, file2), reportSink);
+
+        generator.setErrorRate(ErrorKind.UNPAIRED, 0.9);
+        generator.writePairedFastq(file1, file2, SIZE);
+        ValidationResponse unpairedResponse = fastqEngine.validate(Arrays.asList(file1, file2), reportSink);
+
+        assertThat(pairedResponse.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        assertThat(((ReadsValidationResponse) pairedResponse).isPaired(), is(true));
+        assertThat(unpairedResponse.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        assertThat(((ReadsValidationResponse) unpairedResponse).isPaired(), is(false));
+    }
+
+    @Test
+    public void whenFileIsTruncated_ThenItIsInvalid() throws IOException {
+        File file = temporaryFolder.newFile("reads.fastq.gz");
+        ReadFileGenerator generator = new ReadFileGenerator(1);
+        generator.setTruncated(true);
+
+        generator.writeFastq(file, SIZE);
+        ValidationResponse response = fastqEngine.validate(Collections.singletonList(file), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+    }
+
+    @Test
+    public void whenBamIsWritten_ThenItIsValid() throws IOException {
+        File file = temporaryFolder.newFile("reads.bam");
+        ParallelValidationConfig parallelValidationConfig = new ParallelValidationConfig();
+        parallelValidationConfig.setInflateThreads(1);
+        BamValidationEngine bamEngine = new BamValidationEngine(new DataFileStreams(), parallelValidationConfig, null);
+
+        GeneratedReads generated = new ReadFileGenerator(1).writeBam(file, SIZE);
+        ValidationResponse response = bamEngine.validate(Collections.singletonList(file), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        assertThat(reportSink.getInfos().contains("Collected " + generated.getReadCount() + " reads"), is(true));
+    }
+
+    @Test
+    public void whenSizeHasSuffix_ThenItIsParsedInBinaryUnits() {
+        assertThat(ReadFileGenerator.parseSize("512"), is(equalTo(512L)));
+        assertThat(ReadFileGenerator.parseSize("64k"), is(equalTo(64L * 1024)));
+        assertThat(ReadFileGenerator.parseSize("300G"), is(equalTo(300L * 1024 * 1024 * 1024)));
+    }
+
+    private long countErrors(String text) {
+        return reportSink.getErrors().stream().filter(error -> error.contains(text)).count();
+    }
+
+    private static DuplicateReadNameConfig createDuplicateReadNameConfig() {
+        final DuplicateReadNameConfig duplicateReadNameConfig = new DuplicateReadNameConfig();
+        duplicateReadNameConfig.setEnabled(true);
+        duplicateReadNameConfig.setFalsePositiveRate(0.001);
+        duplicateReadNameConfig.setMaxMemoryMB(16);
+        duplicateReadNameConfig.setMaxCandidates(100_000);
+        return duplicateReadNameConfig;
+    }
+
+    private static ReadPairingConfig createReadPairingConfig() {
+        final ReadPairingConfig readPairingConfig = new ReadPairingConfig();
+        readPairingConfig.setMaxUnmatchedNames(100_000);
+        return readPairingConfig;
+    }
+}
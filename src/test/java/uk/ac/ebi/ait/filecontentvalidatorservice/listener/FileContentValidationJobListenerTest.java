@@ -0,0 +1,98 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.listener;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.CommandLineParameters;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.FileParameters;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.JfrConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.FileContentValidationJob;
+import uk.ac.ebi.ait.filecontentvalidatorservice.exception.FileContentValidationException;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.FileContentValidationHandler;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationJobContext;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr.ValidationJobRecorder;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FileContentValidationJobListenerTest {
+
+    private static final String SUBMISSION_UUID = UUID.randomUUID().toString();
+    private static final String FILE_UUID = UUID.randomUUID().toString();
+
+    @Mock
+    private FileContentValidationHandler fileContentValidationHandler;
+
+    @Mock
+    private ValidationJobContext jobContext;
+
+    @Mock
+    private ValidationResponse validationResponse;
+
+    private FileContentValidationJobListener listener;
+
+    @Before
+    public void setUp() {
+        listener = new FileContentValidationJobListener(fileContentValidationHandler,
+                new ValidationJobRecorder(new JfrConfig()));
+    }
+
+    @Test
+    public void whenJobReceived_ThenFilesAreValidatedAndResultsSent() {
+        when(fileContentValidationHandler.createJobContext(any())).thenReturn(jobContext);
+        when(fileContentValidationHandler.handleFileContentValidation(jobContext)).thenReturn(validationResponse);
+
+        listener.handleValidationJob(createJob());
+
+        ArgumentCaptor<CommandLineParameters> parametersCaptor = ArgumentCaptor.forClass(CommandLineParameters.class);
+        verify(fileContentValidationHandler).createJobContext(parametersCaptor.capture());
+        verify(fileContentValidationHandler).sendValidationMessagesToAggregator(jobContext, validationResponse);
+
+        CommandLineParameters jobParameters = parametersCaptor.getValue();
+        assertThat(jobParameters.getSubmissionUUID(), is(equalTo(SUBMISSION_UUID)));
+        assertThat(jobParameters.getFileType(), is(equalTo("FASTQ")));
+        assertThat(jobParameters.getFilesData().get(0).getFileUUID(), is(equalTo(FILE_UUID)));
+    }
+
+    @Test(expected = AmqpRejectAndDontRequeueException.class)
+    public void whenValidationFails_ThenJobIsRejectedWithoutSendingResults() {
+        when(fileContentValidationHandler.createJobContext(any())).thenReturn(jobContext);
+        when(fileContentValidationHandler.handleFileContentValidation(jobContext))
+                .thenThrow(new FileContentValidationException());
+
+        try {
+            listener.handleValidationJob(createJob());
+        } finally {
+            verify(fileContentValidationHandler, never()).sendValidationMessagesToAggregator(any(), any());
+        }
+    }
+
+    private FileContentValidationJob createJob() {
+        FileParameters fileParameters = new FileParameters();
+        fileParameters.setFileUUID(FILE_UUID);
+        fileParameters.setFilePath("reads/valid.fastq.gz");
+        fileParameters.setValidationResultUUID(UUID.randomUUID().toString());
+        fileParameters.setValidationResultVersion("0");
+
+        FileContentValidationJob job = new FileContentValidationJob();
+        job.setSubmissionUUID(SUBMISSION_UUID);
+        job.setFileType("FASTQ");
+        job.setFiles(Collections.singletonList(fileParameters));
+
+        return job;
+    }
+}
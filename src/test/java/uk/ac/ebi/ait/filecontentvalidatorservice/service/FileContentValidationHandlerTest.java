@@ -13,12 +13,16 @@ import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResultStatu
 import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
 import uk.ac.ebi.ena.webin.cli.validator.file.SubmissionFile;
 import uk.ac.ebi.ena.webin.cli.validator.manifest.ReadsManifest;
+import uk.ac.ebi.ena.webin.cli.validator.response.ReadsValidationResponse;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.containsString;
@@ -71,13 +75,13 @@ public class FileContentValidationHandlerTest {
         String filesParam = TEST_INITIAL_FILE_PARAMS + "filePath=" + testFilePath;
         final CommandLineParameters commandLineParameters = CommandLineParametersBuilder.build(filesParam,
                 ReadsManifest.FileType.BAM.toString(), submissionUUID);
-        validationHandler.setCommandLineParameters(commandLineParameters);
         doReturn(getResourceFile(testFilePath)).when(this.validationHandler).getData(anyString());
 
-        final ValidationResponse validationResponse = validationHandler.handleFileContentValidation();
+        final ValidationJobContext job = validationHandler.createJobContext(commandLineParameters);
+        final ValidationResponse validationResponse = validationHandler.handleFileContentValidation(job);
 
         int reportFileIndex = 0;
-        for (SubmissionFile<ReadsManifest.FileType> submissionFile: validationHandler.manifest.getFiles().get()) {
+        for (SubmissionFile<ReadsManifest.FileType> submissionFile: job.getManifest().getFiles().get()) {
             submissionFile.setReportFile(new File(resourceToAbsolutePath(REPORT_FILES.get(reportFileIndex++))));
         }
 
@@ -86,7 +90,7 @@ public class FileContentValidationHandlerTest {
         String expectedValidationResultMessage1 = "This is an error message";
         String expectedValidationResultMessageCommon = "File contains no valid reads";
         final List<SingleValidationResult> validationResult =
-                validationHandler.createValidationResultByFileUUID(validationResponse, FILE_UUID);
+                validationHandler.createValidationResultByFileUUID(job, validationResponse, FILE_UUID);
 
         assertThat(validationResult.size(), is(equalTo(2)));
 
@@ -109,14 +113,14 @@ public class FileContentValidationHandlerTest {
                 + TEST_INITIAL_FILE2_PARAMS + "filePath=" + testFile2Path;
         final CommandLineParameters commandLineParameters =
                 CommandLineParametersBuilder.build(filesParam, ReadsManifest.FileType.FASTQ.toString(), submissionUUID);
-        validationHandler.setCommandLineParameters(commandLineParameters);
         doReturn(getResourceFile(testFile1Path)).when(this.validationHandler).getData(testFile1Path);
         doReturn(getResourceFile(testFile2Path)).when(this.validationHandler).getData(testFile2Path);
 
-        final ValidationResponse validationResponse = validationHandler.handleFileContentValidation();
+        final ValidationJobContext job = validationHandler.createJobContext(commandLineParameters);
+        final ValidationResponse validationResponse = validationHandler.handleFileContentValidation(job);
 
         int reportFileIndex = 0;
-        for (SubmissionFile<ReadsManifest.FileType> submissionFile: validationHandler.manifest.getFiles().get()) {
+        for (SubmissionFile<ReadsManifest.FileType> submissionFile: job.getManifest().getFiles().get()) {
             submissionFile.setReportFile(new File(resourceToAbsolutePath(REPORT_FILES.get(reportFileIndex++))));
         }
 
@@ -127,7 +131,7 @@ public class FileContentValidationHandlerTest {
         String expectedValidationResultMessageCommon = "Detected paired fastq submission with less than 20% of paired reads";
 
         final List<SingleValidationResult> validationResultForFile1 =
-                validationHandler.createValidationResultByFileUUID(validationResponse, FILE_UUID);
+                validationHandler.createValidationResultByFileUUID(job, validationResponse, FILE_UUID);
         List<String> actualMessagesForFile1 = validationResultForFile1.stream()
                 .map(SingleValidationResult::getMessage).collect(Collectors.toList());
         List<SingleValidationResultStatus> statusesForFile1 = validationResultForFile1.stream()
@@ -139,7 +143,7 @@ public class FileContentValidationHandlerTest {
         assertThat(actualMessagesForFile1, hasItem(containsString(expectedValidationResultMessageCommon)));
 
         final List<SingleValidationResult> validationResultForFile2 =
-                validationHandler.createValidationResultByFileUUID(validationResponse, FILE2_UUID);
+                validationHandler.createValidationResultByFileUUID(job, validationResponse, FILE2_UUID);
         List<String> actualMessagesForFile2 = validationResultForFile2.stream()
                 .map(SingleValidationResult::getMessage).collect(Collectors.toList());
         List<SingleValidationResultStatus> statusesForFile2 = validationResultForFile2.stream()
@@ -157,31 +161,115 @@ public class FileContentValidationHandlerTest {
         String filesParam = TEST_INITIAL_FILE_PARAMS + "filePath=" + testFilePath;
         final CommandLineParameters commandLineParameters = CommandLineParametersBuilder.build(filesParam,
                 ReadsManifest.FileType.BAM.toString(), submissionUUID);
-        validationHandler.setCommandLineParameters(commandLineParameters);
         doReturn(getResourceFile(testFilePath)).when(this.validationHandler).getData(anyString());
 
-        final ValidationResponse validationResponse = validationHandler.handleFileContentValidation();
+        final ValidationJobContext job = validationHandler.createJobContext(commandLineParameters);
+        final ValidationResponse validationResponse = validationHandler.handleFileContentValidation(job);
 
         assertThat(validationResponse.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
 
         final List<SingleValidationResult> validationResult =
-                validationHandler.createValidationResultByFileUUID(validationResponse, FILE_UUID);
+                validationHandler.createValidationResultByFileUUID(job, validationResponse, FILE_UUID);
 
         assertThat(validationResult.get(0).getValidationStatus(), is(equalTo(SingleValidationResultStatus.Pass)));
     }
 
+    @Test
+    public void whenFileFailsPreflightChecks_ThenReturnFailedValidationResultWithoutValidatingIt() {
+        final String testFilePath = "reads/valid.cram";
+        String filesParam = TEST_INITIAL_FILE_PARAMS + "filePath=" + testFilePath;
+        final CommandLineParameters commandLineParameters = CommandLineParametersBuilder.build(filesParam,
+                ReadsManifest.FileType.BAM.toString(), submissionUUID);
+        doReturn(getResourceFile(testFilePath)).when(this.validationHandler).getData(anyString());
+
+        final ValidationJobContext job = validationHandler.createJobContext(commandLineParameters);
+        final ValidationResponse validationResponse = validationHandler.handleFileContentValidation(job);
+
+        assertThat(validationResponse.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+
+        final List<SingleValidationResult> validationResult =
+                validationHandler.createValidationResultByFileUUID(job, validationResponse, FILE_UUID);
+
+        assertThat(validationResult.size(), is(equalTo(1)));
+        assertThat(validationResult.get(0).getValidationStatus(), is(equalTo(SingleValidationResultStatus.Error)));
+        assertThat(validationResult.get(0).getMessage(), containsString("File content looks like CRAM"));
+    }
+
+    @Test
+    public void whenPartitionResponsesAreMerged_ThenJobIsAnErrorIfAnyFailedAndPairedIfAnyIsPaired() {
+        final ReadsValidationResponse pairedSuccess = createResponse(ValidationResponse.status.VALIDATION_SUCCESS, true);
+        final ReadsValidationResponse unpairedSuccess = createResponse(ValidationResponse.status.VALIDATION_SUCCESS, false);
+        final ReadsValidationResponse unpairedError = createResponse(ValidationResponse.status.VALIDATION_ERROR, false);
+
+        final ReadsValidationResponse success = FileContentValidationHandler.mergePartitionResponses(
+                Arrays.asList(unpairedSuccess, pairedSuccess));
+        final ReadsValidationResponse error = FileContentValidationHandler.mergePartitionResponses(
+                Arrays.asList(pairedSuccess, unpairedError, unpairedSuccess));
+
+        assertThat(success.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        assertThat(success.isPaired(), is(true));
+        assertThat(error.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        assertThat(error.isPaired(), is(true));
+        assertThat(FileContentValidationHandler.mergePartitionResponses(Arrays.asList(unpairedSuccess, unpairedError))
+                .isPaired(), is(false));
+    }
+
     @Test
     public void whenValidationExecuted2Times_Then2SeparateReportFoldersCreated() {
         final String testFilePath = "reads/valid.bam";
         String filesParam = TEST_INITIAL_FILE_PARAMS + "filePath=" + testFilePath;
         final CommandLineParameters commandLineParameters = CommandLineParametersBuilder.build(filesParam,
                 ReadsManifest.FileType.BAM.toString(), submissionUUID);
-        validationHandler.setCommandLineParameters(commandLineParameters);
         doReturn(getResourceFile(testFilePath)).when(this.validationHandler).getData(anyString());
 
-        validationHandler.handleFileContentValidation();
-        validationHandler.handleFileContentValidation();
+        final ValidationJobContext job1 = validationHandler.createJobContext(commandLineParameters);
+        validationHandler.handleFileContentValidation(job1);
+        final ValidationJobContext job2 = validationHandler.createJobContext(commandLineParameters);
+        validationHandler.handleFileContentValidation(job2);
+
+        assertThat(job2.getOutputDir().getParentFile().list().length, is(equalTo(2)));
+    }
+
+    @Test
+    public void whenJobsAreValidatedConcurrently_ThenEachGetsItsOwnResults() throws Exception {
+        final String invalidFilePath = "reads/invalid.bam";
+        final String validFilePath = "reads/valid.bam";
+        final CommandLineParameters invalidJobParameters = CommandLineParametersBuilder.build(
+                TEST_INITIAL_FILE_PARAMS + "filePath=" + invalidFilePath, ReadsManifest.FileType.BAM.toString(),
+                submissionUUID);
+        final CommandLineParameters validJobParameters = CommandLineParametersBuilder.build(
+                TEST_INITIAL_FILE2_PARAMS + "filePath=" + validFilePath, ReadsManifest.FileType.BAM.toString(),
+                UUID.randomUUID().toString());
+        doReturn(getResourceFile(invalidFilePath)).when(this.validationHandler).getData(invalidFilePath);
+        doReturn(getResourceFile(validFilePath)).when(this.validationHandler).getData(validFilePath);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<List<SingleValidationResult>> invalidJobResults =
+                    executor.submit(() -> validateJob(invalidJobParameters, FILE_UUID));
+            final Future<List<SingleValidationResult>> validJobResults =
+                    executor.submit(() -> validateJob(validJobParameters, FILE2_UUID));
+
+            assertThat(invalidJobResults.get().get(0).getValidationStatus(), is(equalTo(SingleValidationResultStatus.Error)));
+            assertThat(validJobResults.get().size(), is(equalTo(1)));
+            assertThat(validJobResults.get().get(0).getValidationStatus(), is(equalTo(SingleValidationResultStatus.Pass)));
+            assertThat(validJobResults.get().get(0).getEntityUuid(), is(equalTo(FILE2_UUID)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<SingleValidationResult> validateJob(CommandLineParameters jobParameters, String fileUUID) {
+        final ValidationJobContext job = validationHandler.createJobContext(jobParameters);
+        final ValidationResponse validationResponse = validationHandler.handleFileContentValidation(job);
+
+        return validationHandler.createValidationResultByFileUUID(job, validationResponse, fileUUID);
+    }
 
-        assertThat(validationHandler.getOutputDir().getParentFile().list().length, is(equalTo(2)));
+    private static ReadsValidationResponse createResponse(ValidationResponse.status status, boolean paired) {
+        ReadsValidationResponse response = new ReadsValidationResponse();
+        response.setStatus(status);
+        response.setPaired(paired);
+        return response;
     }
 }
@@ -0,0 +1,70 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import uk.ac.ebi.ena.readtools.validator.ReadsValidator;
+import uk.ac.ebi.ena.webin.cli.validator.manifest.ReadsManifest;
+import uk.ac.ebi.ena.webin.cli.validator.response.ReadsValidationResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(JUnit4.class)
+public class ReadsValidatorPoolTest {
+
+    private final List<ReadsValidator> createdValidators = new ArrayList<>();
+
+    @Test
+    public void whenManifestsAreValidatedOneAfterTheOther_ThenTheSameValidatorIsReused() {
+        ReadsValidatorPool readsValidatorPool = new ReadsValidatorPool(() -> createValidator(new ReadsValidationResponse()));
+
+        readsValidatorPool.validate(new ReadsManifest());
+        readsValidatorPool.validate(new ReadsManifest());
+        readsValidatorPool.validate(new ReadsManifest());
+
+        assertThat(readsValidatorPool.getCreatedCount(), is(equalTo(1)));
+        verify(createdValidators.get(0), times(3)).validate(any());
+    }
+
+    @Test
+    public void whenAValidatorFails_ThenItIsNotReused() {
+        ReadsValidatorPool readsValidatorPool = new ReadsValidatorPool(() -> createValidator(null));
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                readsValidatorPool.validate(new ReadsManifest());
+                fail();
+            } catch (IllegalStateException ex) {
+                assertThat(ex.getMessage(), is(equalTo("Validator failed")));
+            }
+        }
+
+        assertThat(readsValidatorPool.getCreatedCount(), is(equalTo(2)));
+    }
+
+    /**
+     * @param response the response of the validator, or null for a validator that fails
+     */
+    private ReadsValidator createValidator(ReadsValidationResponse response) {
+        ReadsValidator readsValidator = mock(ReadsValidator.class);
+        if (response == null) {
+            when(readsValidator.validate(any(ReadsManifest.class))).thenThrow(new IllegalStateException("Validator failed"));
+        } else {
+            when(readsValidator.validate(any(ReadsManifest.class))).thenReturn(response);
+        }
+        createdValidators.add(readsValidator);
+
+        return readsValidator;
+    }
+}
@@ -0,0 +1,143 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import uk.ac.ebi.ena.webin.cli.validator.file.SubmissionFile;
+import uk.ac.ebi.ena.webin.cli.validator.manifest.ReadsManifest;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(JUnit4.class)
+public class ValidationPartitionerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void whenFastqFilesArePairs_ThenMatesAreKeptTogether() {
+        List<SubmissionFile<ReadsManifest.FileType>> submissionFiles = Arrays.asList(
+                submissionFile(ReadsManifest.FileType.FASTQ, "sampleA_1.fastq.gz"),
+                submissionFile(ReadsManifest.FileType.FASTQ, "sampleB_R1_001.fastq.gz"),
+                submissionFile(ReadsManifest.FileType.FASTQ, "sampleA_2.fastq.gz"),
+                submissionFile(ReadsManifest.FileType.FASTQ, "sampleB_R2_001.fastq.gz"));
+
+        List<List<SubmissionFile<ReadsManifest.FileType>>> partitions =
+                ValidationPartitioner.partition(submissionFiles, ValidationPartitionerTest::getSampleReadName);
+
+        assertThat(partitions.size(), is(equalTo(2)));
+        assertThat(partitions.get(0), is(equalTo(Arrays.asList(submissionFiles.get(0), submissionFiles.get(2)))));
+        assertThat(partitions.get(1), is(equalTo(Arrays.asList(submissionFiles.get(1), submissionFiles.get(3)))));
+    }
+
+    @Test
+    public void whenFastqMatesAreNamedOtherwise_ThenAllFilesAreOnePartition() {
+        List<SubmissionFile<ReadsManifest.FileType>> submissionFiles = Arrays.asList(
+                submissionFile(ReadsManifest.FileType.FASTQ, "sampleA_1.fastq.gz"),
+                submissionFile(ReadsManifest.FileType.FASTQ, "sampleA_2.fastq.gz"),
+                submissionFile(ReadsManifest.FileType.FASTQ, "sampleB_forward.fastq.gz"),
+                submissionFile(ReadsManifest.FileType.FASTQ, "sampleB_reverse.fastq.gz"));
+
+        List<List<SubmissionFile<ReadsManifest.FileType>>> partitions =
+                ValidationPartitioner.partition(submissionFiles, ValidationPartitionerTest::getSampleReadName);
+
+        assertThat(partitions.size(), is(equalTo(1)));
+        assertThat(partitions.get(0), is(equalTo(submissionFiles)));
+    }
+
+    @Test
+    public void whenFirstReadsOfMatesDiffer_ThenAllFilesAreOnePartition() {
+        List<SubmissionFile<ReadsManifest.FileType>> submissionFiles = Arrays.asList(
+                submissionFile(ReadsManifest.FileType.FASTQ, "sampleA_1.fastq.gz"),
+                submissionFile(ReadsManifest.FileType.FASTQ, "sampleA_2.fastq.gz"),
+                submissionFile(ReadsManifest.FileType.FASTQ, "sampleB_1.fastq.gz"),
+                submissionFile(ReadsManifest.FileType.FASTQ, "sampleC_2.fastq.gz"));
+
+        assertThat(ValidationPartitioner.partition(submissionFiles, ValidationPartitionerTest::getSampleReadName)
+                .size(), is(equalTo(1)));
+        assertThat(ValidationPartitioner.partition(submissionFiles.subList(0, 2), file -> Optional.empty())
+                .size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void whenFastqFilesAreRead_ThenMatesArePairedByTheirFirstReadNames() throws IOException {
+        File mate1 = createFastqFile("run_1.fastq.gz", "@SRR001.1/1");
+        File mate2 = createFastqFile("run_2.fastq.gz", "@SRR001.1/2");
+        File otherMate1 = createFastqFile("other_1.fastq.gz", "@SRR002.1 1:N:0");
+        File otherMate2 = createFastqFile("other_2.fastq.gz", "@SRR003.1 2:N:0");
+
+        assertThat(ValidationPartitioner.partition(Arrays.asList(
+                new SubmissionFile<>(ReadsManifest.FileType.FASTQ, mate1),
+                new SubmissionFile<>(ReadsManifest.FileType.FASTQ, mate2))).size(), is(equalTo(1)));
+        assertThat(ValidationPartitioner.partition(Arrays.asList(
+                new SubmissionFile<>(ReadsManifest.FileType.FASTQ, mate1),
+                new SubmissionFile<>(ReadsManifest.FileType.FASTQ, mate2),
+                new SubmissionFile<>(ReadsManifest.FileType.FASTQ, otherMate1),
+                new SubmissionFile<>(ReadsManifest.FileType.FASTQ, otherMate2))).size(), is(equalTo(1)));
+
+        File otherMate2WithSameName = createFastqFile("other_2.fq.gz", "@SRR002.1 2:N:0");
+        assertThat(ValidationPartitioner.partition(Arrays.asList(
+                new SubmissionFile<>(ReadsManifest.FileType.FASTQ, mate1),
+                new SubmissionFile<>(ReadsManifest.FileType.FASTQ, mate2),
+                new SubmissionFile<>(ReadsManifest.FileType.FASTQ, otherMate1),
+                new SubmissionFile<>(ReadsManifest.FileType.FASTQ, otherMate2WithSameName))).size(), is(equalTo(2)));
+    }
+
+    @Test
+    public void whenFilesAreBams_ThenEveryFileIsAPartition() {
+        List<SubmissionFile<ReadsManifest.FileType>> submissionFiles = Arrays.asList(
+                submissionFile(ReadsManifest.FileType.BAM, "sample_1.bam"),
+                submissionFile(ReadsManifest.FileType.BAM, "sample_2.bam"));
+
+        assertThat(ValidationPartitioner.partition(submissionFiles).size(), is(equalTo(2)));
+    }
+
+    @Test
+    public void whenFileNameHasMateSuffix_ThenReadPairNameDropsIt() {
+        assertThat(ValidationPartitioner.getReadPairName("run.R1.fastq.bz2"), is(equalTo("run")));
+        assertThat(ValidationPartitioner.getReadPairName("run-2.fq.gz"), is(equalTo("run")));
+        assertThat(ValidationPartitioner.getReadPairName("run.fastq.gz"), is(equalTo("run")));
+    }
+
+    @Test
+    public void whenFileNameHasMateNumber_ThenItIsTheMate() {
+        assertThat(ValidationPartitioner.getMate("run_R2_001.fastq.gz"), is(equalTo(2)));
+        assertThat(ValidationPartitioner.getMate("run.1.fq"), is(equalTo(1)));
+        assertThat(ValidationPartitioner.getMate("run.fastq.gz"), is(equalTo(0)));
+    }
+
+    /**
+     * The first read of the files of sample X is named X.1, as in the files of a real pair.
+     */
+    private static Optional<String> getSampleReadName(File file) {
+        return Optional.of(ValidationPartitioner.getReadPairName(file.getName()) + ".1");
+    }
+
+    private File createFastqFile(String fileName, String header) throws IOException {
+        File file = temporaryFolder.newFile(fileName);
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file)),
+                StandardCharsets.US_ASCII)) {
+            writer.write(header + "\nACGT\n+\nIIII\n");
+        }
+        return file;
+    }
+
+    private static SubmissionFile<ReadsManifest.FileType> submissionFile(ReadsManifest.FileType fileType, String fileName) {
+        return new SubmissionFile<>(fileType, new File(fileName));
+    }
+}
@@ -0,0 +1,96 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.batch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.BatchConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.JfrConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.exception.FileContentValidationException;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.FileContentValidationHandler;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationJobContext;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr.ValidationJobRecorder;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchValidationRunnerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private FileContentValidationHandler fileContentValidationHandler;
+
+    @Mock
+    private ValidationJobContext jobContext;
+
+    @Mock
+    private ValidationResponse validationResponse;
+
+    private ExecutorService batchExecutor;
+    private BatchValidationRunner batchValidationRunner;
+
+    @Before
+    public void setUp() {
+        BatchConfig batchConfig = new BatchConfig();
+        batchConfig.setWorkers(1);
+        batchExecutor = Executors.newSingleThreadExecutor();
+
+        batchValidationRunner = new BatchValidationRunner(fileContentValidationHandler,
+                new ValidationJobRecorder(new JfrConfig()), batchExecutor, batchConfig);
+    }
+
+    @After
+    public void tearDown() {
+        batchExecutor.shutdownNow();
+    }
+
+    @Test
+    public void whenAJobFails_ThenTheOtherJobsAreStillValidated() throws IOException {
+        when(fileContentValidationHandler.createJobContext(any()))
+                .thenThrow(new FileContentValidationException())
+                .thenReturn(jobContext);
+        when(fileContentValidationHandler.handleFileContentValidation(jobContext)).thenReturn(validationResponse);
+        when(validationResponse.getStatus()).thenReturn(ValidationResponse.status.VALIDATION_SUCCESS);
+
+        Map<String, Long> jobCountByStatus = batchValidationRunner.run(createJobList("sub-1", "sub-2"));
+
+        assertThat(jobCountByStatus.size(), is(equalTo(2)));
+        assertThat(jobCountByStatus.get(ValidationJobRecorder.STATUS_FAILED), is(equalTo(1L)));
+        assertThat(jobCountByStatus.get("VALIDATION_SUCCESS"), is(equalTo(1L)));
+        verify(fileContentValidationHandler, times(2)).createJobContext(any());
+        verify(fileContentValidationHandler).sendValidationMessagesToAggregator(jobContext, validationResponse);
+    }
+
+    private File createJobList(String... submissionUUIDs) throws IOException {
+        File jobListFile = temporaryFolder.newFile("jobs.jsonl");
+        Files.write(jobListFile.toPath(), Arrays.stream(submissionUUIDs)
+                .map(submissionUUID -> "{\"submissionUUID\": \"" + submissionUUID + "\", \"fileType\": \"FASTQ\","
+                        + " \"files\": [{\"fileUUID\": \"file-" + submissionUUID + "\","
+                        + " \"filePath\": \"reads/valid.fastq.gz\"}]}")
+                .collect(Collectors.toList()), StandardCharsets.UTF_8);
+        return jobListFile;
+    }
+}
@@ -0,0 +1,93 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.batch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.CommandLineParameters;
+import uk.ac.ebi.ait.filecontentvalidatorservice.exception.FileHandleException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class ValidationJobListTest {
+
+    private static final String JOB_1 = "{\"submissionUUID\": \"sub-1\", \"fileType\": \"FASTQ\", \"files\": ["
+            + "{\"validationResultUUID\": \"result-1\", \"validationResultVersion\": \"0\", \"fileUUID\": \"file-1\","
+            + " \"filePath\": \"reads/valid.fastq.gz\"}]}";
+    private static final String JOB_2 = "{\"submissionUUID\": \"sub-2\", \"fileType\": \"BAM\", \"files\": ["
+            + "{\"validationResultUUID\": \"result-2\", \"validationResultVersion\": \"1\", \"fileUUID\": \"file-2\","
+            + " \"filePath\": \"reads/valid.bam\", \"comment\": \"not a job property\"}]}";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void whenJobListIsRead_ThenItHasAJobPerLine() throws IOException {
+        ValidationJobList jobList = ValidationJobList.read(createJobList("# weekly sweep", JOB_1, "", JOB_2));
+
+        assertThat(jobList.size(), is(equalTo(2)));
+        assertThat(jobList.getJobs().get(0).getSubmissionUUID(), is(equalTo("sub-1")));
+        assertThat(jobList.getJobs().get(1).getSubmissionUUID(), is(equalTo("sub-2")));
+
+        CommandLineParameters job = jobList.getJobs().get(1);
+        assertThat(job.getFileType(), is(equalTo("BAM")));
+        assertThat(job.getFilesData().size(), is(equalTo(1)));
+        assertThat(job.getFilesData().get(0).getFileUUID(), is(equalTo("file-2")));
+        assertThat(job.getFilesData().get(0).getFilePath(), is(equalTo("reads/valid.bam")));
+    }
+
+    @Test
+    public void whenALineIsNotAJob_ThenTheListIsRejectedWithItsLineNumber() throws IOException {
+        File jobListFile = createJobList(JOB_1, "{\"submissionUUID\": \"sub-2\", \"fileType\": \"BAM\"}");
+
+        try {
+            ValidationJobList.read(jobListFile);
+            fail();
+        } catch (FileHandleException ex) {
+            assertThat(ex.getMessage(), containsString("line 2"));
+        }
+    }
+
+    @Test
+    public void whenALineIsNotJson_ThenTheListIsRejectedWithItsLineNumber() throws IOException {
+        File jobListFile = createJobList(JOB_1, "", "sub-2 BAM reads/valid.bam");
+
+        try {
+            ValidationJobList.read(jobListFile);
+            fail();
+        } catch (FileHandleException ex) {
+            assertThat(ex.getMessage(), containsString("line 3"));
+        }
+    }
+
+    @Test
+    public void whenASubmissionIsListedTwice_ThenTheListIsRejected() throws IOException {
+        File jobListFile = createJobList(JOB_1, JOB_2, JOB_1);
+
+        try {
+            ValidationJobList.read(jobListFile);
+            fail();
+        } catch (FileHandleException ex) {
+            assertThat(ex.getMessage(), containsString("line 3"));
+            assertThat(ex.getMessage(), containsString("sub-1"));
+        }
+    }
+
+    private File createJobList(String... lines) throws IOException {
+        File jobListFile = temporaryFolder.newFile("jobs.jsonl");
+        Files.write(jobListFile.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return jobListFile;
+    }
+}
@@ -0,0 +1,146 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.ValidationResultCacheConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResult;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResultBuilder;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResultStatus;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.metrics.ValidationMetrics;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+@RunWith(JUnit4.class)
+public class ValidationResultCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ValidationResultCacheConfig cacheConfig;
+    private ValidationResultCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheConfig = new ValidationResultCacheConfig();
+        cacheConfig.setEnabled(true);
+        cacheConfig.setCacheDir(temporaryFolder.newFolder("cache"));
+        cacheConfig.setMaxEntries(10);
+        cacheConfig.setMaxSizeMB(1);
+        cacheConfig.setMaxAgeDays(1);
+
+        cache = new ValidationResultCache(cacheConfig, new ValidationMetrics(meterRegistry));
+        cache.init();
+    }
+
+    @Test
+    public void whenSameFileIsValidatedAgain_ThenStoredResultIsReturned() throws IOException {
+        File file = createFile("a.fastq", "@r1\nACGT\n+\nIIII\n");
+        String key = cache.createKey("FASTQ", Collections.singletonList(file));
+        cache.put(key, createEntry("Invalid quality"));
+
+        String sameFileKey = cache.createKey("FASTQ", Collections.singletonList(file));
+        Optional<ValidationResultCacheEntry> entry = cache.get(sameFileKey);
+
+        assertThat(entry.isPresent(), is(true));
+        assertThat(entry.get().getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        SingleValidationResult result = entry.get().getFileResults().get(0).get(0);
+        assertThat(result.getMessage(), is(equalTo("Invalid quality")));
+        assertThat(result.getValidationStatus(), is(equalTo(SingleValidationResultStatus.Error)));
+        assertThat(meterRegistry.get("file.content.validation.cache").tags("result", "hit").counter().count(),
+                is(equalTo(1.0)));
+    }
+
+    @Test
+    public void whenSameContentIsValidatedAgainFromAnotherFile_ThenStoredResultIsReturned() throws IOException {
+        String key = cache.createKey("FASTQ", Collections.singletonList(createFile("a.fastq", "@r1\nACGT\n+\nIIII\n")));
+        cache.put(key, createEntry("Invalid quality"));
+
+        String sameContentKey = cache.createKey("FASTQ", Collections.singletonList(createFile("b.fastq", "@r1\nACGT\n+\nIIII\n")));
+        Optional<ValidationResultCacheEntry> entry = cache.get(sameContentKey);
+
+        assertThat(sameContentKey, is(equalTo(key)));
+        assertThat(entry.isPresent(), is(true));
+        assertThat(entry.get().getFileResults().get(0).get(0).getMessage(), is(equalTo("Invalid quality")));
+    }
+
+    @Test
+    public void whenContentOrSettingsDiffer_ThenKeyDiffers() throws IOException {
+        File file = createFile("a.fastq", "@r1\nACGT\n+\nIIII\n");
+        File otherFile = createFile("b.fastq", "@r1\nACGA\n+\nIIII\n");
+
+        String key = cache.createKey("FASTQ/builtin/1000/3", Collections.singletonList(file));
+
+        assertThat(cache.createKey("FASTQ/builtin/1000/3", Collections.singletonList(otherFile)), is(not(equalTo(key))));
+        assertThat(cache.createKey("BAM/builtin/1000/3", Collections.singletonList(file)), is(not(equalTo(key))));
+        assertThat(cache.createKey("FASTQ/builtin/100/3", Collections.singletonList(file)), is(not(equalTo(key))));
+    }
+
+    @Test
+    public void whenFileIsChanged_ThenKeyDiffers() throws IOException {
+        File file = createFile("a.fastq", "@r1\nACGT\n+\nIIII\n");
+        String key = cache.createKey("FASTQ", Collections.singletonList(file));
+
+        Files.write(file.toPath(), "@r1\nACGA\n+\nIIII\n".getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(file.lastModified() + 10_000);
+
+        assertThat(cache.createKey("FASTQ", Collections.singletonList(file)), is(not(equalTo(key))));
+    }
+
+    @Test
+    public void whenKeyIsUnknown_ThenMissIsCounted() {
+        assertThat(cache.get("unknown").isPresent(), is(false));
+        assertThat(meterRegistry.get("file.content.validation.cache").tags("result", "miss").counter().count(),
+                is(equalTo(1.0)));
+    }
+
+    @Test
+    public void whenCacheIsOverMaxEntries_ThenLeastRecentlyUsedEntriesAreEvicted() {
+        for (int i = 0; i < 10; i++) {
+            cache.put("entry" + i, createEntry("entry" + i));
+            new File(cacheConfig.getCacheDir(), "entry" + i + ".json")
+                    .setLastModified(System.currentTimeMillis() - 10_000 + i * 100);
+        }
+        assertThat(cacheConfig.getCacheDir().list().length, is(equalTo(10)));
+
+        cache.put("entry10", createEntry("entry10"));
+
+        assertThat(cacheConfig.getCacheDir().list().length, is(equalTo(9)));
+        assertThat(cache.get("entry0").isPresent(), is(false));
+        assertThat(cache.get("entry1").isPresent(), is(false));
+        assertThat(cache.get("entry2").isPresent(), is(true));
+        assertThat(cache.get("entry10").isPresent(), is(true));
+    }
+
+    private File createFile(String name, String content) throws IOException {
+        File file = temporaryFolder.newFile(name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static ValidationResultCacheEntry createEntry(String message) {
+        ValidationResultCacheEntry entry = new ValidationResultCacheEntry();
+        entry.setStatus(ValidationResponse.status.VALIDATION_ERROR);
+        entry.getFileResults().add(Collections.singletonList(
+                SingleValidationResultBuilder.buildSingleValidationResultWithErrorStatus(message, null)));
+        return entry;
+    }
+}
@@ -0,0 +1,188 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationHelper.getResourceFile;
+
+@RunWith(JUnit4.class)
+public class BamValidationEngineTest {
+
+    private static final int UNMAPPED = 0x4;
+    private static final int MATE_UNMAPPED = 0x8;
+    private static final int SECONDARY = 0x100;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ExecutorService inflateExecutor = Executors.newFixedThreadPool(4);
+    private final BamValidationEngine engine =
+            new BamValidationEngine(new DataFileStreams(), inflateExecutor, 8, 2_000);
+    private final RecordingSink reportSink = new RecordingSink();
+
+    @After
+    public void tearDown() {
+        inflateExecutor.shutdownNow();
+    }
+
+    @Test
+    public void whenBamFileIsValid_ThenValidationPasses() {
+        final ValidationResponse response =
+                engine.validate(Collections.singletonList(getResourceFile("reads/valid.bam")), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        assertThat(reportSink.getInfos(), hasItem(String.format(BamValidationEngine.READ_COUNT, 1)));
+    }
+
+    @Test
+    public void whenBamFileHasNoReads_ThenValidationFailsWithNoValidReads() {
+        final ValidationResponse response =
+                engine.validate(Collections.singletonList(getResourceFile("reads/invalid.bam")), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        assertThat(reportSink.getErrors(), is(equalTo(Collections.singletonList(BamValidationEngine.NO_VALID_READS))));
+    }
+
+    @Test
+    public void whenRecordsSpanManyBlocksAndRanges_ThenEveryReadIsCounted() throws IOException {
+        final ByteArrayOutputStream bam = createBam();
+        for (int i = 0; i < 5_000; i++) {
+            writeRecord(bam, "read" + i, UNMAPPED, -1, -1, "ACGTNACGTA", (byte) 30);
+        }
+        writeRecord(bam, "secondary", SECONDARY, 0, 10, "ACGT", (byte) 30);
+
+        final ValidationResponse response = engine.validate(Collections.singletonList(writeBam(bam, 1_000)), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        assertThat(reportSink.getInfos(), hasItem(String.format(BamValidationEngine.READ_COUNT, 5_000)));
+    }
+
+    @Test
+    public void whenRecordsAreInvalid_ThenErrorsAreReportedInFileOrder() throws IOException {
+        final ByteArrayOutputStream bam = createBam();
+        for (int i = 0; i < 5_000; i++) {
+            if (i == 10) {
+                writeRecord(bam, "read" + i, UNMAPPED, 1, -1, "ACGT", (byte) 30);
+            } else if (i == 2_000) {
+                writeRecord(bam, "read" + i, UNMAPPED | MATE_UNMAPPED, -1, -1, "ACGT", (byte) 30);
+            } else if (i == 4_000) {
+                writeRecord(bam, "read" + i, UNMAPPED, -1, -1, "ACGT", (byte) 94);
+            } else {
+                writeRecord(bam, "read" + i, UNMAPPED, -1, -1, "ACGT", (byte) 30);
+            }
+        }
+
+        final ValidationResponse response = engine.validate(Collections.singletonList(writeBam(bam, 1_000)), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        assertThat(reportSink.getErrors(), is(equalTo(Arrays.asList(
+                String.format(BamRecordValidator.INVALID_REFERENCE, 10, 1),
+                String.format(BamRecordValidator.INVALID_MATE_FLAGS, 2_000, MATE_UNMAPPED),
+                String.format(BamRecordValidator.INVALID_QUALITY, 4_000, 94)))));
+    }
+
+    @Test
+    public void whenLastRecordIsTruncated_ThenTruncationIsReported() throws IOException {
+        final ByteArrayOutputStream bam = createBam();
+        for (int i = 0; i < 100; i++) {
+            writeRecord(bam, "read" + i, UNMAPPED, -1, -1, "ACGT", (byte) 30);
+        }
+        final byte[] content = bam.toByteArray();
+        final ByteArrayOutputStream truncatedBam = new ByteArrayOutputStream();
+        truncatedBam.write(content, 0, content.length - 5);
+
+        final ValidationResponse response =
+                engine.validate(Collections.singletonList(writeBam(truncatedBam, 1_000)), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        assertThat(reportSink.getErrors(), is(equalTo(Collections.singletonList(
+                String.format(BamValidationEngine.TRUNCATED_RECORD, 99)))));
+    }
+
+    @Test
+    public void whenFileIsNotBgzf_ThenValidationFails() {
+        final ValidationResponse response =
+                engine.validate(Collections.singletonList(getResourceFile("reads/valid.fastq.gz")), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        assertThat(reportSink.getErrors(), hasItem(BamValidationEngine.NOT_BGZF));
+    }
+
+    private File writeBam(ByteArrayOutputStream bam, int blockContentSize) throws IOException {
+        final File file = temporaryFolder.newFile("reads.bam");
+        Files.write(file.toPath(), BgzfTestFiles.bgzf(bam.toByteArray(), blockContentSize));
+        return file;
+    }
+
+    private static ByteArrayOutputStream createBam() throws IOException {
+        final ByteArrayOutputStream bam = new ByteArrayOutputStream();
+        final byte[] text = "@HD\tVN:1.6\tSO:unsorted\n@SQ\tSN:chr1\tLN:1000\n".getBytes(StandardCharsets.US_ASCII);
+        bam.write(new byte[]{'B', 'A', 'M', 1});
+        writeInt(bam, text.length);
+        bam.write(text);
+        writeInt(bam, 1);
+        writeInt(bam, 5);
+        bam.write("chr1\0".getBytes(StandardCharsets.US_ASCII));
+        writeInt(bam, 1000);
+        return bam;
+    }
+
+    private static void writeRecord(ByteArrayOutputStream bam, String name, int flags, int referenceIndex,
+                                    int position, String bases, byte quality) {
+        final byte[] readName = (name + "\0").getBytes(StandardCharsets.US_ASCII);
+        final int recordSize = 32 + readName.length + (bases.length() + 1) / 2 + bases.length();
+
+        writeInt(bam, recordSize);
+        writeInt(bam, referenceIndex);
+        writeInt(bam, position);
+        bam.write(readName.length);
+        bam.write(0);
+        writeShort(bam, 4680);
+        writeShort(bam, 0);
+        writeShort(bam, flags);
+        writeInt(bam, bases.length());
+        writeInt(bam, -1);
+        writeInt(bam, -1);
+        writeInt(bam, 0);
+        bam.write(readName, 0, readName.length);
+        for (int i = 0; i < bases.length(); i += 2) {
+            final int high = "=ACMGRSVTWYHKDBN".indexOf(bases.charAt(i));
+            final int low = i + 1 < bases.length() ? "=ACMGRSVTWYHKDBN".indexOf(bases.charAt(i + 1)) : 0;
+            bam.write(high << 4 | low);
+        }
+        for (int i = 0; i < bases.length(); i++) {
+            bam.write(quality);
+        }
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >> 8);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >> 8);
+        out.write(value >> 16);
+        out.write(value >> 24);
+    }
+}
@@ -0,0 +1,58 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes BGZF content for the tests of the built-in engines.
+ */
+public class BgzfTestFiles {
+
+    private static final int DEFAULT_BLOCK_CONTENT_SIZE = 60_000;
+
+    /**
+     * Compresses the content into BGZF blocks, followed by the empty end of file block.
+     */
+    public static byte[] bgzf(byte[] content) {
+        return bgzf(content, DEFAULT_BLOCK_CONTENT_SIZE);
+    }
+
+    /**
+     * Compresses the content into BGZF blocks of the given content size, followed by the empty end of file block.
+     */
+    public static byte[] bgzf(byte[] content, int blockContentSize) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int offset = 0; offset < content.length; offset += blockContentSize) {
+            writeBlock(out, content, offset, Math.min(blockContentSize, content.length - offset));
+        }
+        writeBlock(out, content, 0, 0);
+        return out.toByteArray();
+    }
+
+    private static void writeBlock(ByteArrayOutputStream out, byte[] content, int offset, int length) {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(content, offset, length);
+        deflater.finish();
+        final byte[] compressed = new byte[BgzfBlockReader.MAX_BLOCK_SIZE];
+        final int compressedLength = deflater.deflate(compressed);
+        deflater.end();
+
+        final CRC32 crc = new CRC32();
+        crc.update(content, offset, length);
+        final int blockSize = 18 + compressedLength + 8;
+
+        out.write(new byte[]{0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0,
+                (byte) (blockSize - 1), (byte) ((blockSize - 1) >> 8)}, 0, 18);
+        out.write(compressed, 0, compressedLength);
+        writeInt(out, (int) crc.getValue());
+        writeInt(out, length);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >> 8);
+        out.write(value >> 16);
+        out.write(value >> 24);
+    }
+}
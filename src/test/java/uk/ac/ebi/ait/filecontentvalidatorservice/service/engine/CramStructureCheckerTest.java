@@ -0,0 +1,370 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.CramReferenceConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.reference.CramReferenceStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationHelper.getResourceFile;
+
+@RunWith(JUnit4.class)
+public class CramStructureCheckerTest {
+
+    private static final int COMPRESSION_HEADER = 1;
+    private static final int SLICE_HEADER = 2;
+    private static final int EXTERNAL_DATA = 4;
+    private static final int CORE_DATA = 5;
+    private static final byte[] NO_MD5 = new byte[16];
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ExecutorService inflateExecutor = Executors.newFixedThreadPool(4);
+    private final CramStructureChecker checker = new CramStructureChecker(true, inflateExecutor, 2_000, null);
+    private final RecordingSink reportSink = new RecordingSink();
+    private final Set<String> referenceMd5s = new HashSet<>();
+
+    @After
+    public void tearDown() {
+        inflateExecutor.shutdownNow();
+    }
+
+    @Test
+    public void whenCramFileIsValid_ThenCheckPasses() {
+        final boolean valid =
+                checker.check(Collections.singletonList(getResourceFile("reads/valid.cram")), reportSink, referenceMd5s);
+
+        assertThat(valid, is(true));
+        assertThat(reportSink.getInfos(), hasItem(String.format(CramStructureChecker.READ_COUNT, 2)));
+    }
+
+    @Test
+    public void whenCramFileHasNoReads_ThenCheckLeavesItToWebinCli() {
+        final boolean valid =
+                checker.check(Collections.singletonList(getResourceFile("reads/invalid.cram")), reportSink, referenceMd5s);
+
+        assertThat(valid, is(true));
+        assertThat(reportSink.getErrors(), is(equalTo(Collections.emptyList())));
+        assertThat(reportSink.getInfos(), hasItem(String.format(CramStructureChecker.READ_COUNT, 0)));
+    }
+
+    @Test
+    public void whenFileHasManyContainers_ThenEveryReadIsCounted() throws IOException {
+        final CramWriter cram = new CramWriter();
+        for (int i = 0; i < 200; i++) {
+            cram.writeContainer(50, 50);
+        }
+
+        final boolean valid = checker.check(Collections.singletonList(cram.write()), reportSink, referenceMd5s);
+
+        assertThat(reportSink.getErrors(), is(equalTo(Collections.emptyList())));
+        assertThat(valid, is(true));
+        assertThat(reportSink.getInfos(), hasItem(String.format(CramStructureChecker.READ_COUNT, 20_000)));
+    }
+
+    @Test
+    public void whenBlocksAreCorrupted_ThenErrorsAreReportedInFileOrder() throws IOException {
+        final CramWriter cram = new CramWriter();
+        for (int i = 0; i < 20; i++) {
+            cram.writeContainer(10);
+        }
+        final byte[] content = cram.toByteArray();
+        content[cram.getContainerOffset(15) + cram.getContainerHeaderSize(15) + 2] ^= 0x7f;
+        content[cram.getContainerOffset(4) + cram.getContainerHeaderSize(4) + 2] ^= 0x7f;
+
+        final boolean valid = checker.check(Collections.singletonList(writeFile(content)), reportSink, referenceMd5s);
+
+        assertThat(valid, is(false));
+        assertThat(reportSink.getErrors(), is(equalTo(Arrays.asList(
+                String.format(CramContainerValidator.BLOCK_CHECKSUM_MISMATCH, 4, 0),
+                String.format(CramContainerValidator.BLOCK_CHECKSUM_MISMATCH, 15, 0)))));
+    }
+
+    @Test
+    public void whenSlicesDoNotAddUpToContainer_ThenRecordCountMismatchIsReported() throws IOException {
+        final CramWriter cram = new CramWriter();
+        cram.writeContainer(10);
+        cram.writeContainer(12, new int[]{5, 5}, NO_MD5);
+
+        checker.check(Collections.singletonList(cram.write()), reportSink, referenceMd5s);
+
+        assertThat(reportSink.getErrors(), hasItem(String.format(CramContainerValidator.RECORD_COUNT_MISMATCH, 2, 10, 12)));
+    }
+
+    @Test
+    public void whenFileIsTruncated_ThenInvalidContainerIsReported() throws IOException {
+        final CramWriter cram = new CramWriter();
+        cram.writeContainer(10);
+        cram.writeContainer(10);
+        final byte[] content = cram.toByteArray();
+
+        checker.check(Collections.singletonList(writeFile(Arrays.copyOf(content, content.length - 30))), reportSink,
+                referenceMd5s);
+
+        assertThat(reportSink.getErrors().get(0).startsWith(String.format(CramStructureChecker.INVALID_CONTAINER, "")), is(true));
+    }
+
+    @Test
+    public void whenEofContainerIsMissing_ThenMissingEofIsReported() throws IOException {
+        final CramWriter cram = new CramWriter();
+        cram.writeContainer(10);
+
+        checker.check(Collections.singletonList(writeFile(cram.toByteArrayWithoutEof())), reportSink, referenceMd5s);
+
+        assertThat(reportSink.getErrors(), is(equalTo(Collections.singletonList(CramStructureChecker.MISSING_EOF))));
+        assertThat(reportSink.getInfos(), hasItem(String.format(CramStructureChecker.READ_COUNT, 10)));
+    }
+
+    @Test
+    public void whenReferenceIsNotInOfflineStore_ThenMissingReferenceIsReported() throws IOException {
+        final CramReferenceConfig referenceConfig = new CramReferenceConfig();
+        referenceConfig.setEnabled(true);
+        referenceConfig.setDownload(false);
+        referenceConfig.setReferenceDir(temporaryFolder.newFolder("references"));
+        referenceConfig.setMaxSizeMB(1);
+        final CramReferenceStore referenceStore = new CramReferenceStore(referenceConfig, new DataFileStreams());
+        final String storedMd5 = referenceStore.put("ACGT".getBytes(StandardCharsets.US_ASCII), 4);
+        final byte[] missingMd5 = new byte[16];
+        Arrays.fill(missingMd5, (byte) 0xab);
+
+        final CramWriter cram = new CramWriter();
+        cram.writeContainer(10, new int[]{10}, md5Bytes(storedMd5));
+        cram.writeContainer(10, new int[]{10}, missingMd5);
+        final CramStructureChecker offlineChecker = new CramStructureChecker(true, null, 2_000, referenceStore);
+
+        offlineChecker.check(Collections.singletonList(cram.write()), reportSink, referenceMd5s);
+
+        assertThat(reportSink.getErrors(), is(equalTo(Collections.singletonList(
+                String.format(CramContainerValidator.MISSING_REFERENCE, 2, "abababababababababababababababab")))));
+        assertThat(referenceMd5s, is(equalTo(new HashSet<>(Arrays.asList(
+                storedMd5, "abababababababababababababababab")))));
+    }
+
+    @Test
+    public void whenHeaderHasSequenceMd5s_ThenTheyAreReadWithoutCheckingTheFile() throws IOException {
+        final CramWriter cram = new CramWriter("@HD\tVN:1.6\tSO:coordinate\n"
+                + "@SQ\tSN:chr1\tLN:1000\tM5:0123456789ABCDEF0123456789ABCDEF\n"
+                + "@SQ\tSN:chr2\tLN:1000\n"
+                + "@SQ\tSN:chr3\tLN:1000\tUR:file:/ref.fa\tM5:fedcba9876543210fedcba9876543210\n");
+        cram.writeContainer(10);
+
+        assertThat(checker.readReferenceMd5s(Arrays.asList(cram.write(), getResourceFile("reads/valid.bam"))),
+                is(equalTo(new HashSet<>(Arrays.asList(
+                        "0123456789abcdef0123456789abcdef", "fedcba9876543210fedcba9876543210")))));
+    }
+
+    @Test
+    public void whenFileIsNotCram_ThenInvalidMagicIsReported() {
+        final boolean valid =
+                checker.check(Collections.singletonList(getResourceFile("reads/valid.bam")), reportSink, referenceMd5s);
+
+        assertThat(valid, is(false));
+        assertThat(reportSink.getErrors(), hasItem(CramStructureChecker.INVALID_MAGIC));
+    }
+
+    private File writeFile(byte[] content) throws IOException {
+        final File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    private static byte[] md5Bytes(String md5) {
+        final byte[] bytes = new byte[16];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(md5.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes CRAM 3 files with the structure of real ones and placeholder content in the blocks.
+     */
+    private class CramWriter {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final List<int[]> containers = new ArrayList<>();
+        private long recordCounter;
+
+        CramWriter() throws IOException {
+            this("@HD\tVN:1.6\tSO:unsorted\n");
+        }
+
+        CramWriter(String headerText) throws IOException {
+            out.write("CRAM".getBytes(StandardCharsets.US_ASCII));
+            out.write(new byte[]{3, 0});
+            out.write(new byte[20]);
+
+            final byte[] text = headerText.getBytes(StandardCharsets.US_ASCII);
+            final ByteArrayOutputStream header = new ByteArrayOutputStream();
+            writeInt(header, text.length);
+            header.write(text);
+            final byte[] block = block(0, header.toByteArray());
+            writeContainer(0, 0, 1, new int[]{0}, block);
+        }
+
+        void writeContainer(int... sliceRecordCounts) throws IOException {
+            int recordCount = 0;
+            for (int count : sliceRecordCounts) {
+                recordCount += count;
+            }
+            writeContainer(recordCount, sliceRecordCounts, NO_MD5);
+        }
+
+        void writeContainer(int recordCount, int[] sliceRecordCounts, byte[] referenceMd5) throws IOException {
+            final ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+            blocks.write(block(COMPRESSION_HEADER, new byte[]{1, 2, 3}));
+
+            final int[] landmarks = new int[sliceRecordCounts.length];
+            long sliceRecordCounter = recordCounter;
+            for (int slice = 0; slice < sliceRecordCounts.length; slice++) {
+                landmarks[slice] = blocks.size();
+
+                final ByteArrayOutputStream sliceHeader = new ByteArrayOutputStream();
+                writeItf8(sliceHeader, 0);
+                writeItf8(sliceHeader, 1);
+                writeItf8(sliceHeader, 100);
+                writeItf8(sliceHeader, sliceRecordCounts[slice]);
+                writeItf8(sliceHeader, (int) sliceRecordCounter);
+                writeItf8(sliceHeader, 2);
+                writeItf8(sliceHeader, 1);
+                writeItf8(sliceHeader, 11);
+                writeItf8(sliceHeader, -1);
+                sliceHeader.write(referenceMd5);
+                blocks.write(block(SLICE_HEADER, sliceHeader.toByteArray()));
+                blocks.write(block(CORE_DATA, new byte[0]));
+                blocks.write(block(EXTERNAL_DATA, new byte[sliceRecordCounts[slice]]));
+
+                sliceRecordCounter += sliceRecordCounts[slice];
+            }
+
+            writeContainer(recordCount, recordCounter, 1 + 3 * sliceRecordCounts.length, landmarks, blocks.toByteArray());
+            recordCounter += recordCount;
+        }
+
+        File write() throws IOException {
+            return writeFile(toByteArray());
+        }
+
+        /**
+         * @return the file, ending with the EOF container
+         */
+        byte[] toByteArray() throws IOException {
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+            content.write(out.toByteArray());
+            writeContainer(content, -1, 0, recordCounter, 1, new int[0],
+                    block(COMPRESSION_HEADER, new byte[]{1, 0, 1, 0, 1, 0}));
+            return content.toByteArray();
+        }
+
+        byte[] toByteArrayWithoutEof() {
+            return out.toByteArray();
+        }
+
+        int getContainerOffset(int container) {
+            return containers.get(container)[0];
+        }
+
+        int getContainerHeaderSize(int container) {
+            return containers.get(container)[1];
+        }
+
+        private void writeContainer(int recordCount, long counter, int blockCount, int[] landmarks, byte[] blocks)
+                throws IOException {
+            final int start = out.size();
+            final int headerSize = writeContainer(out, 0, recordCount, counter, blockCount, landmarks, blocks);
+            containers.add(new int[]{start, headerSize});
+        }
+
+        private int writeContainer(ByteArrayOutputStream target, int referenceId, int recordCount, long counter,
+                                   int blockCount, int[] landmarks, byte[] blocks) throws IOException {
+            final ByteArrayOutputStream header = new ByteArrayOutputStream();
+            writeInt(header, blocks.length);
+            writeItf8(header, referenceId);
+            writeItf8(header, 1);
+            writeItf8(header, 100);
+            writeItf8(header, recordCount);
+            writeItf8(header, (int) counter);
+            writeItf8(header, 0);
+            writeItf8(header, blockCount);
+            writeItf8(header, landmarks.length);
+            for (int landmark : landmarks) {
+                writeItf8(header, landmark);
+            }
+            writeCrc(header);
+
+            target.write(header.toByteArray());
+            target.write(blocks);
+            return header.size();
+        }
+
+        private byte[] block(int contentType, byte[] content) throws IOException {
+            final ByteArrayOutputStream block = new ByteArrayOutputStream();
+            block.write(0);
+            block.write(contentType);
+            writeItf8(block, 0);
+            writeItf8(block, content.length);
+            writeItf8(block, content.length);
+            block.write(content);
+            writeCrc(block);
+            return block.toByteArray();
+        }
+
+        private void writeCrc(ByteArrayOutputStream target) {
+            final CRC32 crc32 = new CRC32();
+            crc32.update(target.toByteArray());
+            writeInt(target, (int) crc32.getValue());
+        }
+
+        private void writeInt(ByteArrayOutputStream target, int value) {
+            target.write(value);
+            target.write(value >> 8);
+            target.write(value >> 16);
+            target.write(value >> 24);
+        }
+
+        /**
+         * Writes the values used by the tests as ITF8: small values in up to two bytes, -1 in five bytes.
+         */
+        private void writeItf8(ByteArrayOutputStream target, int value) {
+            if (value < 0) {
+                target.write(0xf0 | (value >>> 28));
+                target.write(value >>> 20);
+                target.write(value >>> 12);
+                target.write(value >>> 4);
+                target.write(value & 0x0f);
+            } else if (value < 0x80) {
+                target.write(value);
+            } else if (value < 0x4000) {
+                target.write(0x80 | value >> 8);
+                target.write(value);
+            } else {
+                target.write(0xc0 | value >> 16);
+                target.write(value >> 8);
+                target.write(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(JUnit4.class)
+public class DuplicateReadNameDetectorTest {
+
+    @Test
+    public void whenNamesAreUnique_ThenNoDuplicatesAreConfirmed() {
+        final DuplicateReadNameDetector detector = new DuplicateReadNameDetector(100_000, 0.001, 1024 * 1024, 1000);
+        for (int i = 0; i < 100_000; i++) {
+            add(detector, "read" + i);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            confirm(detector, "read" + i);
+        }
+
+        assertThat(detector.getDuplicates().isEmpty(), is(true));
+    }
+
+    @Test
+    public void whenBloomFilterIsTooSmall_ThenOnlyRealDuplicatesAreConfirmed() {
+        final DuplicateReadNameDetector detector = new DuplicateReadNameDetector(100_000, 0.001, 64, 1_000_000);
+        for (int i = 0; i < 10_000; i++) {
+            add(detector, "read" + i);
+        }
+        add(detector, "read42");
+        add(detector, "read42");
+        add(detector, "read7");
+        for (int i = 0; i < 10_000; i++) {
+            confirm(detector, "read" + i);
+        }
+        confirm(detector, "read42");
+        confirm(detector, "read42");
+        confirm(detector, "read7");
+
+        final Map<String, Integer> duplicates = detector.getDuplicates();
+
+        assertThat(detector.getCandidateCount() > 3, is(true));
+        assertThat(duplicates.size(), is(equalTo(2)));
+        assertThat(duplicates.get("read42"), is(equalTo(3)));
+        assertThat(duplicates.get("read7"), is(equalTo(2)));
+    }
+
+    @Test
+    public void whenThereAreMoreCandidatesThanTheLimit_ThenTheLimitIsReported() {
+        final DuplicateReadNameDetector detector = new DuplicateReadNameDetector(10, 0.001, 1024, 2);
+        for (int i = 0; i < 3; i++) {
+            add(detector, "read1");
+            add(detector, "read1");
+        }
+
+        assertThat(detector.getCandidateCount(), is(equalTo(5L)));
+        assertThat(detector.isCandidateLimitReached(), is(true));
+    }
+
+    private static void add(DuplicateReadNameDetector detector, String name) {
+        final byte[] bytes = ("@" + name).getBytes(StandardCharsets.US_ASCII);
+        detector.add(bytes, 1, bytes.length - 1);
+    }
+
+    private static void confirm(DuplicateReadNameDetector detector, String name) {
+        final byte[] bytes = ("@" + name).getBytes(StandardCharsets.US_ASCII);
+        detector.confirm(bytes, 1, bytes.length - 1);
+    }
+}
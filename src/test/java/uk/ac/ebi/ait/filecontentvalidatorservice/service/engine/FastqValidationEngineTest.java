@@ -0,0 +1,217 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.DuplicateReadNameConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.ReadPairingConfig;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+import uk.ac.ebi.ena.webin.cli.validator.response.ReadsValidationResponse;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationHelper.getResourceFile;
+
+@RunWith(JUnit4.class)
+public class FastqValidationEngineTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final FastqValidationEngine engine =
+            new FastqValidationEngine(new DataFileStreams(), createDuplicateReadNameConfig(), createReadPairingConfig());
+    private final RecordingSink reportSink = new RecordingSink();
+
+    @Test
+    public void whenFastqFileIsValid_ThenValidationPasses() {
+        final ValidationResponse response =
+                engine.validate(Collections.singletonList(getResourceFile("reads/valid.fastq.gz")), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        assertThat(reportSink.getErrors().isEmpty(), is(true));
+    }
+
+    @Test
+    public void whenFileIsNotFastq_ThenValidationFailsWithNoValidReads() {
+        final ValidationResponse response =
+                engine.validate(Collections.singletonList(getResourceFile("reads/invalid.fastq.gz")), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        assertThat(reportSink.getErrors(), hasItem(String.format(FastqValidationEngine.INVALID_NAME_LINE, 1)));
+        assertThat(reportSink.getErrors(), hasItem(FastqValidationEngine.NO_VALID_READS));
+    }
+
+    @Test
+    public void whenRecordsAreMalformed_ThenEveryRecordIsReportedWithItsLine() throws IOException {
+        final File file = writeFile(
+                "@read1\nACGTN\n+read1\nIIIII\n"
+                + "@read2\nACXT\n+\nIIII\n"
+                + "@read3\nACGT\n+read4\nIIII\n"
+                + "@read5\nACGT\n+\nIII\n"
+                + "@read6\nACGT\n+\nII I\n"
+                + "@read7\nACGT\n");
+
+        final ValidationResponse response = engine.validate(Collections.singletonList(file), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        assertThat(reportSink.getErrors().size(), is(equalTo(5)));
+        assertThat(reportSink.getErrors(), hasItem(String.format(FastqValidationEngine.INVALID_BASE, 6, 'X')));
+        assertThat(reportSink.getErrors(), hasItem(String.format(FastqValidationEngine.SEPARATOR_NAME_MISMATCH, 11)));
+        assertThat(reportSink.getErrors(), hasItem(String.format(FastqValidationEngine.QUALITY_LENGTH_MISMATCH, 16, 3, 4)));
+        assertThat(reportSink.getErrors(), hasItem(String.format(FastqValidationEngine.INVALID_QUALITY, 20, ' ')));
+        assertThat(reportSink.getErrors(), hasItem(String.format(FastqValidationEngine.TRUNCATED_RECORD, 22)));
+        assertThat(reportSink.getInfos(), hasItem(String.format(FastqValidationEngine.READ_COUNT, 1)));
+    }
+
+    @Test
+    public void whenFileHasWindowsLineEndsAndBlankLines_ThenValidationPasses() throws IOException {
+        final File file = writeFile("@read1\r\nacgtn\r\n+\r\n!!~~I\r\n\r\n@read2\r\nACGT\r\n+read2\r\nIIII\r\n");
+
+        final ValidationResponse response = engine.validate(Collections.singletonList(file), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        assertThat(reportSink.getInfos(), hasItem(String.format(FastqValidationEngine.READ_COUNT, 2)));
+    }
+
+    @Test
+    public void whenReadNamesAreDuplicated_ThenDuplicatesAreReportedWithTheirCount() throws IOException {
+        final File file = writeFile(
+                "@read1 1:N\nACGT\n+\nIIII\n"
+                + "@read2\nACGT\n+\nIIII\n"
+                + "@read1 2:N\nACGT\n+\nIIII\n"
+                + "@read3\nACGT\n+\nIIII\n"
+                + "@read1\nACGT\n+\nIIII\n");
+
+        final ValidationResponse response = engine.validate(Collections.singletonList(file), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        assertThat(reportSink.getErrors().size(), is(equalTo(1)));
+        assertThat(reportSink.getErrors(), hasItem(String.format(FastqValidationEngine.DUPLICATE_READ_NAME, 3, "read1")));
+        assertThat(reportSink.getInfos(), hasItem(String.format(FastqValidationEngine.POSSIBLE_DUPLICATES, true)));
+    }
+
+    @Test
+    public void whenReadNameIsEmpty_ThenDuplicatesAfterItAreStillFound() throws IOException {
+        final File file = writeFile(
+                "@ \n"
+                + "@read1\nACGT\n+\nIIII\n"
+                + "@read1\nACGT\n+\nIIII\n"
+                + "@read1\nACGT\n+\nIIII\n");
+
+        final ValidationResponse response = engine.validate(Collections.singletonList(file), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        assertThat(reportSink.getErrors().size(), is(equalTo(2)));
+        assertThat(reportSink.getErrors(), hasItem(String.format(FastqValidationEngine.EMPTY_READ_NAME, 1)));
+        assertThat(reportSink.getErrors(), hasItem(String.format(FastqValidationEngine.DUPLICATE_READ_NAME, 3, "read1")));
+    }
+
+    @Test
+    public void whenFileIsGzipped_ThenReadCountIsEstimatedFromItsInflatedSize() throws IOException {
+        final Random random = new Random(42);
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            content.append("@read").append(i).append('\n');
+            for (int j = 0; j < 100; j++) {
+                content.append("ACGT".charAt(random.nextInt(4)));
+            }
+            content.append("\n+\n");
+            for (int j = 0; j < 100; j++) {
+                content.append((char) ('!' + random.nextInt(41)));
+            }
+            content.append('\n');
+        }
+        final File file = temporaryFolder.newFile("reads.fastq.gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write(content.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+
+        final long readCount = engine.estimateReadCount(file);
+
+        assertThat(file.length() > 1024 * 1024, is(true));
+        assertThat(readCount > content.length() / 64 * 9 / 10, is(true));
+        assertThat(readCount < content.length() / 64 * 11 / 10, is(true));
+    }
+
+    @Test
+    public void whenPairedFilesAreInTheSameOrder_ThenReadsArePaired() {
+        final ValidationResponse response = engine.validate(Arrays.asList(
+                getResourceFile("reads/valid_paired_1.fastq.gz"), getResourceFile("reads/valid_paired_2.fastq.gz")),
+                reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        assertThat(((ReadsValidationResponse) response).isPaired(), is(true));
+    }
+
+    @Test
+    public void whenMatesFollowEachOtherInOneFile_ThenReadsArePaired() {
+        final ValidationResponse response = engine.validate(
+                Collections.singletonList(getResourceFile("reads/valid_paired_single_fastq.gz")), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        assertThat(((ReadsValidationResponse) response).isPaired(), is(true));
+    }
+
+    @Test
+    public void whenPairedFilesAreInDifferentOrder_ThenReadsArePaired() throws IOException {
+        final File file1 = writeFile("reads_1.fastq", "@r1/1\nACGT\n+\nIIII\n@r2/1\nACGT\n+\nIIII\n@r3/1\nACGT\n+\nIIII\n");
+        final File file2 = writeFile("reads_2.fastq", "@r3/2\nACGT\n+\nIIII\n@r1/2\nACGT\n+\nIIII\n@r2/2\nACGT\n+\nIIII\n");
+
+        final ValidationResponse response = engine.validate(Arrays.asList(file1, file2), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        assertThat(((ReadsValidationResponse) response).isPaired(), is(true));
+    }
+
+    @Test
+    public void whenPairedFilesDoNotShareReads_ThenPairingErrorIsReported() throws IOException {
+        final File file1 = writeFile("reads_1.fastq", "@r1\nACGT\n+\nIIII\n@r2\nACGT\n+\nIIII\n");
+        final File file2 = writeFile("reads_2.fastq", "@r3\nACGT\n+\nIIII\n@r4\nACGT\n+\nIIII\n@r5\nACGT\n+\nIIII\n");
+
+        final ValidationResponse response = engine.validate(Arrays.asList(file1, file2), reportSink);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        assertThat(((ReadsValidationResponse) response).isPaired(), is(false));
+        assertThat(reportSink.getErrors(), hasItem(FastqValidationEngine.LESS_THAN_MIN_PAIRED_READS));
+    }
+
+    private static ReadPairingConfig createReadPairingConfig() {
+        final ReadPairingConfig readPairingConfig = new ReadPairingConfig();
+        readPairingConfig.setMaxUnmatchedNames(1000);
+        return readPairingConfig;
+    }
+
+    private static DuplicateReadNameConfig createDuplicateReadNameConfig() {
+        final DuplicateReadNameConfig duplicateReadNameConfig = new DuplicateReadNameConfig();
+        duplicateReadNameConfig.setEnabled(true);
+        duplicateReadNameConfig.setFalsePositiveRate(0.001);
+        duplicateReadNameConfig.setMaxMemoryMB(1);
+        duplicateReadNameConfig.setMaxCandidates(1000);
+        return duplicateReadNameConfig;
+    }
+
+    private File writeFile(String content) throws IOException {
+        return writeFile("reads.fastq", content);
+    }
+
+    private File writeFile(String fileName, String content) throws IOException {
+        final File file = temporaryFolder.newFile(fileName);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+}
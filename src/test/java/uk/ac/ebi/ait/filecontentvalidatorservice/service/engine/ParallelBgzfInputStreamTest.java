@@ -0,0 +1,114 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationHelper.getResourceFile;
+
+@RunWith(JUnit4.class)
+public class ParallelBgzfInputStreamTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ExecutorService inflateExecutor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        inflateExecutor.shutdownNow();
+    }
+
+    @Test
+    public void whenBgzfHasManyBlocks_ThenContentIsReadInOrder() throws IOException {
+        final byte[] content = createContent(5_000_000);
+
+        final byte[] inflated = readAll(new ParallelBgzfInputStream(
+                new ByteArrayInputStream(BgzfTestFiles.bgzf(content)), inflateExecutor, 2));
+
+        assertThat(Arrays.equals(inflated, content), is(true));
+    }
+
+    @Test
+    public void whenBamFileIsInflatedInParallel_ThenContentMatchesSequentialInflate() throws IOException {
+        final File bamFile = getResourceFile("reads/valid.bam");
+
+        final byte[] parallel = readAll(new ParallelBgzfInputStream(
+                new FileInputStream(bamFile), inflateExecutor, 8));
+        final byte[] sequential = readAll(new GZIPInputStream(new FileInputStream(bamFile)));
+
+        assertThat(Arrays.equals(parallel, sequential), is(true));
+    }
+
+    @Test(expected = ZipException.class)
+    public void whenBlockIsCorrupted_ThenReadingFails() throws IOException {
+        final byte[] compressed = BgzfTestFiles.bgzf(createContent(200_000));
+        compressed[compressed.length / 2] ^= 0x55;
+
+        readAll(new ParallelBgzfInputStream(new ByteArrayInputStream(compressed), inflateExecutor, 2));
+    }
+
+    @Test(expected = EOFException.class)
+    public void whenBgzfIsTruncated_ThenReadingFails() throws IOException {
+        final byte[] compressed = BgzfTestFiles.bgzf(createContent(200_000));
+
+        readAll(new ParallelBgzfInputStream(new ByteArrayInputStream(
+                Arrays.copyOf(compressed, compressed.length - 100)), inflateExecutor, 2));
+    }
+
+    @Test
+    public void whenFileIsBgzf_ThenDataFileStreamsInflateItInParallel() throws IOException {
+        final File bgzfFile = temporaryFolder.newFile("reads.fastq.gz");
+        Files.write(bgzfFile.toPath(), BgzfTestFiles.bgzf(createContent(100_000)));
+        final DataFileStreams dataFileStreams = new DataFileStreams(inflateExecutor, 8);
+
+        try (InputStream bgzfStream = dataFileStreams.open(bgzfFile);
+             InputStream gzipStream = dataFileStreams.open(getResourceFile("reads/valid.fastq.gz"))) {
+            assertThat(bgzfStream, is(instanceOf(ParallelBgzfInputStream.class)));
+            assertThat(gzipStream, is(instanceOf(GZIPInputStream.class)));
+        }
+    }
+
+    private static byte[] createContent(int size) {
+        final Random random = new Random(42);
+        final byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) "ACGT\n".charAt(random.nextInt(5));
+        }
+        return content;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[7_777];
+            int read;
+            while ((read = stream.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(JUnit4.class)
+public class ReadPairingTest {
+
+    @Test
+    public void whenMatesAreInTheSameOrder_ThenEveryReadIsPaired() {
+        final ReadPairing readPairing = new ReadPairing(0);
+
+        addMates(readPairing, "read1/1", "read1/2");
+        addMates(readPairing, "read2", "read2");
+
+        assertThat(readPairing.getPairCount(), is(equalTo(2L)));
+        assertThat(readPairing.getPairedFraction(), is(equalTo(1.0)));
+        assertThat(readPairing.isUnmatchedLimitReached(), is(false));
+    }
+
+    @Test
+    public void whenMatesAreOutOfOrder_ThenTheyArePairedWhenTheirMateTurnsUp() {
+        final ReadPairing readPairing = new ReadPairing(10);
+
+        addMates(readPairing, "read1", "read2");
+        addMates(readPairing, "read2", "read3");
+        addMates(readPairing, "read3", "read1");
+        addUnmatched(readPairing, 1, "read4");
+
+        assertThat(readPairing.getReadCount(), is(equalTo(7L)));
+        assertThat(readPairing.getPairCount(), is(equalTo(3L)));
+    }
+
+    @Test
+    public void whenTooManyReadsAreUnmatched_ThenTheLimitIsReported() {
+        final ReadPairing readPairing = new ReadPairing(2);
+
+        addMates(readPairing, "read1", "read2");
+        addMates(readPairing, "read3", "read4");
+        addMates(readPairing, "read4", "read3");
+
+        assertThat(readPairing.getPairCount(), is(equalTo(0L)));
+        assertThat(readPairing.isUnmatchedLimitReached(), is(true));
+    }
+
+    @Test
+    public void whenMatesFollowEachOtherInOneFile_ThenTheyArePaired() {
+        final ReadPairing readPairing = new ReadPairing(0);
+
+        for (String name : new String[]{"read1/1", "read1/2", "read2/1", "read3/1", "read3/2", "read3/1"}) {
+            final byte[] bytes = name.getBytes(StandardCharsets.US_ASCII);
+            readPairing.addSingle(bytes, 0, bytes.length);
+        }
+
+        assertThat(readPairing.getReadCount(), is(equalTo(6L)));
+        assertThat(readPairing.getPairCount(), is(equalTo(2L)));
+    }
+
+    private static void addMates(ReadPairing readPairing, String name1, String name2) {
+        final byte[] bytes1 = name1.getBytes(StandardCharsets.US_ASCII);
+        final byte[] bytes2 = name2.getBytes(StandardCharsets.US_ASCII);
+        readPairing.addMates(bytes1, 0, bytes1.length, bytes2, 0, bytes2.length);
+    }
+
+    private static void addUnmatched(ReadPairing readPairing, int mate, String name) {
+        final byte[] bytes = name.getBytes(StandardCharsets.US_ASCII);
+        readPairing.addUnmatched(mate, bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,34 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.report.ValidationReportSink;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the messages the built-in engines report, for the tests to check.
+ */
+public class RecordingSink implements ValidationReportSink {
+
+    private final List<String> errors = new ArrayList<>();
+    private final List<String> infos = new ArrayList<>();
+
+    @Override
+    public void addError(File dataFile, String message) {
+        errors.add(message);
+    }
+
+    @Override
+    public void addInfo(File dataFile, String message) {
+        infos.add(message);
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public List<String> getInfos() {
+        return infos;
+    }
+}
@@ -0,0 +1,168 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.engine;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(JUnit4.class)
+public class VcfValidationEngineTest {
+
+    private static final String HEADER = "##fileformat=VCFv4.2\n"
+            + "##contig=<ID=1,length=249250621>\n"
+            + "##INFO=<ID=DP,Number=1,Type=Integer,Description=\"Total depth\">\n"
+            + "##INFO=<ID=AF,Number=A,Type=Float,Description=\"Allele frequency\">\n"
+            + "##INFO=<ID=DB,Number=0,Type=Flag,Description=\"dbSNP membership, build 129\">\n"
+            + "##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n"
+            + "##FORMAT=<ID=GQ,Number=1,Type=Integer,Description=\"Genotype quality\">\n"
+            + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tNA00001\tNA00002\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ExecutorService inflateExecutor = Executors.newFixedThreadPool(4);
+    private final VcfValidationEngine engine = new VcfValidationEngine(new DataFileStreams());
+    private final RecordingSink reportSink = new RecordingSink();
+
+    @After
+    public void tearDown() {
+        inflateExecutor.shutdownNow();
+    }
+
+    @Test
+    public void whenVcfFileIsValid_ThenValidationPasses() throws IOException {
+        final ValidationResponse response = validate(HEADER
+                + "1\t14370\trs6054257\tG\tA\t29\tPASS\tDP=14;AF=0.5;DB\tGT:GQ\t0|0:48\t1|0:48\n"
+                + "1\t17330\t.\tT\tA,<DEL>\t3\tq10\tDP=11;AF=0.017,1e-3\tGT:GQ\t0/1:3\t./.:.\n"
+                + "2\t1110696\trs6040355\tA\tG,T\t67\tPASS\tAF=.\tGT\t1|2\t2/2\n");
+
+        assertThat(reportSink.getErrors(), is(equalTo(Collections.emptyList())));
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        assertThat(reportSink.getInfos(), hasItem(String.format(VcfValidationEngine.VARIANT_COUNT, 3)));
+    }
+
+    @Test
+    public void whenBgzfVcfFileIsInflatedInParallel_ThenEveryVariantIsCounted() throws IOException {
+        final StringBuilder vcf = new StringBuilder(HEADER);
+        for (int i = 1; i <= 20_000; i++) {
+            vcf.append("1\t").append(i).append("\t.\tA\tC\t50\tPASS\tDP=").append(i % 100).append("\tGT:GQ\t0/1:30\t1/1:40\n");
+        }
+        final File file = temporaryFolder.newFile("variants.vcf.gz");
+        Files.write(file.toPath(), BgzfTestFiles.bgzf(vcf.toString().getBytes(StandardCharsets.US_ASCII), 10_000));
+        final VcfValidationEngine parallelEngine = new VcfValidationEngine(new DataFileStreams(inflateExecutor, 4));
+
+        final ValidationResponse response = parallelEngine.validate(Collections.singletonList(file), reportSink);
+
+        assertThat(reportSink.getErrors(), is(equalTo(Collections.emptyList())));
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        assertThat(reportSink.getInfos(), hasItem(String.format(VcfValidationEngine.VARIANT_COUNT, 20_000)));
+    }
+
+    @Test
+    public void whenFileFormatLineIsMissing_ThenValidationFails() throws IOException {
+        final ValidationResponse response = validate(HEADER.substring(HEADER.indexOf('\n') + 1));
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        assertThat(reportSink.getErrors(), hasItem(VcfValidationEngine.INVALID_FILE_FORMAT));
+    }
+
+    @Test
+    public void whenHeaderDefinitionIsInvalid_ThenErrorIsReported() throws IOException {
+        validate("##fileformat=VCFv4.2\n"
+                + "##INFO=<ID=DP,Number=x,Type=Integer,Description=\"Total depth\">\n"
+                + "##FORMAT=<ID=GQ,Number=1,Type=Flag,Description=\"Genotype quality\">\n"
+                + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n"
+                + "1\t100\t.\tA\tC\t.\t.\t.\n");
+
+        assertThat(reportSink.getErrors(), is(equalTo(Arrays.asList(
+                String.format(VcfValidationEngine.INVALID_META_LINE, 2, "INFO", "invalid Number of DP"),
+                String.format(VcfValidationEngine.INVALID_META_LINE, 3, "FORMAT", "invalid Type of GQ")))));
+    }
+
+    @Test
+    public void whenHeaderLineIsMissing_ThenValidationFails() throws IOException {
+        validate("##fileformat=VCFv4.2\n1\t100\t.\tA\tC\t.\t.\t.\n");
+
+        assertThat(reportSink.getErrors(), hasItem(VcfValidationEngine.MISSING_HEADER_LINE));
+    }
+
+    @Test
+    public void whenColumnsAreInvalid_ThenFirstErrorOfEveryLineIsReported() throws IOException {
+        validate(HEADER
+                + "1\t100\t.\tA\tC\t.\t.\t.\tGT\t0/1\n"
+                + "1\tx\t.\tA\tC\t.\t.\t.\tGT\t0/1\t0/1\n"
+                + "1\t300\t.\tAZ\tC\t.\t.\t.\tGT\t0/1\t0/1\n"
+                + "1\t400\t.\tA\tC+\t.\t.\t.\tGT\t0/1\t0/1\n"
+                + "1\t500\t.\tA\tC\tlow\t.\t.\tGT\t0/1\t0/1\n"
+                + "1\t600\t.\tA\tC\t.\t.\tXX=1\tGT\t0/1\t0/1\n"
+                + "1\t700\t.\tA\tC\t.\t.\tDP=a\tGT\t0/1\t0/1\n"
+                + "1\t800\t.\tA\tC\t.\t.\tAF=0.1,0.2\tGT\t0/1\t0/1\n"
+                + "1\t900\t.\tA\tC\t.\t.\tDB=1\tGT\t0/1\t0/1\n"
+                + "1\t1000\t.\tA\tC\t.\t.\t.\tGQ:GT\t1:0/1\t1:0/1\n"
+                + "1\t1100\t.\tA\tC\t.\t.\t.\tGT:XY\t0/1:1\t0/1:1\n"
+                + "1\t1200\t.\tA\tC\t.\t.\t.\tGT\t0/2\t0/1\n"
+                + "1\t1300\t.\tA\tC\t.\t.\t.\tGT:GQ\t0/1:x\t0/1:1\n"
+                + "1\t1400\t.\tA\tC\t.\t.\t.\tGT\t0/1:1\t0/1\n"
+                + "1\t1500\t.\tA\tC\t.\t.\t.\tGT\t0/1\t0/1\n");
+
+        assertThat(reportSink.getErrors(), is(equalTo(Arrays.asList(
+                String.format(VcfValidationEngine.COLUMN_COUNT_MISMATCH, 9, 10, 11),
+                String.format(VcfValidationEngine.INVALID_COLUMN, 10, "POS"),
+                String.format(VcfValidationEngine.INVALID_COLUMN, 11, "REF"),
+                String.format(VcfValidationEngine.INVALID_COLUMN, 12, "ALT"),
+                String.format(VcfValidationEngine.INVALID_COLUMN, 13, "QUAL"),
+                String.format(VcfValidationEngine.UNDEFINED_INFO, 14, "XX"),
+                String.format(VcfValidationEngine.INVALID_INFO_VALUE, 15, "DP"),
+                String.format(VcfValidationEngine.INVALID_INFO_VALUE, 16, "AF"),
+                String.format(VcfValidationEngine.INVALID_INFO_VALUE, 17, "DB"),
+                String.format(VcfValidationEngine.GT_NOT_FIRST, 18),
+                String.format(VcfValidationEngine.UNDEFINED_FORMAT, 19, "XY"),
+                String.format(VcfValidationEngine.INVALID_GENOTYPE, 20, 1),
+                String.format(VcfValidationEngine.INVALID_FORMAT_VALUE, 21, "GQ", 1),
+                String.format(VcfValidationEngine.INVALID_SAMPLE, 22, 1)))));
+    }
+
+    @Test
+    public void whenRecordsAreNotSorted_ThenSortOrderErrorsAreReported() throws IOException {
+        validate(HEADER
+                + "1\t200\t.\tA\tC\t.\t.\t.\tGT\t0/1\t0/1\n"
+                + "1\t100\t.\tA\tC\t.\t.\t.\tGT\t0/1\t0/1\n"
+                + "2\t100\t.\tA\tC\t.\t.\t.\tGT\t0/1\t0/1\n"
+                + "1\t300\t.\tA\tC\t.\t.\t.\tGT\t0/1\t0/1\n");
+
+        assertThat(reportSink.getErrors(), is(equalTo(Arrays.asList(
+                String.format(VcfValidationEngine.UNSORTED_POSITION, 10, 100, 200, "1"),
+                String.format(VcfValidationEngine.UNSORTED_CONTIG, 12, "1")))));
+    }
+
+    @Test
+    public void whenFileHasNoVariants_ThenValidationFailsWithNoVariants() throws IOException {
+        final ValidationResponse response = validate(HEADER);
+
+        assertThat(response.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        assertThat(reportSink.getErrors(), is(equalTo(Collections.singletonList(VcfValidationEngine.NO_VARIANTS))));
+    }
+
+    private ValidationResponse validate(String content) throws IOException {
+        final File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+        return engine.validate(Collections.singletonList(file), reportSink);
+    }
+}
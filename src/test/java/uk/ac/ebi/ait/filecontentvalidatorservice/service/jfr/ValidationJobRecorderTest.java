@@ -0,0 +1,111 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.FileParameters;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.JfrConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(JUnit4.class)
+public class ValidationJobRecorderTest {
+
+    private static final String SUBMISSION_UUID = "submission-1";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ValidationJobRecorder validationJobRecorder;
+
+    @After
+    public void tearDown() {
+        validationJobRecorder.stop();
+    }
+
+    @Test
+    public void whenJobIsSlow_ThenItsRecordingIsKeptWithItsEvents() throws IOException {
+        File recordingDir = new File(temporaryFolder.getRoot(), "recordings");
+        validationJobRecorder = createValidationJobRecorder(true, 0, recordingDir);
+        List<FileParameters> filesData = Arrays.asList(
+                createFileParameters("file-1", 100), createFileParameters("file-2", 20));
+
+        ValidationJobEvent jobEvent = validationJobRecorder.begin(SUBMISSION_UUID, "FASTQ", filesData);
+        validationJobRecorder.end(jobEvent, "VALIDATION_SUCCESS");
+
+        File[] recordingFiles = recordingDir.listFiles();
+        assertThat(recordingFiles.length, is(equalTo(1)));
+        assertThat(recordingFiles[0].getName().startsWith(SUBMISSION_UUID), is(true));
+
+        List<RecordedEvent> jobEvents = RecordingFile.readAllEvents(recordingFiles[0].toPath()).stream()
+                .filter(event -> event.getEventType().getName().equals("uk.ac.ebi.ait.filecontentvalidatorservice.ValidationJob"))
+                .collect(Collectors.toList());
+        assertThat(jobEvents.size(), is(equalTo(1)));
+        assertThat(jobEvents.get(0).getString("submissionUUID"), is(equalTo(SUBMISSION_UUID)));
+        assertThat(jobEvents.get(0).getString("fileUUID"), is(equalTo("file-1,file-2")));
+        assertThat(jobEvents.get(0).getString("fileType"), is(equalTo("FASTQ")));
+        assertThat(jobEvents.get(0).getLong("bytes"), is(equalTo(120L)));
+        assertThat(jobEvents.get(0).getString("status"), is(equalTo("VALIDATION_SUCCESS")));
+    }
+
+    @Test
+    public void whenJobIsFast_ThenItsRecordingIsNotKept() throws IOException {
+        File recordingDir = new File(temporaryFolder.getRoot(), "recordings");
+        validationJobRecorder = createValidationJobRecorder(true, 3600, recordingDir);
+
+        ValidationJobEvent jobEvent = validationJobRecorder.begin(SUBMISSION_UUID, "BAM",
+                Arrays.asList(createFileParameters("file-1", 10)));
+        validationJobRecorder.end(jobEvent, ValidationJobRecorder.STATUS_FAILED);
+
+        assertThat(recordingDir.exists(), is(false));
+    }
+
+    @Test
+    public void whenRecordingIsDisabled_ThenNoRecordingIsKept() throws IOException {
+        File recordingDir = new File(temporaryFolder.getRoot(), "recordings");
+        validationJobRecorder = createValidationJobRecorder(false, 0, recordingDir);
+
+        ValidationJobEvent jobEvent = validationJobRecorder.begin(SUBMISSION_UUID, "BAM",
+                Arrays.asList(createFileParameters("file-1", 10)));
+        validationJobRecorder.end(jobEvent, "VALIDATION_ERROR");
+
+        assertThat(recordingDir.exists(), is(false));
+    }
+
+    private ValidationJobRecorder createValidationJobRecorder(boolean enabled, int slowJobSeconds, File recordingDir) {
+        JfrConfig jfrConfig = new JfrConfig();
+        jfrConfig.setEnabled(enabled);
+        jfrConfig.setSettings("default");
+        jfrConfig.setMaxAgeMinutes(10);
+        jfrConfig.setSlowJobSeconds(slowJobSeconds);
+        jfrConfig.setRecordingDir(recordingDir);
+
+        ValidationJobRecorder recorder = new ValidationJobRecorder(jfrConfig);
+        recorder.start();
+        return recorder;
+    }
+
+    private FileParameters createFileParameters(String fileUUID, int size) throws IOException {
+        File file = temporaryFolder.newFile(fileUUID + ".fastq");
+        Files.write(file.toPath(), new byte[size]);
+
+        FileParameters fileParameters = new FileParameters();
+        fileParameters.setFileUUID(fileUUID);
+        fileParameters.setFilePath(file.getPath());
+        return fileParameters;
+    }
+}
@@ -0,0 +1,121 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(JUnit4.class)
+public class ValidationMetricsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ValidationMetrics validationMetrics = new ValidationMetrics(meterRegistry);
+
+    @Test
+    public void whenPhasesAreTimed_ThenTheyAreRecordedByPhaseAndFileType() {
+        validationMetrics.stop(validationMetrics.start(), ValidationMetrics.PHASE_VALIDATION, "BAM");
+        validationMetrics.stop(validationMetrics.start(), ValidationMetrics.PHASE_VALIDATION, "BAM");
+        validationMetrics.stop(validationMetrics.start(), ValidationMetrics.PHASE_PUBLISH, "FASTQ");
+
+        assertThat(getPhaseTimer(ValidationMetrics.PHASE_VALIDATION, "BAM").count(), is(equalTo(2L)));
+        assertThat(getPhaseTimer(ValidationMetrics.PHASE_PUBLISH, "FASTQ").count(), is(equalTo(1L)));
+        assertThat(meterRegistry.find(ValidationMetrics.PHASE_TIMER)
+                .tags(ValidationMetrics.PHASE_TAG, ValidationMetrics.PHASE_PUBLISH, ValidationMetrics.FILE_TYPE_TAG, "BAM")
+                .timer(), is(equalTo(null)));
+    }
+
+    @Test
+    public void whenJobsAreRecorded_ThenTheyAreCountedByStatus() {
+        validationMetrics.recordJob("CRAM", ValidationResponse.status.VALIDATION_SUCCESS);
+        validationMetrics.recordJob("CRAM", ValidationResponse.status.VALIDATION_ERROR);
+        validationMetrics.recordJob("CRAM", ValidationResponse.status.VALIDATION_ERROR);
+
+        assertThat(meterRegistry.get(ValidationMetrics.JOB_COUNTER)
+                .tags(ValidationMetrics.STATUS_TAG, ValidationResponse.status.VALIDATION_ERROR.name())
+                .counter().count(), is(equalTo(2.0)));
+    }
+
+    @Test
+    public void whenFilesAreValidated_ThenTheirBytesSizesAndThroughputAreRecorded() throws IOException {
+        File smallFile = createFile("small.fastq", 1000);
+        File largeFile = createFile("large.fastq", 2 * 1024 * 1024);
+
+        validationMetrics.recordValidatedFiles("FASTQ", Arrays.asList(smallFile, largeFile), TimeUnit.SECONDS.toNanos(2));
+
+        long bytes = smallFile.length() + largeFile.length();
+        assertThat(meterRegistry.get(ValidationMetrics.BYTES_COUNTER).tags(ValidationMetrics.FILE_TYPE_TAG, "FASTQ")
+                .counter().count(), is(equalTo((double) bytes)));
+        assertThat(meterRegistry.get(ValidationMetrics.THROUGHPUT_SUMMARY).summary().totalAmount(),
+                is(equalTo(bytes / 2.0)));
+
+        DistributionSummary fileSizes = meterRegistry.get(ValidationMetrics.FILE_SIZE_SUMMARY).summary();
+        CountAtBucket[] buckets = fileSizes.takeSnapshot().histogramCounts();
+        assertThat(fileSizes.count(), is(equalTo(2L)));
+        assertThat(buckets[0].bucket(), is(equalTo(1024.0 * 1024)));
+        assertThat(buckets[0].count(), is(equalTo(1.0)));
+        assertThat(buckets[1].count(), is(equalTo(2.0)));
+    }
+
+    @Test
+    public void whenFileTypeIsMissing_ThenItIsTaggedAsUnknown() {
+        validationMetrics.recordJob(null, ValidationResponse.status.VALIDATION_SUCCESS);
+
+        assertThat(meterRegistry.get(ValidationMetrics.JOB_COUNTER).counter().getId()
+                .getTag(ValidationMetrics.FILE_TYPE_TAG), is(equalTo("unknown")));
+    }
+
+    @Test
+    public void whenCacheLookupsAreRecorded_ThenHitsAndMissesAreCounted() {
+        validationMetrics.recordCacheLookup(true);
+        validationMetrics.recordCacheLookup(false);
+        validationMetrics.recordCacheLookup(true);
+
+        assertThat(meterRegistry.get(ValidationMetrics.CACHE_COUNTER).tags(ValidationMetrics.RESULT_TAG, "hit")
+                .counter().count(), is(equalTo(2.0)));
+        assertThat(meterRegistry.get(ValidationMetrics.CACHE_COUNTER).tags(ValidationMetrics.RESULT_TAG, "miss")
+                .counter().count(), is(equalTo(1.0)));
+    }
+
+    @Test
+    public void whenStartupIsRecorded_ThenItIsTaggedWithClassDataSharing() {
+        validationMetrics.recordStartup(1500, true);
+
+        Timer startupTimer = meterRegistry.get(ValidationMetrics.STARTUP_TIMER)
+                .tags(ValidationMetrics.CLASS_DATA_SHARING_TAG, "true")
+                .timer();
+        assertThat(startupTimer.count(), is(equalTo(1L)));
+        assertThat(startupTimer.totalTime(TimeUnit.MILLISECONDS), is(equalTo(1500.0)));
+    }
+
+    private Timer getPhaseTimer(String phase, String fileType) {
+        return meterRegistry.get(ValidationMetrics.PHASE_TIMER)
+                .tags(ValidationMetrics.PHASE_TAG, phase, ValidationMetrics.FILE_TYPE_TAG, fileType)
+                .timer();
+    }
+
+    private File createFile(String name, int size) throws IOException {
+        File file = temporaryFolder.newFile(name);
+        Files.write(file.toPath(), new byte[size]);
+        return file;
+    }
+}
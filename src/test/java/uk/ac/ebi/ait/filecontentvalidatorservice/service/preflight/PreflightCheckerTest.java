@@ -0,0 +1,137 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.preflight;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.PreflightConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.FileType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationHelper.getResourceFile;
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.BgzfTestFiles.bgzf;
+
+@RunWith(JUnit4.class)
+public class PreflightCheckerTest {
+
+    private static final String FASTQ = "@read1\nACGT\n+\nFFFF\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private PreflightChecker preflightChecker;
+
+    @Before
+    public void setUp() {
+        PreflightConfig preflightConfig = new PreflightConfig();
+        preflightConfig.setEnabled(true);
+
+        preflightChecker = new PreflightChecker(preflightConfig);
+    }
+
+    @Test
+    public void whenTestFilesMatchTheirFileType_ThenTheyPass() {
+        assertThat(preflightChecker.check(getResourceFile("reads/valid.fastq.gz"), FileType.FASTQ), is(equalTo(Optional.empty())));
+        assertThat(preflightChecker.check(getResourceFile("reads/valid_paired_1.fastq.gz"), FileType.FASTQ), is(equalTo(Optional.empty())));
+        assertThat(preflightChecker.check(getResourceFile("reads/invalid_not_paired_1.fastq.gz"), FileType.FASTQ), is(equalTo(Optional.empty())));
+        assertThat(preflightChecker.check(getResourceFile("reads/valid.bam"), FileType.BAM), is(equalTo(Optional.empty())));
+        assertThat(preflightChecker.check(getResourceFile("reads/invalid.bam"), FileType.BAM), is(equalTo(Optional.empty())));
+        assertThat(preflightChecker.check(getResourceFile("reads/valid.cram"), FileType.CRAM), is(equalTo(Optional.empty())));
+        assertThat(preflightChecker.check(getResourceFile("reads/invalid.cram"), FileType.CRAM), is(equalTo(Optional.empty())));
+    }
+
+    @Test
+    public void whenContentIsOfAnotherFileType_ThenFileIsMislabelled() {
+        assertThat(preflightChecker.check(getResourceFile("reads/valid.bam"), FileType.FASTQ),
+                is(equalTo(Optional.of(String.format(PreflightChecker.MISLABELLED_FILE, FileType.BAM, FileType.FASTQ)))));
+        assertThat(preflightChecker.check(getResourceFile("reads/valid.cram"), FileType.BAM),
+                is(equalTo(Optional.of(String.format(PreflightChecker.MISLABELLED_FILE, FileType.CRAM, FileType.BAM)))));
+        assertThat(preflightChecker.check(getResourceFile("reads/valid.fastq.gz"), FileType.VCF),
+                is(equalTo(Optional.of(String.format(PreflightChecker.MISLABELLED_FILE, FileType.FASTQ, FileType.VCF)))));
+    }
+
+    @Test
+    public void whenContentIsNotRecognised_ThenOnlyFileTypesWithMagicNumbersFail() throws IOException {
+        File file = createFile("reads.txt", "This is just a test file".getBytes(StandardCharsets.US_ASCII));
+
+        assertThat(preflightChecker.check(file, FileType.FASTQ), is(equalTo(Optional.empty())));
+        assertThat(preflightChecker.check(file, FileType.BAM), is(equalTo(Optional.of(PreflightChecker.NOT_BGZF))));
+        assertThat(preflightChecker.check(file, FileType.CRAM), is(equalTo(Optional.of(PreflightChecker.INVALID_CRAM_MAGIC))));
+        assertThat(preflightChecker.check(file, FileType.VCF), is(equalTo(Optional.of(PreflightChecker.INVALID_VCF_FORMAT))));
+    }
+
+    @Test
+    public void whenBgzfFileHasNoEofBlock_ThenItPasses() throws IOException {
+        byte[] bgzf = bgzf(FASTQ.getBytes(StandardCharsets.US_ASCII));
+        File file = createFile("reads.fastq.gz", Arrays.copyOf(bgzf, bgzf.length - 28));
+
+        assertThat(preflightChecker.check(file, FileType.FASTQ), is(equalTo(Optional.empty())));
+    }
+
+    @Test
+    public void whenBgzfEofBlockIsRequiredAndMissing_ThenFileFails() throws IOException {
+        byte[] bgzf = bgzf(FASTQ.getBytes(StandardCharsets.US_ASCII));
+        File file = createFile("reads.fastq.gz", Arrays.copyOf(bgzf, bgzf.length - 28));
+        PreflightConfig preflightConfig = new PreflightConfig();
+        preflightConfig.setEnabled(true);
+        preflightConfig.setRequireBgzfEof(true);
+
+        assertThat(new PreflightChecker(preflightConfig).check(file, FileType.FASTQ),
+                is(equalTo(Optional.of(PreflightChecker.MISSING_BGZF_EOF))));
+    }
+
+    @Test
+    public void whenGzipFileIsTruncatedOrNotCompressed_ThenItFails() throws IOException {
+        byte[] gzip = gzip(FASTQ.getBytes(StandardCharsets.US_ASCII));
+        File complete = createFile("complete.fastq.gz", gzip);
+        File truncated = createFile("truncated.fastq.gz", Arrays.copyOf(gzip, gzip.length - 6));
+        File notCompressed = createFile("plain.fastq.gz", FASTQ.getBytes(StandardCharsets.US_ASCII));
+
+        assertThat(preflightChecker.check(complete, FileType.FASTQ), is(equalTo(Optional.empty())));
+        assertThat(preflightChecker.check(truncated, FileType.FASTQ),
+                is(equalTo(Optional.of(String.format(PreflightChecker.INVALID_GZIP, "the file is truncated")))));
+        assertThat(preflightChecker.check(notCompressed, FileType.FASTQ), is(equalTo(Optional.of(PreflightChecker.NOT_GZIP))));
+    }
+
+    @Test
+    public void whenCramFileIsTruncated_ThenEofContainerIsMissing() throws IOException {
+        byte[] cram = Files.readAllBytes(getResourceFile("reads/valid.cram").toPath());
+        File file = createFile("reads.cram", Arrays.copyOf(cram, cram.length - 38));
+
+        assertThat(preflightChecker.check(file, FileType.CRAM), is(equalTo(Optional.of(PreflightChecker.MISSING_CRAM_EOF))));
+    }
+
+    @Test
+    public void whenFileIsEmpty_ThenItFails() throws IOException {
+        File file = createFile("reads.fastq", new byte[0]);
+
+        assertThat(preflightChecker.check(file, FileType.FASTQ), is(equalTo(Optional.of(PreflightChecker.EMPTY_FILE))));
+    }
+
+    private File createFile(String name, byte[] content) throws IOException {
+        File file = temporaryFolder.newFile(name);
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,99 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.publish;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.MessagingConfiguration;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResult;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResultBuilder;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResultsEnvelope;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.ValidationAuthor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class CompactMessagePostProcessorTest {
+
+    private static final String FILE_UUID = "112233-aabbcc-223344";
+    private static final int THRESHOLD_BYTES = 1024;
+
+    @Test
+    public void whenEncodingIsGzip_ThenLargeMessageIsGzippedJson() throws IOException {
+        SingleValidationResultsEnvelope envelope = createEnvelope(100);
+        Message message = createMessage(envelope);
+        int jsonLength = message.getBody().length;
+
+        Message compactMessage = new CompactMessagePostProcessor(MessageEncoding.GZIP, THRESHOLD_BYTES)
+                .postProcessMessage(message);
+
+        assertThat(compactMessage.getMessageProperties().getContentEncoding(),
+                is(equalTo(MessageCodec.CONTENT_ENCODING_GZIP)));
+        assertThat(compactMessage.getMessageProperties().getContentType(),
+                is(equalTo(MessageProperties.CONTENT_TYPE_JSON)));
+        assertTrue(compactMessage.getBody().length < jsonLength);
+        assertEnvelope(MessageCodec.decode(compactMessage, SingleValidationResultsEnvelope.class), envelope);
+    }
+
+    @Test
+    public void whenEncodingIsSmile_ThenLargeMessageIsSmile() throws IOException {
+        SingleValidationResultsEnvelope envelope = createEnvelope(100);
+
+        Message compactMessage = new CompactMessagePostProcessor(MessageEncoding.SMILE, THRESHOLD_BYTES)
+                .postProcessMessage(createMessage(envelope));
+
+        assertThat(compactMessage.getMessageProperties().getContentType(), is(equalTo(MessageCodec.CONTENT_TYPE_SMILE)));
+        assertThat(compactMessage.getMessageProperties().getContentEncoding(), is(nullValue()));
+        assertEnvelope(MessageCodec.decode(compactMessage, SingleValidationResultsEnvelope.class), envelope);
+    }
+
+    @Test
+    public void whenMessageIsBelowTheThreshold_ThenItIsSentAsJson() throws IOException {
+        SingleValidationResultsEnvelope envelope = createEnvelope(1);
+        Message message = createMessage(envelope);
+
+        Message sentMessage = new CompactMessagePostProcessor(MessageEncoding.GZIP, THRESHOLD_BYTES)
+                .postProcessMessage(message);
+
+        assertThat(sentMessage.getBody(), is(equalTo(message.getBody())));
+        assertThat(sentMessage.getMessageProperties().getContentEncoding(), is(nullValue()));
+        assertEnvelope(MessageCodec.decode(sentMessage, SingleValidationResultsEnvelope.class), envelope);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenEncodingIsUnknown_ThenExceptionThrown() {
+        MessageEncoding.getByName("xml");
+    }
+
+    private static SingleValidationResultsEnvelope createEnvelope(int resultCount) {
+        List<SingleValidationResult> results = new ArrayList<>();
+        for (int i = 0; i < resultCount; i++) {
+            results.add(SingleValidationResultBuilder.buildSingleValidationResultWithErrorStatus(
+                    "Line " + (4 * i + 1) + ": invalid quality character", FILE_UUID));
+        }
+        return new SingleValidationResultsEnvelope(results, 1, "result-" + FILE_UUID, ValidationAuthor.FileContent);
+    }
+
+    private static Message createMessage(SingleValidationResultsEnvelope envelope) throws IOException {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        return new Message(new MessagingConfiguration().jackson2Converter().getObjectMapper().writeValueAsBytes(envelope),
+                messageProperties);
+    }
+
+    private static void assertEnvelope(SingleValidationResultsEnvelope actual, SingleValidationResultsEnvelope expected) {
+        assertThat(actual.getSingleValidationResults().size(), is(equalTo(expected.getSingleValidationResults().size())));
+        assertThat(actual.getValidationResultUUID(), is(equalTo(expected.getValidationResultUUID())));
+        assertThat(actual.getSingleValidationResults().get(0).getMessage(),
+                is(equalTo(expected.getSingleValidationResults().get(0).getMessage())));
+    }
+}
@@ -0,0 +1,206 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.publish;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitMessagingTemplate;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.MessagingConfiguration;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.PublishConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResult;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResultBuilder;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.SingleValidationResultsEnvelope;
+import uk.ac.ebi.ait.filecontentvalidatorservice.dto.ValidationAuthor;
+import uk.ac.ebi.ait.filecontentvalidatorservice.exception.FileContentValidationException;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.metrics.ValidationMetrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ErrorMessages.PUBLISH_ERROR;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ValidationResultPublisherTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private ConnectionFactory connectionFactory;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PublishConfig publishConfig;
+    private ValidationResultPublisher publisher;
+
+    @Before
+    public void setUp() {
+        when(rabbitTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+
+        RabbitMessagingTemplate rabbitMessagingTemplate = new RabbitMessagingTemplate(rabbitTemplate);
+        rabbitMessagingTemplate.setMessageConverter(new MessagingConfiguration().jackson2Converter());
+
+        publishConfig = new PublishConfig();
+        publishConfig.setMaxInFlight(2);
+        publishConfig.setConfirmTimeoutSeconds(1);
+        publishConfig.setMaxAttempts(3);
+        publishConfig.setInitialBackoffMillis(1);
+        publishConfig.setMaxBackoffMillis(4);
+
+        publisher = new ValidationResultPublisher(rabbitMessagingTemplate, publishConfig, new ValidationMetrics(meterRegistry));
+    }
+
+    @Test
+    public void whenMessagesAreConfirmed_ThenEachIsSentOnceWithItsRoutingKey() {
+        confirmSends(true);
+
+        publisher.publish(Arrays.asList(createPassMessage("file-1"), createErrorMessage("file-2"), createPassMessage("file-3")));
+
+        ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate, times(2)).send(eq(ValidationResultPublisher.SUBMISSION_EXCHANGE),
+                eq(ValidationResultPublisher.EVENT_VALIDATION_SUCCESS), messageCaptor.capture(), any(CorrelationData.class));
+        verify(rabbitTemplate, times(1)).send(eq(ValidationResultPublisher.SUBMISSION_EXCHANGE),
+                eq(ValidationResultPublisher.EVENT_VALIDATION_ERROR), any(Message.class), any(CorrelationData.class));
+
+        Message message = messageCaptor.getAllValues().get(0);
+        assertThat(message.getMessageProperties().getContentType(), containsString("application/json"));
+        assertThat(new String(message.getBody(), StandardCharsets.UTF_8), containsString("file-1"));
+        assertThat(meterRegistry.get("file.content.validation.publish.latency").timer().count(), is(equalTo(3L)));
+    }
+
+    @Test
+    public void whenMessageIsNacked_ThenItIsSentAgain() {
+        when(connectionFactory.isPublisherConfirms()).thenReturn(true);
+        AtomicInteger sendCount = new AtomicInteger();
+        doAnswer(invocation -> {
+            CorrelationData correlationData = invocation.getArgument(3);
+            correlationData.getFuture().set(new CorrelationData.Confirm(sendCount.incrementAndGet() > 1, null));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        publisher.publish(Collections.singletonList(createPassMessage("file-1")));
+
+        assertThat(sendCount.get(), is(equalTo(2)));
+    }
+
+    @Test
+    public void whenMessageIsNeverConfirmed_ThenPublishingFailsAfterTheLastAttempt() {
+        confirmSends(false);
+
+        try {
+            publisher.publish(Collections.singletonList(createErrorMessage("file-1")));
+            throw new AssertionError("Publishing should have failed");
+        } catch (FileContentValidationException ex) {
+            assertThat(ex.getMessage(), is(equalTo(String.format(PUBLISH_ERROR, 1, 3))));
+        }
+
+        verify(rabbitTemplate, times(3)).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    public void whenPublisherConfirmsAreDisabled_ThenMessagesAreSentWithoutCorrelation() {
+        when(connectionFactory.isPublisherConfirms()).thenReturn(false);
+
+        publisher.publish(Arrays.asList(createPassMessage("file-1"), createErrorMessage("file-2")));
+
+        verify(rabbitTemplate).send(eq(ValidationResultPublisher.SUBMISSION_EXCHANGE),
+                eq(ValidationResultPublisher.EVENT_VALIDATION_SUCCESS), any(Message.class));
+        verify(rabbitTemplate).send(eq(ValidationResultPublisher.SUBMISSION_EXCHANGE),
+                eq(ValidationResultPublisher.EVENT_VALIDATION_ERROR), any(Message.class));
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    public void whenStreamingIsEnabled_ThenResultsAreSentInSequencedChunks() throws IOException {
+        when(connectionFactory.isPublisherConfirms()).thenReturn(false);
+        publishConfig.setStreaming(true);
+        publishConfig.setChunkSize(2);
+
+        List<SingleValidationResult> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(SingleValidationResultBuilder.buildSingleValidationResultWithErrorStatus("Error " + i, "file-1"));
+        }
+        publisher.publish(Collections.singletonList(createMessage("file-1",
+                new SingleValidationResultsEnvelope(results, 0, "result-file-1", ValidationAuthor.FileContent))));
+
+        ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate, times(3)).send(eq(ValidationResultPublisher.SUBMISSION_EXCHANGE),
+                eq(ValidationResultPublisher.EVENT_VALIDATION_ERROR), messageCaptor.capture());
+
+        ObjectMapper objectMapper = new MessagingConfiguration().jackson2Converter().getObjectMapper();
+        for (int i = 0; i < 3; i++) {
+            SingleValidationResultsEnvelope chunk = objectMapper.readValue(
+                    messageCaptor.getAllValues().get(i).getBody(), SingleValidationResultsEnvelope.class);
+            assertThat(chunk.getValidationResultUUID(), is(equalTo("result-file-1")));
+            assertThat(chunk.getChunkSequence(), is(equalTo(i + 1)));
+            assertThat(chunk.getChunkCount(), is(equalTo(3)));
+            assertThat(chunk.getLastChunk(), is(equalTo(i == 2)));
+            assertThat(chunk.getSingleValidationResults().size(), is(equalTo(i == 2 ? 1 : 2)));
+            assertThat(chunk.getSingleValidationResults().get(0).getMessage(), is(equalTo("Error " + 2 * i)));
+        }
+    }
+
+    @Test
+    public void whenStreamingIsDisabled_ThenEnvelopeHasNoChunkFields() {
+        when(connectionFactory.isPublisherConfirms()).thenReturn(false);
+
+        publisher.publish(Collections.singletonList(createPassMessage("file-1")));
+
+        ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(anyString(), anyString(), messageCaptor.capture());
+        assertThat(new String(messageCaptor.getValue().getBody(), StandardCharsets.UTF_8),
+                not(containsString("chunk")));
+    }
+
+    private void confirmSends(boolean ack) {
+        when(connectionFactory.isPublisherConfirms()).thenReturn(true);
+        doAnswer(invocation -> {
+            CorrelationData correlationData = invocation.getArgument(3);
+            correlationData.getFuture().set(new CorrelationData.Confirm(ack, null));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    private static ValidationResultMessage createPassMessage(String fileUUID) {
+        return createMessage(fileUUID, new SingleValidationResultsEnvelope(
+                Collections.singletonList(SingleValidationResultBuilder.buildSingleValidationResultWithPassStatus(fileUUID)),
+                0, "result-" + fileUUID, ValidationAuthor.FileContent));
+    }
+
+    private static ValidationResultMessage createErrorMessage(String fileUUID) {
+        return createMessage(fileUUID, new SingleValidationResultsEnvelope(
+                Collections.singletonList(SingleValidationResultBuilder.buildSingleValidationResultWithErrorStatus(
+                        "This is an error message", fileUUID)),
+                0, "result-" + fileUUID, ValidationAuthor.FileContent));
+    }
+
+    private static ValidationResultMessage createMessage(String fileUUID, SingleValidationResultsEnvelope envelope) {
+        return new ValidationResultMessage(fileUUID, "FASTQ", 100, envelope);
+    }
+}
@@ -0,0 +1,79 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.reads;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.CommandLineParameters;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.CommandLineParametersBuilder;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.FileContentValidationHandler;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationJobContext;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+import uk.ac.ebi.ena.webin.cli.validator.manifest.ReadsManifest.FileType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationHelper.deleteReportFileFolderAfterTestExecution;
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationHelper.getResourceFile;
+
+/**
+ * Validates CRAM files with the optional structure check enabled, so corrupt files are failed before webin-cli.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "fileContentValidator.cramStructure.enabled=true")
+public class CramStructureValidationTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @SpyBean
+    FileContentValidationHandler validationHandler;
+
+    @After
+    public void tearDown() throws IOException {
+        deleteReportFileFolderAfterTestExecution();
+    }
+
+    @Test
+    public void whenCramIsValid_ThenCheckPassesItToWebinCli() throws IOException {
+        final String testFilePath = "reads/valid.cram";
+        doReturn(getResourceFile(testFilePath)).when(this.validationHandler).getData(testFilePath);
+
+        assertThat(validate(testFilePath), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+    }
+
+    @Test
+    public void whenCramIsCorrupt_ThenValidationFails() throws IOException {
+        final String testFilePath = "reads/corrupt.cram";
+        final byte[] content = Files.readAllBytes(getResourceFile("reads/valid.cram").toPath());
+        content[content.length - 60] ^= 0x7f;
+        final File corruptFile = temporaryFolder.newFile("corrupt.cram");
+        Files.write(corruptFile.toPath(), content);
+        doReturn(corruptFile).when(this.validationHandler).getData(testFilePath);
+
+        assertThat(validate(testFilePath), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+    }
+
+    private ValidationResponse.status validate(String testFilePath) {
+        final String filesParam = "validationResultUUID=" + UUID.randomUUID() + ","
+                + "validationResultVersion=0,"
+                + "fileUUID=" + UUID.randomUUID() + ","
+                + "filePath=" + testFilePath;
+        final CommandLineParameters commandLineParameters = CommandLineParametersBuilder.build(filesParam,
+                FileType.CRAM.toString(), UUID.randomUUID().toString());
+
+        final ValidationJobContext job = validationHandler.createJobContext(commandLineParameters);
+        return validationHandler.handleFileContentValidation(job).getStatus();
+    }
+}
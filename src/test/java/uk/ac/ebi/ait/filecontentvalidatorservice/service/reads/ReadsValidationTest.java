@@ -12,6 +12,7 @@ import org.springframework.test.context.junit4.SpringRunner;
 import uk.ac.ebi.ait.filecontentvalidatorservice.config.CommandLineParameters;
 import uk.ac.ebi.ait.filecontentvalidatorservice.service.CommandLineParametersBuilder;
 import uk.ac.ebi.ait.filecontentvalidatorservice.service.FileContentValidationHandler;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationJobContext;
 import uk.ac.ebi.ait.filecontentvalidatorservice.utils.ReportTester;
 import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
 import uk.ac.ebi.ena.webin.cli.validator.manifest.ReadsManifest.FileType;
@@ -70,14 +71,14 @@ public class ReadsValidationTest {
         String filesParam = TEST_INITIAL_FILE_PARAMS + "filePath=" + testFilePath;
         final CommandLineParameters commandLineParameters = CommandLineParametersBuilder.build(filesParam,
                 FileType.BAM.toString(), submissionUUID);
-        validationHandler.setCommandLineParameters(commandLineParameters);
         doReturn(getResourceFile(testFilePath)).when(this.validationHandler).getData(anyString());
 
-        assertThat(validationHandler.handleFileContentValidation().getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        final ValidationJobContext job = validationHandler.createJobContext(commandLineParameters);
+        assertThat(validationHandler.handleFileContentValidation(job).getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
 
-        new ReportTester(validationHandler.getValidationDir()).textInFileReport("invalid.bam", "File contains no valid reads");
+        new ReportTester(job.getValidationDir()).textInFileReport("invalid.bam", "File contains no valid reads");
 
-        printReportFileContent(validationHandler.getValidationDir());
+        printReportFileContent(job.getValidationDir());
     }
 
     @Test
@@ -86,12 +87,12 @@ public class ReadsValidationTest {
         String filesParam = TEST_INITIAL_FILE_PARAMS + "filePath=" + testFilePath;
         final CommandLineParameters commandLineParameters =
                 CommandLineParametersBuilder.build(filesParam, FileType.BAM.toString(), submissionUUID);
-        validationHandler.setCommandLineParameters(commandLineParameters);
         doReturn(getResourceFile(testFilePath)).when(this.validationHandler).getData(anyString());
 
-        assertThat(validationHandler.handleFileContentValidation().getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        final ValidationJobContext job = validationHandler.createJobContext(commandLineParameters);
+        assertThat(validationHandler.handleFileContentValidation(job).getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
 
-        printReportFileContent(validationHandler.getValidationDir());
+        printReportFileContent(job.getValidationDir());
     }
 
     @Test
@@ -100,14 +101,14 @@ public class ReadsValidationTest {
         String filesParam = TEST_INITIAL_FILE_PARAMS + "filePath=" + testFilePath;
         final CommandLineParameters commandLineParameters =
                 CommandLineParametersBuilder.build(filesParam, FileType.FASTQ.toString(), submissionUUID);
-        validationHandler.setCommandLineParameters(commandLineParameters);
         doReturn(getResourceFile(testFilePath)).when(this.validationHandler).getData(anyString());
 
-        assertThat(validationHandler.handleFileContentValidation().getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        final ValidationJobContext job = validationHandler.createJobContext(commandLineParameters);
+        assertThat(validationHandler.handleFileContentValidation(job).getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
 
-        new ReportTester(validationHandler.getValidationDir()).textInFileReport("invalid.fastq.gz", "does not match FASTQ regexp");
+        new ReportTester(job.getValidationDir()).textInFileReport("invalid.fastq.gz", "does not match FASTQ regexp");
 
-        printReportFileContent(validationHandler.getValidationDir());
+        printReportFileContent(job.getValidationDir());
     }
 
     @Test
@@ -116,12 +117,12 @@ public class ReadsValidationTest {
         String filesParam = TEST_INITIAL_FILE_PARAMS + "filePath=" + testFilePath;
         final CommandLineParameters commandLineParameters =
                 CommandLineParametersBuilder.build(filesParam, FileType.FASTQ.toString(), submissionUUID);
-        validationHandler.setCommandLineParameters(commandLineParameters);
         doReturn(getResourceFile(testFilePath)).when(this.validationHandler).getData(testFilePath);
 
-        assertThat(validationHandler.handleFileContentValidation().getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        final ValidationJobContext job = validationHandler.createJobContext(commandLineParameters);
+        assertThat(validationHandler.handleFileContentValidation(job).getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
 
-        printReportFileContent(validationHandler.getValidationDir());
+        printReportFileContent(job.getValidationDir());
     }
 
     @Test
@@ -132,16 +133,16 @@ public class ReadsValidationTest {
                 + TEST_INITIAL_FILE2_PARAMS + "filePath=" + testFile2Path;
         final CommandLineParameters commandLineParameters =
                 CommandLineParametersBuilder.build(filesParam, FileType.FASTQ.toString(), submissionUUID);
-        validationHandler.setCommandLineParameters(commandLineParameters);
         doReturn(getResourceFile(testFile1Path)).when(this.validationHandler).getData(testFile1Path);
         doReturn(getResourceFile(testFile2Path)).when(this.validationHandler).getData(testFile2Path);
 
-        final ReadsValidationResponse validationResponse = (ReadsValidationResponse) validationHandler.handleFileContentValidation();
+        final ValidationJobContext job = validationHandler.createJobContext(commandLineParameters);
+        final ReadsValidationResponse validationResponse = (ReadsValidationResponse) validationHandler.handleFileContentValidation(job);
         assertThat(validationResponse.getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
 
         assertThat(validationResponse.isPaired(), is(equalTo(Boolean.TRUE)));
 
-        printReportFileContent(validationHandler.getValidationDir());
+        printReportFileContent(job.getValidationDir());
     }
 
     @Test
@@ -150,14 +151,14 @@ public class ReadsValidationTest {
         String filesParam = TEST_INITIAL_FILE_PARAMS + "filePath=" + testFilePath;
         final CommandLineParameters commandLineParameters =
                 CommandLineParametersBuilder.build(filesParam, FileType.FASTQ.toString(), submissionUUID);
-        validationHandler.setCommandLineParameters(commandLineParameters);
         doReturn(getResourceFile(testFilePath)).when(this.validationHandler).getData(testFilePath);
 
-        final ReadsValidationResponse validationResponse = (ReadsValidationResponse) validationHandler.handleFileContentValidation();
+        final ValidationJobContext job = validationHandler.createJobContext(commandLineParameters);
+        final ReadsValidationResponse validationResponse = (ReadsValidationResponse) validationHandler.handleFileContentValidation(job);
 
         assertThat(validationResponse.isPaired(), is(equalTo(Boolean.TRUE)));
 
-        printReportFileContent(validationHandler.getValidationDir());
+        printReportFileContent(job.getValidationDir());
     }
 
     @Test
@@ -168,15 +169,15 @@ public class ReadsValidationTest {
                 + TEST_INITIAL_FILE2_PARAMS + "filePath=" + testFile2Path;
         final CommandLineParameters commandLineParameters =
                 CommandLineParametersBuilder.build(filesParam, FileType.FASTQ.toString(), submissionUUID);
-        validationHandler.setCommandLineParameters(commandLineParameters);
         doReturn(getResourceFile(testFile1Path)).when(this.validationHandler).getData(testFile1Path);
         doReturn(getResourceFile(testFile2Path)).when(this.validationHandler).getData(testFile2Path);
 
-        assertThat(validationHandler.handleFileContentValidation().getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        final ValidationJobContext job = validationHandler.createJobContext(commandLineParameters);
+        assertThat(validationHandler.handleFileContentValidation(job).getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
 
-        new ReportTester(validationHandler.getValidationDir()).textInSubmissionReport( "Detected paired fastq submission with less than 20% of paired reads");
+        new ReportTester(job.getValidationDir()).textInSubmissionReport( "Detected paired fastq submission with less than 20% of paired reads");
 
-        printReportFileContent(validationHandler.getValidationDir());
+        printReportFileContent(job.getValidationDir());
     }
 
     @Test
@@ -187,15 +188,15 @@ public class ReadsValidationTest {
                 + TEST_INITIAL_FILE2_PARAMS + "filePath=" + testFile2Path;
         final CommandLineParameters commandLineParameters =
                 CommandLineParametersBuilder.build(filesParam, FileType.FASTQ.toString(), submissionUUID);
-        validationHandler.setCommandLineParameters(commandLineParameters);
         doReturn(getResourceFile(testFile1Path)).when(this.validationHandler).getData(testFile1Path);
         doReturn(getResourceFile(testFile2Path)).when(this.validationHandler).getData(testFile2Path);
 
-        assertThat(validationHandler.handleFileContentValidation().getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        final ValidationJobContext job = validationHandler.createJobContext(commandLineParameters);
+        assertThat(validationHandler.handleFileContentValidation(job).getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
 
-        new ReportTester(validationHandler.getValidationDir()).textInSubmissionReport( "Multiple (1) occurrences of read name");
+        new ReportTester(job.getValidationDir()).textInSubmissionReport( "Multiple (1) occurrences of read name");
 
-        printReportFileContent(validationHandler.getValidationDir());
+        printReportFileContent(job.getValidationDir());
     }
 
     @Test
@@ -204,14 +205,14 @@ public class ReadsValidationTest {
         String filesParam = TEST_INITIAL_FILE_PARAMS + "filePath=" + testFilePath;
         final CommandLineParameters commandLineParameters =
                 CommandLineParametersBuilder.build(filesParam, FileType.CRAM.toString(), submissionUUID);
-        validationHandler.setCommandLineParameters(commandLineParameters);
         doReturn(getResourceFile(testFilePath)).when(this.validationHandler).getData(testFilePath);
 
-        assertThat(validationHandler.handleFileContentValidation().getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
+        final ValidationJobContext job = validationHandler.createJobContext(commandLineParameters);
+        assertThat(validationHandler.handleFileContentValidation(job).getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_ERROR)));
 
-        new ReportTester(validationHandler.getValidationDir()).textInFileReport( "invalid.cram", "File contains no valid reads");
+        new ReportTester(job.getValidationDir()).textInFileReport( "invalid.cram", "File contains no valid reads");
 
-        printReportFileContent(validationHandler.getValidationDir());
+        printReportFileContent(job.getValidationDir());
     }
 
     @Test
@@ -220,12 +221,12 @@ public class ReadsValidationTest {
         String filesParam = TEST_INITIAL_FILE_PARAMS + "filePath=" + testFilePath;
         final CommandLineParameters commandLineParameters =
                 CommandLineParametersBuilder.build(filesParam, FileType.CRAM.toString(), submissionUUID);
-        validationHandler.setCommandLineParameters(commandLineParameters);
         doReturn(getResourceFile(testFilePath)).when(this.validationHandler).getData(testFilePath);
 
-        assertThat(validationHandler.handleFileContentValidation().getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        final ValidationJobContext job = validationHandler.createJobContext(commandLineParameters);
+        assertThat(validationHandler.handleFileContentValidation(job).getStatus(), is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
 
-        printReportFileContent(validationHandler.getValidationDir());
+        printReportFileContent(job.getValidationDir());
     }
 
     private void printReportFileContent(File reportFilePath) throws IOException {
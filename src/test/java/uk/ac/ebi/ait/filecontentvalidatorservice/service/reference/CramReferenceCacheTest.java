@@ -0,0 +1,154 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.reference;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceRecord;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.CommandLineParameters;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.CommandLineParametersBuilder;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.FileContentValidationHandler;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationJobContext;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+import uk.ac.ebi.ena.webin.cli.validator.manifest.ReadsManifest.FileType;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationHelper.deleteReportFileFolderAfterTestExecution;
+
+/**
+ * Validates a CRAM file against a random reference sequence that is only in the reference store, so it can only be
+ * found through the REF_CACHE the store points webin-cli at: it cannot be downloaded.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "fileContentValidator.reference.enabled=true",
+        "fileContentValidator.reference.dir=build/test-reference-cache",
+        "fileContentValidator.reference.download=true"})
+public class CramReferenceCacheTest {
+
+    private static final String SEQUENCE_NAME = "random1";
+    private static final int SEQUENCE_LENGTH = 20000;
+    private static final int READ_LENGTH = 100;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @SpyBean
+    FileContentValidationHandler validationHandler;
+
+    @Autowired
+    CramReferenceStore referenceStore;
+
+    @After
+    public void tearDown() throws IOException {
+        deleteReportFileFolderAfterTestExecution();
+    }
+
+    @Test
+    public void whenReferenceIsInStore_ThenCramIsValidatedWithoutDownloadingIt() throws IOException {
+        final byte[] bases = randomBases();
+        final File fasta = writeFasta(bases);
+        referenceStore.seed(fasta);
+
+        final String testFilePath = "reads/random-reference.cram";
+        final File cramFile = writeCram(bases, fasta);
+        final String filesParam = "validationResultUUID=" + UUID.randomUUID() + ","
+                + "validationResultVersion=0,"
+                + "fileUUID=" + UUID.randomUUID() + ","
+                + "filePath=" + testFilePath;
+        final CommandLineParameters commandLineParameters = CommandLineParametersBuilder.build(filesParam,
+                FileType.CRAM.toString(), UUID.randomUUID().toString());
+        doReturn(cramFile).when(this.validationHandler).getData(testFilePath);
+
+        final ValidationJobContext job = validationHandler.createJobContext(commandLineParameters);
+        assertThat(validationHandler.handleFileContentValidation(job).getStatus(),
+                is(equalTo(ValidationResponse.status.VALIDATION_SUCCESS)));
+        assertThat(referenceStore.contains(md5(bases)), is(true));
+    }
+
+    private static byte[] randomBases() {
+        final byte[] alphabet = "ACGT".getBytes(StandardCharsets.US_ASCII);
+        final Random random = new Random();
+        final byte[] bases = new byte[SEQUENCE_LENGTH];
+        for (int i = 0; i < bases.length; i++) {
+            bases[i] = alphabet[random.nextInt(alphabet.length)];
+        }
+        return bases;
+    }
+
+    /**
+     * Writes the sequence on a single line with its index, which the CRAM writer needs to look up the bases.
+     */
+    private File writeFasta(byte[] bases) throws IOException {
+        final String nameLine = ">" + SEQUENCE_NAME + "\n";
+        final File fasta = temporaryFolder.newFile("reference.fa");
+        Files.write(fasta.toPath(), (nameLine + new String(bases, StandardCharsets.US_ASCII) + "\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        Files.write(new File(fasta.getPath() + ".fai").toPath(), String.format("%s\t%d\t%d\t%d\t%d\n",
+                SEQUENCE_NAME, bases.length, nameLine.length(), bases.length, bases.length + 1)
+                .getBytes(StandardCharsets.US_ASCII));
+        return fasta;
+    }
+
+    private File writeCram(byte[] bases, File fasta) throws IOException {
+        final SAMSequenceRecord sequenceRecord = new SAMSequenceRecord(SEQUENCE_NAME, bases.length);
+        sequenceRecord.setAttribute(SAMSequenceRecord.MD5_TAG, md5(bases));
+        final SAMFileHeader header = new SAMFileHeader();
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        header.addSequence(sequenceRecord);
+
+        final File cramFile = temporaryFolder.newFile("random-reference.cram");
+        final byte[] qualities = new byte[READ_LENGTH];
+        Arrays.fill(qualities, (byte) 30);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(cramFile));
+             SAMFileWriter writer = new SAMFileWriterFactory().makeCRAMWriter(header, out, fasta)) {
+            for (int start = 0; start + READ_LENGTH <= bases.length; start += READ_LENGTH / 2) {
+                final SAMRecord record = new SAMRecord(header);
+                record.setReadName("read" + start);
+                record.setReferenceIndex(0);
+                record.setAlignmentStart(start + 1);
+                record.setMappingQuality(60);
+                record.setCigarString(READ_LENGTH + "M");
+                record.setReadBases(Arrays.copyOfRange(bases, start, start + READ_LENGTH));
+                record.setBaseQualities(qualities);
+                writer.addAlignment(record);
+            }
+        }
+        return cramFile;
+    }
+
+    private static String md5(byte[] bases) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(bases);
+            return String.format("%032x", new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.reference;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import uk.ac.ebi.ait.filecontentvalidatorservice.config.CramReferenceConfig;
+import uk.ac.ebi.ait.filecontentvalidatorservice.exception.FileHandleException;
+import uk.ac.ebi.ait.filecontentvalidatorservice.service.engine.DataFileStreams;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(JUnit4.class)
+public class CramReferenceStoreTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private CramReferenceConfig referenceConfig;
+    private CramReferenceStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        referenceConfig = new CramReferenceConfig();
+        referenceConfig.setEnabled(true);
+        referenceConfig.setReferenceDir(temporaryFolder.newFolder("references"));
+        referenceConfig.setMaxSizeMB(1);
+        referenceConfig.setDownload(true);
+
+        store = new CramReferenceStore(referenceConfig, new DataFileStreams());
+    }
+
+    @Test
+    public void whenFastaIsSeeded_ThenSequencesAreStoredByNormalisedMd5() throws IOException {
+        File fasta = createFile("reference.fa", ">chr1 first\nacgtn\nACGTN\n>chr2\nTT TT\n");
+
+        int sequenceCount = store.seed(fasta);
+
+        assertThat(sequenceCount, is(equalTo(2)));
+        assertThat(getBases(md5("ACGTNACGTN")), is(equalTo("ACGTNACGTN")));
+        assertThat(getBases(md5("TTTT")), is(equalTo("TTTT")));
+        assertThat(store.getSequenceFile(md5("TTTT")).getParentFile().getParentFile().getParentFile(),
+                is(equalTo(referenceConfig.getReferenceDir())));
+    }
+
+    @Test
+    public void whenSequenceIsMissingOrMd5IsInvalid_ThenStoreDoesNotContainIt() {
+        assertThat(store.contains(md5("ACGT")), is(false));
+        assertThat(store.contains("not-an-md5"), is(false));
+    }
+
+    @Test
+    public void whenStoreIsOverItsSize_ThenLeastRecentlyUsedSequenceIsEvicted() {
+        byte[] bases = new byte[400 * 1024];
+        String md5A = store.put(fill(bases, (byte) 'A'), bases.length);
+        String md5C = store.put(fill(bases, (byte) 'C'), bases.length);
+        store.getSequenceFile(md5A).setLastModified(System.currentTimeMillis() - 20000);
+        store.getSequenceFile(md5C).setLastModified(System.currentTimeMillis() - 10000);
+
+        store.getSequenceFile(md5A).setLastModified(System.currentTimeMillis());
+        String md5G = store.put(fill(bases, (byte) 'G'), bases.length);
+
+        assertThat(store.contains(md5A), is(true));
+        assertThat(store.contains(md5C), is(false));
+        assertThat(store.contains(md5G), is(true));
+    }
+
+    @Test
+    public void whenSequenceIsInUse_ThenItIsNotEvictedUntilItIsReleased() {
+        byte[] bases = new byte[400 * 1024];
+        String md5A = store.put(fill(bases, (byte) 'A'), bases.length);
+        String md5C = store.put(fill(bases, (byte) 'C'), bases.length);
+        Set<String> inUse = Collections.singleton(md5A);
+        store.acquire(inUse);
+        store.getSequenceFile(md5A).setLastModified(System.currentTimeMillis() - 20000);
+        store.getSequenceFile(md5C).setLastModified(System.currentTimeMillis() - 10000);
+
+        String md5G = store.put(fill(bases, (byte) 'G'), bases.length);
+
+        assertThat(store.contains(md5A), is(true));
+        assertThat(store.contains(md5C), is(false));
+        assertThat(store.contains(md5G), is(true));
+
+        store.release(inUse);
+        store.getSequenceFile(md5A).setLastModified(System.currentTimeMillis() - 20000);
+        String md5T = store.put(fill(bases, (byte) 'T'), bases.length);
+
+        assertThat(store.contains(md5A), is(false));
+        assertThat(store.contains(md5G), is(true));
+        assertThat(store.contains(md5T), is(true));
+    }
+
+    @Test(expected = FileHandleException.class)
+    public void whenFastaHasNoNameLine_ThenSeedingFails() throws IOException {
+        store.seed(createFile("reference.fa", "ACGT\n"));
+    }
+
+    private String getBases(String md5) throws IOException {
+        return new String(Files.readAllBytes(store.getSequenceFile(md5).toPath()), StandardCharsets.US_ASCII);
+    }
+
+    private static String md5(String bases) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(bases.getBytes(StandardCharsets.US_ASCII));
+            return String.format("%032x", new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static byte[] fill(byte[] bases, byte base) {
+        Arrays.fill(bases, base);
+        return bases;
+    }
+
+    private File createFile(String name, String content) throws IOException {
+        File file = temporaryFolder.newFile(name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+}
@@ -0,0 +1,75 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.report;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(JUnit4.class)
+public class ErrorSummaryTest {
+
+    @Test
+    public void whenMessagesOnlyDifferInVariableParts_ThenTheyAreCountedInOneGroup() {
+        ErrorSummary errorSummary = new ErrorSummary(10, 2, 10_000);
+
+        for (int line = 1; line <= 1000; line++) {
+            errorSummary.add("Line " + line + " does not match FASTQ regexp [file: /data/reads_1.fastq.gz]");
+        }
+
+        List<ErrorGroup> groups = errorSummary.getGroups();
+        assertThat(groups.size(), is(equalTo(1)));
+        assertThat(groups.get(0).getTemplate(), is(equalTo("Line # does not match FASTQ regexp")));
+        assertThat(groups.get(0).getCount(), is(equalTo(1000L)));
+        assertThat(groups.get(0).getExamples().size(), is(equalTo(2)));
+        assertThat(groups.get(0).getSummaryMessage(), is(equalTo(
+                "Line # does not match FASTQ regexp (1000 occurrences, e.g. "
+                        + "Line 1 does not match FASTQ regexp [file: /data/reads_1.fastq.gz]; "
+                        + "Line 2 does not match FASTQ regexp [file: /data/reads_1.fastq.gz])")));
+    }
+
+    @Test
+    public void whenMessageOccursOnce_ThenSummaryIsTheMessageItself() {
+        ErrorSummary errorSummary = new ErrorSummary(10, 3, 10_000);
+
+        errorSummary.add("Multiple (1) occurrences of read name \"HISEQ2:175:C1526ACXX:4:2301:12867:9582\"");
+
+        assertThat(errorSummary.getGroups().get(0).getSummaryMessage(), is(equalTo(
+                "Multiple (1) occurrences of read name \"HISEQ2:175:C1526ACXX:4:2301:12867:9582\"")));
+    }
+
+    @Test
+    public void whenSameMessageRepeats_ThenSummaryHasItsCount() {
+        ErrorSummary errorSummary = new ErrorSummary(10, 3, 10_000);
+
+        errorSummary.add("File contains no valid reads");
+        errorSummary.add("File contains no valid reads");
+
+        assertThat(errorSummary.getGroups().get(0).getSummaryMessage(),
+                is(equalTo("File contains no valid reads (2 occurrences)")));
+    }
+
+    @Test
+    public void whenCapsAreReached_ThenNewKindsOfErrorsAreDropped() {
+        ErrorSummary errorSummary = new ErrorSummary(2, 3, 10_000);
+
+        errorSummary.add("First kind of error");
+        errorSummary.add("Second kind of error");
+        errorSummary.add("Third kind of error");
+        errorSummary.add("First kind of error");
+
+        assertThat(errorSummary.getGroups().size(), is(equalTo(2)));
+        assertThat(errorSummary.getGroups().get(0).getCount(), is(equalTo(2L)));
+        assertThat(errorSummary.getDroppedCount(), is(equalTo(1L)));
+
+        ErrorSummary smallSummary = new ErrorSummary(10, 3, 30);
+        smallSummary.add("A very long error message of the first kind");
+
+        assertThat(smallSummary.getGroups().isEmpty(), is(true));
+        assertThat(smallSummary.getDroppedCount(), is(equalTo(1L)));
+    }
+}
@@ -0,0 +1,106 @@
+package uk.ac.ebi.ait.filecontentvalidatorservice.service.report;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static uk.ac.ebi.ait.filecontentvalidatorservice.service.ValidationHelper.getResourceFile;
+
+@RunWith(JUnit4.class)
+public class ReportFileParserTest {
+
+    private static final File DATA_FILE_1 = new File("/data/reads_1.fastq.gz");
+    private static final File DATA_FILE_2 = new File("/data/reads_2.fastq.gz");
+    private static final List<File> DATA_FILES = Arrays.asList(DATA_FILE_1, DATA_FILE_2);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void whenFileReportHasErrors_ThenDistinctErrorsBelongToTheDataFile() throws IOException {
+        ValidationReport validationReport = new ValidationReport(100, 3, 10_000);
+
+        ReportFileParser.parse(getResourceFile("reportfiles/invalid_not_paired_2.fastq.gz.report"), DATA_FILE_2,
+                validationReport);
+
+        List<String> file2Errors = getMessages(validationReport, DATA_FILE_2);
+        assertThat(file2Errors.size(), is(equalTo(2)));
+        assertThat(file2Errors, hasItem("This is an error message"));
+        assertThat(file2Errors, hasItem("This is another error message"));
+        assertThat(getMessages(validationReport, DATA_FILE_1).isEmpty(), is(true));
+    }
+
+    @Test
+    public void whenSubmissionReportErrorNamesAFile_ThenItIsRoutedToThatFile() throws IOException {
+        ValidationReport validationReport = new ValidationReport(100, 3, 10_000);
+        File reportFile = createReport(
+                "INFO: Collected 1 reads [file: /data/reads_1.fastq.gz]",
+                "ERROR: Invalid quality [file: /data/reads_1.fastq.gz]",
+                "ERROR: Invalid read name [file: /other/unknown.fastq.gz]",
+                "ERROR: Detected paired fastq submission with less than 20% of paired reads");
+
+        ReportFileParser.parse(reportFile, null, validationReport);
+        List<String> file1Errors = getMessages(validationReport, DATA_FILE_1);
+        List<String> file2Errors = getMessages(validationReport, DATA_FILE_2);
+
+        assertThat(file1Errors.size(), is(equalTo(3)));
+        assertThat(file1Errors, hasItem("Invalid quality [file: /data/reads_1.fastq.gz]"));
+        assertThat(file2Errors.size(), is(equalTo(2)));
+        assertThat(file2Errors, not(hasItem("Invalid quality [file: /data/reads_1.fastq.gz]")));
+        assertThat(file2Errors, hasItem("Invalid read name [file: /other/unknown.fastq.gz]"));
+    }
+
+    @Test
+    public void whenErrorBudgetIsReached_ThenReadingStops() throws IOException {
+        ValidationReport validationReport = new ValidationReport(2, 3, 10_000);
+        File reportFile = createReport(
+                "ERROR: First kind of error",
+                "ERROR: Second kind of error",
+                "ERROR: Third kind of error",
+                "ERROR: Fourth kind of error");
+
+        ReportFileParser.parse(reportFile, DATA_FILE_1, validationReport);
+
+        ErrorSummary file1Errors = validationReport.getErrors(DATA_FILE_1, DATA_FILES);
+        assertThat(file1Errors.getGroups().size(), is(equalTo(2)));
+        assertThat(file1Errors.getDroppedCount(), is(equalTo(1L)));
+        assertThat(validationReport.isFull(DATA_FILE_1), is(true));
+        assertThat(validationReport.isFull(DATA_FILE_2), is(false));
+    }
+
+    @Test
+    public void whenReportFileIsIngestedTwice_ThenSecondTimeIsSkipped() throws IOException {
+        ValidationReport validationReport = new ValidationReport(100, 3, 10_000);
+        File reportFile = createReport("ERROR: Error 1");
+
+        assertThat(validationReport.markIngested(reportFile), is(true));
+        assertThat(validationReport.markIngested(reportFile), is(false));
+    }
+
+    private static List<String> getMessages(ValidationReport validationReport, File dataFile) {
+        return validationReport.getErrors(dataFile, DATA_FILES).getGroups().stream()
+                .map(ErrorGroup::getSummaryMessage)
+                .collect(Collectors.toList());
+    }
+
+    private File createReport(String... lines) throws IOException {
+        File reportFile = temporaryFolder.newFile();
+        Files.write(reportFile.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return reportFile;
+    }
+}